@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Per tenant cache of the resident identity provider details needed to validate self-contained DPoP access tokens,
+ * keyed by the tenant domain. Entries are cleared when the resident identity provider of the tenant is updated, and
+ * otherwise expire with the timeout of the {@code <Cache name="DPoPIssuerCache"/>} entry of the
+ * IdentityApplicationManagementCacheManager under {@code <CacheConfig>} in identity.xml.
+ */
+public class DPoPIssuerCache extends AuthenticationBaseCache<String, DPoPIssuerCacheEntry> {
+
+    private static final String DPOP_ISSUER_CACHE_NAME = "DPoPIssuerCache";
+
+    private static volatile DPoPIssuerCache instance = new DPoPIssuerCache();
+
+    private DPoPIssuerCache() {
+
+        super(DPOP_ISSUER_CACHE_NAME);
+    }
+
+    /**
+     * Returns DPoPIssuerCache instance
+     *
+     * @return instance of DPoPIssuerCache
+     */
+    public static DPoPIssuerCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import com.nimbusds.jose.JWSVerifier;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Issuer, signer certificate and signature verifier of the resident identity provider of a tenant, used to validate
+ * self-contained DPoP access tokens. The verifier is not serialized, hence an entry received from another node does
+ * not hold it.
+ */
+public class DPoPIssuerCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 1985046239412460163L;
+    private final String issuer;
+    private final IdentityProvider identityProvider;
+    private final X509Certificate certificate;
+    private final transient JWSVerifier verifier;
+
+    public DPoPIssuerCacheEntry(String issuer, IdentityProvider identityProvider, X509Certificate certificate,
+                                JWSVerifier verifier) {
+
+        this.issuer = issuer;
+        this.identityProvider = identityProvider;
+        this.certificate = certificate;
+        this.verifier = verifier;
+    }
+
+    public String getIssuer() {
+
+        return issuer;
+    }
+
+    public IdentityProvider getIdentityProvider() {
+
+        return identityProvider;
+    }
+
+    public X509Certificate getCertificate() {
+
+        return certificate;
+    }
+
+    /**
+     * @return Verifier of the signer certificate, or null if there is no certificate or the entry was received from
+     * another node.
+     */
+    public JWSVerifier getVerifier() {
+
+        return verifier;
+    }
+}
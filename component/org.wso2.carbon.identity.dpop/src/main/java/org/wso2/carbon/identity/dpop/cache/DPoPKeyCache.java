@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import com.nimbusds.jose.jwk.JWK;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+import java.util.Map;
+
+/**
+ * Cache of the verifiers and thumbprints of the public keys presented in DPoP proofs. A client signs every proof with
+ * the same key, so repeated proofs only pay for the signature verification. Entries are keyed by the RFC 7638
+ * required members of the key. An entry received from another node holds the thumbprint only, and the verifier is
+ * rebuilt on use. The timeout and capacity are set by the {@code <Cache name="DPoPKeyCache"/>} entry of the
+ * IdentityApplicationManagementCacheManager under {@code <CacheConfig>} in identity.xml.
+ */
+public class DPoPKeyCache extends AuthenticationBaseCache<String, DPoPKeyCacheEntry> {
+
+    private static final String DPOP_KEY_CACHE_NAME = "DPoPKeyCache";
+
+    private static volatile DPoPKeyCache instance = new DPoPKeyCache();
+
+    private DPoPKeyCache() {
+
+        super(DPOP_KEY_CACHE_NAME);
+    }
+
+    /**
+     * Returns DPoPKeyCache instance
+     *
+     * @return instance of DPoPKeyCache
+     */
+    public static DPoPKeyCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+
+    /**
+     * Get the cache key of a public key.
+     *
+     * @param jwk Public key.
+     * @return Canonical form of the required members of the key.
+     */
+    public static String getCacheKey(JWK jwk) {
+
+        // Required members are returned in lexicographic order, as used for the RFC 7638 thumbprint.
+        StringBuilder cacheKey = new StringBuilder();
+        for (Map.Entry<String, ?> member : jwk.getRequiredParams().entrySet()) {
+            cacheKey.append(member.getKey()).append('=').append(member.getValue()).append(';');
+        }
+        return cacheKey.toString();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import com.nimbusds.jose.JWSVerifier;
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+/**
+ * Verifier and thumbprint of a public key presented in DPoP proofs. The verifier is not serialized, hence an entry
+ * received from another node only holds the thumbprint.
+ */
+public class DPoPKeyCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -6126463502487307652L;
+    private final transient JWSVerifier verifier;
+    private final String thumbprint;
+
+    public DPoPKeyCacheEntry(JWSVerifier verifier, String thumbprint) {
+
+        this.verifier = verifier;
+        this.thumbprint = thumbprint;
+    }
+
+    /**
+     * @return Verifier of the public key, or null if the entry was received from another node.
+     */
+    public JWSVerifier getVerifier() {
+
+        return verifier;
+    }
+
+    public String getThumbprint() {
+
+        return thumbprint;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Cache of the DPoP token bindings of refresh tokens. The binding of a refresh token does not change during its
+ * lifetime, hence entries only need to be evicted when the refresh token is rotated or revoked. Refresh tokens without
+ * a DPoP binding are cached as well. The timeout and capacity are set by the
+ * {@code <Cache name="DPoPRefreshTokenBindingCache"/>} entry of the IdentityApplicationManagementCacheManager under
+ * {@code <CacheConfig>} in identity.xml.
+ */
+public class DPoPRefreshTokenBindingCache extends AuthenticationBaseCache<DPoPRefreshTokenBindingCacheKey,
+        DPoPRefreshTokenBindingCacheEntry> {
+
+    private static final String REFRESH_TOKEN_BINDING_CACHE_NAME = "DPoPRefreshTokenBindingCache";
+
+    private static volatile DPoPRefreshTokenBindingCache instance = new DPoPRefreshTokenBindingCache();
+
+    private DPoPRefreshTokenBindingCache() {
+
+        super(REFRESH_TOKEN_BINDING_CACHE_NAME);
+    }
+
+    /**
+     * Returns DPoPRefreshTokenBindingCache instance
+     *
+     * @return instance of DPoPRefreshTokenBindingCache
+     */
+    public static DPoPRefreshTokenBindingCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
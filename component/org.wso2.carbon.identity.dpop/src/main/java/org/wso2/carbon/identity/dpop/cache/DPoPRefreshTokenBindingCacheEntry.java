@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+
+/**
+ * DPoP token binding of a refresh token, or none if the refresh token is not DPoP bound.
+ */
+public class DPoPRefreshTokenBindingCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -2052384217766420184L;
+    private final TokenBinding tokenBinding;
+
+    public DPoPRefreshTokenBindingCacheEntry(TokenBinding tokenBinding) {
+
+        this.tokenBinding = tokenBinding;
+    }
+
+    /**
+     * @return DPoP binding of the refresh token, or null if the refresh token is not DPoP bound.
+     */
+    public TokenBinding getTokenBinding() {
+
+        return tokenBinding;
+    }
+}
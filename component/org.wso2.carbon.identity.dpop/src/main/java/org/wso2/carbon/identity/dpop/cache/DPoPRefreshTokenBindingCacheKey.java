@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of DPoPRefreshTokenBindingCache is a hash of the refresh token, so that plain tokens are not kept in
+ * the cache.
+ */
+public class DPoPRefreshTokenBindingCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 4630357431706312941L;
+    private final String refreshTokenHash;
+
+    public DPoPRefreshTokenBindingCacheKey(String refreshToken) {
+
+        this.refreshTokenHash = DigestUtils.sha256Hex(refreshToken);
+    }
+
+    public String getRefreshTokenHash() {
+
+        return refreshTokenHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        return o instanceof DPoPRefreshTokenBindingCacheKey
+                && refreshTokenHash.equals(((DPoPRefreshTokenBindingCacheKey) o).getRefreshTokenHash());
+    }
+
+    @Override
+    public int hashCode() {
+
+        return refreshTokenHash.hashCode();
+    }
+}
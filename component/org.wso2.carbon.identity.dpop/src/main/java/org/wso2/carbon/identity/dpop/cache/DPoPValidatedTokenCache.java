@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of DPoP access tokens that were successfully validated by the DPoP authentication handler. Entries are keyed
+ * by a hash of the access token, hold the thumbprint of the key the token is bound to, and expire at the token expiry
+ * or after {@value #MAX_TIME_TO_LIVE_MINUTES} minutes, whichever comes first. The upper bound limits how long a token
+ * revoked on another node is still accepted here. The capacity is set by the
+ * {@code <Cache name="DPoPValidatedTokenCache"/>} entry of the IdentityApplicationManagementCacheManager under
+ * {@code <CacheConfig>} in identity.xml.
+ */
+public class DPoPValidatedTokenCache extends AuthenticationBaseCache<DPoPValidatedTokenCacheKey,
+        DPoPValidatedTokenCacheEntry> {
+
+    private static final String VALIDATED_TOKEN_CACHE_NAME = "DPoPValidatedTokenCache";
+    private static final long MAX_TIME_TO_LIVE_MINUTES = 5;
+    private static final long MAX_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(MAX_TIME_TO_LIVE_MINUTES);
+
+    private static volatile DPoPValidatedTokenCache instance = new DPoPValidatedTokenCache();
+
+    private DPoPValidatedTokenCache() {
+
+        super(VALIDATED_TOKEN_CACHE_NAME);
+    }
+
+    /**
+     * Returns DPoPValidatedTokenCache instance
+     *
+     * @return instance of DPoPValidatedTokenCache
+     */
+    public static DPoPValidatedTokenCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+
+    /**
+     * Check whether the access token was validated earlier for the given key thumbprint and has not expired.
+     *
+     * @param accessToken Access token.
+     * @param jkt         Thumbprint of the key in the DPoP proof presented with the token.
+     * @return True if the validation result of the token can be reused.
+     */
+    public boolean isValid(String accessToken, String jkt) {
+
+        DPoPValidatedTokenCacheKey cacheKey = new DPoPValidatedTokenCacheKey(accessToken);
+        DPoPValidatedTokenCacheEntry cacheEntry = getValueFromCache(cacheKey);
+        if (cacheEntry == null) {
+            return false;
+        }
+        if (cacheEntry.isExpired(System.currentTimeMillis())) {
+            clearCacheEntry(cacheKey);
+            return false;
+        }
+        return cacheEntry.getJkt().equals(jkt);
+    }
+
+    /**
+     * Add a successfully validated access token to the cache.
+     *
+     * @param accessToken    Access token.
+     * @param jkt            Thumbprint of the key the token is bound to.
+     * @param validityPeriod Remaining validity period of the token in milliseconds.
+     */
+    public void addToCache(String accessToken, String jkt, long validityPeriod) {
+
+        if (validityPeriod <= 0) {
+            return;
+        }
+        addToCache(new DPoPValidatedTokenCacheKey(accessToken), new DPoPValidatedTokenCacheEntry(jkt,
+                System.currentTimeMillis() + Math.min(validityPeriod, MAX_TIME_TO_LIVE)));
+    }
+
+    /**
+     * Remove an access token from the cache.
+     *
+     * @param accessToken Access token.
+     */
+    public void clearCacheEntry(String accessToken) {
+
+        clearCacheEntry(new DPoPValidatedTokenCacheKey(accessToken));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+/**
+ * Thumbprint of the key a validated token is bound to, with the time until which the validation result can be
+ * reused.
+ */
+public class DPoPValidatedTokenCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 3304468514183372546L;
+    private final String jkt;
+    private final long expiryTime;
+
+    public DPoPValidatedTokenCacheEntry(String jkt, long expiryTime) {
+
+        this.jkt = jkt;
+        this.expiryTime = expiryTime;
+    }
+
+    public String getJkt() {
+
+        return jkt;
+    }
+
+    public boolean isExpired(long currentTime) {
+
+        return currentTime >= expiryTime;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of DPoPValidatedTokenCache is a hash of the access token, so that plain tokens are not kept in the
+ * cache.
+ */
+public class DPoPValidatedTokenCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -8187622459303960391L;
+    private final String accessTokenHash;
+
+    public DPoPValidatedTokenCacheKey(String accessToken) {
+
+        this.accessTokenHash = DigestUtils.sha256Hex(accessToken);
+    }
+
+    public String getAccessTokenHash() {
+
+        return accessTokenHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        return o instanceof DPoPValidatedTokenCacheKey
+                && accessTokenHash.equals(((DPoPValidatedTokenCacheKey) o).getAccessTokenHash());
+    }
+
+    @Override
+    public int hashCode() {
+
+        return accessTokenHash.hashCode();
+    }
+}
@@ -47,6 +47,20 @@ public class DPoPConstants {
     public static final String OAUTH_REVOKE_ENDPOINT = "/oauth2/revoke";
     public static final String SKIP_DPOP_VALIDATION_IN_REVOKE = "skip_dpop_validation_in_revoke";
     public static final boolean DEFAULT_SKIP_DPOP_VALIDATION_IN_REVOKE_VALUE = true;
+    public static final String ENABLE_DPOP_NONCE = "enable_dpop_nonce";
+    public static final String NONCE_VALIDITY_PERIOD = "nonce_validity_period";
+    public static final long DEFAULT_NONCE_VALIDITY = 60000;
+    public static final String NONCE_SECRET = "nonce_secret";
+    public static final String DPOP_NONCE = "nonce";
+    public static final String DPOP_NONCE_HEADER = "DPoP-Nonce";
+    public static final String WWW_AUTHENTICATE_HEADER = "WWW-Authenticate";
+    public static final String USE_DPOP_NONCE = "use_dpop_nonce";
+    public static final String USE_DPOP_NONCE_ERROR = "Server requires a valid nonce in the DPoP proof";
+    public static final String SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION =
+            "skip_persisted_token_signature_validation";
+    public static final String VALIDATED_DPOP_PROOF = "org.wso2.carbon.identity.dpop.validatedProof";
+    public static final String VALIDATED_ACCESS_TOKEN_DO = "org.wso2.carbon.identity.dpop.validatedAccessTokenDO";
+    public static final String REFRESH_TOKEN_BINDING = "org.wso2.carbon.identity.dpop.refreshTokenBinding";
 
     /**
      * This class defines SQLQueries.
@@ -58,5 +72,9 @@ public class DPoPConstants {
                         "FROM IDN_OAUTH2_ACCESS_TOKEN TOKEN LEFT JOIN IDN_OAUTH2_TOKEN_BINDING BINDING ON " +
                         "TOKEN.TOKEN_ID=BINDING.TOKEN_ID WHERE TOKEN.REFRESH_TOKEN = ? " +
                         "AND BINDING.TOKEN_BINDING_TYPE = ?";
+
+        public static final String RETRIEVE_TOKEN_BINDING_BY_TOKEN_ID =
+                "SELECT TOKEN_BINDING_TYPE,TOKEN_BINDING_VALUE,TOKEN_BINDING_REF FROM IDN_OAUTH2_TOKEN_BINDING " +
+                        "WHERE TOKEN_ID = ? AND TOKEN_BINDING_TYPE = ?";
     }
 }
@@ -34,4 +34,14 @@ public interface DPoPTokenManagerDAO {
      * @throws IdentityOAuth2Exception If an error occurs while retrieving the binding type.
      */
     TokenBinding getTokenBinding(String refreshToken, boolean isHashedToken) throws IdentityOAuth2Exception;
+
+    /**
+     * Returns the DPoP token binding of a token using its token id. Unlike the lookup by refresh token, this does
+     * not need a join with the access token table.
+     *
+     * @param tokenId Token id.
+     * @return DPoP TokenBinding of the token, or null if the token is not DPoP bound.
+     * @throws IdentityOAuth2Exception If an error occurs while retrieving the binding.
+     */
+    TokenBinding getTokenBindingByTokenId(String tokenId) throws IdentityOAuth2Exception;
 }
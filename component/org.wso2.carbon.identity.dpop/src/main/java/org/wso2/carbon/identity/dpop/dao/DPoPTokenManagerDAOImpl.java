@@ -27,6 +27,8 @@ import org.wso2.carbon.identity.oauth.tokenprocessor.TokenPersistenceProcessor;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -35,6 +37,7 @@ import java.util.List;
 public class DPoPTokenManagerDAOImpl implements DPoPTokenManagerDAO {
 
     private static TokenPersistenceProcessor hashingPersistenceProcessor;
+    private volatile JdbcTemplate jdbcTemplate;
 
     public DPoPTokenManagerDAOImpl() {
 
@@ -50,9 +53,29 @@ public class DPoPTokenManagerDAOImpl implements DPoPTokenManagerDAO {
         return getBindingFromRefreshToken(refreshToken, false);
     }
 
+    @Override
+    public TokenBinding getTokenBindingByTokenId(String tokenId) throws IdentityOAuth2Exception {
+
+        try {
+            List<TokenBinding> tokenBindingList = getTemplate().executeQuery(
+                    DPoPConstants.SQLQueries.RETRIEVE_TOKEN_BINDING_BY_TOKEN_ID,
+                    (resultSet, rowNumber) -> buildTokenBinding(resultSet),
+                    preparedStatement -> {
+                        int parameterIndex = 0;
+                        preparedStatement.setString(++parameterIndex, tokenId);
+                        preparedStatement.setString(++parameterIndex, DPoPConstants.DPOP_TOKEN_TYPE);
+                    });
+
+            return tokenBindingList.isEmpty() ? null : tokenBindingList.get(0);
+        } catch (DataAccessException e) {
+            String error = String.format("Error obtaining token binding type using token id: %s.", tokenId);
+            throw new IdentityOAuth2Exception(error, e);
+        }
+    }
+
     private TokenBinding getBindingFromRefreshToken(String refreshToken,boolean isTokenHashingEnabled) throws IdentityOAuth2Exception {
 
-        JdbcTemplate jdbcTemplate = Utils.getNewTemplate();
+        JdbcTemplate jdbcTemplate = getTemplate();
         if (isTokenHashingEnabled) {
             refreshToken = hashingPersistenceProcessor.getProcessedRefreshToken(refreshToken);
         }
@@ -60,14 +83,7 @@ public class DPoPTokenManagerDAOImpl implements DPoPTokenManagerDAO {
             String finalRefreshToken = refreshToken;
             List<TokenBinding> tokenBindingList = jdbcTemplate.executeQuery(
                     DPoPConstants.SQLQueries.RETRIEVE_TOKEN_BINDING_BY_REFRESH_TOKEN,
-                    (resultSet, rowNumber) -> {
-                        TokenBinding tokenBinding = new TokenBinding();
-                        tokenBinding.setBindingType(resultSet.getString(1));
-                        tokenBinding.setBindingValue(resultSet.getString(2));
-                        tokenBinding.setBindingReference(resultSet.getString(3));
-
-                        return tokenBinding;
-                    },
+                    (resultSet, rowNumber) -> buildTokenBinding(resultSet),
                     preparedStatement -> {
                         int parameterIndex = 0;
                         preparedStatement.setString(++parameterIndex, finalRefreshToken);
@@ -81,4 +97,22 @@ public class DPoPTokenManagerDAOImpl implements DPoPTokenManagerDAO {
             throw new IdentityOAuth2Exception(error, e);
         }
     }
+
+    private TokenBinding buildTokenBinding(ResultSet resultSet) throws SQLException {
+
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(resultSet.getString(1));
+        tokenBinding.setBindingValue(resultSet.getString(2));
+        tokenBinding.setBindingReference(resultSet.getString(3));
+        return tokenBinding;
+    }
+
+    private JdbcTemplate getTemplate() {
+
+        // The template holds no state other than the data source, hence it is shared across lookups.
+        if (jdbcTemplate == null) {
+            jdbcTemplate = Utils.getNewTemplate();
+        }
+        return jdbcTemplate;
+    }
 }
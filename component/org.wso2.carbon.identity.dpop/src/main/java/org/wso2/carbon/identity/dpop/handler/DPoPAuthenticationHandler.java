@@ -30,12 +30,22 @@ import org.wso2.carbon.identity.auth.service.exception.AuthenticationFailExcepti
 import org.wso2.carbon.identity.auth.service.handler.AuthenticationHandler;
 import org.wso2.carbon.identity.auth.service.util.AuthConfigurationUtil;
 import org.wso2.carbon.identity.core.bean.context.MessageContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.dpop.cache.DPoPValidatedTokenCache;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.nonce.DPoPNonceManager;
+import org.wso2.carbon.identity.dpop.util.Utils;
+import org.wso2.carbon.identity.dpop.validators.DPoPHeaderValidator;
+import org.wso2.carbon.identity.dpop.validators.DPoPProof;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
 import javax.servlet.http.HttpServletRequest;
 
 /**
@@ -44,6 +54,7 @@ import javax.servlet.http.HttpServletRequest;
 public class DPoPAuthenticationHandler extends AuthenticationHandler {
 
     private static final Log log = LogFactory.getLog(DPoPAuthenticationHandler.class);
+    private final OAuth2TokenValidationService oAuth2TokenValidationService = new OAuth2TokenValidationService();
 
     @Override
     protected AuthenticationResult doAuthenticate(MessageContext messageContext) throws
@@ -65,15 +76,60 @@ public class DPoPAuthenticationHandler extends AuthenticationHandler {
                     throw new AuthenticationFailException(errorMessage);
                 }
                 accessToken = dpopToken[1];
-                OAuth2TokenValidationService oAuth2TokenValidationService = new OAuth2TokenValidationService();
+                HttpServletRequest request = authenticationRequest.getRequest();
+                // Hand out a fresh nonce with every response, so that clients can recover from a use_dpop_nonce
+                // error and keep their proofs within the current nonce slice.
+                if (DPoPNonceManager.getInstance().isEnabled()) {
+                    Utils.setDPoPNonceHeader(request, DPoPNonceManager.getInstance().generateNonce());
+                }
+                String dpopHeader = request.getHeader(DPoPConstants.OAUTH_DPOP_HEADER);
+                DPoPProof validatedProof = null;
+                if (StringUtils.isNotBlank(dpopHeader)) {
+                    try {
+                        validatedProof = DPoPHeaderValidator.validateDPoPProof(request, dpopHeader);
+                    } catch (IdentityOAuth2Exception e) {
+                        if (DPoPConstants.USE_DPOP_NONCE.equals(e.getErrorCode())) {
+                            // RFC 9449 section 9: ask the client to retry with the nonce sent in the DPoP-Nonce
+                            // header of this response.
+                            Utils.setDPoPChallengeHeader(request, DPoPConstants.USE_DPOP_NONCE,
+                                    DPoPConstants.USE_DPOP_NONCE_ERROR);
+                            throw new AuthenticationFailException(DPoPConstants.USE_DPOP_NONCE_ERROR, e);
+                        }
+                        if (log.isDebugEnabled()) {
+                            log.debug("Invalid DPoP proof in the request.", e);
+                        }
+                        return authenticationResult;
+                    } catch (ParseException e) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Invalid DPoP proof in the request.", e);
+                        }
+                        return authenticationResult;
+                    }
+                    if (validatedProof == null) {
+                        return authenticationResult;
+                    }
+                    // The proof is checked on every request, while the token validation result is reused as long
+                    // as the token is presented with a proof signed by the key it is bound to.
+                    if (DPoPValidatedTokenCache.getInstance().isValid(accessToken, validatedProof.getThumbprint())) {
+                        authenticationResult.setAuthenticationStatus(AuthenticationStatus.SUCCESS);
+                        return authenticationResult;
+                    }
+                }
                 OAuth2TokenValidationRequestDTO requestDTO = new OAuth2TokenValidationRequestDTO();
                 OAuth2TokenValidationRequestDTO.OAuth2AccessToken token = requestDTO.new OAuth2AccessToken();
                 token.setIdentifier(accessToken);
                 token.setTokenType(DPoPConstants.OAUTH_DPOP_HEADER);
                 requestDTO.setAccessToken(token);
                 setContextParam(authenticationRequest, requestDTO);
-                OAuth2ClientApplicationDTO clientApplicationDTO =
-                        oAuth2TokenValidationService.findOAuthConsumerIfTokenIsValid(requestDTO);
+                OAuth2ClientApplicationDTO clientApplicationDTO;
+                if (validatedProof != null) {
+                    IdentityUtil.threadLocalProperties.get().put(DPoPConstants.VALIDATED_DPOP_PROOF, validatedProof);
+                }
+                try {
+                    clientApplicationDTO = oAuth2TokenValidationService.findOAuthConsumerIfTokenIsValid(requestDTO);
+                } finally {
+                    IdentityUtil.threadLocalProperties.get().remove(DPoPConstants.VALIDATED_DPOP_PROOF);
+                }
                 OAuth2TokenValidationResponseDTO responseDTO = clientApplicationDTO.getAccessTokenValidationResponse();
                 if (!responseDTO.isValid()) {
                     if (log.isDebugEnabled()) {
@@ -81,6 +137,10 @@ public class DPoPAuthenticationHandler extends AuthenticationHandler {
                     }
                     return authenticationResult;
                 }
+                if (validatedProof != null) {
+                    DPoPValidatedTokenCache.getInstance().addToCache(accessToken, validatedProof.getThumbprint(),
+                            TimeUnit.SECONDS.toMillis(responseDTO.getExpiryTime()));
+                }
                 authenticationResult.setAuthenticationStatus(AuthenticationStatus.SUCCESS);
                 return authenticationResult;
             }
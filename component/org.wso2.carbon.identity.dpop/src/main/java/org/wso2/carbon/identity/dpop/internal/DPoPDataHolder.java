@@ -19,6 +19,8 @@
 package org.wso2.carbon.identity.dpop.internal;
 
 import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAO;
+import org.wso2.carbon.identity.dpop.replay.DPoPReplayStore;
+import org.wso2.carbon.utils.ConfigurationContextService;
 
 /**
  * DPoP data holder.
@@ -27,6 +29,8 @@ public class DPoPDataHolder {
 
     private static final DPoPDataHolder dPoPDataHolder = new DPoPDataHolder();
     private DPoPTokenManagerDAO tokenBindingTypeManagerDao;
+    private volatile DPoPReplayStore replayStore;
+    private volatile ConfigurationContextService configurationContextService;
 
     public static DPoPDataHolder getInstance() {
 
@@ -58,4 +62,44 @@ public class DPoPDataHolder {
 
         this.tokenBindingTypeManagerDao = tokenBindingTypeManagerDao;
     }
+
+    /**
+     * Get the store used to detect replayed DPoP proofs.
+     *
+     * @return DPoP replay store.
+     */
+    public DPoPReplayStore getReplayStore() {
+
+        return replayStore;
+    }
+
+    /**
+     * Set the store used to detect replayed DPoP proofs.
+     *
+     * @param replayStore DPoP replay store.
+     */
+    public void setReplayStore(DPoPReplayStore replayStore) {
+
+        this.replayStore = replayStore;
+    }
+
+    /**
+     * Get the configuration context service of the server.
+     *
+     * @return Configuration context service.
+     */
+    public ConfigurationContextService getConfigurationContextService() {
+
+        return configurationContextService;
+    }
+
+    /**
+     * Set the configuration context service of the server.
+     *
+     * @param configurationContextService Configuration context service.
+     */
+    public void setConfigurationContextService(ConfigurationContextService configurationContextService) {
+
+        this.configurationContextService = configurationContextService;
+    }
 }
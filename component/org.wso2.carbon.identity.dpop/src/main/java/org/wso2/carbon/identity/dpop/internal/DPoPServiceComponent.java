@@ -23,17 +23,29 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.auth.service.handler.AuthenticationHandler;
 import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAOImpl;
 import org.wso2.carbon.identity.dpop.handler.DPoPAuthenticationHandler;
 import org.wso2.carbon.identity.dpop.introspection.dataprovider.DPoPIntrospectionDataProvider;
+import org.wso2.carbon.identity.dpop.listener.DPoPIdentityProviderMgtListener;
 import org.wso2.carbon.identity.dpop.listener.OauthDPoPInterceptorHandlerProxy;
+import org.wso2.carbon.identity.dpop.nonce.DPoPNonceManager;
+import org.wso2.carbon.identity.dpop.replay.DPoPReplayStore;
+import org.wso2.carbon.identity.dpop.replay.InMemoryDPoPReplayStore;
 import org.wso2.carbon.identity.dpop.token.binder.DPoPBasedTokenBinder;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.dpop.validators.DPoPHeaderValidator;
 import org.wso2.carbon.identity.dpop.validators.DPoPTokenValidator;
 import org.wso2.carbon.identity.oauth.common.token.bindings.TokenBinderInfo;
 import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth2.IntrospectionDataProvider;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidator;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
+import org.wso2.carbon.utils.ConfigurationContextService;
 
 @Component(
         name = "org.wso2.carbon.identity.oauth.dpop",
@@ -46,7 +58,12 @@ public class DPoPServiceComponent {
     protected void activate(ComponentContext context) {
 
         try {
+            DPoPConfig.reload();
+            DPoPNonceManager.reset();
             DPoPDataHolder.getInstance().setTokenBindingTypeManagerDao(new DPoPTokenManagerDAOImpl());
+            if (DPoPDataHolder.getInstance().getReplayStore() == null) {
+                DPoPDataHolder.getInstance().setReplayStore(createDefaultReplayStore());
+            }
             context.getBundleContext().registerService(TokenBinderInfo.class.getName(),
                     new DPoPBasedTokenBinder(), null);
             context.getBundleContext().registerService(OAuthEventInterceptor.class,
@@ -57,6 +74,8 @@ public class DPoPServiceComponent {
                     new DPoPIntrospectionDataProvider(), null);
             context.getBundleContext().registerService(OAuth2TokenValidator.class.getName(),
                     new DPoPTokenValidator(), null);
+            context.getBundleContext().registerService(IdentityProviderMgtListener.class.getName(),
+                    new DPoPIdentityProviderMgtListener(), null);
             if (log.isDebugEnabled()) {
                 log.debug("DPoPService is activated.");
             }
@@ -64,4 +83,65 @@ public class DPoPServiceComponent {
             log.error("Error while activating DPoPServiceComponent.", e);
         }
     }
+
+    @Deactivate
+    protected void deactivate(ComponentContext context) {
+
+        DPoPConfig.clear();
+        DPoPNonceManager.reset();
+        if (log.isDebugEnabled()) {
+            log.debug("DPoPService is deactivated.");
+        }
+    }
+
+    @Reference(
+            name = "dpop.replay.store",
+            service = DPoPReplayStore.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetReplayStore"
+    )
+    protected void setReplayStore(DPoPReplayStore replayStore) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the DPoP replay store: " + replayStore.getClass().getName());
+        }
+        DPoPDataHolder.getInstance().setReplayStore(replayStore);
+    }
+
+    protected void unsetReplayStore(DPoPReplayStore replayStore) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Unsetting the DPoP replay store: " + replayStore.getClass().getName());
+        }
+        DPoPDataHolder.getInstance().setReplayStore(createDefaultReplayStore());
+    }
+
+    @Reference(
+            name = "config.context.service",
+            service = ConfigurationContextService.class,
+            cardinality = ReferenceCardinality.MANDATORY,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetConfigurationContextService"
+    )
+    protected void setConfigurationContextService(ConfigurationContextService configurationContextService) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the configuration context service.");
+        }
+        DPoPDataHolder.getInstance().setConfigurationContextService(configurationContextService);
+    }
+
+    protected void unsetConfigurationContextService(ConfigurationContextService configurationContextService) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Unsetting the configuration context service.");
+        }
+        DPoPDataHolder.getInstance().setConfigurationContextService(null);
+    }
+
+    private DPoPReplayStore createDefaultReplayStore() {
+
+        return new InMemoryDPoPReplayStore(DPoPHeaderValidator.getDPoPValidityPeriod());
+    }
 }
@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.dpop.introspection.dataprovider;
 import org.json.simple.JSONObject;
 import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.util.Utils;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.IntrospectionDataProvider;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
@@ -42,21 +43,47 @@ public class DPoPIntrospectionDataProvider extends AbstractIdentityHandler imple
             throws IdentityOAuth2Exception {
 
         Map<String, Object> introspectionData = new HashMap<>();
-        AccessTokenDO accessTokenDO;
-
-        if (isEnabled()) {
-
-            accessTokenDO = OAuth2Util.findAccessToken(oAuth2TokenValidationRequestDTO.
-                    getAccessToken().getIdentifier(), false);
+        try {
+            if (!isDPoPBoundToken(oAuth2IntrospectionResponseDTO) || !isEnabled()) {
+                return introspectionData;
+            }
 
-            if (accessTokenDO.getTokenBinding() != null &&
+            AccessTokenDO accessTokenDO = getAccessTokenDO(oAuth2TokenValidationRequestDTO.getAccessToken().
+                    getIdentifier());
+            if (accessTokenDO != null && accessTokenDO.getTokenBinding() != null &&
                     DPoPConstants.DPOP_TOKEN_TYPE.equals(accessTokenDO.getTokenBinding().getBindingType())) {
                 introspectionData.put(DPoPConstants.TOKEN_TYPE, (DPoPConstants.DPOP_TOKEN_TYPE));
                 JSONObject cnf = new JSONObject();
                 cnf.put(DPoPConstants.JWK_THUMBPRINT, accessTokenDO.getTokenBinding().getBindingValue());
                 introspectionData.put(DPoPConstants.CNF, cnf);
             }
+            return introspectionData;
+        } finally {
+            // The data provider is the last consumer of the token published while validating the request.
+            Utils.clearValidatedAccessToken();
+        }
+    }
+
+    /**
+     * The introspection response already carries the binding type of an active token, hence tokens that are not
+     * DPoP bound can be skipped without loading the token.
+     */
+    private boolean isDPoPBoundToken(OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO) {
+
+        return oAuth2IntrospectionResponseDTO != null && oAuth2IntrospectionResponseDTO.isActive() &&
+                DPoPConstants.DPOP_TOKEN_TYPE.equals(oAuth2IntrospectionResponseDTO.getBindingType());
+    }
+
+    /**
+     * Reuse the token loaded while validating the request, falling back to a lookup only if none is available. A
+     * token is only published by the DPoP token validator, hence tokens validated by another validator are looked up.
+     */
+    private AccessTokenDO getAccessTokenDO(String tokenIdentifier) throws IdentityOAuth2Exception {
+
+        AccessTokenDO validatedAccessToken = Utils.getValidatedAccessToken(tokenIdentifier);
+        if (validatedAccessToken != null) {
+            return validatedAccessToken;
         }
-        return introspectionData;
+        return OAuth2Util.findAccessToken(tokenIdentifier, false);
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCache;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.listener.AbstractIdentityProviderMgtListener;
+
+/**
+ * Clears the cached issuer and signer certificate used for DPoP access token validation when the resident identity
+ * provider of a tenant is updated.
+ */
+public class DPoPIdentityProviderMgtListener extends AbstractIdentityProviderMgtListener {
+
+    private static final Log log = LogFactory.getLog(DPoPIdentityProviderMgtListener.class);
+
+    @Override
+    public boolean doPostUpdateResidentIdP(IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the DPoP issuer cache of tenant: " + tenantDomain);
+        }
+        DPoPIssuerCache.getInstance().clearCacheEntry(tenantDomain);
+        return true;
+    }
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 210;
+    }
+}
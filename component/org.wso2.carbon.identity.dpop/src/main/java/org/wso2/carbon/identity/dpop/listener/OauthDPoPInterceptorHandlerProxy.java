@@ -18,25 +18,33 @@
 
 package org.wso2.carbon.identity.dpop.listener;
 
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
-import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
-import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAO;
-import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCacheKey;
+import org.wso2.carbon.identity.dpop.cache.DPoPValidatedTokenCache;
+import org.wso2.carbon.identity.dpop.nonce.DPoPNonceManager;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.dpop.util.Utils;
 import org.wso2.carbon.identity.dpop.validators.DPoPHeaderValidator;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.event.AbstractOAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.ResponseHeader;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenRespDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
-import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.util.Map;
 
@@ -47,8 +55,6 @@ import java.util.Map;
 public class OauthDPoPInterceptorHandlerProxy extends AbstractOAuthEventInterceptor {
 
     private static final Log log = LogFactory.getLog(OauthDPoPInterceptorHandlerProxy.class);
-    private DPoPTokenManagerDAO
-            tokenBindingTypeManagerDao = DPoPDataHolder.getInstance().getTokenBindingTypeManagerDao();
 
     /**
      * {@inheritdoc}
@@ -102,8 +108,7 @@ public class OauthDPoPInterceptorHandlerProxy extends AbstractOAuthEventIntercep
         }
         try {
             String tokenBindingType = DPoPHeaderValidator.getApplicationBindingType(tokenReqDTO.getClientId());
-            TokenBinding tokenBinding =
-                    tokenBindingTypeManagerDao.getTokenBinding(tokenReqDTO.getRefreshToken(), OAuth2Util.isHashEnabled());
+            TokenBinding tokenBinding = Utils.getRefreshTokenBinding(tokenReqDTO, tokReqMsgCtx);
             if (tokenBinding != null) {
                 if (!DPoPConstants.DPOP_TOKEN_TYPE.equals(tokenBindingType)) {
                     if (log.isDebugEnabled()) {
@@ -149,9 +154,7 @@ public class OauthDPoPInterceptorHandlerProxy extends AbstractOAuthEventIntercep
     @Override
     public boolean isEnabled() {
 
-        IdentityEventListenerConfig identityEventListenerConfig = IdentityUtil.readEventListenerProperty
-                (AbstractIdentityHandler.class.getName(), this.getClass().getName());
-        return identityEventListenerConfig != null && Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+        return DPoPConfig.getInstance(getClass()).isEnabled();
     }
 
     /**
@@ -171,7 +174,107 @@ public class OauthDPoPInterceptorHandlerProxy extends AbstractOAuthEventIntercep
     public void onPostTokenRenewal(OAuth2AccessTokenReqDTO tokenReqDTO, OAuth2AccessTokenRespDTO tokenRespDTO,
                                    OAuthTokenReqMessageContext tokReqMsgCtx, Map<String, Object> params) {
         setDPoPTokenType(tokReqMsgCtx,tokenRespDTO);
+        // The refresh token may have been rotated, hence its cached binding is no longer needed.
+        clearRefreshTokenBinding(tokenReqDTO.getRefreshToken());
+    }
+
+    /**
+     * {@inheritdoc}
+     */
+    @Override
+    public void onPostTokenRevocationByClient(OAuthRevocationRequestDTO revokeRequestDTO,
+                                              OAuthRevocationResponseDTO revokeResponseDTO,
+                                              AccessTokenDO accessTokenDO,
+                                              RefreshTokenValidationDataDO refreshTokenDO,
+                                              Map<String, Object> params) {
+
+        if (revokeRequestDTO != null && StringUtils.isNotBlank(revokeRequestDTO.getToken())) {
+            clearRefreshTokenBinding(revokeRequestDTO.getToken());
+            clearValidatedToken(revokeRequestDTO.getToken());
+        }
+        // Revoking a refresh token revokes the access token issued with it as well.
+        if (refreshTokenDO != null) {
+            clearValidatedToken(refreshTokenDO.getAccessToken());
+            clearRefreshTokenBinding(refreshTokenDO.getRefreshToken());
+        }
+        clearTokenCaches(accessTokenDO);
+    }
+
+    /**
+     * {@inheritdoc}
+     */
+    @Override
+    public void onPostTokenRevocationByResourceOwner(
+            org.wso2.carbon.identity.oauth.dto.OAuthRevocationRequestDTO revokeRequestDTO,
+            org.wso2.carbon.identity.oauth.dto.OAuthRevocationResponseDTO revokeRespDTO,
+            AccessTokenDO accessTokenDO, Map<String, Object> params) {
+
+        clearTokenCaches(accessTokenDO);
+    }
+
+    /**
+     * {@inheritdoc}
+     * <p>
+     * Tokens are revoked by the system when the user or the application they were issued to is deleted or disabled.
+     */
+    @Override
+    public void onPostTokenRevocationBySystem(AccessTokenDO accessTokenDO, Map<String, Object> params) {
+
+        clearTokenCaches(accessTokenDO);
+    }
+
+    /**
+     * {@inheritdoc}
+     * <p>
+     * Discard a token published by an earlier request served by the same thread.
+     */
+    @Override
+    public void onPreTokenValidation(OAuth2TokenValidationRequestDTO validationReqDTO, Map<String, Object> params) {
+
+        Utils.clearValidatedAccessToken();
+    }
+
+    /**
+     * {@inheritdoc}
+     * <p>
+     * Token validation requests are not introspected, hence the published token is no longer needed.
+     */
+    @Override
+    public void onPostTokenValidation(OAuth2TokenValidationRequestDTO validationReqDTO,
+                                      OAuth2TokenValidationResponseDTO validationResponseDTO,
+                                      Map<String, Object> params) {
 
+        Utils.clearValidatedAccessToken();
+    }
+
+    /**
+     * Remove the access token and the refresh token of a revoked token from the DPoP caches, so that the tokens are
+     * not accepted on this node after the revocation.
+     *
+     * @param accessTokenDO Revoked token.
+     */
+    private void clearTokenCaches(AccessTokenDO accessTokenDO) {
+
+        if (accessTokenDO == null) {
+            return;
+        }
+        clearValidatedToken(accessTokenDO.getAccessToken());
+        clearRefreshTokenBinding(accessTokenDO.getRefreshToken());
+    }
+
+    private void clearValidatedToken(String accessToken) {
+
+        if (StringUtils.isNotBlank(accessToken)) {
+            DPoPValidatedTokenCache.getInstance().clearCacheEntry(accessToken);
+        }
+    }
+
+    private void clearRefreshTokenBinding(String refreshToken) {
+
+        if (StringUtils.isNotBlank(refreshToken)) {
+            DPoPRefreshTokenBindingCache.getInstance().clearCacheEntry(
+                    new DPoPRefreshTokenBindingCacheKey(refreshToken));
+        }
     }
 
     private void setDPoPTokenType(OAuthTokenReqMessageContext tokReqMsgCtx, OAuth2AccessTokenRespDTO tokenRespDTO) {
@@ -180,7 +283,21 @@ public class OauthDPoPInterceptorHandlerProxy extends AbstractOAuthEventIntercep
                 DPoPConstants.DPOP_TOKEN_TYPE.equals(tokReqMsgCtx.getTokenBinding().getBindingType())) {
             if (tokenRespDTO != null) {
                 tokenRespDTO.setTokenType(DPoPConstants.DPOP_TOKEN_TYPE);
+                setDPoPNonce(tokenRespDTO);
             }
         }
     }
+
+    private void setDPoPNonce(OAuth2AccessTokenRespDTO tokenRespDTO) {
+
+        DPoPNonceManager nonceManager = DPoPNonceManager.getInstance();
+        if (!nonceManager.isEnabled()) {
+            return;
+        }
+        ResponseHeader nonceHeader = new ResponseHeader();
+        nonceHeader.setKey(DPoPConstants.DPOP_NONCE_HEADER);
+        nonceHeader.setValue(nonceManager.generateNonce());
+        tokenRespDTO.setResponseHeaders((ResponseHeader[]) ArrayUtils.add(tokenRespDTO.getResponseHeaders(),
+                nonceHeader));
+    }
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.nonce;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.dpop.util.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Issues and validates stateless DPoP nonces. A nonce carries the time slice in which it was issued together with
+ * a MAC over the slice, so validating a nonce does not need any server side state. A nonce is accepted in the slice
+ * it was issued in and the following one. The MAC key is rotated every {@value #KEY_ROTATION_SLICES} slices.
+ * <p>
+ * Without a configured secret, every key is generated at random and discarded once the nonces issued with it have
+ * expired. Nodes of a cluster have to accept each others nonces, hence a clustered deployment needs a shared secret,
+ * from which the keys are derived. Nonces are disabled on a clustered node without a configured secret.
+ */
+public class DPoPNonceManager {
+
+    private static final Log log = LogFactory.getLog(DPoPNonceManager.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] KEY_DERIVATION_LABEL = "dpop-nonce-key".getBytes(StandardCharsets.UTF_8);
+    private static final int KEY_ROTATION_SLICES = 64;
+    private static final int MAC_LENGTH = 16;
+    private static final int NONCE_LENGTH = Long.BYTES + MAC_LENGTH;
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(DPoPNonceManager::newMac);
+    private static volatile DPoPNonceManager instance;
+
+    private final boolean enabled;
+    private final long sliceWidth;
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+    private volatile EpochKey currentKey;
+    private volatile EpochKey previousKey;
+
+    /**
+     * @param enabled    Whether DPoP nonces are enabled.
+     * @param sliceWidth Validity period of a nonce slice in milliseconds.
+     * @param secret     Secret shared by the nodes of a cluster, or null to generate random keys.
+     */
+    DPoPNonceManager(boolean enabled, long sliceWidth, byte[] secret) {
+
+        this.enabled = enabled;
+        this.sliceWidth = sliceWidth;
+        this.secret = secret != null ? new SecretKeySpec(secret, HMAC_ALGORITHM) : null;
+    }
+
+    /**
+     * Get the nonce manager configured for the DPoP event listener.
+     *
+     * @return DPoP nonce manager.
+     */
+    public static DPoPNonceManager getInstance() {
+
+        if (instance == null) {
+            synchronized (DPoPNonceManager.class) {
+                if (instance == null) {
+                    instance = buildFromConfig();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Discard the current nonce manager, so that the next one is built from the current DPoP configuration.
+     */
+    public static void reset() {
+
+        synchronized (DPoPNonceManager.class) {
+            instance = null;
+        }
+    }
+
+    /**
+     * Whether server issued DPoP nonces are enabled.
+     *
+     * @return True if DPoP nonces are enabled.
+     */
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Issue a nonce for the current time slice.
+     *
+     * @return DPoP nonce.
+     */
+    public String generateNonce() {
+
+        long slice = System.currentTimeMillis() / sliceWidth;
+        byte[] nonce = ByteBuffer.allocate(NONCE_LENGTH).putLong(slice).put(computeMac(slice)).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
+    }
+
+    /**
+     * Validate a nonce issued by this server.
+     *
+     * @param nonce DPoP nonce.
+     * @return Time in milliseconds until which the nonce is accepted, or -1 if the nonce is invalid or expired.
+     */
+    public long validateNonce(String nonce) {
+
+        if (StringUtils.isBlank(nonce)) {
+            return -1;
+        }
+        byte[] decoded;
+        try {
+            decoded = Base64.getUrlDecoder().decode(nonce);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        if (decoded.length != NONCE_LENGTH) {
+            return -1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(decoded);
+        long slice = buffer.getLong();
+        long currentSlice = System.currentTimeMillis() / sliceWidth;
+        if (slice != currentSlice && slice != currentSlice - 1) {
+            return -1;
+        }
+        byte[] mac = Arrays.copyOfRange(decoded, Long.BYTES, NONCE_LENGTH);
+        byte[] expectedMac = computeMac(slice);
+        if (expectedMac == null || !MessageDigest.isEqual(mac, expectedMac)) {
+            return -1;
+        }
+        return (slice + 2) * sliceWidth;
+    }
+
+    /**
+     * Compute the MAC of a slice.
+     *
+     * @return MAC of the slice, or null if the key of the slice is no longer available.
+     */
+    private byte[] computeMac(long slice) {
+
+        SecretKeySpec key = getKey(slice / KEY_ROTATION_SLICES);
+        if (key == null) {
+            return null;
+        }
+        Mac mac = MAC.get();
+        try {
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while initializing the DPoP nonce MAC.", e);
+        }
+        return Arrays.copyOf(mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(slice).array()), MAC_LENGTH);
+    }
+
+    /**
+     * Get the key of a rotation epoch. Keys of the current and the previous epoch are kept, since a nonce issued in
+     * the last slice of an epoch is accepted in the first slice of the next one.
+     *
+     * @return Key of the epoch, or null if the epoch is older than the previous epoch.
+     */
+    private SecretKeySpec getKey(long epoch) {
+
+        EpochKey current = currentKey;
+        if (current != null && current.epoch == epoch) {
+            return current.key;
+        }
+        EpochKey previous = previousKey;
+        if (previous != null && previous.epoch == epoch) {
+            return previous.key;
+        }
+        synchronized (this) {
+            current = currentKey;
+            if (current != null && epoch < current.epoch) {
+                return epoch == current.epoch - 1 && secret != null ? deriveKey(epoch) : null;
+            }
+            if (current == null || epoch > current.epoch) {
+                previousKey = current != null && current.epoch == epoch - 1 ? current : null;
+                currentKey = new EpochKey(epoch, secret != null ? deriveKey(epoch) : generateKey());
+            }
+            return currentKey.key;
+        }
+    }
+
+    private SecretKeySpec deriveKey(long epoch) {
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secret);
+            mac.update(KEY_DERIVATION_LABEL);
+            return new SecretKeySpec(mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(epoch).array()),
+                    HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while deriving the DPoP nonce key.", e);
+        }
+    }
+
+    private SecretKeySpec generateKey() {
+
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        return new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    private static Mac newMac() {
+
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC algorithm " + HMAC_ALGORITHM + " is not available.", e);
+        }
+    }
+
+    private static DPoPNonceManager buildFromConfig() {
+
+        DPoPConfig config = DPoPConfig.getInstance();
+        if (config.getNonceSecret() != null) {
+            return new DPoPNonceManager(config.isNonceEnabled(), config.getNonceValidityPeriod(),
+                    config.getNonceSecret().getBytes(StandardCharsets.UTF_8));
+        }
+        if (config.isNonceEnabled() && Utils.isClusteringEnabled()) {
+            log.error("DPoP nonces are enabled but " + DPoPConstants.NONCE_SECRET + " is not configured. A secret " +
+                    "shared by the nodes of the cluster is required, hence DPoP nonces are disabled.");
+            return new DPoPNonceManager(false, config.getNonceValidityPeriod(), null);
+        }
+        return new DPoPNonceManager(config.isNonceEnabled(), config.getNonceValidityPeriod(), null);
+    }
+
+    /**
+     * MAC key of a key rotation epoch.
+     */
+    private static class EpochKey {
+
+        private final long epoch;
+        private final SecretKeySpec key;
+
+        EpochKey(long epoch, SecretKeySpec key) {
+
+            this.epoch = epoch;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.replay;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+/**
+ * Records the DPoP proofs that have already been accepted so that a proof cannot be replayed within its validity
+ * period. The default implementation keeps the proofs in memory of the current node. Deployments running multiple
+ * nodes can register a cluster wide implementation of this interface as an OSGi service, which will then be used
+ * instead of the default one.
+ */
+public interface DPoPReplayStore {
+
+    /**
+     * Record the use of a DPoP proof.
+     *
+     * @param jkt        Thumbprint of the public key used to sign the DPoP proof.
+     * @param jti        Unique identifier of the DPoP proof.
+     * @param expiryTime Time in milliseconds after which the DPoP proof will no longer be accepted.
+     * @return True if this is the first use of the proof, false if the proof has already been used.
+     * @throws IdentityOAuth2Exception Error while accessing the store.
+     */
+    boolean markUsed(String jkt, String jti, long expiryTime) throws IdentityOAuth2Exception;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.replay;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * In memory {@link DPoPReplayStore}. Proofs are grouped into time buckets by their expiry time and a bucket is
+ * dropped as a whole once every proof in it has expired, hence there is no per entry expiry handling. The buckets
+ * are split across a fixed number of lock stripes so that concurrent requests rarely contend on the same lock.
+ */
+public class InMemoryDPoPReplayStore implements DPoPReplayStore {
+
+    private static final int STRIPE_COUNT = 16;
+    private static final int BUCKET_COUNT = 8;
+    private static final long EXPIRED_BUCKET = Long.MIN_VALUE;
+
+    private final long bucketWidth;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    /**
+     * Create a replay store sized for the given proof validity period.
+     *
+     * @param validityPeriod DPoP proof validity period in milliseconds.
+     */
+    public InMemoryDPoPReplayStore(long validityPeriod) {
+
+        this(validityPeriod, System::currentTimeMillis);
+    }
+
+    /**
+     * Create a replay store sized for the given proof validity period, which reads the current time from the given
+     * clock.
+     *
+     * @param validityPeriod DPoP proof validity period in milliseconds.
+     * @param clock          Source of the current time in milliseconds.
+     */
+    InMemoryDPoPReplayStore(long validityPeriod, LongSupplier clock) {
+
+        this.clock = clock;
+        // The buckets ahead of the current one should cover proofs issued up to a validity period in the future,
+        // which expire two validity periods from now.
+        long horizon = 2 * Math.max(validityPeriod, 1L);
+        this.bucketWidth = (horizon + BUCKET_COUNT - 2) / (BUCKET_COUNT - 1);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public boolean markUsed(String jkt, String jti, long expiryTime) {
+
+        long currentBucket = clock.getAsLong() / bucketWidth;
+        // Proofs expiring beyond the last bucket are kept until the last bucket expires, which is later than the
+        // time the proof could be accepted for any configured validity period.
+        long bucket = Math.max(currentBucket, Math.min(expiryTime / bucketWidth, currentBucket + BUCKET_COUNT - 1));
+        String key = jkt + ':' + jti;
+        Stripe stripe = stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPE_COUNT];
+
+        synchronized (stripe) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (stripe.buckets[i] < currentBucket) {
+                    stripe.drop(i);
+                } else if (stripe.keys[i].contains(key)) {
+                    return false;
+                }
+            }
+            int slot = (int) (bucket % BUCKET_COUNT);
+            stripe.buckets[slot] = bucket;
+            stripe.keys[slot].add(key);
+            return true;
+        }
+    }
+
+    /**
+     * A set of time buckets guarded by a single lock.
+     */
+    private static class Stripe {
+
+        private final long[] buckets = new long[BUCKET_COUNT];
+        private final Set<String>[] keys;
+
+        @SuppressWarnings("unchecked")
+        Stripe() {
+
+            keys = new Set[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = EXPIRED_BUCKET;
+                keys[i] = new HashSet<>();
+            }
+        }
+
+        private void drop(int slot) {
+
+            if (buckets[slot] != EXPIRED_BUCKET) {
+                buckets[slot] = EXPIRED_BUCKET;
+                keys[slot].clear();
+            }
+        }
+    }
+}
@@ -22,21 +22,17 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
-import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAO;
-import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
-import org.wso2.carbon.identity.dpop.listener.OauthDPoPInterceptorHandlerProxy;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
 import org.wso2.carbon.identity.dpop.util.Utils;
 import org.wso2.carbon.identity.dpop.validators.DPoPHeaderValidator;
+import org.wso2.carbon.identity.dpop.validators.DPoPProof;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.model.HttpRequestHeader;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
 import org.wso2.carbon.identity.oauth2.token.bindings.impl.AbstractTokenBinder;
-import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -57,8 +53,6 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
     private static final String BINDING_TYPE = "DPoP";
     private static final Log log = LogFactory.getLog(DPoPBasedTokenBinder.class);
     static Set<String> supportedGrantTypesSet = Collections.emptySet();
-    private DPoPTokenManagerDAO
-            tokenBindingTypeManagerDao = DPoPDataHolder.getInstance().getTokenBindingTypeManagerDao();
 
 
     @Override
@@ -130,10 +124,8 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
             return false;
         }
 
-        String refreshToken = oAuth2AccessTokenReqDTO.getRefreshToken();
         try {
-            TokenBinding tokenBinding =
-                    tokenBindingTypeManagerDao.getTokenBinding(refreshToken, OAuth2Util.isHashEnabled());
+            TokenBinding tokenBinding = Utils.getRefreshTokenBinding(oAuth2AccessTokenReqDTO, null);
 
             if (tokenBinding != null && DPoPConstants.OAUTH_DPOP_HEADER.equals(tokenBinding.getBindingType())) {
                 return bindingReference.equalsIgnoreCase(tokenBinding.getBindingReference());
@@ -177,6 +169,11 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
                     return Optional.empty();
                 }
 
+                DPoPProof validatedProof = DPoPHeaderValidator.getValidatedDPoPProof(
+                        oAuth2AccessTokenReqDTO.getHttpServletRequestWrapper(), dpopProof);
+                if (validatedProof != null) {
+                    return Optional.of(validatedProof.getThumbprint());
+                }
                 try {
                     String thumbprintOfPublicKey = Utils.getThumbprintOfKeyFromDpopProof(dpopProof);
                     return Optional.of(thumbprintOfPublicKey);
@@ -195,6 +192,10 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
             return null;
         }
 
+        DPoPProof validatedProof = DPoPHeaderValidator.getValidatedDPoPProof(request, dpopProof);
+        if (validatedProof != null) {
+            return validatedProof.getThumbprint();
+        }
         String thumbprintOfPublicKey = Utils.getThumbprintOfKeyFromDpopProof(dpopProof);
         if (StringUtils.isBlank(thumbprintOfPublicKey)) {
             return null;
@@ -228,22 +229,12 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
 
         }
 
-        String httpMethod = (((HttpServletRequest) request).getMethod());
-        String httpUrl = (((HttpServletRequest) request).getRequestURL().toString());
-        if (!DPoPHeaderValidator.isValidDPoPProof(httpMethod, httpUrl, dpopHeader)) {
-            return false;
-        }
-
-        String thumbprintOfPublicKey = Utils.getThumbprintOfKeyFromDpopProof(dpopHeader);
-
-        if (StringUtils.isBlank(thumbprintOfPublicKey)) {
-            if (log.isDebugEnabled()) {
-                log.debug("Thumbprint value of the public key is empty in the DPoP Proof.");
-            }
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof((HttpServletRequest) request, dpopHeader);
+        if (validatedProof == null) {
             return false;
         }
 
-        if (!thumbprintOfPublicKey.equalsIgnoreCase(tokenBinding.getBindingValue())) {
+        if (!validatedProof.getThumbprint().equalsIgnoreCase(tokenBinding.getBindingValue())) {
             if (log.isDebugEnabled()) {
                 log.debug("Thumbprint value of the public key in the DPoP proof is not equal to binding value" +
                         " of the responseDTO.");
@@ -267,23 +258,6 @@ public class DPoPBasedTokenBinder extends AbstractTokenBinder {
 
     private static boolean skipDPoPValidationInRevoke() {
 
-        Object skipDPoPValidationInRevokeObject = IdentityUtil.readEventListenerProperty
-                        (AbstractIdentityHandler.class.getName(), OauthDPoPInterceptorHandlerProxy.class.getName())
-                .getProperties().get(DPoPConstants.SKIP_DPOP_VALIDATION_IN_REVOKE);
-
-        if (skipDPoPValidationInRevokeObject == null){
-            return DPoPConstants.DEFAULT_SKIP_DPOP_VALIDATION_IN_REVOKE_VALUE;
-        }
-
-        String skipDPoPValidationInRevokeValue = skipDPoPValidationInRevokeObject.toString().trim();
-
-        if (!("true".equals(skipDPoPValidationInRevokeValue) || "false".equals(skipDPoPValidationInRevokeValue))) {
-            log.info("Configured, skip dpop validation in revoke value is set to an invalid value. Hence the " +
-                    "default value will be used.");
-            return DPoPConstants.DEFAULT_SKIP_DPOP_VALIDATION_IN_REVOKE_VALUE;
-
-        }
-
-        return Boolean.parseBoolean(skipDPoPValidationInRevokeValue);
+        return DPoPConfig.getInstance().isSkipDPoPValidationInRevoke();
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.CarbonConstants;
+import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.listener.OauthDPoPInterceptorHandlerProxy;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed DPoP event listener properties of identity.xml, such as the proof validity period and the nonce settings.
+ * Validators and token binders read them as final fields. The event listener entry of
+ * OauthDPoPInterceptorHandlerProxy is used unless a handler asks for the entry of its own runtime class.
+ */
+public final class DPoPConfig {
+
+    private static final Log log = LogFactory.getLog(DPoPConfig.class);
+    private static final Log AUDIT_LOG = CarbonConstants.AUDIT_LOG;
+    private static final String AUDIT_MESSAGE = "Initiator : %s | Action : %s | Target : %s | Data : { %s } | " +
+            "Result : %s ";
+    private static final String ALL_TENANTS = "*";
+
+    private static final Map<String, DPoPConfig> instances = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final int headerValidityPeriod;
+    private final boolean skipDPoPValidationInRevoke;
+    private final boolean nonceEnabled;
+    private final long nonceValidityPeriod;
+    private final String nonceSecret;
+    private final Set<String> signatureValidationSkippedTenants;
+
+    private DPoPConfig(IdentityEventListenerConfig identityEventListenerConfig) {
+
+        Properties properties = identityEventListenerConfig != null &&
+                identityEventListenerConfig.getProperties() != null ? identityEventListenerConfig.getProperties() :
+                new Properties();
+        this.enabled = identityEventListenerConfig != null &&
+                Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+        this.headerValidityPeriod = readHeaderValidityPeriod(properties);
+        this.skipDPoPValidationInRevoke = readSkipDPoPValidationInRevoke(properties);
+        this.nonceEnabled = Boolean.parseBoolean(properties.getProperty(DPoPConstants.ENABLE_DPOP_NONCE));
+        this.nonceValidityPeriod = readNonceValidityPeriod(properties);
+        this.nonceSecret = StringUtils.trimToNull(properties.getProperty(DPoPConstants.NONCE_SECRET));
+        this.signatureValidationSkippedTenants = readSignatureValidationSkippedTenants(properties);
+    }
+
+    /**
+     * Get the configuration of the OauthDPoPInterceptorHandlerProxy event listener.
+     *
+     * @return DPoP configuration.
+     */
+    public static DPoPConfig getInstance() {
+
+        return getInstance(OauthDPoPInterceptorHandlerProxy.class);
+    }
+
+    /**
+     * Get the configuration of the event listener registered for the given handler class. It is read from
+     * identity.xml on first use and reused until the configuration is reloaded.
+     *
+     * @param handlerClass Runtime class of the event handler.
+     * @return DPoP configuration.
+     */
+    public static DPoPConfig getInstance(Class<?> handlerClass) {
+
+        return instances.computeIfAbsent(handlerClass.getName(), DPoPConfig::load);
+    }
+
+    /**
+     * Discard the cached configurations and read the configuration of OauthDPoPInterceptorHandlerProxy from
+     * identity.xml.
+     *
+     * @return DPoP configuration.
+     */
+    public static DPoPConfig reload() {
+
+        instances.clear();
+        DPoPConfig config = getInstance();
+        for (String tenant : config.signatureValidationSkippedTenants) {
+            AUDIT_LOG.info(String.format(AUDIT_MESSAGE, CarbonConstants.REGISTRY_SYSTEM_USERNAME,
+                    "Skip DPoP access token signature validation", tenant,
+                    DPoPConstants.SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION + " : " +
+                            StringUtils.join(config.signatureValidationSkippedTenants, ","), "Enabled"));
+        }
+        return config;
+    }
+
+    /**
+     * Discard the cached configurations.
+     */
+    public static void clear() {
+
+        instances.clear();
+    }
+
+    private static DPoPConfig load(String handlerName) {
+
+        return new DPoPConfig(IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
+                handlerName));
+    }
+
+    private static int readHeaderValidityPeriod(Properties properties) {
+
+        String validityPeriodValue = properties.getProperty(DPoPConstants.VALIDITY_PERIOD);
+        if (StringUtils.isNotBlank(validityPeriodValue)) {
+            if (StringUtils.isNumeric(validityPeriodValue.trim())) {
+                return Integer.parseInt(validityPeriodValue.trim()) * 1000;
+            }
+            log.info("Configured dpop validity period is set to an invalid value. Hence the default validity " +
+                    "period will be used.");
+        }
+        return DPoPConstants.DEFAULT_HEADER_VALIDITY;
+    }
+
+    private static boolean readSkipDPoPValidationInRevoke(Properties properties) {
+
+        String skipDPoPValidationInRevokeValue = properties.getProperty(DPoPConstants.SKIP_DPOP_VALIDATION_IN_REVOKE);
+        if (skipDPoPValidationInRevokeValue == null) {
+            return DPoPConstants.DEFAULT_SKIP_DPOP_VALIDATION_IN_REVOKE_VALUE;
+        }
+        skipDPoPValidationInRevokeValue = skipDPoPValidationInRevokeValue.trim();
+        if (!("true".equals(skipDPoPValidationInRevokeValue) || "false".equals(skipDPoPValidationInRevokeValue))) {
+            log.info("Configured, skip dpop validation in revoke value is set to an invalid value. Hence the " +
+                    "default value will be used.");
+            return DPoPConstants.DEFAULT_SKIP_DPOP_VALIDATION_IN_REVOKE_VALUE;
+        }
+        return Boolean.parseBoolean(skipDPoPValidationInRevokeValue);
+    }
+
+    private static long readNonceValidityPeriod(Properties properties) {
+
+        String validityPeriod = StringUtils.trim(properties.getProperty(DPoPConstants.NONCE_VALIDITY_PERIOD));
+        if (StringUtils.isNotBlank(validityPeriod)) {
+            if (StringUtils.isNumeric(validityPeriod) && Long.parseLong(validityPeriod) > 0) {
+                return Long.parseLong(validityPeriod) * 1000;
+            }
+            log.info("Configured DPoP nonce validity period is set to an invalid value. Hence the default " +
+                    "validity period will be used.");
+        }
+        return DPoPConstants.DEFAULT_NONCE_VALIDITY;
+    }
+
+    private static Set<String> readSignatureValidationSkippedTenants(Properties properties) {
+
+        String tenants = properties.getProperty(DPoPConstants.SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION);
+        if (StringUtils.isBlank(tenants)) {
+            return Collections.emptySet();
+        }
+        Set<String> skippedTenants = new HashSet<>();
+        for (String tenant : tenants.split(",")) {
+            if (StringUtils.isNotBlank(tenant)) {
+                skippedTenants.add(tenant.trim());
+            }
+        }
+        return Collections.unmodifiableSet(skippedTenants);
+    }
+
+    /**
+     * @return Whether the DPoP event listener is enabled.
+     */
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @return DPoP proof validity period in milliseconds.
+     */
+    public int getHeaderValidityPeriod() {
+
+        return headerValidityPeriod;
+    }
+
+    /**
+     * @return Whether DPoP proofs are not validated at the revocation endpoint.
+     */
+    public boolean isSkipDPoPValidationInRevoke() {
+
+        return skipDPoPValidationInRevoke;
+    }
+
+    /**
+     * @return Whether server issued DPoP nonces are enabled.
+     */
+    public boolean isNonceEnabled() {
+
+        return nonceEnabled;
+    }
+
+    /**
+     * @return Validity period of a DPoP nonce slice in milliseconds.
+     */
+    public long getNonceValidityPeriod() {
+
+        return nonceValidityPeriod;
+    }
+
+    /**
+     * @return Secret shared by the nodes to issue DPoP nonces, or null if not configured.
+     */
+    public String getNonceSecret() {
+
+        return nonceSecret;
+    }
+
+    /**
+     * Check whether the signature of self-contained DPoP access tokens resolved from the token store is not validated
+     * again for the given tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return True if the signature validation is skipped for the tenant.
+     */
+    public boolean isSignatureValidationSkipped(String tenantDomain) {
+
+        return signatureValidationSkippedTenants.contains(ALL_TENANTS) ||
+                signatureValidationSkippedTenants.contains(tenantDomain);
+    }
+
+    /**
+     * @return Whether the signature validation is skipped for any tenant.
+     */
+    public boolean hasSignatureValidationSkippedTenants() {
+
+        return !signatureValidationSkippedTenants.isEmpty();
+    }
+}
@@ -28,19 +28,42 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.SignedJWT;
 import org.apache.axiom.om.OMElement;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.catalina.connector.Request;
 import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
 import org.wso2.carbon.identity.core.persistence.UmPersistenceManager;
 import org.wso2.carbon.identity.core.util.IdentityConfigParser;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.dpop.cache.DPoPKeyCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPKeyCacheEntry;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCacheEntry;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCacheKey;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAO;
+import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.token.handlers.grant.RefreshGrantHandler;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.utils.ConfigurationContextService;
 
 import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
 import javax.xml.namespace.QName;
 
 /**
@@ -65,33 +88,53 @@ public class Utils {
         try {
             SignedJWT signedJwt = SignedJWT.parse(dPopProof);
             JWSHeader header = signedJwt.getHeader();
-            return getKeyThumbprintOfKey(header.getJWK().toString(), signedJwt);
+            return getThumbprintOfKey(header.getJWK(), signedJwt);
         } catch (ParseException | JOSEException e) {
             throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, DPoPConstants.INVALID_DPOP_ERROR);
         }
     }
 
-    private static String getKeyThumbprintOfKey(String jwk, SignedJWT signedJwt)
-            throws ParseException, JOSEException {
+    /**
+     * Verify the signature of the dpop proof with the given public key and get the thumbprint of the key.
+     *
+     * @param jwk Public key from the jwk header parameter of the dpop proof.
+     * @param signedJwt Parsed DPoP proof.
+     * @return Thumbprint value, or an empty string if the key is not supported or the signature is not valid.
+     * @throws JOSEException Error while verifying the signature or computing the thumbprint.
+     */
+    public static String getThumbprintOfKey(JWK jwk, SignedJWT signedJwt) throws JOSEException {
+
+        if (jwk == null) {
+            return StringUtils.EMPTY;
+        }
+        DPoPKeyCacheEntry keyCacheEntry = getKeyCacheEntry(jwk);
+        if (keyCacheEntry != null && verifySignatureWithPublicKey(keyCacheEntry.getVerifier(), signedJwt)) {
+            return keyCacheEntry.getThumbprint();
+        }
+        return StringUtils.EMPTY;
+    }
 
-        JWK parseJwk = JWK.parse(jwk);
-        boolean validSignature;
-        if (DPoPConstants.ECDSA_ENCRYPTION.equalsIgnoreCase(String.valueOf(parseJwk.getKeyType()))) {
-            ECKey ecKey = (ECKey) parseJwk;
+    private static DPoPKeyCacheEntry getKeyCacheEntry(JWK jwk) throws JOSEException {
+
+        String cacheKey = DPoPKeyCache.getCacheKey(jwk);
+        DPoPKeyCacheEntry keyCacheEntry = DPoPKeyCache.getInstance().getValueFromCache(cacheKey);
+        if (keyCacheEntry != null && keyCacheEntry.getVerifier() != null) {
+            return keyCacheEntry;
+        }
+
+        if (DPoPConstants.ECDSA_ENCRYPTION.equalsIgnoreCase(String.valueOf(jwk.getKeyType()))) {
+            ECKey ecKey = (ECKey) jwk;
             ECPublicKey ecPublicKey = ecKey.toECPublicKey();
-            validSignature = verifySignatureWithPublicKey(new ECDSAVerifier(ecPublicKey), signedJwt);
-            if (validSignature) {
-                return computeThumbprintOfECKey(ecKey);
-            }
-        } else if (DPoPConstants.RSA_ENCRYPTION.equalsIgnoreCase(String.valueOf(parseJwk.getKeyType()))) {
-            RSAKey rsaKey = (RSAKey) parseJwk;
+            keyCacheEntry = new DPoPKeyCacheEntry(new ECDSAVerifier(ecPublicKey), computeThumbprintOfECKey(ecKey));
+        } else if (DPoPConstants.RSA_ENCRYPTION.equalsIgnoreCase(String.valueOf(jwk.getKeyType()))) {
+            RSAKey rsaKey = (RSAKey) jwk;
             RSAPublicKey rsaPublicKey = rsaKey.toRSAPublicKey();
-            validSignature = verifySignatureWithPublicKey(new RSASSAVerifier(rsaPublicKey), signedJwt);
-            if (validSignature) {
-                return computeThumbprintOfRSAKey(rsaKey);
-            }
+            keyCacheEntry = new DPoPKeyCacheEntry(new RSASSAVerifier(rsaPublicKey), computeThumbprintOfRSAKey(rsaKey));
+        } else {
+            return null;
         }
-        return StringUtils.EMPTY;
+        DPoPKeyCache.getInstance().addToCache(cacheKey, keyCacheEntry);
+        return keyCacheEntry;
     }
 
     private static String computeThumbprintOfRSAKey(RSAKey rsaKey) throws JOSEException {
@@ -109,4 +152,157 @@ public class Utils {
 
         return signedJwt.verify(jwsVerifier);
     }
+
+    /**
+     * Set the DPoP-Nonce header on the response of the given request. This is only possible for requests served
+     * through a valve, where the underlying container request gives access to the response.
+     *
+     * @param request Request being served.
+     * @param nonce   DPoP nonce.
+     */
+    public static void setDPoPNonceHeader(ServletRequest request, String nonce) {
+
+        setResponseHeader(request, DPoPConstants.DPOP_NONCE_HEADER, nonce);
+    }
+
+    /**
+     * Set the DPoP authentication challenge of RFC 9449 on the response of the given request, so that the client
+     * learns why its DPoP proof was rejected. This is only possible for requests served through a valve.
+     *
+     * @param request          Request being served.
+     * @param error            Error code.
+     * @param errorDescription Error description.
+     */
+    public static void setDPoPChallengeHeader(ServletRequest request, String error, String errorDescription) {
+
+        setResponseHeader(request, DPoPConstants.WWW_AUTHENTICATE_HEADER, DPoPConstants.OAUTH_DPOP_HEADER
+                + " error=\"" + error + "\", error_description=\"" + errorDescription + "\"");
+    }
+
+    private static void setResponseHeader(ServletRequest request, String name, String value) {
+
+        ServletRequest containerRequest = request;
+        while (containerRequest instanceof ServletRequestWrapper) {
+            containerRequest = ((ServletRequestWrapper) containerRequest).getRequest();
+        }
+        if (containerRequest instanceof Request && ((Request) containerRequest).getResponse() != null) {
+            ((Request) containerRequest).getResponse().setHeader(name, value);
+        }
+    }
+
+    /**
+     * Check whether this node is a member of a cluster.
+     *
+     * @return True if clustering is enabled for the server.
+     */
+    public static boolean isClusteringEnabled() {
+
+        ConfigurationContextService configurationContextService =
+                DPoPDataHolder.getInstance().getConfigurationContextService();
+        if (configurationContextService == null) {
+            return false;
+        }
+        ConfigurationContext configurationContext = configurationContextService.getServerConfigContext();
+        return configurationContext != null && configurationContext.getAxisConfiguration() != null
+                && configurationContext.getAxisConfiguration().getClusteringAgent() != null;
+    }
+
+    /**
+     * Publish the access token loaded while validating a token, so that the introspection data provider of the same
+     * request can reuse it. The token is kept with the identifier of the presented token, since the identifier of a
+     * persisted JWT token can differ from the presented token.
+     *
+     * @param tokenIdentifier Identifier of the presented token.
+     * @param accessTokenDO   Access token loaded for the presented token.
+     */
+    public static void setValidatedAccessToken(String tokenIdentifier, AccessTokenDO accessTokenDO) {
+
+        if (StringUtils.isBlank(tokenIdentifier) || accessTokenDO == null) {
+            clearValidatedAccessToken();
+            return;
+        }
+        IdentityUtil.threadLocalProperties.get().put(DPoPConstants.VALIDATED_ACCESS_TOKEN_DO,
+                new AbstractMap.SimpleImmutableEntry<>(tokenIdentifier, accessTokenDO));
+    }
+
+    /**
+     * Get the access token published while validating the given token in the current request.
+     *
+     * @param tokenIdentifier Identifier of the presented token.
+     * @return Access token, or null if no access token was published for the token.
+     */
+    public static AccessTokenDO getValidatedAccessToken(String tokenIdentifier) {
+
+        Object validatedAccessToken = IdentityUtil.threadLocalProperties.get()
+                .get(DPoPConstants.VALIDATED_ACCESS_TOKEN_DO);
+        if (validatedAccessToken instanceof Map.Entry && StringUtils.isNotBlank(tokenIdentifier) &&
+                tokenIdentifier.equals(((Map.Entry<?, ?>) validatedAccessToken).getKey()) &&
+                ((Map.Entry<?, ?>) validatedAccessToken).getValue() instanceof AccessTokenDO) {
+            return (AccessTokenDO) ((Map.Entry<?, ?>) validatedAccessToken).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Discard the access token published in the current request.
+     */
+    public static void clearValidatedAccessToken() {
+
+        IdentityUtil.threadLocalProperties.get().remove(DPoPConstants.VALIDATED_ACCESS_TOKEN_DO);
+    }
+
+    /**
+     * Get the DPoP token binding of the refresh token in a token renewal request. The binding is memoized on the
+     * token request message context and cached by refresh token, so a renewal request reads the database at most
+     * once.
+     *
+     * @param tokenReqDTO Token request dto.
+     * @param tokReqMsgCtx Message context of the token request, if available.
+     * @return DPoP token binding of the refresh token, or null if the refresh token is not DPoP bound.
+     * @throws IdentityOAuth2Exception Error while retrieving the token binding.
+     */
+    @SuppressWarnings("unchecked")
+    public static TokenBinding getRefreshTokenBinding(OAuth2AccessTokenReqDTO tokenReqDTO,
+                                                      OAuthTokenReqMessageContext tokReqMsgCtx)
+            throws IdentityOAuth2Exception {
+
+        if (tokReqMsgCtx != null) {
+            Object memoizedBinding = tokReqMsgCtx.getProperty(DPoPConstants.REFRESH_TOKEN_BINDING);
+            if (memoizedBinding instanceof Optional) {
+                return ((Optional<TokenBinding>) memoizedBinding).orElse(null);
+            }
+        }
+
+        String refreshToken = tokenReqDTO.getRefreshToken();
+        DPoPRefreshTokenBindingCacheKey cacheKey = new DPoPRefreshTokenBindingCacheKey(refreshToken);
+        DPoPRefreshTokenBindingCacheEntry cacheEntry =
+                DPoPRefreshTokenBindingCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry == null) {
+            cacheEntry = new DPoPRefreshTokenBindingCacheEntry(retrieveRefreshTokenBinding(refreshToken,
+                    tokReqMsgCtx));
+            DPoPRefreshTokenBindingCache.getInstance().addToCache(cacheKey, cacheEntry);
+        }
+        Optional<TokenBinding> tokenBinding = Optional.ofNullable(cacheEntry.getTokenBinding());
+        if (tokReqMsgCtx != null) {
+            tokReqMsgCtx.addProperty(DPoPConstants.REFRESH_TOKEN_BINDING, tokenBinding);
+        }
+        return tokenBinding.orElse(null);
+    }
+
+    private static TokenBinding retrieveRefreshTokenBinding(String refreshToken,
+                                                            OAuthTokenReqMessageContext tokReqMsgCtx)
+            throws IdentityOAuth2Exception {
+
+        DPoPTokenManagerDAO tokenManagerDAO = DPoPDataHolder.getInstance().getTokenBindingTypeManagerDao();
+        // Once the refresh grant is validated, the token id is known and the binding can be read without a join.
+        if (tokReqMsgCtx != null && tokReqMsgCtx.getProperty(RefreshGrantHandler.PREV_ACCESS_TOKEN)
+                instanceof RefreshTokenValidationDataDO) {
+            String tokenId = ((RefreshTokenValidationDataDO) tokReqMsgCtx
+                    .getProperty(RefreshGrantHandler.PREV_ACCESS_TOKEN)).getTokenId();
+            if (StringUtils.isNotBlank(tokenId)) {
+                return tokenManagerDAO.getTokenBindingByTokenId(tokenId);
+            }
+        }
+        return tokenManagerDAO.getTokenBinding(refreshToken, OAuth2Util.isHashEnabled());
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.dpop.validators;
 
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jwt.JWTClaimsSet;
@@ -28,10 +29,12 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONObject;
-import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
-import org.wso2.carbon.identity.dpop.listener.OauthDPoPInterceptorHandlerProxy;
+import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
+import org.wso2.carbon.identity.dpop.nonce.DPoPNonceManager;
+import org.wso2.carbon.identity.dpop.replay.DPoPReplayStore;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
 import org.wso2.carbon.identity.dpop.util.Utils;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
@@ -103,10 +106,103 @@ public class DPoPHeaderValidator {
     public static boolean isValidDPoPProof(String httpMethod, String httpURL, String dPoPProof)
             throws ParseException, IdentityOAuth2Exception {
 
+        return validateDPoPProof(httpMethod, httpURL, dPoPProof) != null;
+    }
+
+    /**
+     * Validate the dpop proof header of a request to a protected resource. The proof is parsed, verified and
+     * its key thumbprint is computed only once. A proof already validated by the DPoP authentication handler for
+     * the current request is reused, so that it is not reported as a replay.
+     *
+     * @param httpMethod HTTP method of the request.
+     * @param httpURL HTTP URL of the request.
+     * @param dPoPProof DPoP header of the request.
+     * @return Validated DPoP proof, or null if the proof is not valid.
+     * @throws ParseException Error while retrieving the signedJwt.
+     * @throws IdentityOAuth2Exception Error while validating the dpop proof.
+     */
+    public static DPoPProof validateDPoPProof(String httpMethod, String httpURL, String dPoPProof)
+            throws ParseException, IdentityOAuth2Exception {
+
+        Object validatedProof = IdentityUtil.threadLocalProperties.get().get(DPoPConstants.VALIDATED_DPOP_PROOF);
+        if (validatedProof instanceof DPoPProof && ((DPoPProof) validatedProof).getProof().equals(dPoPProof)) {
+            return (DPoPProof) validatedProof;
+        }
+        return validateDPoPProof(httpMethod, httpURL, dPoPProof, DPoPNonceManager.getInstance().isEnabled());
+    }
+
+    /**
+     * Validate the dpop proof of a request, reusing the result of an earlier validation of the same proof within
+     * the request. The result is kept as a request attribute.
+     *
+     * @param request HTTP request carrying the DPoP proof.
+     * @param dPoPProof DPoP header of the request.
+     * @return Validated DPoP proof, or null if the proof is not valid.
+     * @throws ParseException Error while retrieving the signedJwt.
+     * @throws IdentityOAuth2Exception Error while validating the dpop proof.
+     */
+    public static DPoPProof validateDPoPProof(HttpServletRequest request, String dPoPProof)
+            throws ParseException, IdentityOAuth2Exception {
+
+        DPoPProof validatedProof = getValidatedDPoPProof(request, dPoPProof);
+        if (validatedProof != null) {
+            return validatedProof;
+        }
+        validatedProof = validateDPoPProof(request.getMethod(), request.getRequestURL().toString(), dPoPProof);
+        if (validatedProof != null) {
+            request.setAttribute(DPoPConstants.VALIDATED_DPOP_PROOF, validatedProof);
+        }
+        return validatedProof;
+    }
+
+    /**
+     * Get the DPoP proof already validated for the given request.
+     *
+     * @param request HTTP request carrying the DPoP proof.
+     * @param dPoPProof DPoP header of the request.
+     * @return Validated DPoP proof, or null if the proof has not been validated in this request.
+     */
+    public static DPoPProof getValidatedDPoPProof(HttpServletRequest request, String dPoPProof) {
+
+        if (request == null) {
+            return null;
+        }
+        Object validatedProof = request.getAttribute(DPoPConstants.VALIDATED_DPOP_PROOF);
+        if (validatedProof instanceof DPoPProof && ((DPoPProof) validatedProof).getProof().equals(dPoPProof)) {
+            return (DPoPProof) validatedProof;
+        }
+        return null;
+    }
+
+    private static DPoPProof validateDPoPProof(String httpMethod, String httpURL, String dPoPProof,
+                                               boolean nonceRequired) throws ParseException, IdentityOAuth2Exception {
+
         SignedJWT signedJwt = SignedJWT.parse(dPoPProof);
         JWSHeader header = signedJwt.getHeader();
 
-        return validateDPoPPayload(httpMethod, httpURL, signedJwt.getJWTClaimsSet()) && validateDPoPHeader(header);
+        JWTClaimsSet jwtClaimsSet = signedJwt.getJWTClaimsSet();
+        if (!validateDPoPPayload(httpMethod, httpURL, jwtClaimsSet) || !validateDPoPHeader(header)) {
+            return null;
+        }
+
+        String thumbprint;
+        try {
+            thumbprint = Utils.getThumbprintOfKey(header.getJWK(), signedJwt);
+        } catch (JOSEException e) {
+            throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, DPoPConstants.INVALID_DPOP_ERROR);
+        }
+        if (StringUtils.isBlank(thumbprint)) {
+            if (log.isDebugEnabled()) {
+                log.debug("DPoP Proof signature validation failed.");
+            }
+            return null;
+        }
+
+        long expiryTime = checkNonce(jwtClaimsSet, nonceRequired);
+        if (!checkReplay(thumbprint, jwtClaimsSet, expiryTime)) {
+            return null;
+        }
+        return new DPoPProof(dPoPProof, header.getJWK(), jwtClaimsSet, thumbprint);
     }
 
     /**
@@ -125,18 +221,27 @@ public class DPoPHeaderValidator {
             HttpServletRequest request = tokenReqDTO.getHttpServletRequestWrapper();
             String httpMethod = request.getMethod();
             String httpURL = request.getRequestURL().toString();
-            if (isValidDPoPProof(httpMethod, httpURL, dPoPProof)) {
-                String thumbprint = Utils.getThumbprintOfKeyFromDpopProof(dPoPProof);
-                if (StringUtils.isNotBlank(thumbprint)) {
-                    TokenBinding tokenBinding = new TokenBinding();
-                    tokenBinding.setBindingType(DPoPConstants.DPOP_TOKEN_TYPE);
-                    tokenBinding.setBindingValue(thumbprint);
-                    tokenBinding.setBindingReference(DigestUtils.md5Hex(thumbprint));
-                    tokReqMsgCtx.setTokenBinding(tokenBinding);
-                    setCnFValue(tokReqMsgCtx, tokenBinding.getBindingValue());
-                    return true;
-                }
+            // Clients learn the nonce from the token response, hence a nonce is validated but not required here.
+            DPoPProof validatedProof = validateDPoPProof(httpMethod, httpURL, dPoPProof, false);
+            if (validatedProof != null) {
+                // Let the token binder reuse the validated proof for this request.
+                request.setAttribute(DPoPConstants.VALIDATED_DPOP_PROOF, validatedProof);
+                String thumbprint = validatedProof.getThumbprint();
+                TokenBinding tokenBinding = new TokenBinding();
+                tokenBinding.setBindingType(DPoPConstants.DPOP_TOKEN_TYPE);
+                tokenBinding.setBindingValue(thumbprint);
+                tokenBinding.setBindingReference(DigestUtils.md5Hex(thumbprint));
+                tokReqMsgCtx.setTokenBinding(tokenBinding);
+                setCnFValue(tokReqMsgCtx, tokenBinding.getBindingValue());
+                return true;
             }
+        } catch (IdentityOAuth2ClientException e) {
+            if (DPoPConstants.USE_DPOP_NONCE.equals(e.getErrorCode())) {
+                // RFC 9449 section 8: the error response carries a fresh nonce for the client to retry with.
+                Utils.setDPoPNonceHeader(tokenReqDTO.getHttpServletRequestWrapper(),
+                        DPoPNonceManager.getInstance().generateNonce());
+            }
+            throw e;
         } catch (ParseException e) {
             throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, DPoPConstants.INVALID_DPOP_ERROR);
         }
@@ -211,7 +316,8 @@ public class DPoPHeaderValidator {
             }
             throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, DPoPConstants.INVALID_DPOP_ERROR);
         }
-        boolean isExpired = (currentTimestamp.getTime() - issuedAt.getTime()) > getDPoPValidityPeriod();
+        int validityPeriod = getDPoPValidityPeriod();
+        boolean isExpired = (currentTimestamp.getTime() - issuedAt.getTime()) > validityPeriod;
         if (isExpired) {
             String error = "Expired DPoP Proof";
             if (log.isDebugEnabled()) {
@@ -219,6 +325,13 @@ public class DPoPHeaderValidator {
             }
             throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, error);
         }
+        // A proof issued too far in the future would outlive the replay window.
+        if ((issuedAt.getTime() - currentTimestamp.getTime()) > validityPeriod) {
+            if (log.isDebugEnabled()) {
+                log.debug("DPoP Proof 'iat' is too far in the future.");
+            }
+            throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, DPoPConstants.INVALID_DPOP_ERROR);
+        }
         return true;
     }
 
@@ -233,6 +346,49 @@ public class DPoPHeaderValidator {
         return true;
     }
 
+    private static long checkNonce(JWTClaimsSet jwtClaimsSet, boolean nonceRequired)
+            throws IdentityOAuth2ClientException {
+
+        Date issuedAt = (Date) jwtClaimsSet.getClaim(DPoPConstants.DPOP_ISSUED_AT);
+        long expiryTime = issuedAt.getTime() + getDPoPValidityPeriod();
+        DPoPNonceManager nonceManager = DPoPNonceManager.getInstance();
+        if (!nonceManager.isEnabled()) {
+            return expiryTime;
+        }
+
+        Object nonce = jwtClaimsSet.getClaim(DPoPConstants.DPOP_NONCE);
+        if (nonce == null && !nonceRequired) {
+            return expiryTime;
+        }
+        long nonceExpiryTime = nonceManager.validateNonce(nonce == null ? null : nonce.toString());
+        if (nonceExpiryTime < 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("DPoP Proof 'nonce' is missing, invalid or expired.");
+            }
+            throw new IdentityOAuth2ClientException(DPoPConstants.USE_DPOP_NONCE, DPoPConstants.USE_DPOP_NONCE_ERROR);
+        }
+        // A proof carrying a valid nonce can only be replayed while the nonce is accepted.
+        return Math.min(expiryTime, nonceExpiryTime);
+    }
+
+    private static boolean checkReplay(String jkt, JWTClaimsSet jwtClaimsSet, long expiryTime)
+            throws IdentityOAuth2Exception {
+
+        DPoPReplayStore replayStore = DPoPDataHolder.getInstance().getReplayStore();
+        if (replayStore == null) {
+            return true;
+        }
+
+        if (!replayStore.markUsed(jkt, String.valueOf(jwtClaimsSet.getClaim(DPoPConstants.JTI)), expiryTime)) {
+            String error = "Replayed DPoP Proof";
+            if (log.isDebugEnabled()) {
+                log.debug(error);
+            }
+            throw new IdentityOAuth2ClientException(DPoPConstants.INVALID_DPOP_PROOF, error);
+        }
+        return true;
+    }
+
     private static boolean checkHTTPMethod(String httpMethod, JWTClaimsSet jwtClaimsSet) throws IdentityOAuth2ClientException {
 
         Object dPoPHttpMethod = jwtClaimsSet.getClaim(DPoPConstants.DPOP_HTTP_METHOD);
@@ -277,26 +433,14 @@ public class DPoPHeaderValidator {
         return true;
     }
 
-    private static int getDPoPValidityPeriod() {
-        Object validityPeriodObject = IdentityUtil.readEventListenerProperty
-                (AbstractIdentityHandler.class.getName(), OauthDPoPInterceptorHandlerProxy.class.getName())
-                .getProperties().get(DPoPConstants.VALIDITY_PERIOD);
-
-        if (validityPeriodObject == null){
-            return DPoPConstants.DEFAULT_HEADER_VALIDITY;
-        }
-
-        String validityPeriodValue = validityPeriodObject.toString();
+    /**
+     * Get the configured DPoP proof validity period.
+     *
+     * @return DPoP proof validity period in milliseconds.
+     */
+    public static int getDPoPValidityPeriod() {
 
-        if (StringUtils.isNotBlank(validityPeriodValue)) {
-            if (StringUtils.isNumeric(validityPeriodValue)) {
-                return Integer.parseInt(validityPeriodValue.trim()) * 1000;
-            }
-            log.info("Configured dpop validity period is set to an invalid value. Hence the default validity " +
-                    "period will be used.");
-            return DPoPConstants.DEFAULT_HEADER_VALIDITY;
-        }
-        return DPoPConstants.DEFAULT_HEADER_VALIDITY;
+        return DPoPConfig.getInstance().getHeaderValidityPeriod();
     }
 
     private static void setCnFValue(OAuthTokenReqMessageContext tokReqMsgCtx, String tokenBindingValue) {
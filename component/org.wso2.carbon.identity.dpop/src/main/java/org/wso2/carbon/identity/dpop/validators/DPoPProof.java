@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.validators;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+/**
+ * Result of a successful DPoP proof validation. The proof is parsed, its signature is verified with the embedded
+ * public key and the key thumbprint is computed once, after which the result can be shared by token issuance,
+ * token binding and resource access validation of the same request.
+ */
+public final class DPoPProof {
+
+    private final String proof;
+    private final JWK jwk;
+    private final JWTClaimsSet claimsSet;
+    private final String thumbprint;
+
+    DPoPProof(String proof, JWK jwk, JWTClaimsSet claimsSet, String thumbprint) {
+
+        this.proof = proof;
+        this.jwk = jwk;
+        this.claimsSet = claimsSet;
+        this.thumbprint = thumbprint;
+    }
+
+    /**
+     * Get the serialized DPoP proof.
+     *
+     * @return DPoP proof header value.
+     */
+    public String getProof() {
+
+        return proof;
+    }
+
+    /**
+     * Get the public key embedded in the DPoP proof header.
+     *
+     * @return Public JWK of the client.
+     */
+    public JWK getJwk() {
+
+        return jwk;
+    }
+
+    /**
+     * Get the claims of the DPoP proof.
+     *
+     * @return DPoP proof claims.
+     */
+    public JWTClaimsSet getClaimsSet() {
+
+        return claimsSet;
+    }
+
+    /**
+     * Get the thumbprint of the public key embedded in the DPoP proof.
+     *
+     * @return Thumbprint of the public key.
+     */
+    public String getThumbprint() {
+
+        return thumbprint;
+    }
+}
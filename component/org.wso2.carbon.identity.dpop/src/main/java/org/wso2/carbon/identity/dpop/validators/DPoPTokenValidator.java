@@ -21,18 +21,25 @@ package org.wso2.carbon.identity.dpop.validators;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCacheEntry;
 import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
 import org.wso2.carbon.identity.dpop.util.Utils;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
@@ -44,24 +51,30 @@ import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.PublicKey;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
 
 /**
- * DPoP token validator.
+ * DPoP token validator. The resident identity provider checks of self-contained tokens have a counterpart in the
+ * ResidentIdPTokenVerifier of the mutual TLS bundle, which this bundle does not depend on. Keep the two in step.
  */
 public class DPoPTokenValidator implements OAuth2TokenValidator {
 
-    private static final String ALGO_PREFIX = "RS";
     private static final String DOT_SEPARATOR = ".";
     private static final Log log = LogFactory.getLog(DPoPTokenValidator.class);
     private static final String OIDC_IDP_ENTITY_ID = "IdPEntityId";
     private static final String ACCESS_TOKEN_DO = "AccessTokenDO";
+    private static final Log AUDIT_LOG = CarbonConstants.AUDIT_LOG;
+    private static final String AUDIT_MESSAGE = "Initiator : %s | Action : %s | Target : %s | Data : { %s } | " +
+            "Result : %s ";
 
     @Override
     public boolean validateAccessDelegation(OAuth2TokenValidationMessageContext messageContext) {
@@ -95,9 +108,14 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
 
             validateRequiredFields(validationReqDTO, claimsSet);
 
-            IdentityProvider identityProvider = getResidentIDPForIssuer(claimsSet.getIssuer());
+            DPoPIssuerCacheEntry issuerCacheEntry = getIssuerCacheEntry(claimsSet.getIssuer());
 
-            if (!validateSignature(signedJWT, identityProvider)) {
+            if (isSignatureValidationSkipped(validationReqDTO)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Token was resolved from the token store. Hence skipping the signature validation.");
+                }
+                auditSignatureValidationSkipped(validationReqDTO, claimsSet);
+            } else if (!validateSignature(signedJWT, issuerCacheEntry)) {
                 return false;
             }
             if (!checkExpirationTime(claimsSet.getExpirationTime())) {
@@ -157,7 +175,8 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
     /**
      * The default implementation resolves one certificate to Identity Provider and ignores the JWT header.
      * Override this method, to resolve and enforce the certificate in any other way
-     * such as x5t attribute of the header.
+     * such as x5t attribute of the header. The certificate of the resident Identity Provider is decoded once per
+     * tenant and cached.
      *
      * @param header The JWT header. Some of the x attributes may provide certificate information.
      * @param idp    The identity provider, if you need it.
@@ -167,8 +186,18 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
     protected X509Certificate resolveSignerCertificate(JWSHeader header,
                                                        IdentityProvider idp) throws IdentityOAuth2Exception {
 
-        X509Certificate x509Certificate;
         String tenantDomain = getTenantDomain();
+        DPoPIssuerCacheEntry issuerCacheEntry = DPoPIssuerCache.getInstance().getValueFromCache(tenantDomain);
+        if (issuerCacheEntry != null && issuerCacheEntry.getIdentityProvider() == idp) {
+            return issuerCacheEntry.getCertificate();
+        }
+        return decodeCertificate(idp, tenantDomain);
+    }
+
+    private X509Certificate decodeCertificate(IdentityProvider idp, String tenantDomain)
+            throws IdentityOAuth2Exception {
+
+        X509Certificate x509Certificate;
         try {
             x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
                     .decodeCertificate(idp.getCertificate());
@@ -179,9 +208,26 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
         return x509Certificate;
     }
 
-    private IdentityProvider getResidentIDPForIssuer(String jwtIssuer) throws IdentityOAuth2Exception {
+    private DPoPIssuerCacheEntry getIssuerCacheEntry(String jwtIssuer)
+            throws IdentityOAuth2Exception, JOSEException {
 
         String tenantDomain = getTenantDomain();
+        DPoPIssuerCacheEntry issuerCacheEntry = DPoPIssuerCache.getInstance().getValueFromCache(tenantDomain);
+        // An entry received from another node does not hold the verifier.
+        if (issuerCacheEntry == null
+                || (issuerCacheEntry.getCertificate() != null && issuerCacheEntry.getVerifier() == null)) {
+            issuerCacheEntry = buildIssuerCacheEntry(tenantDomain);
+            DPoPIssuerCache.getInstance().addToCache(tenantDomain, issuerCacheEntry);
+        }
+        if (!jwtIssuer.equals(issuerCacheEntry.getIssuer())) {
+            throw new IdentityOAuth2Exception("No Registered IDP found for the token with issuer name : " + jwtIssuer);
+        }
+        return issuerCacheEntry;
+    }
+
+    private DPoPIssuerCacheEntry buildIssuerCacheEntry(String tenantDomain)
+            throws IdentityOAuth2Exception, JOSEException {
+
         String issuer = StringUtils.EMPTY;
         IdentityProvider residentIdentityProvider;
         try {
@@ -196,21 +242,24 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
                 IdentityApplicationManagementUtil.getFederatedAuthenticator(fedAuthnConfigs,
                         IdentityApplicationConstants.Authenticator.OIDC.NAME);
         if (oauthAuthenticatorConfig != null) {
-            issuer = IdentityApplicationManagementUtil.getProperty(oauthAuthenticatorConfig.getProperties(),
-                    OIDC_IDP_ENTITY_ID).getValue();
+            Property issuerProperty = IdentityApplicationManagementUtil.getProperty(
+                    oauthAuthenticatorConfig.getProperties(), OIDC_IDP_ENTITY_ID);
+            if (issuerProperty != null) {
+                issuer = issuerProperty.getValue();
+            }
         }
 
-        if (!jwtIssuer.equals(issuer)) {
-            throw new IdentityOAuth2Exception("No Registered IDP found for the token with issuer name : " + jwtIssuer);
-        }
-        return residentIdentityProvider;
+        X509Certificate x509Certificate = decodeCertificate(residentIdentityProvider, tenantDomain);
+        JWSVerifier verifier = x509Certificate == null ? null : getVerifier(x509Certificate.getPublicKey());
+        return new DPoPIssuerCacheEntry(issuer, residentIdentityProvider, x509Certificate, verifier);
     }
 
-    private boolean validateSignature(SignedJWT signedJWT, IdentityProvider idp)
+    private boolean validateSignature(SignedJWT signedJWT, DPoPIssuerCacheEntry issuerCacheEntry)
             throws JOSEException, IdentityOAuth2Exception {
 
-        JWSVerifier verifier = null;
+        JWSVerifier verifier;
         JWSHeader header = signedJWT.getHeader();
+        IdentityProvider idp = issuerCacheEntry.getIdentityProvider();
         X509Certificate x509Certificate = resolveSignerCertificate(header, idp);
         if (x509Certificate == null) {
             throw new IdentityOAuth2Exception("Unable to locate certificate for Identity Provider: " + idp
@@ -225,20 +274,16 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
             if (log.isDebugEnabled()) {
                 log.debug("Signature Algorithm found in the Token Header: " + alg);
             }
-            if (alg.indexOf(ALGO_PREFIX) == 0) {
-                // At this point 'x509Certificate' will never be null.
-                PublicKey publicKey = x509Certificate.getPublicKey();
-                if (publicKey instanceof RSAPublicKey) {
-                    verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
-                } else {
-                    throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
-                }
+            // Reuse the cached verifier unless the certificate was resolved in some other way.
+            if (x509Certificate == issuerCacheEntry.getCertificate() && issuerCacheEntry.getVerifier() != null) {
+                verifier = issuerCacheEntry.getVerifier();
             } else {
+                verifier = getVerifier(x509Certificate.getPublicKey());
+            }
+            if (!verifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
                 if (log.isDebugEnabled()) {
-                    log.debug("Signature Algorithm not supported yet: " + alg);
+                    log.debug("Signature Algorithm not supported by the public key of the signer: " + alg);
                 }
-            }
-            if (verifier == null) {
                 throw new IdentityOAuth2Exception("Could not create a signature verifier for algorithm type: " + alg);
             }
         }
@@ -250,6 +295,58 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
         return isValid;
     }
 
+    private JWSVerifier getVerifier(PublicKey publicKey) throws IdentityOAuth2Exception, JOSEException {
+
+        if (publicKey instanceof RSAPublicKey) {
+            return new RSASSAVerifier((RSAPublicKey) publicKey);
+        } else if (publicKey instanceof ECPublicKey) {
+            return new ECDSAVerifier((ECPublicKey) publicKey);
+        }
+        throw new IdentityOAuth2Exception("Public key is not an RSA or EC public key.");
+    }
+
+    /**
+     * Check whether the signature validation of the token can be skipped. The signature is only skipped for the
+     * tenants configured in {@value DPoPConstants#SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION}, and only when the token
+     * store holds exactly the presented token, so that a token with altered claims is still verified. The cnf binding,
+     * expiry and not before time of the token are validated in any case.
+     *
+     * @param validationReqDTO Token validation message context.
+     * @return True if the token signature does not need to be validated.
+     */
+    boolean isSignatureValidationSkipped(OAuth2TokenValidationMessageContext validationReqDTO) {
+
+        DPoPConfig config = DPoPConfig.getInstance();
+        if (!config.hasSignatureValidationSkippedTenants() || !config.isSignatureValidationSkipped(getTenantDomain())) {
+            return false;
+        }
+        AccessTokenDO accessTokenDO = (AccessTokenDO) validationReqDTO.getProperty(ACCESS_TOKEN_DO);
+        if (accessTokenDO == null || StringUtils.isBlank(accessTokenDO.getAccessToken())) {
+            return false;
+        }
+        return MessageDigest.isEqual(accessTokenDO.getAccessToken().getBytes(StandardCharsets.UTF_8),
+                validationReqDTO.getRequestDTO().getAccessToken().getIdentifier().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write an audit log entry for a token accepted without verifying its signature, holding the tenant, the client
+     * and a hash of the token ID, so that each skipped validation can be traced.
+     *
+     * @param validationReqDTO Token validation message context.
+     * @param claimsSet        Claims of the token.
+     */
+    private void auditSignatureValidationSkipped(OAuth2TokenValidationMessageContext validationReqDTO,
+                                                 JWTClaimsSet claimsSet) {
+
+        AccessTokenDO accessTokenDO = (AccessTokenDO) validationReqDTO.getProperty(ACCESS_TOKEN_DO);
+        String tokenId = StringUtils.isNotBlank(claimsSet.getJWTID()) ? claimsSet.getJWTID()
+                : accessTokenDO.getAccessToken();
+        AUDIT_LOG.info(String.format(AUDIT_MESSAGE, accessTokenDO.getConsumerKey(),
+                "Skip DPoP access token signature validation", getTenantDomain(),
+                "client_id : " + accessTokenDO.getConsumerKey() + ", token_id_hash : " +
+                        DigestUtils.sha256Hex(tokenId), "Success"));
+    }
+
     private boolean checkExpirationTime(Date expirationTime) {
 
         long timeStampSkewMillis = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
@@ -317,6 +414,9 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
             ParseException {
 
         AccessTokenDO accessTokenDO = (AccessTokenDO) validationReqDTO.getProperty(ACCESS_TOKEN_DO);
+        // Let the introspection data provider reuse the token loaded for this request.
+        Utils.setValidatedAccessToken(validationReqDTO.getRequestDTO().getAccessToken().getIdentifier(),
+                accessTokenDO);
         if (accessTokenDO != null && accessTokenDO.getTokenBinding() != null &&
                 DPoPConstants.OAUTH_DPOP_HEADER.equalsIgnoreCase(accessTokenDO.getTokenBinding().getBindingType())) {
             String dpopProof = getResourceFromMessageContext(validationReqDTO, DPoPConstants.OAUTH_DPOP_HEADER);
@@ -330,20 +430,12 @@ public class DPoPTokenValidator implements OAuth2TokenValidator {
                 return false;
             }
 
-            if (!DPoPHeaderValidator.isValidDPoPProof(httpMethod, httpUrl, dpopProof)) {
-                return false;
-            }
-
-            String thumbprintOfPublicKey = Utils.getThumbprintOfKeyFromDpopProof(dpopProof);
-
-            if (StringUtils.isBlank(thumbprintOfPublicKey)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Thumbprint value of the public key is empty in the DPoP Proof.");
-                }
+            DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(httpMethod, httpUrl, dpopProof);
+            if (validatedProof == null) {
                 return false;
             }
 
-            if (!thumbprintOfPublicKey.equalsIgnoreCase(accessTokenDO.getTokenBinding().getBindingValue())) {
+            if (!validatedProof.getThumbprint().equalsIgnoreCase(accessTokenDO.getTokenBinding().getBindingValue())) {
                 if (log.isDebugEnabled()) {
                     log.debug("Thumbprint value of the public key in the DPoP proof is not equal to binding value" +
                             " of the responseDTO.");
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Test class for DPoPKeyCache class.
+ */
+@WithCarbonHome
+public class DPoPKeyCacheTest {
+
+    private RSAKey rsaKey;
+    private RSAKey otherRsaKey;
+    private String cacheKey;
+    private DPoPKeyCache keyCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new PowerMockObjectFactory();
+    }
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        rsaKey = new RSAKey.Builder((RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic()).build();
+        otherRsaKey = new RSAKey.Builder((RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic()).build();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        keyCache = DPoPKeyCache.getInstance();
+        keyCache.clear();
+        cacheKey = DPoPKeyCache.getCacheKey(rsaKey);
+    }
+
+    @Test
+    public void testCacheMissAndHit() throws Exception {
+
+        assertNull(keyCache.getValueFromCache(cacheKey));
+
+        keyCache.addToCache(cacheKey, new DPoPKeyCacheEntry(new RSASSAVerifier(rsaKey),
+                rsaKey.computeThumbprint().toString()));
+        DPoPKeyCacheEntry keyCacheEntry = keyCache.getValueFromCache(cacheKey);
+        assertNotNull(keyCacheEntry);
+        assertNotNull(keyCacheEntry.getVerifier());
+        assertEquals(keyCacheEntry.getThumbprint(), rsaKey.computeThumbprint().toString());
+    }
+
+    @Test
+    public void testEntryWithoutVerifier() throws Exception {
+
+        // Entries received from another node do not carry the verifier.
+        keyCache.addToCache(cacheKey, new DPoPKeyCacheEntry(null, rsaKey.computeThumbprint().toString()));
+
+        DPoPKeyCacheEntry keyCacheEntry = keyCache.getValueFromCache(cacheKey);
+        assertNotNull(keyCacheEntry);
+        assertNull(keyCacheEntry.getVerifier());
+        assertEquals(keyCacheEntry.getThumbprint(), rsaKey.computeThumbprint().toString());
+    }
+
+    @Test
+    public void testClearCache() throws Exception {
+
+        String otherCacheKey = DPoPKeyCache.getCacheKey(otherRsaKey);
+        keyCache.addToCache(cacheKey, new DPoPKeyCacheEntry(new RSASSAVerifier(rsaKey),
+                rsaKey.computeThumbprint().toString()));
+        keyCache.addToCache(otherCacheKey, new DPoPKeyCacheEntry(new RSASSAVerifier(otherRsaKey),
+                otherRsaKey.computeThumbprint().toString()));
+
+        keyCache.clearCacheEntry(cacheKey);
+        assertNull(keyCache.getValueFromCache(cacheKey));
+        assertNotNull(keyCache.getValueFromCache(otherCacheKey));
+
+        keyCache.clear();
+        assertNull(keyCache.getValueFromCache(otherCacheKey));
+    }
+
+    @Test
+    public void testCacheKeyOfRequiredMembers() throws Exception {
+
+        // Optional members such as the key id do not change the key, as for the RFC 7638 thumbprint.
+        RSAKey rsaKeyWithKeyId = new RSAKey.Builder(rsaKey.toRSAPublicKey()).keyID("key-id").build();
+        assertEquals(DPoPKeyCache.getCacheKey(rsaKeyWithKeyId), cacheKey);
+        assertNotEquals(DPoPKeyCache.getCacheKey(otherRsaKey), cacheKey);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.cache;
+
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPValidatedTokenCache class.
+ */
+@WithCarbonHome
+public class DPoPValidatedTokenCacheTest {
+
+    private static final String JKT = "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I";
+    private static final long VALIDITY_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    private DPoPValidatedTokenCache validatedTokenCache;
+    private String accessToken;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        validatedTokenCache = DPoPValidatedTokenCache.getInstance();
+        accessToken = UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testValidatedTokenIsCached() {
+
+        assertFalse(validatedTokenCache.isValid(accessToken, JKT));
+        validatedTokenCache.addToCache(accessToken, JKT, VALIDITY_PERIOD);
+
+        assertTrue(validatedTokenCache.isValid(accessToken, JKT));
+        // The token is only accepted with a proof signed by the key it is bound to.
+        assertFalse(validatedTokenCache.isValid(accessToken, "other-thumbprint"));
+        assertFalse(validatedTokenCache.isValid(UUID.randomUUID().toString(), JKT));
+    }
+
+    @Test
+    public void testExpiredTokenIsEvicted() throws Exception {
+
+        validatedTokenCache.addToCache(accessToken, JKT, 20);
+        Thread.sleep(50);
+
+        assertFalse(validatedTokenCache.isValid(accessToken, JKT));
+        assertNull(validatedTokenCache.getValueFromCache(new DPoPValidatedTokenCacheKey(accessToken)));
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+
+        validatedTokenCache.addToCache(accessToken, JKT, 0);
+        validatedTokenCache.addToCache(accessToken, JKT, -1);
+
+        assertNull(validatedTokenCache.getValueFromCache(new DPoPValidatedTokenCacheKey(accessToken)));
+    }
+
+    @Test
+    public void testTimeToLiveIsBounded() {
+
+        long now = System.currentTimeMillis();
+        validatedTokenCache.addToCache(accessToken, JKT, TimeUnit.DAYS.toMillis(1));
+
+        DPoPValidatedTokenCacheEntry cacheEntry = validatedTokenCache.getValueFromCache(
+                new DPoPValidatedTokenCacheKey(accessToken));
+        assertFalse(cacheEntry.isExpired(now));
+        assertTrue(cacheEntry.isExpired(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5) + 1));
+    }
+
+    @Test
+    public void testRevokedTokenIsCleared() {
+
+        validatedTokenCache.addToCache(accessToken, JKT, VALIDITY_PERIOD);
+        validatedTokenCache.clearCacheEntry(accessToken);
+
+        assertFalse(validatedTokenCache.isValid(accessToken, JKT));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.com).
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.introspection.dataprovider;
+
+import org.json.simple.JSONObject;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.util.Utils;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.Map;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPIntrospectionDataProvider class.
+ */
+@PrepareForTest({OAuth2Util.class})
+@WithCarbonHome
+public class DPoPIntrospectionDataProviderTest extends PowerMockIdentityBaseTest {
+
+    private static final String ACCESS_TOKEN = "2a2c6e2e-9a2f-3b52-8a5e-b4a8c0f1d6e7";
+    private static final String THUMBPRINT = "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I";
+
+    private DPoPIntrospectionDataProvider dPoPIntrospectionDataProvider;
+
+    @BeforeMethod
+    public void setUp() {
+
+        dPoPIntrospectionDataProvider = new DPoPIntrospectionDataProvider();
+        mockStatic(OAuth2Util.class);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        Utils.clearValidatedAccessToken();
+    }
+
+    @Test
+    public void testSkipTokensWithoutDPoPBinding() throws Exception {
+
+        OAuth2IntrospectionResponseDTO introspectionResponseDTO = buildIntrospectionResponse("cookie");
+
+        Map<String, Object> introspectionData = dPoPIntrospectionDataProvider.getIntrospectionData(
+                buildValidationRequest(), introspectionResponseDTO);
+        assertTrue(introspectionData.isEmpty());
+
+        introspectionResponseDTO.setBindingType(null);
+        introspectionData = dPoPIntrospectionDataProvider.getIntrospectionData(buildValidationRequest(),
+                introspectionResponseDTO);
+        assertTrue(introspectionData.isEmpty());
+
+        PowerMockito.verifyStatic(Mockito.never());
+        OAuth2Util.findAccessToken(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testReuseValidatedAccessToken() throws Exception {
+
+        Utils.setValidatedAccessToken(ACCESS_TOKEN, buildDPoPBoundAccessToken());
+
+        Map<String, Object> introspectionData = dPoPIntrospectionDataProvider.getIntrospectionData(
+                buildValidationRequest(), buildIntrospectionResponse(DPoPConstants.DPOP_TOKEN_TYPE));
+        assertConfirmation(introspectionData);
+        assertNull(Utils.getValidatedAccessToken(ACCESS_TOKEN));
+
+        PowerMockito.verifyStatic(Mockito.never());
+        OAuth2Util.findAccessToken(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testAccessTokenOfOtherTokenIsNotReused() throws Exception {
+
+        // A token published for another token, e.g. by an earlier request served by the same thread.
+        AccessTokenDO otherAccessTokenDO = buildDPoPBoundAccessToken();
+        otherAccessTokenDO.getTokenBinding().setBindingValue("other-thumbprint");
+        Utils.setValidatedAccessToken("other-access-token", otherAccessTokenDO);
+        when(OAuth2Util.findAccessToken(ACCESS_TOKEN, false)).thenReturn(buildDPoPBoundAccessToken());
+
+        Map<String, Object> introspectionData = dPoPIntrospectionDataProvider.getIntrospectionData(
+                buildValidationRequest(), buildIntrospectionResponse(DPoPConstants.DPOP_TOKEN_TYPE));
+        assertConfirmation(introspectionData);
+        assertNull(Utils.getValidatedAccessToken("other-access-token"));
+
+        PowerMockito.verifyStatic(Mockito.times(1));
+        OAuth2Util.findAccessToken(ACCESS_TOKEN, false);
+    }
+
+    @Test
+    public void testValidatedAccessTokenClearedForInactiveToken() throws Exception {
+
+        Utils.setValidatedAccessToken(ACCESS_TOKEN, buildDPoPBoundAccessToken());
+        OAuth2IntrospectionResponseDTO introspectionResponseDTO = buildIntrospectionResponse(
+                DPoPConstants.DPOP_TOKEN_TYPE);
+        introspectionResponseDTO.setActive(false);
+
+        assertTrue(dPoPIntrospectionDataProvider.getIntrospectionData(buildValidationRequest(),
+                introspectionResponseDTO).isEmpty());
+        assertNull(Utils.getValidatedAccessToken(ACCESS_TOKEN));
+    }
+
+    @Test
+    public void testLookupWhenNoValidatedAccessToken() throws Exception {
+
+        AccessTokenDO accessTokenDO = buildDPoPBoundAccessToken();
+        when(OAuth2Util.findAccessToken(ACCESS_TOKEN, false)).thenReturn(accessTokenDO);
+
+        Map<String, Object> introspectionData = dPoPIntrospectionDataProvider.getIntrospectionData(
+                buildValidationRequest(), buildIntrospectionResponse(DPoPConstants.DPOP_TOKEN_TYPE));
+        assertConfirmation(introspectionData);
+
+        PowerMockito.verifyStatic(Mockito.times(1));
+        OAuth2Util.findAccessToken(ACCESS_TOKEN, false);
+    }
+
+    private void assertConfirmation(Map<String, Object> introspectionData) {
+
+        assertEquals(introspectionData.get(DPoPConstants.TOKEN_TYPE), DPoPConstants.DPOP_TOKEN_TYPE);
+        JSONObject cnf = (JSONObject) introspectionData.get(DPoPConstants.CNF);
+        assertEquals(cnf.get(DPoPConstants.JWK_THUMBPRINT), THUMBPRINT);
+    }
+
+    private OAuth2TokenValidationRequestDTO buildValidationRequest() {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(ACCESS_TOKEN);
+        validationRequestDTO.setAccessToken(accessToken);
+        return validationRequestDTO;
+    }
+
+    private OAuth2IntrospectionResponseDTO buildIntrospectionResponse(String bindingType) {
+
+        OAuth2IntrospectionResponseDTO introspectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        introspectionResponseDTO.setActive(true);
+        introspectionResponseDTO.setBindingType(bindingType);
+        return introspectionResponseDTO;
+    }
+
+    private AccessTokenDO buildDPoPBoundAccessToken() {
+
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(DPoPConstants.DPOP_TOKEN_TYPE);
+        tokenBinding.setBindingValue(THUMBPRINT);
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setAccessToken(ACCESS_TOKEN);
+        accessTokenDO.setTokenBinding(tokenBinding);
+        return accessTokenDO;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.listener;
+
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCacheEntry;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPIdentityProviderMgtListener class.
+ */
+@WithCarbonHome
+public class DPoPIdentityProviderMgtListenerTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String OTHER_TENANT_DOMAIN = "abc.com";
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+
+    private DPoPIssuerCache issuerCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        issuerCache = DPoPIssuerCache.getInstance();
+        issuerCache.addToCache(TENANT_DOMAIN, new DPoPIssuerCacheEntry(ISSUER, new IdentityProvider(), null, null));
+        issuerCache.addToCache(OTHER_TENANT_DOMAIN, new DPoPIssuerCacheEntry(ISSUER, new IdentityProvider(), null,
+                null));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        issuerCache.clear();
+    }
+
+    @Test
+    public void testIssuerCacheClearedOnResidentIdPUpdate() throws Exception {
+
+        assertNotNull(issuerCache.getValueFromCache(TENANT_DOMAIN));
+
+        assertTrue(new DPoPIdentityProviderMgtListener().doPostUpdateResidentIdP(new IdentityProvider(),
+                TENANT_DOMAIN));
+        assertNull(issuerCache.getValueFromCache(TENANT_DOMAIN));
+        // Only the issuer of the updated tenant is cleared.
+        assertEquals(issuerCache.getValueFromCache(OTHER_TENANT_DOMAIN).getIssuer(), ISSUER);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.listener;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCacheKey;
+import org.wso2.carbon.identity.dpop.cache.DPoPValidatedTokenCache;
+import org.wso2.carbon.identity.dpop.util.Utils;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Test class for OauthDPoPInterceptorHandlerProxy class.
+ */
+@PrepareForTest({DPoPValidatedTokenCache.class, DPoPRefreshTokenBindingCache.class})
+@WithCarbonHome
+public class OauthDPoPInterceptorHandlerProxyTest extends PowerMockIdentityBaseTest {
+
+    private static final String ACCESS_TOKEN = "b8c5a3e9-2e4f-4e6a-9d8c-7a1f0f3c2d41";
+    private static final String REFRESH_TOKEN = "4f1c7d2a-9b3e-4c8f-a6d5-2e7b9c1f8a30";
+
+    private DPoPValidatedTokenCache validatedTokenCache;
+    private DPoPRefreshTokenBindingCache refreshTokenBindingCache;
+    private OauthDPoPInterceptorHandlerProxy interceptor;
+
+    @BeforeMethod
+    public void setUp() {
+
+        validatedTokenCache = mock(DPoPValidatedTokenCache.class);
+        mockStatic(DPoPValidatedTokenCache.class);
+        when(DPoPValidatedTokenCache.getInstance()).thenReturn(validatedTokenCache);
+
+        refreshTokenBindingCache = mock(DPoPRefreshTokenBindingCache.class);
+        mockStatic(DPoPRefreshTokenBindingCache.class);
+        when(DPoPRefreshTokenBindingCache.getInstance()).thenReturn(refreshTokenBindingCache);
+
+        interceptor = new OauthDPoPInterceptorHandlerProxy();
+    }
+
+    @Test
+    public void testRevocationByClientWithAccessToken() {
+
+        OAuthRevocationRequestDTO revokeRequestDTO = new OAuthRevocationRequestDTO();
+        revokeRequestDTO.setToken(ACCESS_TOKEN);
+
+        interceptor.onPostTokenRevocationByClient(revokeRequestDTO, new OAuthRevocationResponseDTO(),
+                buildAccessTokenDO(), null, Collections.emptyMap());
+
+        verifyTokensCleared();
+    }
+
+    @Test
+    public void testRevocationByClientWithRefreshToken() {
+
+        OAuthRevocationRequestDTO revokeRequestDTO = new OAuthRevocationRequestDTO();
+        revokeRequestDTO.setToken(REFRESH_TOKEN);
+        RefreshTokenValidationDataDO refreshTokenDO = new RefreshTokenValidationDataDO();
+        refreshTokenDO.setAccessToken(ACCESS_TOKEN);
+        refreshTokenDO.setRefreshToken(REFRESH_TOKEN);
+
+        interceptor.onPostTokenRevocationByClient(revokeRequestDTO, new OAuthRevocationResponseDTO(), null,
+                refreshTokenDO, Collections.emptyMap());
+
+        // The access token issued with the refresh token is revoked along with it.
+        verifyTokensCleared();
+    }
+
+    @Test
+    public void testRevocationByResourceOwner() {
+
+        interceptor.onPostTokenRevocationByResourceOwner(
+                new org.wso2.carbon.identity.oauth.dto.OAuthRevocationRequestDTO(),
+                new org.wso2.carbon.identity.oauth.dto.OAuthRevocationResponseDTO(), buildAccessTokenDO(),
+                Collections.emptyMap());
+
+        verifyTokensCleared();
+    }
+
+    @Test
+    public void testRevocationBySystem() {
+
+        // Tokens of deleted users and applications are revoked by the system.
+        interceptor.onPostTokenRevocationBySystem(buildAccessTokenDO(), Collections.emptyMap());
+
+        verifyTokensCleared();
+    }
+
+    @Test
+    public void testValidatedAccessTokenClearedOnTokenValidation() {
+
+        Utils.setValidatedAccessToken(ACCESS_TOKEN, buildAccessTokenDO());
+        interceptor.onPreTokenValidation(new OAuth2TokenValidationRequestDTO(), Collections.emptyMap());
+        assertNull(Utils.getValidatedAccessToken(ACCESS_TOKEN));
+
+        Utils.setValidatedAccessToken(ACCESS_TOKEN, buildAccessTokenDO());
+        interceptor.onPostTokenValidation(new OAuth2TokenValidationRequestDTO(),
+                new OAuth2TokenValidationResponseDTO(), Collections.emptyMap());
+        assertNull(Utils.getValidatedAccessToken(ACCESS_TOKEN));
+    }
+
+    private void verifyTokensCleared() {
+
+        verify(validatedTokenCache, atLeastOnce()).clearCacheEntry(ACCESS_TOKEN);
+        verify(refreshTokenBindingCache, atLeastOnce()).clearCacheEntry(
+                new DPoPRefreshTokenBindingCacheKey(REFRESH_TOKEN));
+    }
+
+    private AccessTokenDO buildAccessTokenDO() {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setAccessToken(ACCESS_TOKEN);
+        accessTokenDO.setRefreshToken(REFRESH_TOKEN);
+        return accessTokenDO;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.nonce;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.dpop.util.Utils;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPNonceManager class.
+ */
+@PrepareForTest({DPoPConfig.class, Utils.class})
+public class DPoPNonceManagerTest extends PowerMockIdentityBaseTest {
+
+    private static final long SLICE_WIDTH = TimeUnit.SECONDS.toMillis(30);
+    private static final byte[] SECRET = "shared-dpop-nonce-secret".getBytes(StandardCharsets.UTF_8);
+
+    @AfterMethod
+    public void tearDown() {
+
+        DPoPNonceManager.reset();
+    }
+
+    @Test
+    public void testNonceIsAccepted() {
+
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, SLICE_WIDTH, null);
+        long now = System.currentTimeMillis();
+
+        long expiryTime = nonceManager.validateNonce(nonceManager.generateNonce());
+        assertTrue(expiryTime > now);
+        assertTrue(expiryTime <= now + 2 * SLICE_WIDTH);
+    }
+
+    @Test
+    public void testInvalidNonceIsRejected() {
+
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, SLICE_WIDTH, null);
+        byte[] nonce = Base64.getUrlDecoder().decode(nonceManager.generateNonce());
+        nonce[nonce.length - 1] ^= 1;
+
+        assertEquals(nonceManager.validateNonce(Base64.getUrlEncoder().withoutPadding().encodeToString(nonce)), -1);
+        assertEquals(nonceManager.validateNonce(null), -1);
+        assertEquals(nonceManager.validateNonce("not a nonce"), -1);
+        assertEquals(nonceManager.validateNonce(Base64.getUrlEncoder().encodeToString(new byte[8])), -1);
+    }
+
+    @Test
+    public void testNonceIsAcceptedInFollowingSlice() throws Exception {
+
+        long sliceWidth = 500;
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, sliceWidth, null);
+        // Issue the nonce at the start of a slice, so that it is validated in the following slice.
+        Thread.sleep(sliceWidth - System.currentTimeMillis() % sliceWidth + 10);
+        String nonce = nonceManager.generateNonce();
+        Thread.sleep(sliceWidth);
+
+        assertTrue(nonceManager.validateNonce(nonce) > 0);
+    }
+
+    @Test
+    public void testExpiredNonceIsRejected() throws Exception {
+
+        long sliceWidth = 20;
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, sliceWidth, null);
+        String nonce = nonceManager.generateNonce();
+        Thread.sleep(3 * sliceWidth);
+
+        assertEquals(nonceManager.validateNonce(nonce), -1);
+    }
+
+    @Test
+    public void testNonceIsAcceptedByNodeSharingSecret() {
+
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, SLICE_WIDTH, SECRET);
+        DPoPNonceManager otherNodeNonceManager = new DPoPNonceManager(true, SLICE_WIDTH, SECRET.clone());
+
+        assertTrue(otherNodeNonceManager.validateNonce(nonceManager.generateNonce()) > 0);
+    }
+
+    @Test
+    public void testNonceIsRejectedByNodeWithOtherKeys() {
+
+        // Without a secret, every node generates its own random keys.
+        DPoPNonceManager nonceManager = new DPoPNonceManager(true, SLICE_WIDTH, null);
+        DPoPNonceManager otherNodeNonceManager = new DPoPNonceManager(true, SLICE_WIDTH, null);
+
+        assertEquals(otherNodeNonceManager.validateNonce(nonceManager.generateNonce()), -1);
+    }
+
+    @Test
+    public void testNoncesRequireSecretWhenClustered() {
+
+        mockConfig(true, null);
+        mockStatic(Utils.class);
+        when(Utils.isClusteringEnabled()).thenReturn(true);
+
+        DPoPNonceManager.reset();
+        assertFalse(DPoPNonceManager.getInstance().isEnabled());
+
+        mockConfig(true, new String(SECRET, StandardCharsets.UTF_8));
+        DPoPNonceManager.reset();
+        assertTrue(DPoPNonceManager.getInstance().isEnabled());
+    }
+
+    @Test
+    public void testNoncesWithoutSecretOnSingleNode() {
+
+        mockConfig(true, null);
+        mockStatic(Utils.class);
+        when(Utils.isClusteringEnabled()).thenReturn(false);
+
+        DPoPNonceManager.reset();
+        DPoPNonceManager nonceManager = DPoPNonceManager.getInstance();
+        assertTrue(nonceManager.isEnabled());
+        assertTrue(nonceManager.validateNonce(nonceManager.generateNonce()) > 0);
+    }
+
+    private void mockConfig(boolean nonceEnabled, String nonceSecret) {
+
+        DPoPConfig dPoPConfig = mock(DPoPConfig.class);
+        mockStatic(DPoPConfig.class);
+        when(DPoPConfig.getInstance()).thenReturn(dPoPConfig);
+        when(dPoPConfig.isNonceEnabled()).thenReturn(nonceEnabled);
+        when(dPoPConfig.getNonceSecret()).thenReturn(nonceSecret);
+        when(dPoPConfig.getNonceValidityPeriod()).thenReturn(SLICE_WIDTH);
+    }
+}
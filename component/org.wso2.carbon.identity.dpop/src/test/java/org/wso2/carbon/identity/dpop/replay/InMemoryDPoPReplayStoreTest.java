@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.replay;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for InMemoryDPoPReplayStore class. The store reads the time from a clock advanced by the tests.
+ */
+public class InMemoryDPoPReplayStoreTest {
+
+    private static final String JKT = "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I";
+    private static final long VALIDITY_PERIOD = TimeUnit.SECONDS.toMillis(1);
+    private static final long START_TIME = 1672531200000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private InMemoryDPoPReplayStore replayStore;
+
+    @BeforeMethod
+    public void setUp() {
+
+        clock.set(START_TIME);
+        replayStore = new InMemoryDPoPReplayStore(VALIDITY_PERIOD, clock::get);
+    }
+
+    @Test
+    public void testReplayedProofIsRejected() {
+
+        String jti = UUID.randomUUID().toString();
+        long expiryTime = clock.get() + VALIDITY_PERIOD;
+
+        assertTrue(replayStore.markUsed(JKT, jti, expiryTime));
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+        // The same jti is allowed for proofs signed with another key.
+        assertTrue(replayStore.markUsed("other-thumbprint", jti, expiryTime));
+    }
+
+    @Test
+    public void testReplayedProofIsRejectedAfterBucketRollover() {
+
+        String jti = UUID.randomUUID().toString();
+        long expiryTime = clock.get() + VALIDITY_PERIOD;
+        assertTrue(replayStore.markUsed(JKT, jti, expiryTime));
+
+        // A bucket spans 2/7 of the validity period, hence the current bucket has moved on while the proof is valid.
+        clock.addAndGet(VALIDITY_PERIOD / 2);
+        assertTrue(replayStore.markUsed(JKT, UUID.randomUUID().toString(), expiryTime));
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+    }
+
+    @Test
+    public void testReplayedProofIsRejectedUntilExpiry() {
+
+        String jti = UUID.randomUUID().toString();
+        long expiryTime = clock.get() + VALIDITY_PERIOD;
+        assertTrue(replayStore.markUsed(JKT, jti, expiryTime));
+
+        clock.set(expiryTime - 1);
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+    }
+
+    @Test
+    public void testExpiredProofIsDropped() {
+
+        String jti = UUID.randomUUID().toString();
+        assertTrue(replayStore.markUsed(JKT, jti, clock.get() + VALIDITY_PERIOD));
+
+        // Once the bucket of the proof has expired the proof is forgotten. It is rejected by its expiry instead.
+        clock.addAndGet(5 * VALIDITY_PERIOD);
+        assertTrue(replayStore.markUsed(JKT, jti, clock.get() + VALIDITY_PERIOD));
+    }
+
+    @Test
+    public void testProofIssuedInFutureIsRejected() {
+
+        String jti = UUID.randomUUID().toString();
+        // A proof with an iat in the future expires beyond the last bucket, hence it is kept in the last bucket.
+        long expiryTime = clock.get() + TimeUnit.DAYS.toMillis(1);
+
+        assertTrue(replayStore.markUsed(JKT, jti, expiryTime));
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+        clock.addAndGet(VALIDITY_PERIOD);
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+    }
+
+    @Test
+    public void testExpiredProofIsRecordedInCurrentBucket() {
+
+        String jti = UUID.randomUUID().toString();
+        long expiryTime = clock.get() - VALIDITY_PERIOD;
+
+        assertTrue(replayStore.markUsed(JKT, jti, expiryTime));
+        assertFalse(replayStore.markUsed(JKT, jti, expiryTime));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.util;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.listener.OauthDPoPInterceptorHandlerProxy;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.Properties;
+
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPConfig class.
+ */
+@PrepareForTest({IdentityUtil.class})
+public class DPoPConfigTest extends PowerMockIdentityBaseTest {
+
+    private Properties properties;
+
+    @BeforeMethod
+    public void setUp() {
+
+        properties = new Properties();
+        mockEventListenerConfig("true", properties);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        DPoPConfig.clear();
+    }
+
+    @Test
+    public void testConfigIsRead() {
+
+        properties.setProperty(DPoPConstants.VALIDITY_PERIOD, " 30 ");
+        properties.setProperty(DPoPConstants.ENABLE_DPOP_NONCE, "true");
+        properties.setProperty(DPoPConstants.NONCE_VALIDITY_PERIOD, "20");
+        properties.setProperty(DPoPConstants.NONCE_SECRET, " secret ");
+        properties.setProperty(DPoPConstants.SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION, "wso2.com, abc.com");
+
+        DPoPConfig config = DPoPConfig.reload();
+        assertTrue(config.isEnabled());
+        assertEquals(config.getHeaderValidityPeriod(), 30000);
+        assertTrue(config.isNonceEnabled());
+        assertEquals(config.getNonceValidityPeriod(), 20000);
+        assertEquals(config.getNonceSecret(), "secret");
+        assertTrue(config.hasSignatureValidationSkippedTenants());
+        assertTrue(config.isSignatureValidationSkipped("abc.com"));
+        assertFalse(config.isSignatureValidationSkipped("carbon.super"));
+    }
+
+    @Test
+    public void testDefaultsForInvalidConfig() {
+
+        properties.setProperty(DPoPConstants.VALIDITY_PERIOD, "invalid");
+        properties.setProperty(DPoPConstants.NONCE_VALIDITY_PERIOD, "0");
+        properties.setProperty(DPoPConstants.NONCE_SECRET, " ");
+
+        DPoPConfig config = DPoPConfig.reload();
+        assertEquals(config.getHeaderValidityPeriod(), DPoPConstants.DEFAULT_HEADER_VALIDITY);
+        assertEquals(config.getNonceValidityPeriod(), DPoPConstants.DEFAULT_NONCE_VALIDITY);
+        assertNull(config.getNonceSecret());
+        assertFalse(config.isNonceEnabled());
+        assertFalse(config.hasSignatureValidationSkippedTenants());
+    }
+
+    @Test
+    public void testSignatureValidationSkippedForAllTenants() {
+
+        properties.setProperty(DPoPConstants.SKIP_PERSISTED_TOKEN_SIGNATURE_VALIDATION, "*");
+
+        assertTrue(DPoPConfig.reload().isSignatureValidationSkipped("wso2.com"));
+    }
+
+    @Test
+    public void testDisabledWithoutConfig() {
+
+        when(IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
+                OauthDPoPInterceptorHandlerProxy.class.getName())).thenReturn(null);
+
+        DPoPConfig config = DPoPConfig.reload();
+        assertFalse(config.isEnabled());
+        assertEquals(config.getHeaderValidityPeriod(), DPoPConstants.DEFAULT_HEADER_VALIDITY);
+    }
+
+    @Test
+    public void testReload() {
+
+        // The configuration is read once on first use, and reused until it is reloaded.
+        DPoPConfig config = DPoPConfig.getInstance();
+        assertTrue(config.isEnabled());
+        mockEventListenerConfig("false", properties);
+        assertSame(DPoPConfig.getInstance(), config);
+        assertTrue(DPoPConfig.getInstance().isEnabled());
+
+        config = DPoPConfig.reload();
+        assertSame(DPoPConfig.getInstance(), config);
+        assertFalse(DPoPConfig.getInstance().isEnabled());
+
+        DPoPConfig.clear();
+        mockEventListenerConfig("true", properties);
+        assertTrue(DPoPConfig.getInstance().isEnabled());
+    }
+
+    @Test
+    public void testConfigOfRuntimeClass() {
+
+        OauthDPoPInterceptorHandlerProxy subclassHandler = new OauthDPoPInterceptorHandlerProxy() {
+        };
+
+        assertTrue(new OauthDPoPInterceptorHandlerProxy().isEnabled());
+        // The subclass is not registered under its own name, hence it is not enabled.
+        assertFalse(subclassHandler.isEnabled());
+        assertFalse(DPoPConfig.getInstance(subclassHandler.getClass()).isEnabled());
+    }
+
+    private void mockEventListenerConfig(String enable, Properties properties) {
+
+        IdentityEventListenerConfig eventListenerConfig = mock(IdentityEventListenerConfig.class);
+        when(eventListenerConfig.getEnable()).thenReturn(enable);
+        when(eventListenerConfig.getProperties()).thenReturn(properties);
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
+                OauthDPoPInterceptorHandlerProxy.class.getName())).thenReturn(eventListenerConfig);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.util;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPRefreshTokenBindingCacheKey;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.dao.DPoPTokenManagerDAO;
+import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.token.handlers.grant.RefreshGrantHandler;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.UUID;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Test class for Utils class.
+ */
+@PrepareForTest({OAuth2Util.class})
+@WithCarbonHome
+public class UtilsTest extends PowerMockIdentityBaseTest {
+
+    private static final String THUMBPRINT = "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I";
+    private static final String TOKEN_ID = "7c1a2b3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d";
+
+    private DPoPTokenManagerDAO tokenManagerDAO;
+    private DPoPTokenManagerDAO defaultTokenManagerDAO;
+    private String refreshToken;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.isHashEnabled()).thenReturn(false);
+
+        defaultTokenManagerDAO = DPoPDataHolder.getInstance().getTokenBindingTypeManagerDao();
+        tokenManagerDAO = mock(DPoPTokenManagerDAO.class);
+        DPoPDataHolder.getInstance().setTokenBindingTypeManagerDao(tokenManagerDAO);
+        refreshToken = UUID.randomUUID().toString();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        DPoPDataHolder.getInstance().setTokenBindingTypeManagerDao(defaultTokenManagerDAO);
+        DPoPRefreshTokenBindingCache.getInstance().clearCacheEntry(new DPoPRefreshTokenBindingCacheKey(refreshToken));
+    }
+
+    @Test
+    public void testRefreshTokenBindingIsCached() throws Exception {
+
+        TokenBinding tokenBinding = buildTokenBinding();
+        when(tokenManagerDAO.getTokenBinding(refreshToken, false)).thenReturn(tokenBinding);
+
+        assertEquals(Utils.getRefreshTokenBinding(buildTokenRequest(), null).getBindingValue(), THUMBPRINT);
+        assertEquals(Utils.getRefreshTokenBinding(buildTokenRequest(), null).getBindingValue(), THUMBPRINT);
+        verify(tokenManagerDAO, times(1)).getTokenBinding(refreshToken, false);
+    }
+
+    @Test
+    public void testRefreshTokenWithoutBindingIsCached() throws Exception {
+
+        assertNull(Utils.getRefreshTokenBinding(buildTokenRequest(), null));
+        assertNull(Utils.getRefreshTokenBinding(buildTokenRequest(), null));
+        verify(tokenManagerDAO, times(1)).getTokenBinding(refreshToken, false);
+    }
+
+    @Test
+    public void testRefreshTokenBindingIsMemoizedOnMessageContext() throws Exception {
+
+        TokenBinding tokenBinding = buildTokenBinding();
+        when(tokenManagerDAO.getTokenBinding(refreshToken, false)).thenReturn(tokenBinding);
+        OAuth2AccessTokenReqDTO tokenReqDTO = buildTokenRequest();
+        OAuthTokenReqMessageContext tokReqMsgCtx = new OAuthTokenReqMessageContext(tokenReqDTO);
+
+        TokenBinding refreshTokenBinding = Utils.getRefreshTokenBinding(tokenReqDTO, tokReqMsgCtx);
+        // The memoized binding is used even though the cache entry is gone.
+        DPoPRefreshTokenBindingCache.getInstance().clearCacheEntry(new DPoPRefreshTokenBindingCacheKey(refreshToken));
+        assertSame(Utils.getRefreshTokenBinding(tokenReqDTO, tokReqMsgCtx), refreshTokenBinding);
+        verify(tokenManagerDAO, times(1)).getTokenBinding(refreshToken, false);
+    }
+
+    @Test
+    public void testRefreshTokenBindingIsReadByTokenId() throws Exception {
+
+        TokenBinding tokenBinding = buildTokenBinding();
+        when(tokenManagerDAO.getTokenBindingByTokenId(TOKEN_ID)).thenReturn(tokenBinding);
+        OAuth2AccessTokenReqDTO tokenReqDTO = buildTokenRequest();
+        OAuthTokenReqMessageContext tokReqMsgCtx = new OAuthTokenReqMessageContext(tokenReqDTO);
+        RefreshTokenValidationDataDO refreshTokenValidationDataDO = new RefreshTokenValidationDataDO();
+        refreshTokenValidationDataDO.setTokenId(TOKEN_ID);
+        tokReqMsgCtx.addProperty(RefreshGrantHandler.PREV_ACCESS_TOKEN, refreshTokenValidationDataDO);
+
+        assertEquals(Utils.getRefreshTokenBinding(tokenReqDTO, tokReqMsgCtx).getBindingValue(), THUMBPRINT);
+        verify(tokenManagerDAO, times(1)).getTokenBindingByTokenId(TOKEN_ID);
+        verify(tokenManagerDAO, never()).getTokenBinding(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testClearedRefreshTokenBindingIsReadAgain() throws Exception {
+
+        when(tokenManagerDAO.getTokenBinding(refreshToken, false)).thenReturn(buildTokenBinding());
+
+        Utils.getRefreshTokenBinding(buildTokenRequest(), null);
+        // Rotated and revoked refresh tokens are removed from the cache.
+        DPoPRefreshTokenBindingCache.getInstance().clearCacheEntry(new DPoPRefreshTokenBindingCacheKey(refreshToken));
+        Utils.getRefreshTokenBinding(buildTokenRequest(), null);
+        verify(tokenManagerDAO, times(2)).getTokenBinding(refreshToken, false);
+    }
+
+    private OAuth2AccessTokenReqDTO buildTokenRequest() {
+
+        OAuth2AccessTokenReqDTO tokenReqDTO = new OAuth2AccessTokenReqDTO();
+        tokenReqDTO.setRefreshToken(refreshToken);
+        return tokenReqDTO;
+    }
+
+    private TokenBinding buildTokenBinding() {
+
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(DPoPConstants.DPOP_TOKEN_TYPE);
+        tokenBinding.setBindingValue(THUMBPRINT);
+        return tokenBinding;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.validators;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.dpop.cache.DPoPKeyCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPKeyCacheEntry;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.internal.DPoPDataHolder;
+import org.wso2.carbon.identity.dpop.nonce.DPoPNonceManager;
+import org.wso2.carbon.identity.dpop.replay.InMemoryDPoPReplayStore;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Test class for DPoPHeaderValidator class.
+ */
+@PrepareForTest({DPoPConfig.class, DPoPKeyCache.class})
+@WithCarbonHome
+public class DPoPHeaderValidatorTest extends PowerMockIdentityBaseTest {
+
+    private static final String HTTP_METHOD = "GET";
+    private static final String HTTP_URL = "https://localhost:8243/resource";
+    private static final long VALIDITY_PERIOD = TimeUnit.MINUTES.toMillis(1);
+
+    private RSAKey rsaKey;
+    private JWSSigner rsaSigner;
+    private ECKey ecKey;
+    private JWSSigner ecSigner;
+    private DPoPConfig dPoPConfig;
+    private DPoPKeyCache keyCache;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator rsaKeyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaKeyPairGenerator.initialize(2048);
+        KeyPair rsaKeyPair = rsaKeyPairGenerator.generateKeyPair();
+        rsaKey = new RSAKey.Builder((RSAPublicKey) rsaKeyPair.getPublic()).build();
+        rsaSigner = new RSASSASigner(rsaKeyPair.getPrivate());
+
+        KeyPairGenerator ecKeyPairGenerator = KeyPairGenerator.getInstance("EC");
+        ecKeyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ecKeyPair = ecKeyPairGenerator.generateKeyPair();
+        ecKey = new ECKey.Builder(Curve.P_256, (ECPublicKey) ecKeyPair.getPublic()).build();
+        ecSigner = new ECDSASigner((ECPrivateKey) ecKeyPair.getPrivate());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        dPoPConfig = mock(DPoPConfig.class);
+        mockStatic(DPoPConfig.class);
+        when(DPoPConfig.getInstance()).thenReturn(dPoPConfig);
+        when(dPoPConfig.getHeaderValidityPeriod()).thenReturn((int) VALIDITY_PERIOD);
+        when(dPoPConfig.getNonceValidityPeriod()).thenReturn(TimeUnit.SECONDS.toMillis(30));
+
+        keyCache = mock(DPoPKeyCache.class);
+        mockStatic(DPoPKeyCache.class);
+        when(DPoPKeyCache.getInstance()).thenReturn(keyCache);
+        when(DPoPKeyCache.getCacheKey(any(JWK.class))).thenCallRealMethod();
+
+        DPoPNonceManager.reset();
+        DPoPDataHolder.getInstance().setReplayStore(new InMemoryDPoPReplayStore(VALIDITY_PERIOD));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        DPoPNonceManager.reset();
+        DPoPDataHolder.getInstance().setReplayStore(null);
+        IdentityUtil.threadLocalProperties.get().remove(DPoPConstants.VALIDATED_DPOP_PROOF);
+    }
+
+    @Test
+    public void testRSAProofIsValidatedInSinglePass() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof);
+        assertNotNull(validatedProof);
+        assertEquals(validatedProof.getProof(), proof);
+        assertEquals(validatedProof.getThumbprint(), rsaKey.computeThumbprint().toString());
+        assertEquals(validatedProof.getJwk().computeThumbprint(), rsaKey.computeThumbprint());
+        assertEquals(validatedProof.getClaimsSet().getClaim(DPoPConstants.DPOP_HTTP_URI), HTTP_URL);
+
+        // The key is looked up and cached once per validation.
+        verify(keyCache, times(1)).getValueFromCache(anyString());
+        verify(keyCache, times(1)).addToCache(anyString(), any(DPoPKeyCacheEntry.class));
+    }
+
+    @Test
+    public void testECProofIsValidated() throws Exception {
+
+        String proof = createProof(ecKey, ecSigner, JWSAlgorithm.ES256, HTTP_METHOD, HTTP_URL, null);
+
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof);
+        assertNotNull(validatedProof);
+        assertEquals(validatedProof.getThumbprint(), ecKey.computeThumbprint().toString());
+    }
+
+    @Test
+    public void testCachedKeyIsReused() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        DPoPKeyCacheEntry keyCacheEntry = new DPoPKeyCacheEntry(
+                new RSASSAVerifier(rsaKey), "cached-thumbprint");
+        when(keyCache.getValueFromCache(DPoPKeyCache.getCacheKey(rsaKey))).thenReturn(keyCacheEntry);
+
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof);
+        assertEquals(validatedProof.getThumbprint(), "cached-thumbprint");
+        verify(keyCache, never()).addToCache(anyString(), any(DPoPKeyCacheEntry.class));
+    }
+
+    @Test
+    public void testProofWithInvalidSignatureIsRejected() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        String[] parts = proof.split("\\.");
+        String otherProof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        String tamperedProof = parts[0] + "." + parts[1] + "." + otherProof.split("\\.")[2];
+
+        assertNull(DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, tamperedProof));
+    }
+
+    @Test
+    public void testReplayedProofIsRejected() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        assertNotNull(DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof));
+
+        assertClientError(proof, DPoPConstants.INVALID_DPOP_PROOF);
+    }
+
+    @Test
+    public void testProofForOtherRequestIsRejected() throws Exception {
+
+        assertClientError(createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, "POST", HTTP_URL, null),
+                DPoPConstants.INVALID_DPOP_PROOF);
+        assertClientError(createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD,
+                "https://localhost:8243/other", null), DPoPConstants.INVALID_DPOP_PROOF);
+    }
+
+    @Test
+    public void testValidatedProofIsReusedWithinRequest() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        HttpServletRequest request = buildRequest();
+
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(request, proof);
+        assertNotNull(validatedProof);
+        // Validating the proof again would report a replay, hence the same result proves that it was reused.
+        assertSame(DPoPHeaderValidator.validateDPoPProof(request, proof), validatedProof);
+        assertSame(DPoPHeaderValidator.getValidatedDPoPProof(request, proof), validatedProof);
+        assertNull(DPoPHeaderValidator.getValidatedDPoPProof(request, "other.dpop.proof"));
+    }
+
+    @Test
+    public void testProofValidatedByAuthenticationHandlerIsReused() throws Exception {
+
+        String proof = createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null);
+        DPoPProof validatedProof = DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof);
+        IdentityUtil.threadLocalProperties.get().put(DPoPConstants.VALIDATED_DPOP_PROOF, validatedProof);
+
+        assertSame(DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof), validatedProof);
+    }
+
+    @Test
+    public void testNonceIsRequired() throws Exception {
+
+        when(dPoPConfig.isNonceEnabled()).thenReturn(true);
+
+        assertClientError(createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, null),
+                DPoPConstants.USE_DPOP_NONCE);
+        assertClientError(createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, "invalid"),
+                DPoPConstants.USE_DPOP_NONCE);
+
+        String nonce = DPoPNonceManager.getInstance().generateNonce();
+        assertNotNull(DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL,
+                createProof(rsaKey, rsaSigner, JWSAlgorithm.RS256, HTTP_METHOD, HTTP_URL, nonce)));
+    }
+
+    private void assertClientError(String proof, String errorCode) throws Exception {
+
+        try {
+            DPoPHeaderValidator.validateDPoPProof(HTTP_METHOD, HTTP_URL, proof);
+            fail("DPoP proof is not rejected.");
+        } catch (IdentityOAuth2ClientException e) {
+            assertEquals(e.getErrorCode(), errorCode);
+        }
+    }
+
+    private HttpServletRequest buildRequest() {
+
+        Map<String, Object> attributes = new HashMap<>();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(HTTP_METHOD);
+        when(request.getRequestURL()).thenReturn(new StringBuffer(HTTP_URL));
+        when(request.getAttribute(anyString())).thenAnswer(
+                invocation -> attributes.get((String) invocation.getArguments()[0]));
+        doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(request).setAttribute(anyString(), any());
+        return request;
+    }
+
+    private String createProof(JWK jwk, JWSSigner signer, JWSAlgorithm algorithm, String httpMethod, String httpUrl,
+                               String nonce) throws Exception {
+
+        JWTClaimsSet.Builder claimsSetBuilder = new JWTClaimsSet.Builder()
+                .issueTime(new Date())
+                .jwtID(UUID.randomUUID().toString())
+                .claim(DPoPConstants.DPOP_HTTP_METHOD, httpMethod)
+                .claim(DPoPConstants.DPOP_HTTP_URI, httpUrl);
+        if (nonce != null) {
+            claimsSetBuilder.claim(DPoPConstants.DPOP_NONCE, nonce);
+        }
+        JWSHeader header = new JWSHeader.Builder(algorithm)
+                .type(new JOSEObjectType(DPoPConstants.DPOP_JWT_TYPE))
+                .jwk(jwk.toPublicJWK())
+                .build();
+        SignedJWT signedJWT = new SignedJWT(header, claimsSetBuilder.build());
+        signedJWT.sign(signer);
+        return signedJWT.serialize();
+    }
+}
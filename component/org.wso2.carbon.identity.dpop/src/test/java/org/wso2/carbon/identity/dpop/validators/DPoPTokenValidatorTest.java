@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.dpop.validators;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import net.minidev.json.JSONObject;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCache;
+import org.wso2.carbon.identity.dpop.cache.DPoPIssuerCacheEntry;
+import org.wso2.carbon.identity.dpop.constant.DPoPConstants;
+import org.wso2.carbon.identity.dpop.introspection.dataprovider.DPoPIntrospectionDataProvider;
+import org.wso2.carbon.identity.dpop.util.DPoPConfig;
+import org.wso2.carbon.identity.dpop.util.Utils;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidationMessageContext;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DPoPTokenValidator class.
+ */
+@PrepareForTest({DPoPConfig.class, DPoPIssuerCache.class, DPoPHeaderValidator.class, OAuthServerConfiguration.class,
+        OAuth2Util.class})
+@WithCarbonHome
+public class DPoPTokenValidatorTest extends PowerMockIdentityBaseTest {
+
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+    private static final String THUMBPRINT = "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I";
+    private static final String DPOP_PROOF = "dpop.proof.value";
+    private static final String ACCESS_TOKEN_DO = "AccessTokenDO";
+
+    private KeyPair issuerKeyPair;
+    private KeyPair otherKeyPair;
+    private DPoPConfig dPoPConfig;
+    private DPoPTokenValidator dPoPTokenValidator;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        issuerKeyPair = keyPairGenerator.generateKeyPair();
+        otherKeyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        dPoPTokenValidator = new DPoPTokenValidator();
+
+        dPoPConfig = mock(DPoPConfig.class);
+        mockStatic(DPoPConfig.class);
+        when(DPoPConfig.getInstance()).thenReturn(dPoPConfig);
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        X509Certificate certificate = mock(X509Certificate.class);
+        DPoPIssuerCache issuerCache = mock(DPoPIssuerCache.class);
+        mockStatic(DPoPIssuerCache.class);
+        when(DPoPIssuerCache.getInstance()).thenReturn(issuerCache);
+        when(issuerCache.getValueFromCache(anyString())).thenReturn(new DPoPIssuerCacheEntry(ISSUER,
+                identityProvider, certificate, new RSASSAVerifier((RSAPublicKey) issuerKeyPair.getPublic())));
+
+        DPoPProof dPoPProof = new DPoPProof(DPOP_PROOF, null, null, THUMBPRINT);
+        mockStatic(DPoPHeaderValidator.class);
+        when(DPoPHeaderValidator.validateDPoPProof(anyString(), anyString(), anyString())).thenReturn(dPoPProof);
+
+        OAuthServerConfiguration oAuthServerConfiguration = mock(OAuthServerConfiguration.class);
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(oAuthServerConfiguration);
+        when(oAuthServerConfiguration.getTimeStampSkewInSeconds()).thenReturn(300L);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        Utils.clearValidatedAccessToken();
+    }
+
+    @Test
+    public void testValidSignatureIsVerified() throws Exception {
+
+        String token = createToken(issuerKeyPair, UUID.randomUUID().toString());
+        configureSkippedTenants(false);
+
+        assertTrue(dPoPTokenValidator.validateAccessToken(buildMessageContext(token, token)));
+    }
+
+    @Test
+    public void testSignatureValidationSkipped() throws Exception {
+
+        // Signed with a key other than the issuer key, hence only accepted when the signature is not verified.
+        String token = createToken(otherKeyPair, UUID.randomUUID().toString());
+        configureSkippedTenants(true);
+
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(token, token);
+        assertTrue(dPoPTokenValidator.isSignatureValidationSkipped(messageContext));
+        assertTrue(dPoPTokenValidator.validateAccessToken(messageContext));
+    }
+
+    @Test
+    public void testSignatureValidationNotSkippedForTenant() throws Exception {
+
+        String token = createToken(otherKeyPair, UUID.randomUUID().toString());
+        configureSkippedTenants(false);
+
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(token, token);
+        assertFalse(dPoPTokenValidator.isSignatureValidationSkipped(messageContext));
+        assertFalse(dPoPTokenValidator.validateAccessToken(messageContext));
+    }
+
+    @Test
+    public void testSignatureValidationNotSkippedForTamperedClaims() throws Exception {
+
+        String jti = UUID.randomUUID().toString();
+        String storedToken = createToken(issuerKeyPair, jti);
+        String[] parts = storedToken.split("\\.");
+        // Replace the claims while keeping the header and the signature of the stored token.
+        String tamperedClaims = createToken(otherKeyPair, jti, TimeUnit.DAYS.toMillis(365)).split("\\.")[1];
+        String tamperedToken = parts[0] + "." + tamperedClaims + "." + parts[2];
+        configureSkippedTenants(true);
+
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(storedToken, tamperedToken);
+        assertFalse(dPoPTokenValidator.isSignatureValidationSkipped(messageContext));
+        assertFalse(dPoPTokenValidator.validateAccessToken(messageContext));
+    }
+
+    @Test
+    public void testSignatureValidationNotSkippedForTokenIdentifier() throws Exception {
+
+        String jti = UUID.randomUUID().toString();
+        String token = createToken(otherKeyPair, jti);
+        configureSkippedTenants(true);
+
+        // A token store entry holding only the jti of the token does not prove that the token was issued.
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(jti, token);
+        assertFalse(dPoPTokenValidator.isSignatureValidationSkipped(messageContext));
+        assertFalse(dPoPTokenValidator.validateAccessToken(messageContext));
+    }
+
+    @Test
+    public void testValidatedAccessTokenReusedForIntrospection() throws Exception {
+
+        String token = UUID.randomUUID().toString();
+        mockStatic(OAuth2Util.class);
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(token, token);
+        assertTrue(dPoPTokenValidator.validateAccessToken(messageContext));
+
+        OAuth2IntrospectionResponseDTO introspectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        introspectionResponseDTO.setActive(true);
+        introspectionResponseDTO.setBindingType(DPoPConstants.DPOP_TOKEN_TYPE);
+        Map<String, Object> introspectionData = new DPoPIntrospectionDataProvider().getIntrospectionData(
+                messageContext.getRequestDTO(), introspectionResponseDTO);
+        assertEquals(((Map<?, ?>) introspectionData.get(DPoPConstants.CNF)).get(DPoPConstants.JWK_THUMBPRINT),
+                THUMBPRINT);
+        // The data provider is the last consumer of the published token.
+        assertNull(Utils.getValidatedAccessToken(token));
+
+        PowerMockito.verifyStatic(Mockito.never());
+        OAuth2Util.findAccessToken(anyString(), anyBoolean());
+    }
+
+    private void configureSkippedTenants(boolean skipped) {
+
+        when(dPoPConfig.hasSignatureValidationSkippedTenants()).thenReturn(skipped);
+        when(dPoPConfig.isSignatureValidationSkipped(anyString())).thenReturn(skipped);
+    }
+
+    private String createToken(KeyPair keyPair, String jti) throws Exception {
+
+        return createToken(keyPair, jti, TimeUnit.HOURS.toMillis(1));
+    }
+
+    private String createToken(KeyPair keyPair, String jti, long validityPeriod) throws Exception {
+
+        JSONObject cnf = new JSONObject();
+        cnf.put(DPoPConstants.JWK_THUMBPRINT, THUMBPRINT);
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("admin")
+                .audience(Collections.singletonList("client"))
+                .expirationTime(new Date(System.currentTimeMillis() + validityPeriod))
+                .jwtID(jti)
+                .claim(DPoPConstants.CNF, cnf)
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claimsSet);
+        signedJWT.sign(new RSASSASigner(keyPair.getPrivate()));
+        return signedJWT.serialize();
+    }
+
+    private OAuth2TokenValidationMessageContext buildMessageContext(String storedToken, String presentedToken) {
+
+        OAuth2TokenValidationRequestDTO requestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = requestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(presentedToken);
+        accessToken.setTokenType(DPoPConstants.DPOP_TOKEN_TYPE);
+        requestDTO.setAccessToken(accessToken);
+        requestDTO.setContext(new OAuth2TokenValidationRequestDTO.TokenValidationContextParam[]{
+                buildContextParam(requestDTO, DPoPConstants.OAUTH_DPOP_HEADER, DPOP_PROOF),
+                buildContextParam(requestDTO, DPoPConstants.HTTP_METHOD, "GET"),
+                buildContextParam(requestDTO, DPoPConstants.HTTP_URL, "https://localhost:8243/resource")});
+
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(DPoPConstants.OAUTH_DPOP_HEADER);
+        tokenBinding.setBindingValue(THUMBPRINT);
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setAccessToken(storedToken);
+        accessTokenDO.setTokenBinding(tokenBinding);
+
+        OAuth2TokenValidationMessageContext messageContext = new OAuth2TokenValidationMessageContext(requestDTO,
+                new OAuth2TokenValidationResponseDTO());
+        messageContext.addProperty(ACCESS_TOKEN_DO, accessTokenDO);
+        return messageContext;
+    }
+
+    private OAuth2TokenValidationRequestDTO.TokenValidationContextParam buildContextParam(
+            OAuth2TokenValidationRequestDTO requestDTO, String key, String value) {
+
+        OAuth2TokenValidationRequestDTO.TokenValidationContextParam contextParam =
+                requestDTO.new TokenValidationContextParam();
+        contextParam.setKey(key);
+        contextParam.setValue(value);
+        return contextParam;
+    }
+}
@@ -25,16 +25,14 @@ import org.apache.oltu.oauth2.common.OAuth;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.User;
-import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
-import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.client.authentication.AbstractOAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthnException;
 import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.internal.PrivilegedUserAuthenticatorServiceHolder;
 import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.utils.PrivilegedUserAuthenticatorConfig;
 import org.wso2.carbon.user.api.AuthorizationManager;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -136,10 +134,7 @@ public class PrivilegedUserAuthenticator extends AbstractOAuthClientAuthenticato
      */
     public boolean isEnabled() {
 
-        IdentityEventListenerConfig identityEventListenerConfig =
-                IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
-                        this.getClass().getName());
-        return identityEventListenerConfig != null && Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+        return PrivilegedUserAuthenticatorConfig.getInstance(getClass()).isEnabled();
     }
 
     /**
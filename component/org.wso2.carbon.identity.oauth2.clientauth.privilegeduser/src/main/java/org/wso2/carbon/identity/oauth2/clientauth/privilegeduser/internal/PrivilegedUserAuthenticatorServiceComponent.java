@@ -24,11 +24,13 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.PrivilegedUserAuthenticator;
+import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.utils.PrivilegedUserAuthenticatorConfig;
 import org.wso2.carbon.user.core.service.RealmService;
 
 
@@ -48,6 +50,7 @@ public class PrivilegedUserAuthenticatorServiceComponent {
             BundleContext bundleContext = ctxt.getBundleContext();
             bundleContext.registerService(OAuthClientAuthenticator.class.getName(), privilegedUserAuthenticator,
                     null);
+            PrivilegedUserAuthenticatorConfig.reload();
             if (log.isDebugEnabled()) {
                 log.debug("PrivilegedUserAuthenticator is activated");
             }
@@ -56,8 +59,10 @@ public class PrivilegedUserAuthenticatorServiceComponent {
         }
     }
 
+    @Deactivate
     protected void deactivate(ComponentContext ctxt) {
 
+        PrivilegedUserAuthenticatorConfig.clear();
         if (log.isDebugEnabled()) {
             log.debug("PrivilegedUserAuthenticator is deactivated.");
         }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.utils;
+
+import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.PrivilegedUserAuthenticator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whether a privileged user authenticator is enabled in identity.xml. The event listener entry is looked up by the
+ * runtime class of the authenticator, so a subclass registered under its own name gets its own snapshot.
+ */
+public final class PrivilegedUserAuthenticatorConfig {
+
+    private static final Map<String, PrivilegedUserAuthenticatorConfig> instances = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private PrivilegedUserAuthenticatorConfig(IdentityEventListenerConfig identityEventListenerConfig) {
+
+        this.enabled = identityEventListenerConfig != null &&
+                Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+    }
+
+    /**
+     * Get the configuration snapshot of the given authenticator class. The snapshot is read from identity.xml on
+     * first use and reused until the configuration is reloaded.
+     *
+     * @param authenticatorClass Runtime class of the authenticator.
+     * @return Configuration snapshot.
+     */
+    public static PrivilegedUserAuthenticatorConfig getInstance(Class<?> authenticatorClass) {
+
+        return instances.computeIfAbsent(authenticatorClass.getName(), PrivilegedUserAuthenticatorConfig::load);
+    }
+
+    /**
+     * Discard the snapshots and read the configuration of PrivilegedUserAuthenticator from identity.xml.
+     *
+     * @return Configuration snapshot of PrivilegedUserAuthenticator.
+     */
+    public static PrivilegedUserAuthenticatorConfig reload() {
+
+        instances.clear();
+        return getInstance(PrivilegedUserAuthenticator.class);
+    }
+
+    /**
+     * Discard the snapshots.
+     */
+    public static void clear() {
+
+        instances.clear();
+    }
+
+    private static PrivilegedUserAuthenticatorConfig load(String authenticatorName) {
+
+        return new PrivilegedUserAuthenticatorConfig(IdentityUtil.readEventListenerProperty(
+                AbstractIdentityHandler.class.getName(), authenticatorName));
+    }
+
+    /**
+     * @return Whether the authenticator is enabled.
+     */
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+}
@@ -24,9 +24,13 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.internal.PrivilegedUserAuthenticatorServiceHolder;
+import org.wso2.carbon.identity.oauth2.clientauth.privilegeduser.utils.PrivilegedUserAuthenticatorConfig;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 import org.wso2.carbon.user.api.AuthorizationManager;
@@ -49,12 +53,14 @@ import static org.mockito.Matchers.anyString;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 @PrepareForTest({
         HttpServletRequest.class,
         OAuth2Util.class,
         IdentityTenantUtil.class,
+        IdentityUtil.class,
         PrivilegedUserAuthenticatorServiceHolder.class,
         UserCoreUtil.class,
 })
@@ -129,6 +135,27 @@ public class PrivilegedUserAuthenticatorTest extends PowerMockIdentityBaseTest {
                 "PrivilegedUserAuthenticator name has changed.");
     }
 
+    @Test
+    public void testIsEnabledReadsConfigOfRuntimeClass() {
+
+        IdentityEventListenerConfig enabledConfig = PowerMockito.mock(IdentityEventListenerConfig.class);
+        when(enabledConfig.getEnable()).thenReturn("true");
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
+                PrivilegedUserAuthenticator.class.getName())).thenReturn(enabledConfig);
+        PrivilegedUserAuthenticator subclassAuthenticator = new PrivilegedUserAuthenticator() {
+        };
+        PrivilegedUserAuthenticatorConfig.clear();
+
+        try {
+            assertTrue(privilegedUserAuthenticator.isEnabled());
+            // The subclass is not registered under its own name, hence it is not enabled.
+            assertFalse(subclassAuthenticator.isEnabled());
+        } finally {
+            PrivilegedUserAuthenticatorConfig.clear();
+        }
+    }
+
     @Test
     public void testGetClientId() throws Exception {
 
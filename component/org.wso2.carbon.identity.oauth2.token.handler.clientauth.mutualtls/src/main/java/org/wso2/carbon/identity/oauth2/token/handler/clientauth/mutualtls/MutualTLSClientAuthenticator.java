@@ -29,17 +29,30 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.oltu.oauth2.common.OAuth;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.client.authentication.AbstractOAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthnException;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheKey;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSJWKSCache;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSJWKSCacheEntry;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSJWKSCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificatePathValidator;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificateSubjectMatcher;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation.RevocationChecker;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CertificateFingerprint;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSClientIdResolver;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
@@ -52,11 +65,10 @@ import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -70,11 +82,17 @@ import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.getServiceProvider
  * client certificate presented to the authorization server during TLS handshake. As a result of successful
  * validation of the certificate at web container, the certificate will be available in request attributes. This
  * authenticator will authenticate the client by matching the certificate presented during handshake against the
- * certificate registered for the client.
+ * certificate registered for the client. Clients registered with tls_client_auth metadata are authenticated with the
+ * PKI method, by matching the subject of the certificate and validating its chain against trusted CAs.
  */
 public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticator {
 
     private static final Log log = LogFactory.getLog(MutualTLSClientAuthenticator.class);
+    private static final String[] TLS_CLIENT_AUTH_METADATA = {CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN,
+            CommonConstants.TLS_CLIENT_AUTH_SAN_DNS, CommonConstants.TLS_CLIENT_AUTH_SAN_URI,
+            CommonConstants.TLS_CLIENT_AUTH_SAN_IP, CommonConstants.TLS_CLIENT_AUTH_SAN_EMAIL};
+
+    private final boolean certificateComparisonOverridden = isCertificateComparisonOverridden(getClass());
 
     /**
      * @param request                 HttpServletRequest which is the incoming request.
@@ -88,8 +106,8 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
                                       OAuthClientAuthnContext oAuthClientAuthnContext)
             throws OAuthClientAuthnException {
 
-        X509Certificate registeredCert;
         URL jwksUri;
+        boolean authenticated;
 
         // This value is consumed by MTLS token binding to validate whether the client was authenticated using MTLS.
         oAuthClientAuthnContext.addParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM,
@@ -103,8 +121,8 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
                 oAuthClientAuthnContext.setClientId(clientId);
             } else {
                 if (log.isDebugEnabled()) {
-                    log.debug("Mutual TLS authenticator cannot handle this request. Client id is not available in body " +
-                                       "params or valid certificate not found in request attributes.");
+                    log.debug("Mutual TLS authenticator cannot handle this request. Client id is not available in " +
+                            "body params or valid certificate not found in request attributes.");
                 }
                 return false;
             }
@@ -115,45 +133,77 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
                 log.debug("Authenticating client : " + oAuthClientAuthnContext.getClientId() + " with public " +
                         "certificate.");
             }
-            X509Certificate requestCert;
-            Object certObject = request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE);
-            Optional<X509Certificate> x509certObject = getCertificateFromHeader(request);
-
-            if (certObject instanceof X509Certificate[]) {
-                X509Certificate[] cert = (X509Certificate[]) certObject;
-                requestCert = cert[0];
-            } else if (certObject instanceof X509Certificate) {
-                requestCert = (X509Certificate) certObject;
-            } else if (x509certObject.isPresent()) {
-                requestCert = x509certObject.get();
-            } else {
+            Optional<MutualTLSCertificateHolder> certificateHolder =
+                    MutualTLSCertificateHolder.getCertificateHolder(oAuthClientAuthnContext);
+            if (!certificateHolder.isPresent()) {
+                certificateHolder = MutualTLSCertificateHolder.getCertificateHolder(request);
+            }
+            if (!certificateHolder.isPresent()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Could not find client certificate in required format for client: " +
                             oAuthClientAuthnContext.getClientId());
                 }
                 return false;
             }
+            oAuthClientAuthnContext.addParameter(CommonConstants.CLIENT_CERTIFICATE_HOLDER, certificateHolder.get());
+            X509Certificate requestCert = certificateHolder.get().getCertificate();
+
+            String resultCacheSessionKey = getAuthenticationResultSessionKey(request, certificateHolder.get());
+            if (resultCacheSessionKey != null && isAuthenticationResultCached(oAuthClientAuthnContext.getClientId(),
+                    resultCacheSessionKey, certificateHolder.get())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client: " + oAuthClientAuthnContext.getClientId() + " was already authenticated in " +
+                            "the same TLS session with the same certificate.");
+                }
+                publishCertificateThumbprint(oAuthClientAuthnContext, certificateHolder.get());
+                return true;
+            }
 
             String tenantDomain = OAuth2Util.getTenantDomainOfOauthApp(oAuthClientAuthnContext.getClientId());
             ServiceProvider serviceProvider = getServiceProvider(oAuthClientAuthnContext.getClientId(), tenantDomain );
-            if (isJwksUriConfigured(serviceProvider)) {
+            String tlsClientAuthMetadata = getTLSClientAuthMetadata(serviceProvider);
+            if (tlsClientAuthMetadata != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug(tlsClientAuthMetadata + " configured for Service Provider with client_id: "
+                            + oAuthClientAuthnContext.getClientId() + " of tenantDomain: " + tenantDomain + ". "
+                            + "Validating the request certificate chain against the trust anchors of the tenant");
+                }
+                authenticated = authenticate(certificateHolder.get(), tenantDomain, tlsClientAuthMetadata,
+                        MutualTLSUtil.getPropertyValue(serviceProvider, tlsClientAuthMetadata));
+            } else if (isJwksUriConfigured(serviceProvider)) {
                 if (log.isDebugEnabled()) {
                     log.debug("Public certificate not configured for Service Provider with client_id: "
                             + oAuthClientAuthnContext.getClientId() + " of tenantDomain: " + tenantDomain + ". "
                             + "Fetching the jwks endpoint for validating request certificate");
                 }
                 jwksUri = getJWKSEndpointOfSP(serviceProvider, oAuthClientAuthnContext.getClientId());
-                return authenticate(jwksUri, requestCert);
+                authenticated = authenticate(jwksUri, requestCert);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Public certificate configured for Service Provider with client_id: "
                             + oAuthClientAuthnContext.getClientId() + " of tenantDomain: " + tenantDomain
                             + ". Using public certificate  for validating request certificate");
                 }
-                registeredCert = (X509Certificate) OAuth2Util
-                        .getX509CertOfOAuthApp(oAuthClientAuthnContext.getClientId(), tenantDomain);
-                return authenticate(registeredCert, requestCert);
+                authenticated = authenticate(oAuthClientAuthnContext.getClientId(), tenantDomain,
+                        certificateHolder.get());
             }
+            if (authenticated && !RevocationChecker.getInstance().isAccepted(
+                    certificateHolder.get().getCertificateChain(), tenantDomain)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client certificate of the client: " + oAuthClientAuthnContext.getClientId()
+                            + " is rejected by the revocation check.");
+                }
+                authenticated = false;
+            }
+            if (authenticated) {
+                updateClientIdIndex(oAuthClientAuthnContext, certificateHolder.get());
+                if (resultCacheSessionKey != null) {
+                    addAuthenticationResultToCache(oAuthClientAuthnContext.getClientId(), tenantDomain,
+                            resultCacheSessionKey, requestCert);
+                }
+                publishCertificateThumbprint(oAuthClientAuthnContext, certificateHolder.get());
+            }
+            return authenticated;
         } catch (IdentityOAuth2Exception e) {
             throw new OAuthClientAuthnException(OAuth2ErrorCodes.SERVER_ERROR, "Error occurred while retrieving " +
                     "public certificate of client ID: " + oAuthClientAuthnContext.getClientId(), e);
@@ -176,28 +226,25 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
     public boolean canAuthenticate(HttpServletRequest request, Map<String, List> bodyParams,
                                    OAuthClientAuthnContext context) {
 
-        String headerName = IdentityUtil.getProperty(CommonConstants.MTLS_AUTH_HEADER);
         if (clientIdExistsAsParam(bodyParams)) {
-            if (validCertExistsAsAttribute(request)) {
+            Optional<MutualTLSCertificateHolder> certificateHolder =
+                    MutualTLSCertificateHolder.getCertificateHolder(request);
+            if (certificateHolder.isPresent()) {
                 if (log.isDebugEnabled()) {
-                    log.debug("A valid certificate was found in the request attribute hence returning true.");
+                    log.debug("A valid certificate was found in the request hence returning true.");
                 }
+                context.addParameter(CommonConstants.CLIENT_CERTIFICATE_HOLDER, certificateHolder.get());
                 return true;
             } else {
-                if (StringUtils.isNotBlank(headerName) && getCertificateFromHeader(request).isPresent()) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("A valid certificate was found from the request header hence returning true.");
-                    }
-                    return true;
-                } else {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Mutual TLS authenticator cannot handle this request. " +
-                                "A valid certificate could not be found in the request.");
-                    }
-                    return false;
+                if (log.isDebugEnabled()) {
+                    log.debug("Mutual TLS authenticator cannot handle this request. " +
+                            "A valid certificate could not be found in the request.");
                 }
+                return false;
             }
-        }  else {
+        } else if (MutualTLSClientIdResolver.isEnabled() && !hasOtherClientCredentials(request, bodyParams)) {
+            return canAuthenticateWithoutClientId(request, context);
+        } else {
             if (log.isDebugEnabled()) {
                 log.debug("Mutual TLS authenticator cannot handle this request. " +
                         "Client id is not available as a parameter in body.");
@@ -206,6 +253,84 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
         }
     }
 
+    /**
+     * Resolve the client ID from the client certificate when the client_id parameter is not sent. The resolved client
+     * is authenticated the same way as a client which sent its client ID.
+     *
+     * @param request HttpServletRequest which is the incoming request.
+     * @param context OAuth2 client authentication context.
+     * @return Whether a client could be resolved from the client certificate.
+     */
+    private boolean canAuthenticateWithoutClientId(HttpServletRequest request, OAuthClientAuthnContext context) {
+
+        Optional<MutualTLSCertificateHolder> certificateHolder =
+                MutualTLSCertificateHolder.getCertificateHolder(request);
+        if (!certificateHolder.isPresent()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Mutual TLS authenticator cannot handle this request. Client id is not available as a " +
+                        "parameter in body and a valid certificate could not be found in the request.");
+            }
+            return false;
+        }
+        Optional<String> clientId = MutualTLSClientIdResolver.resolveClientId(certificateHolder.get());
+        if (!clientId.isPresent()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Mutual TLS authenticator cannot handle this request. Client id is not available as a " +
+                        "parameter in body and could not be resolved from the client certificate.");
+            }
+            return false;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Client id: " + clientId.get() + " resolved from the client certificate hence returning true.");
+        }
+        context.setClientId(clientId.get());
+        context.addParameter(CommonConstants.CLIENT_CERTIFICATE_HOLDER, certificateHolder.get());
+        context.addParameter(CommonConstants.CLIENT_ID_RESOLVED_FROM_CERTIFICATE, true);
+        return true;
+    }
+
+    /**
+     * Check whether the request carries credentials of another client authentication method, in which case the client
+     * ID is not resolved from the client certificate.
+     */
+    private boolean hasOtherClientCredentials(HttpServletRequest request, Map<String, List> bodyParams) {
+
+        Map<String, String> stringContent = getBodyParameters(bodyParams);
+        return StringUtils.isNotEmpty(request.getHeader(CommonConstants.AUTHORIZATION_HEADER))
+                || StringUtils.isNotEmpty(stringContent.get(OAuth.OAUTH_CLIENT_SECRET))
+                || StringUtils.isNotEmpty(stringContent.get(CommonConstants.CLIENT_ASSERTION));
+    }
+
+    /**
+     * Index the certificate of a successfully authenticated client. Failed authentications never remove entries,
+     * since the presented certificate need not belong to the client it was resolved to.
+     */
+    private void updateClientIdIndex(OAuthClientAuthnContext oAuthClientAuthnContext,
+                                     MutualTLSCertificateHolder certificateHolder) {
+
+        if (MutualTLSClientIdResolver.isEnabled()) {
+            MutualTLSClientIdResolver.addClientId(certificateHolder, oAuthClientAuthnContext.getClientId());
+        }
+    }
+
+    /**
+     * Add the SHA-256 thumbprint of the authenticated client certificate to the client authentication context, so
+     * that the MTLS token binding grant handlers bind the token without resolving the certificate again.
+     */
+    private void publishCertificateThumbprint(OAuthClientAuthnContext oAuthClientAuthnContext,
+                                              MutualTLSCertificateHolder certificateHolder) {
+
+        try {
+            oAuthClientAuthnContext.addParameter(CommonConstants.CERT_THUMBPRINT_SHA256_PARAM,
+                    certificateHolder.getSHA256ThumbprintBase64URL());
+        } catch (CertificateEncodingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error occurred while calculating the SHA-256 thumbprint of the certificate of the client: "
+                        + oAuthClientAuthnContext.getClientId(), e);
+            }
+        }
+    }
+
     /**
      * Retrieves the client ID which is extracted from incoming request.
      *
@@ -224,64 +349,196 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
         return oAuthClientAuthnContext.getClientId();
     }
 
-    private Optional<X509Certificate> getCertificateFromHeader(HttpServletRequest request) {
+    private boolean clientIdExistsAsParam(Map<String, List> contentParam) {
 
-        String headerName = IdentityUtil.getProperty(CommonConstants.MTLS_AUTH_HEADER);
-        String headerString = request.getHeader(headerName);
+        Map<String, String> stringContent = getBodyParameters(contentParam);
+        return (StringUtils.isNotEmpty(stringContent.get(OAuth.OAUTH_CLIENT_ID)));
+    }
 
-        if (StringUtils.isNotBlank(headerString)) {
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("%s header available in request as %s", headerName, headerString));
-            }
+    /**
+     * Build the key of the authentication result of the request within the cached results of the client. Results are
+     * cached only when the cache is enabled and the certificate was presented to this server in the TLS handshake,
+     * since a certificate forwarded in a header is not bound to the TLS session of the request.
+     *
+     * @return TLS session ID together with the certificate thumbprint, or null if the result should not be cached.
+     */
+    private String getAuthenticationResultSessionKey(HttpServletRequest request,
+                                                     MutualTLSCertificateHolder certificateHolder) {
 
-            try {
-                return Optional.of(parseCertificate(headerString));
-            } catch (CertificateException e) {
-                log.error("Unable to parse the certificate sent in header", e);
+        if (!MutualTLSConfig.getInstance().isAuthenticationResultCacheEnabled()
+                || request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE) == null) {
+            return null;
+        }
+        Object sessionId = request.getAttribute(CommonConstants.JAVAX_SERVLET_REQUEST_SSL_SESSION_ID);
+        if (sessionId == null || StringUtils.isBlank(sessionId.toString())) {
+            return null;
+        }
+        try {
+            return sessionId + "#" + certificateHolder.getSHA256ThumbprintBase64URL();
+        } catch (CertificateEncodingException e) {
+            log.error("Error while generating the thumbprint of the client certificate.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Check whether the client was already authenticated in the TLS session with the same certificate. The revocation
+     * status of the certificate is checked on each reuse, so a revoked certificate is not accepted until the cached
+     * result expires. The revocation status itself is cached by the revocation checker.
+     */
+    private boolean isAuthenticationResultCached(String clientId, String sessionKey,
+                                                 MutualTLSCertificateHolder certificateHolder) {
+
+        MutualTLSAuthenticationResultCacheEntry cacheEntry = MutualTLSAuthenticationResultCache.getInstance()
+                .getValueFromCache(new MutualTLSAuthenticationResultCacheKey(clientId));
+        if (cacheEntry == null || !cacheEntry.isAuthenticated(sessionKey, System.currentTimeMillis())) {
+            return false;
+        }
+        if (!RevocationChecker.getInstance().isAccepted(certificateHolder.getCertificateChain(),
+                cacheEntry.getTenantDomain())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cached authentication of the client: " + clientId + " is not reused since the client " +
+                        "certificate is rejected by the revocation check.");
             }
+            return false;
         }
+        return true;
+    }
 
-        return Optional.empty();
+    /**
+     * Cache the successful authentication until the configured TTL elapses or the client certificate expires,
+     * whichever comes first.
+     */
+    private void addAuthenticationResultToCache(String clientId, String tenantDomain, String sessionKey,
+                                                X509Certificate requestCert) {
+
+        long currentTime = System.currentTimeMillis();
+        long ttl = MutualTLSConfig.getInstance().getAuthenticationResultCacheTTL();
+        long expiryTime = Math.min(currentTime + ttl * 1000, requestCert.getNotAfter().getTime());
+        MutualTLSAuthenticationResultCacheKey cacheKey = new MutualTLSAuthenticationResultCacheKey(clientId);
+        MutualTLSAuthenticationResultCacheEntry cacheEntry =
+                MutualTLSAuthenticationResultCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry == null || !tenantDomain.equals(cacheEntry.getTenantDomain())) {
+            cacheEntry = new MutualTLSAuthenticationResultCacheEntry(tenantDomain);
+        }
+        MutualTLSAuthenticationResultCache.getInstance().addToCache(cacheKey,
+                cacheEntry.add(sessionKey, expiryTime, currentTime));
     }
 
     /**
-     * Return Certificate for give Certificate Content.
+     * Get the name of the tls_client_auth metadata registered for the service provider, in which case the client is
+     * authenticated with the PKI method of RFC 8705.
      *
-     * @param content   Certificate Content
-     * @return X509Certificate X.509 certificate after decoding the certificate content.
-     * @throws CertificateException Certificate Exception.
+     * @param serviceProvider Service provider.
+     * @return Name of the registered metadata, or null if the PKI method is not configured.
      */
-    private X509Certificate parseCertificate(String content) throws CertificateException {
-
-        // Trim extra spaces.
-        String decodedContent = StringUtils.trim(content);
-
-        // Remove Certificate Headers.
-        byte[] decoded = Base64.getDecoder().decode(StringUtils.trim(decodedContent
-                .replaceAll(CommonConstants.BEGIN_CERT, StringUtils.EMPTY)
-                .replaceAll(CommonConstants.END_CERT, StringUtils.EMPTY)
-        ));
+    private String getTLSClientAuthMetadata(ServiceProvider serviceProvider) {
 
-        return (java.security.cert.X509Certificate) CertificateFactory.getInstance(CommonConstants.X509)
-                .generateCertificate(new ByteArrayInputStream(decoded));
+        for (String metadata : TLS_CLIENT_AUTH_METADATA) {
+            if (StringUtils.isNotBlank(MutualTLSUtil.getPropertyValue(serviceProvider, metadata))) {
+                return metadata;
+            }
+        }
+        return null;
     }
 
-    private boolean clientIdExistsAsParam(Map<String, List> contentParam) {
+    /**
+     * Authenticate the client with the PKI method by matching the client certificate against the registered subject
+     * DN or subject alternative name and validating the certificate chain against the trust anchors of the tenant.
+     *
+     * @param certificateHolder Holder of the certificate chain presented to server during TLS hand shake.
+     * @param tenantDomain      Tenant domain of the OAuth client.
+     * @param metadataName      Name of the registered tls_client_auth metadata.
+     * @param metadataValue     Value of the registered tls_client_auth metadata.
+     * @return Whether the client was successfully authenticated or not.
+     */
+    private boolean authenticate(MutualTLSCertificateHolder certificateHolder, String tenantDomain,
+                                 String metadataName, String metadataValue) throws IdentityOAuth2Exception {
 
-        Map<String, String> stringContent = getBodyParameters(contentParam);
-        return (StringUtils.isNotEmpty(stringContent.get(OAuth.OAUTH_CLIENT_ID)));
+        if (!CertificateSubjectMatcher.matches(certificateHolder.getCertificate(), metadataName, metadataValue)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client Authentication failed. Client certificate did not match the registered "
+                        + metadataName + ": " + metadataValue);
+            }
+            return false;
+        }
+        if (CertificatePathValidator.isValid(certificateHolder, tenantDomain)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate chain is trusted by the tenant: " + tenantDomain);
+            }
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Client Authentication failed. Client certificate chain is not trusted by the tenant: "
+                    + tenantDomain);
+        }
+        return false;
     }
 
     /**
-     * Check for the existence of a valid certificate in required format in the request attribute map.
+     * Authenticate the client by comparing the registered public certificate against the certificate presented at TLS
+     * hand shake. The SHA-256 thumbprint of the registered certificate is indexed by client ID so that the registered
+     * certificate is retrieved, decoded and hashed only once, and the thumbprint of the presented certificate is the
+     * one memoized by its holder. Subclasses overriding {@link #authenticate(X509Certificate, X509Certificate)} are
+     * handed the registered certificate instead.
      *
-     * @param request HttpServletRequest which is the incoming request.
-     * @return Whether a certificate exists or not.
+     * @param clientId          Client ID of the OAuth client.
+     * @param tenantDomain      Tenant domain of the OAuth client.
+     * @param certificateHolder Holder of the certificate presented to server during TLS hand shake.
+     * @return Whether the client was successfully authenticated or not.
      */
-    private boolean validCertExistsAsAttribute(HttpServletRequest request) {
+    private boolean authenticate(String clientId, String tenantDomain, MutualTLSCertificateHolder certificateHolder)
+            throws OAuthClientAuthnException, IdentityOAuth2Exception {
+
+        MutualTLSCertificateThumbprintCacheEntry registeredCert = getRegisteredCertificate(clientId, tenantDomain);
+        if (certificateComparisonOverridden) {
+            return authenticate(registeredCert.getCertificate(), certificateHolder.getCertificate());
+        }
+        try {
+            if (MessageDigest.isEqual(registeredCert.getThumbprint(), certificateHolder.getSHA256Thumbprint())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client certificate thumbprint matched with the registered certificate thumbprint.");
+                }
+                return true;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Client Authentication failed. Client certificate thumbprint did not match with the " +
+                        "registered certificate thumbprint.");
+            }
+            return false;
+        } catch (CertificateEncodingException e) {
+            throw new OAuthClientAuthnException(OAuth2ErrorCodes.INVALID_GRANT, "Error occurred while " +
+                    "generating certificate thumbprint. Error: " + e.getMessage(), e);
+        }
+    }
+
+    private MutualTLSCertificateThumbprintCacheEntry getRegisteredCertificate(String clientId, String tenantDomain)
+            throws OAuthClientAuthnException, IdentityOAuth2Exception {
+
+        MutualTLSCertificateThumbprintCacheKey cacheKey =
+                new MutualTLSCertificateThumbprintCacheKey(clientId, tenantDomain);
+        MutualTLSCertificateThumbprintCacheEntry cacheEntry =
+                MutualTLSCertificateThumbprintCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry != null && cacheEntry.getThumbprint() != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Registered certificate thumbprint of client: " + clientId + " found in cache.");
+            }
+            return cacheEntry;
+        }
 
-        Object certObject = request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE);
-        return (certObject instanceof X509Certificate[] || certObject instanceof X509Certificate);
+        X509Certificate registeredCert = (X509Certificate) OAuth2Util.getX509CertOfOAuthApp(clientId, tenantDomain);
+        if (registeredCert == null) {
+            throw new IdentityOAuth2Exception("Public certificate is not configured for the client: " + clientId);
+        }
+        try {
+            cacheEntry = new MutualTLSCertificateThumbprintCacheEntry(registeredCert,
+                    CertificateFingerprint.sha256(registeredCert));
+        } catch (CertificateEncodingException e) {
+            throw new OAuthClientAuthnException(OAuth2ErrorCodes.INVALID_GRANT, "Error occurred while " +
+                    "generating certificate thumbprint. Error: " + e.getMessage(), e);
+        }
+        MutualTLSCertificateThumbprintCache.getInstance().addToCache(cacheKey, cacheEntry);
+        return cacheEntry;
     }
 
     /**
@@ -297,9 +554,8 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
 
         boolean trustedCert = false;
         try {
-            String publicKeyOfRegisteredCert = MutualTLSUtil.getThumbPrint(registeredCert, null);
-            String publicKeyOfRequestCert = MutualTLSUtil.getThumbPrint(requestCert, null);
-            if (StringUtils.equals(publicKeyOfRegisteredCert, publicKeyOfRequestCert)) {
+            if (CertificateFingerprint.matches(CertificateFingerprint.sha256(registeredCert),
+                    CertificateFingerprint.sha256(requestCert))) {
                 if (log.isDebugEnabled()) {
                     log.debug("Client certificate thumbprint matched with the registered certificate thumbprint.");
                 }
@@ -348,10 +604,13 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
     private boolean isAuthenticated(JsonArray resourceArray, X509Certificate requestCert)
             throws CertificateException, OAuthClientAuthnException {
 
+        String requestCertThumbprint = null;
         for (JsonElement jsonElement : resourceArray) {
             JsonElement attributeValue = jsonElement.getAsJsonObject().get(CommonConstants.X5T);
-            if (attributeValue != null && attributeValue.getAsString().equals(MutualTLSUtil.getThumbPrint(requestCert,
-                    null))) {
+            if (attributeValue != null && requestCertThumbprint == null) {
+                requestCertThumbprint = MutualTLSUtil.getThumbPrint(requestCert, null);
+            }
+            if (attributeValue != null && attributeValue.getAsString().equals(requestCertThumbprint)) {
                 if (log.isDebugEnabled()) {
                     log.debug("Client authentication successful using the attribute: " + CommonConstants.X5T);
                 }
@@ -359,9 +618,8 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
             }
             attributeValue = jsonElement.getAsJsonObject().get(CommonConstants.X5C);
             if (attributeValue != null) {
-                CertificateFactory factory = CertificateFactory.getInstance(CommonConstants.X509);
-                X509Certificate cert = (X509Certificate) factory.generateCertificate(
-                        new ByteArrayInputStream(DatatypeConverter.parseBase64Binary(attributeValue.getAsString())));
+                X509Certificate cert = MutualTLSCertificateParser.generateCertificate(
+                        DatatypeConverter.parseBase64Binary(attributeValue.getAsString()));
                 if (authenticate(cert, requestCert)) {
                     if (log.isDebugEnabled()) {
                         log.debug("Client authentication successful using the attribute: " + CommonConstants.X5C);
@@ -459,5 +717,24 @@ public class MutualTLSClientAuthenticator extends AbstractOAuthClientAuthenticat
 
         return this.getClass().getSimpleName();
     }
-}
 
+    /**
+     * Check whether the authenticator class overrides {@link #authenticate(X509Certificate, X509Certificate)}.
+     *
+     * @param authenticatorClass Runtime class of the authenticator.
+     * @return Whether the certificate comparison is overridden.
+     */
+    private static boolean isCertificateComparisonOverridden(Class<?> authenticatorClass) {
+
+        for (Class<?> clazz = authenticatorClass; clazz != MutualTLSClientAuthenticator.class;
+             clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("authenticate", X509Certificate.class, X509Certificate.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared by this class. Check the super class.
+            }
+        }
+        return false;
+    }
+}
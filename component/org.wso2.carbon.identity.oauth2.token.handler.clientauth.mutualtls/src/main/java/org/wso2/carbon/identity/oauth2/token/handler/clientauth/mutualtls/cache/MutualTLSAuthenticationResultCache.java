@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Cache of successful mutual TLS client authentications bound to the TLS session the client certificate was presented
+ * in, grouped by client.
+ */
+public class MutualTLSAuthenticationResultCache extends AuthenticationBaseCache<MutualTLSAuthenticationResultCacheKey,
+        MutualTLSAuthenticationResultCacheEntry> {
+
+    private static final String AUTHENTICATION_RESULT_CACHE_NAME = "MutualTLSAuthenticationResultCache";
+
+    private static volatile MutualTLSAuthenticationResultCache instance = new MutualTLSAuthenticationResultCache();
+
+    private MutualTLSAuthenticationResultCache() {
+        super(AUTHENTICATION_RESULT_CACHE_NAME);
+    }
+
+    /**
+     * Returns MutualTLSAuthenticationResultCache instance
+     *
+     * @return instance of MutualTLSAuthenticationResultCache
+     */
+    public static MutualTLSAuthenticationResultCache getInstance() {
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
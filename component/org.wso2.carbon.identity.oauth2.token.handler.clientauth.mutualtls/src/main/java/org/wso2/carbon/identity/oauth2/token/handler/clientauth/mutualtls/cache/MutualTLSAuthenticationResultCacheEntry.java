@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MutualTLSAuthenticationResultCacheEntry holds the successful authentications of a client, keyed by the TLS session
+ * ID together with the thumbprint of the client certificate presented in the session, and the time until which each
+ * of them can be reused. The entry is immutable, a new entry is cached for each new authentication. At most
+ * {@value #MAX_SESSIONS} sessions are kept per client, the ones expiring first are dropped.
+ */
+public class MutualTLSAuthenticationResultCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = -3346013907286532448L;
+    public static final int MAX_SESSIONS = 100;
+
+    private final String tenantDomain;
+    private final Map<String, Long> expiryTimes;
+
+    public MutualTLSAuthenticationResultCacheEntry(String tenantDomain) {
+        this(tenantDomain, Collections.<String, Long>emptyMap());
+    }
+
+    private MutualTLSAuthenticationResultCacheEntry(String tenantDomain, Map<String, Long> expiryTimes) {
+        this.tenantDomain = tenantDomain;
+        this.expiryTimes = expiryTimes;
+    }
+
+    /**
+     * @return Tenant domain of the client.
+     */
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    /**
+     * Check whether the client was authenticated in the given session and the result has not expired.
+     *
+     * @param sessionKey  TLS session ID together with the thumbprint of the client certificate.
+     * @param currentTime Current time in milliseconds.
+     * @return True if the authentication can be reused.
+     */
+    public boolean isAuthenticated(String sessionKey, long currentTime) {
+        Long expiryTime = expiryTimes.get(sessionKey);
+        return expiryTime != null && currentTime < expiryTime;
+    }
+
+    /**
+     * Returns a new entry with the given authentication added, without the expired authentications of this entry.
+     *
+     * @param sessionKey  TLS session ID together with the thumbprint of the client certificate.
+     * @param expiryTime  Time until which the authentication can be reused, in milliseconds.
+     * @param currentTime Current time in milliseconds.
+     * @return New cache entry.
+     */
+    public MutualTLSAuthenticationResultCacheEntry add(String sessionKey, long expiryTime, long currentTime) {
+        Map<String, Long> newExpiryTimes = new HashMap<>();
+        for (Map.Entry<String, Long> entry : expiryTimes.entrySet()) {
+            if (currentTime < entry.getValue()) {
+                newExpiryTimes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        newExpiryTimes.put(sessionKey, expiryTime);
+        while (newExpiryTimes.size() > MAX_SESSIONS) {
+            newExpiryTimes.remove(Collections.min(newExpiryTimes.entrySet(), Map.Entry.comparingByValue()).getKey());
+        }
+        return new MutualTLSAuthenticationResultCacheEntry(tenantDomain,
+                Collections.unmodifiableMap(newExpiryTimes));
+    }
+}
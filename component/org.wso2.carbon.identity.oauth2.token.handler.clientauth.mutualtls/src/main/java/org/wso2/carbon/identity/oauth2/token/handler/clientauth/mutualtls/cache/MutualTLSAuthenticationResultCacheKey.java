@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of MutualTLSAuthenticationResultCache is the client ID, so that the cached authentications of a client
+ * can be removed together when its service provider changes.
+ */
+public class MutualTLSAuthenticationResultCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 6609853162045190574L;
+    private final String clientId;
+
+    public MutualTLSAuthenticationResultCacheKey(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MutualTLSAuthenticationResultCacheKey)) {
+            return false;
+        }
+        return clientId.equals(((MutualTLSAuthenticationResultCacheKey) o).getClientId());
+    }
+
+    @Override
+    public int hashCode() {
+        return clientId.hashCode();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Cache of successfully validated client certificate chains.
+ */
+public class MutualTLSCertificatePathCache extends AuthenticationBaseCache<MutualTLSCertificatePathCacheKey,
+        MutualTLSCertificatePathCacheEntry> {
+
+    private static final String CERTIFICATE_PATH_CACHE_NAME = "MutualTLSCertificatePathCache";
+
+    private static volatile MutualTLSCertificatePathCache instance = new MutualTLSCertificatePathCache();
+
+    private MutualTLSCertificatePathCache() {
+        super(CERTIFICATE_PATH_CACHE_NAME);
+    }
+
+    /**
+     * Returns MutualTLSCertificatePathCache instance
+     *
+     * @return instance of MutualTLSCertificatePathCache
+     */
+    public static MutualTLSCertificatePathCache getInstance() {
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+/**
+ * MutualTLSCertificatePathCacheEntry holds the time until which a validated certificate chain stays valid, which is
+ * the earliest expiry time of the certificates in the chain.
+ */
+public class MutualTLSCertificatePathCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = 5238197457921730650L;
+    private final long validUntil;
+
+    public MutualTLSCertificatePathCacheEntry(long validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    public boolean isExpired(long currentTime) {
+        return currentTime >= validUntil;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of MutualTLSCertificatePathCache is the fingerprint of the certificate chain together with the tenant
+ * domain and the version of the trust anchors the chain was validated against.
+ */
+public class MutualTLSCertificatePathCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -1460389372611428907L;
+    private final String chainFingerprint;
+    private final String tenantDomain;
+    private final String trustAnchorsVersion;
+
+    public MutualTLSCertificatePathCacheKey(String chainFingerprint, String tenantDomain, String trustAnchorsVersion) {
+        this.chainFingerprint = chainFingerprint;
+        this.tenantDomain = tenantDomain;
+        this.trustAnchorsVersion = trustAnchorsVersion;
+    }
+
+    public String getChainFingerprint() {
+        return chainFingerprint;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getTrustAnchorsVersion() {
+        return trustAnchorsVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MutualTLSCertificatePathCacheKey)) {
+            return false;
+        }
+        MutualTLSCertificatePathCacheKey other = (MutualTLSCertificatePathCacheKey) o;
+        return chainFingerprint.equals(other.getChainFingerprint()) && tenantDomain.equals(other.getTenantDomain())
+                && trustAnchorsVersion.equals(other.getTrustAnchorsVersion());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = chainFingerprint.hashCode();
+        result = 31 * result + tenantDomain.hashCode();
+        return 31 * result + trustAnchorsVersion.hashCode();
+    }
+}
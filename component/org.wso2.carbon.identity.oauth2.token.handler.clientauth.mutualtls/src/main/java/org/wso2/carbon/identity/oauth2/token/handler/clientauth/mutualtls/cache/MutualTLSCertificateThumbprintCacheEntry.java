@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * MutualTLSCertificateThumbprintCacheEntry holds the SHA-256 thumbprint of the certificate registered for an OAuth
+ * client, together with the decoded certificate, so that the registered certificate is retrieved, decoded and hashed
+ * only once. This will be used with MutualTLSCertificateThumbprintCache.
+ */
+public class MutualTLSCertificateThumbprintCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = -3519438722301594844L;
+    private final X509Certificate certificate;
+    private final byte[] thumbprint;
+
+    public MutualTLSCertificateThumbprintCacheEntry(X509Certificate certificate, byte[] thumbprint) {
+        this.certificate = certificate;
+        this.thumbprint = thumbprint;
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * @return SHA-256 thumbprint bytes of the registered certificate. The returned array must not be modified.
+     */
+    public byte[] getThumbprint() {
+        return thumbprint;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of MutualTLSCertificateThumbprintCache is the client ID together with the tenant domain of the
+ * OAuth application.
+ */
+public class MutualTLSCertificateThumbprintCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 2879150236147632715L;
+    private final String clientId;
+    private final String tenantDomain;
+
+    public MutualTLSCertificateThumbprintCacheKey(String clientId, String tenantDomain) {
+        this.clientId = clientId;
+        this.tenantDomain = tenantDomain;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MutualTLSCertificateThumbprintCacheKey)) {
+            return false;
+        }
+        MutualTLSCertificateThumbprintCacheKey other = (MutualTLSCertificateThumbprintCacheKey) o;
+        return clientId.equals(other.getClientId()) && tenantDomain.equals(other.getTenantDomain());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * clientId.hashCode() + tenantDomain.hashCode();
+    }
+}
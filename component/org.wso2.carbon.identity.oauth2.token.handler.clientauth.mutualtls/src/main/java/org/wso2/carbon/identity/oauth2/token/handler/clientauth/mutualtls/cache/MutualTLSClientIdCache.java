@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Reverse index from client certificate identifiers (thumbprint or subject DN) to the client ID of the OAuth client
+ * the certificate belongs to.
+ */
+public class MutualTLSClientIdCache extends AuthenticationBaseCache<MutualTLSClientIdCacheKey,
+        MutualTLSClientIdCacheEntry> {
+
+    private static final String CLIENT_ID_CACHE_NAME = "MutualTLSClientIdCache";
+
+    private static volatile MutualTLSClientIdCache instance = new MutualTLSClientIdCache();
+
+    private MutualTLSClientIdCache() {
+        super(CLIENT_ID_CACHE_NAME);
+    }
+
+    /**
+     * Returns MutualTLSClientIdCache instance
+     *
+     * @return instance of MutualTLSClientIdCache
+     */
+    public static MutualTLSClientIdCache getInstance() {
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
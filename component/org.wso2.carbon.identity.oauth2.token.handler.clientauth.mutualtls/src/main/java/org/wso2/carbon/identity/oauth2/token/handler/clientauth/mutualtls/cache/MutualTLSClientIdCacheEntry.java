@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+/**
+ * MutualTLSClientIdCacheEntry holds the client ID mapped to a client certificate. An ambiguous entry denotes that the
+ * certificate is shared by more than one client, in which case the client ID cannot be resolved from the certificate.
+ * An entry without a client ID denotes that the certificate is not indexed for any client.
+ */
+public class MutualTLSClientIdCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = 8417302815623380431L;
+    private final String clientId;
+    private final boolean ambiguous;
+
+    public MutualTLSClientIdCacheEntry(String clientId) {
+        this.clientId = clientId;
+        this.ambiguous = false;
+    }
+
+    private MutualTLSClientIdCacheEntry() {
+        this.clientId = null;
+        this.ambiguous = true;
+    }
+
+    /**
+     * Returns an entry which marks a certificate shared by more than one client.
+     *
+     * @return Ambiguous cache entry.
+     */
+    public static MutualTLSClientIdCacheEntry ambiguous() {
+        return new MutualTLSClientIdCacheEntry();
+    }
+
+    /**
+     * Returns an entry which marks a certificate not indexed for any client.
+     *
+     * @return Cache entry without a client ID.
+     */
+    public static MutualTLSClientIdCacheEntry notIndexed() {
+        return new MutualTLSClientIdCacheEntry(null);
+    }
+
+    public String getValue() {
+        return clientId;
+    }
+
+    public boolean isAmbiguous() {
+        return ambiguous;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of MutualTLSClientIdCache is a client certificate identifier, prefixed with its type.
+ */
+public class MutualTLSClientIdCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -6218861375424712604L;
+    private final String certificateIdentifier;
+
+    public MutualTLSClientIdCacheKey(String certificateIdentifier) {
+        this.certificateIdentifier = certificateIdentifier;
+    }
+
+    public String getCertificateIdentifier() {
+        return certificateIdentifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MutualTLSClientIdCacheKey)) {
+            return false;
+        }
+        return this.certificateIdentifier.equals(((MutualTLSClientIdCacheKey) o).getCertificateIdentifier());
+    }
+
+    @Override
+    public int hashCode() {
+        return certificateIdentifier.hashCode();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Per tenant cache of the issuer and signer certificate of the resident identity provider, used to validate
+ * self-contained certificate bound access tokens. Entries are removed by the identity provider management listener
+ * when the resident identity provider of the tenant is updated.
+ */
+public class MutualTLSIssuerCache extends AuthenticationBaseCache<String, MutualTLSIssuerCacheEntry> {
+
+    private static final String ISSUER_CACHE_NAME = "MutualTLSIssuerCache";
+
+    private static volatile MutualTLSIssuerCache instance = new MutualTLSIssuerCache();
+
+    private MutualTLSIssuerCache() {
+        super(ISSUER_CACHE_NAME);
+    }
+
+    /**
+     * Returns MutualTLSIssuerCache instance
+     *
+     * @return instance of MutualTLSIssuerCache
+     */
+    public static MutualTLSIssuerCache getInstance() {
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import com.nimbusds.jose.JWSVerifier;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * MutualTLSIssuerCacheEntry holds the issuer, the signer certificate and the signature verifier of the resident
+ * identity provider of a tenant. This will be used with MutualTLSIssuerCache. The verifier is not serialized, hence an
+ * entry received from another node does not hold it.
+ */
+public class MutualTLSIssuerCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = 4431820557153364390L;
+    private final String issuer;
+    private final X509Certificate certificate;
+    private final transient JWSVerifier verifier;
+
+    public MutualTLSIssuerCacheEntry(String issuer, X509Certificate certificate, JWSVerifier verifier) {
+        this.issuer = issuer;
+        this.certificate = certificate;
+        this.verifier = verifier;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * @return Verifier of the signer certificate, or null if the entry was received from another node.
+     */
+    public JWSVerifier getVerifier() {
+        return verifier;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Cache of revocation statuses of client certificates, including statuses which could not be determined. The number
+ * of entries is bounded by the capacity of the {@code <Cache name="MutualTLSRevocationCache"/>} entry of the
+ * IdentityApplicationManagementCacheManager under {@code <CacheConfig>} in identity.xml.
+ */
+public class MutualTLSRevocationCache extends AuthenticationBaseCache<MutualTLSRevocationCacheKey,
+        MutualTLSRevocationCacheEntry> {
+
+    private static final String REVOCATION_CACHE_NAME = "MutualTLSRevocationCache";
+
+    private static volatile MutualTLSRevocationCache instance = new MutualTLSRevocationCache();
+
+    private MutualTLSRevocationCache() {
+        super(REVOCATION_CACHE_NAME);
+    }
+
+    /**
+     * Returns MutualTLSRevocationCache instance
+     *
+     * @return instance of MutualTLSRevocationCache
+     */
+    public static MutualTLSRevocationCache getInstance() {
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation.RevocationStatus;
+
+/**
+ * MutualTLSRevocationCacheEntry holds the revocation status of a certificate with the fingerprint of the certificate
+ * it was verified for, the time until which the status is used, and the time from which it is refreshed when used.
+ */
+public class MutualTLSRevocationCacheEntry extends org.wso2.carbon.identity.core.cache.CacheEntry {
+
+    private static final long serialVersionUID = 7412953018642270383L;
+    private final RevocationStatus status;
+    private final byte[] fingerprint;
+    private final long expiryTime;
+    private final long refreshTime;
+
+    public MutualTLSRevocationCacheEntry(RevocationStatus status, byte[] fingerprint, long expiryTime,
+                                         long refreshTime) {
+        this.status = status;
+        this.fingerprint = fingerprint.clone();
+        this.expiryTime = expiryTime;
+        this.refreshTime = refreshTime;
+    }
+
+    public RevocationStatus getStatus() {
+        return status;
+    }
+
+    public byte[] getFingerprint() {
+        return fingerprint.clone();
+    }
+
+    public boolean isValid(long currentTime) {
+        return currentTime < expiryTime;
+    }
+
+    public boolean isRefreshDue(long currentTime) {
+        return currentTime >= refreshTime;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key attribute of MutualTLSRevocationCache is the hash of the public key of the verified issuer together with the
+ * serial number of the certificate.
+ */
+public class MutualTLSRevocationCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -3318790622402714650L;
+    private final String issuerKeyHash;
+    private final String serialNumber;
+
+    public MutualTLSRevocationCacheKey(String issuerKeyHash, String serialNumber) {
+        this.issuerKeyHash = issuerKeyHash;
+        this.serialNumber = serialNumber;
+    }
+
+    public String getIssuerKeyHash() {
+        return issuerKeyHash;
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MutualTLSRevocationCacheKey)) {
+            return false;
+        }
+        MutualTLSRevocationCacheKey other = (MutualTLSRevocationCacheKey) o;
+        return issuerKeyHash.equals(other.getIssuerKeyHash()) && serialNumber.equals(other.getSerialNumber());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * issuerKeyHash.hashCode() + serialNumber.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return issuerKeyHash + "#" + serialNumber;
+    }
+}
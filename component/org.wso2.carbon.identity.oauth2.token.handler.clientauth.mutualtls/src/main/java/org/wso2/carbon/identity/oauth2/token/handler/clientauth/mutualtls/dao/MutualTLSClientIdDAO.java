@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.dao;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.List;
+
+/**
+ * This interface defines methods to look up OAuth clients by the client certificate identifiers persisted as service
+ * provider properties.
+ */
+public interface MutualTLSClientIdDAO {
+
+    /**
+     * Returns the client IDs of the OAuth clients whose service provider has the given property value. At most two
+     * client IDs are returned, which is enough to tell whether the value belongs to exactly one client.
+     *
+     * @param propertyName  Name of the service provider property.
+     * @param propertyValue Value of the service provider property.
+     * @return Distinct client IDs, or an empty list if no client has the given property value.
+     * @throws IdentityOAuth2Exception If an error occurs while retrieving the client IDs.
+     */
+    List<String> getClientIds(String propertyName, String propertyValue) throws IdentityOAuth2Exception;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.dao;
+
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements {@link MutualTLSClientIdDAO} interface with the service provider tables of the identity
+ * database.
+ */
+public class MutualTLSClientIdDAOImpl implements MutualTLSClientIdDAO {
+
+    private static final int MAX_CLIENT_IDS = 2;
+    private static final String RETRIEVE_CLIENT_IDS_BY_SP_PROPERTY =
+            "SELECT DISTINCT INBOUND.INBOUND_AUTH_KEY FROM SP_METADATA META INNER JOIN SP_INBOUND_AUTH INBOUND " +
+            "ON META.SP_ID = INBOUND.APP_ID AND META.TENANT_ID = INBOUND.TENANT_ID WHERE META.NAME = ? AND " +
+            "META.VALUE = ? AND INBOUND.INBOUND_AUTH_TYPE = ?";
+
+    @Override
+    public List<String> getClientIds(String propertyName, String propertyValue) throws IdentityOAuth2Exception {
+
+        List<String> clientIds = new ArrayList<>();
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+             PreparedStatement preparedStatement = connection.prepareStatement(RETRIEVE_CLIENT_IDS_BY_SP_PROPERTY)) {
+            preparedStatement.setString(1, propertyName);
+            preparedStatement.setString(2, propertyValue);
+            preparedStatement.setString(3, CommonConstants.OAUTH2_INBOUND_AUTH_TYPE);
+            preparedStatement.setMaxRows(MAX_CLIENT_IDS);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    clientIds.add(resultSet.getString(1));
+                }
+            }
+            return clientIds;
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error while retrieving the client IDs of the service providers with " +
+                    "the property: " + propertyName, e);
+        }
+    }
+}
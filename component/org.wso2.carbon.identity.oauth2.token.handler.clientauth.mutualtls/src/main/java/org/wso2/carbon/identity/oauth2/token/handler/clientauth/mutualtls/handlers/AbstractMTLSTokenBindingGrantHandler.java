@@ -18,33 +18,34 @@
 
 package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.handlers;
 
-import com.nimbusds.jose.util.Base64URL;
-import com.nimbusds.jose.util.X509CertUtils;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.model.HttpRequestHeader;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.token.binder.MTLSTokenBinder;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
 
-import java.io.ByteArrayInputStream;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Optional;
 
 /**
- * This class contains the common methods of MTLS Token Binding Grant Handlers.
+ * This class contains the common methods of MTLS Token Binding Grant Handlers. It holds no state, so a single
+ * instance is shared by the grant handlers.
  */
 public class AbstractMTLSTokenBindingGrantHandler {
 
     private static final Log log = LogFactory.getLog(MTLSTokenBindingAuthorizationCodeGrantHandler.class);
+    private static final String CERT_THUMBPRINT_SCOPE_PREFIX = CommonConstants.CERT_THUMBPRINT +
+            CommonConstants.SEPARATOR + CommonConstants.SHA256_DIGEST_ALGORITHM +
+            CommonConstants.CERT_THUMBPRINT_SEPARATOR;
 
     /**
      * Validate whether scope requested by the access token is valid.
@@ -57,68 +58,91 @@ public class AbstractMTLSTokenBindingGrantHandler {
     public boolean validateScope(OAuthTokenReqMessageContext tokReqMsgCtx, boolean validateScope)
             throws IdentityOAuth2Exception {
 
-        // Get MTLS certificate from transport headers.
-        HttpRequestHeader[] requestHeaders = tokReqMsgCtx.getOauth2AccessTokenReqDTO().getHttpRequestHeaders();
-        String headerName = IdentityUtil.getProperty(CommonConstants.MTLS_AUTH_HEADER);
-
-        Optional<HttpRequestHeader> certHeader =
-                Arrays.stream(requestHeaders).filter(httpRequestHeader ->
-                        headerName.equals(httpRequestHeader.getName())).findFirst();
+        OAuthClientAuthnContext oAuthClientAuthnContext =
+                tokReqMsgCtx.getOauth2AccessTokenReqDTO().getoAuthClientAuthnContext();
+        if (oAuthClientAuthnContext == null || !CommonConstants.AUTHENTICATOR_TYPE_MTLS.equals(
+                oAuthClientAuthnContext.getParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM))) {
+            return validateScope;
+        }
+        if (MTLSTokenBinder.isCertificateBindingEnabled(tokReqMsgCtx)) {
+            // The cert thumbprint is stored as the token binding by MTLSTokenBinder.
+            return validateScope;
+        }
 
-        String authenticatorType = (String) tokReqMsgCtx.getOauth2AccessTokenReqDTO().getoAuthClientAuthnContext()
-                .getParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM);
-        if (certHeader.isPresent() && CommonConstants.AUTHENTICATOR_TYPE_MTLS.equals(authenticatorType)) {
-            Base64URL certThumbprint = null;
+        String certThumbprint;
+        try {
+            certThumbprint = getCertificateThumbprint(tokReqMsgCtx, oAuthClientAuthnContext);
+        } catch (CertificateException e) {
             if (log.isDebugEnabled()) {
-                log.debug("Client MTLS certificate found: " + certHeader);
-            }
-            try {
-                if (certHeader.get().getValue() != null) {
-                    X509Certificate certificate = parseCertificate(certHeader.get().getValue()[0]);
-                    certThumbprint = X509CertUtils.computeSHA256Thumbprint(certificate);
-                }
-            } catch (CertificateException e) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Error occurred while calculating the thumbprint of the MTLS certificate " +
-                            "of the client: " + tokReqMsgCtx.getOauth2AccessTokenReqDTO().getClientId(), e);
-                }
-                return false;
+                log.debug("Error occurred while calculating the thumbprint of the MTLS certificate " +
+                        "of the client: " + tokReqMsgCtx.getOauth2AccessTokenReqDTO().getClientId(), e);
             }
+            return false;
+        }
 
-            // Add certificate thumbprint as a hidden scope of the token.
-            if (certThumbprint != null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Client MTLS certificate thumbprint: " + certThumbprint);
-                }
-                String[] scopes = tokReqMsgCtx.getScope();
-                List<String> scopesList = new LinkedList<>(Arrays.asList(scopes));
-                scopesList.add(CommonConstants.CERT_THUMBPRINT + CommonConstants.SEPARATOR +
-                        CommonConstants.SHA256_DIGEST_ALGORITHM + CommonConstants.CERT_THUMBPRINT_SEPARATOR
-                        + certThumbprint.toString());
-                tokReqMsgCtx.setScope(scopesList.toArray(new String[scopesList.size()]));
+        // Add certificate thumbprint as a hidden scope of the token.
+        if (certThumbprint != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client MTLS certificate thumbprint: " + certThumbprint);
             }
+            tokReqMsgCtx.setScope((String[]) ArrayUtils.add(tokReqMsgCtx.getScope(),
+                    CERT_THUMBPRINT_SCOPE_PREFIX + certThumbprint));
         }
         return validateScope;
     }
 
     /**
-     * Return X509 Certificate for the given Certificate Content.
+     * Get the Base64URL encoded SHA-256 thumbprint of the client certificate. The thumbprint published by the mutual
+     * TLS authenticator is preferred. The authenticator takes the certificate from the TLS handshake
+     * ({@code javax.servlet.request.X509Certificate} request attribute) before the configured certificate header, so
+     * the thumbprint of the handshake certificate is used even if the request also carries the header. The
+     * certificate is parsed from the transport headers only if the authenticator did not publish it.
      *
-     * @param content Certificate Content.
-     * @return X509Certificate.
-     * @throws CertificateException Certificate Exception.
+     * @param tokReqMsgCtx            Message context of token request.
+     * @param oAuthClientAuthnContext Client authentication context of the token request.
+     * @return Certificate thumbprint, or null if the client certificate is not available.
+     * @throws CertificateException If the certificate in the transport headers cannot be parsed.
      */
-    private static X509Certificate parseCertificate(String content) throws CertificateException {
+    private String getCertificateThumbprint(OAuthTokenReqMessageContext tokReqMsgCtx,
+                                            OAuthClientAuthnContext oAuthClientAuthnContext)
+            throws CertificateException {
+
+        Object certThumbprint = oAuthClientAuthnContext.getParameter(CommonConstants.CERT_THUMBPRINT_SHA256_PARAM);
+        if (certThumbprint instanceof String) {
+            return (String) certThumbprint;
+        }
 
-        // Trim extra spaces.
-        String decodedContent = StringUtils.trim(content);
+        // Reuse the certificate already parsed by the mutual TLS authenticator for this request.
+        Optional<MutualTLSCertificateHolder> certificateHolder =
+                MutualTLSCertificateHolder.getCertificateHolder(oAuthClientAuthnContext);
+        if (certificateHolder.isPresent()) {
+            return certificateHolder.get().getSHA256ThumbprintBase64URL();
+        }
 
-        // Remove certificate headers.
-        byte[] decoded = Base64.getDecoder().decode(StringUtils.trim(decodedContent
-                .replaceAll(CommonConstants.BEGIN_CERT, StringUtils.EMPTY)
-                .replaceAll(CommonConstants.END_CERT, StringUtils.EMPTY)));
+        // Get MTLS certificate from transport headers.
+        HttpRequestHeader certHeader = getCertificateHeader(
+                tokReqMsgCtx.getOauth2AccessTokenReqDTO().getHttpRequestHeaders());
+        if (certHeader == null || ArrayUtils.isEmpty(certHeader.getValue())) {
+            return null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Client MTLS certificate found: " + certHeader);
+        }
+        X509Certificate certificate = MutualTLSCertificateParser.parseCertificate(certHeader.getValue()[0]);
+        return new MutualTLSCertificateHolder(certificate).getSHA256ThumbprintBase64URL();
+    }
 
-        return (X509Certificate) CertificateFactory.getInstance(CommonConstants.X509)
-                .generateCertificate(new ByteArrayInputStream(decoded));
+    private HttpRequestHeader getCertificateHeader(HttpRequestHeader[] requestHeaders) {
+
+        String headerName = MutualTLSConfig.getInstance().getClientCertificateHeader();
+        if (StringUtils.isBlank(headerName) || requestHeaders == null) {
+            return null;
+        }
+        for (HttpRequestHeader requestHeader : requestHeaders) {
+            if (headerName.equals(requestHeader.getName())) {
+                return requestHeader;
+            }
+        }
+        return null;
     }
 }
@@ -35,6 +35,9 @@ import java.util.List;
  */
 public class MTLSTokenBindingAuthorizationCodeGrantHandler extends AuthorizationCodeGrantHandler {
 
+    private static final AbstractMTLSTokenBindingGrantHandler MTLS_TOKEN_BINDING_GRANT_HANDLER =
+            new AbstractMTLSTokenBindingGrantHandler();
+
     @Override
     public OAuth2AccessTokenRespDTO issue(OAuthTokenReqMessageContext tokReqMsgCtx)
             throws IdentityOAuth2Exception {
@@ -48,10 +51,7 @@ public class MTLSTokenBindingAuthorizationCodeGrantHandler extends Authorization
     public boolean validateScope(OAuthTokenReqMessageContext tokReqMsgCtx) throws IdentityOAuth2Exception {
 
         boolean validateScope = super.validateScope(tokReqMsgCtx);
-        AbstractMTLSTokenBindingGrantHandler abstractMTLSTokenBindingGrantHandler =
-                new AbstractMTLSTokenBindingGrantHandler();
-        validateScope = abstractMTLSTokenBindingGrantHandler.validateScope(tokReqMsgCtx, validateScope);
-        return validateScope;
+        return MTLS_TOKEN_BINDING_GRANT_HANDLER.validateScope(tokReqMsgCtx, validateScope);
     }
 
     /**
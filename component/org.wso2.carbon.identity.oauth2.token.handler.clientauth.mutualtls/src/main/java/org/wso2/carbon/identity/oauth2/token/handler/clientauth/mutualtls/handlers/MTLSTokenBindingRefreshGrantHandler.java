@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenRespDTO;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.token.binder.MTLSTokenBinder;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.RefreshGrantHandler;
 
@@ -81,6 +82,11 @@ public class MTLSTokenBindingRefreshGrantHandler extends RefreshGrantHandler {
             modifiedScopes = requestedScopeList.toArray(new String[0]);
             tokReqMsgCtx.setScope(modifiedScopes);
         }
+        if (MTLSTokenBinder.isCertificateBindingEnabled(tokReqMsgCtx)) {
+            // Tokens issued before MTLSTokenBinder was configured carry the cert thumbprint as a hidden scope. Drop it,
+            // so that the refreshed token is bound through the token binding instead.
+            tokReqMsgCtx.setScope(getReducedResponseScopes(tokReqMsgCtx.getScope()));
+        }
         return true;
     }
 
@@ -24,12 +24,23 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
+import org.wso2.carbon.identity.oauth.common.token.bindings.TokenBinderInfo;
 import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth2.IntrospectionDataProvider;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.MutualTLSClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.introspection.ISIntrospectionDataProvider;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.introspection.IntrospectionResponseInterceptor;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.listener.MutualTLSApplicationMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.listener.MutualTLSIdentityProviderMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation.RevocationChecker;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.token.binder.MTLSTokenBinder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.validators.MTLSTokenValidator;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidator;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 
 /**
  * TLS Mutual Auth osgi Component.
@@ -56,6 +67,13 @@ public class MutualTLSServiceComponent {
                     null);
             bundleContext.registerService(IntrospectionDataProvider.class.getName(), isIntrospectionDataProvider,
                     null);
+            bundleContext.registerService(ApplicationMgtListener.class.getName(),
+                    new MutualTLSApplicationMgtListener(), null);
+            bundleContext.registerService(TokenBinderInfo.class.getName(), new MTLSTokenBinder(), null);
+            bundleContext.registerService(OAuth2TokenValidator.class.getName(), new MTLSTokenValidator(), null);
+            bundleContext.registerService(IdentityProviderMgtListener.class.getName(),
+                    new MutualTLSIdentityProviderMgtListener(), null);
+            MutualTLSConfig.reload();
             if (log.isDebugEnabled()) {
                 log.debug("Mutual TLS bundle is activated");
             }
@@ -64,4 +82,14 @@ public class MutualTLSServiceComponent {
             log.error("Error occurred while registering MTLS component.", e);
         }
     }
+
+    @Deactivate
+    protected void deactivate(ComponentContext context) {
+
+        RevocationChecker.shutdown();
+        MutualTLSConfig.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Mutual TLS bundle is deactivated");
+        }
+    }
 }
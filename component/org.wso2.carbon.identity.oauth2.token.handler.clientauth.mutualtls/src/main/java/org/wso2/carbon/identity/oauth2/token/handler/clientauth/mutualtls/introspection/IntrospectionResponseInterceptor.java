@@ -23,15 +23,17 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONObject;
 import org.wso2.carbon.identity.oauth.event.AbstractOAuthEventInterceptor;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
 
 /**
  * This class is used to modify the token introspection response.
@@ -39,12 +41,49 @@ import java.util.List;
 public class IntrospectionResponseInterceptor extends AbstractOAuthEventInterceptor {
 
     private static Log log = LogFactory.getLog(IntrospectionResponseInterceptor.class);
+    private static final String CERT_THUMBPRINT_SCOPE_PREFIX = CommonConstants.CERT_THUMBPRINT +
+            CommonConstants.SEPARATOR;
+
+    /**
+     * {@inheritdoc}
+     * <p>
+     * Discard a token published by an earlier request served by the same thread.
+     */
+    @Override
+    public void onPreTokenValidation(OAuth2TokenValidationRequestDTO oAuth2TokenValidationRequestDTO,
+                                     Map<String, Object> params) {
+
+        MutualTLSUtil.clearValidatedAccessToken();
+    }
+
+    /**
+     * {@inheritdoc}
+     * <p>
+     * Token validation requests are not introspected, hence the published token is no longer needed.
+     */
+    @Override
+    public void onPostTokenValidation(OAuth2TokenValidationRequestDTO oAuth2TokenValidationRequestDTO,
+                                      OAuth2TokenValidationResponseDTO oAuth2TokenValidationResponseDTO,
+                                      Map<String, Object> params) {
+
+        MutualTLSUtil.clearValidatedAccessToken();
+    }
 
     @Override
     public void onPostTokenValidation(OAuth2TokenValidationRequestDTO oAuth2TokenValidationRequestDTO,
                                       OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO, Map<String,
             Object> params) {
 
+        try {
+            addConfirmationClaim(oAuth2TokenValidationRequestDTO, oAuth2IntrospectionResponseDTO);
+        } finally {
+            MutualTLSUtil.clearValidatedAccessToken();
+        }
+    }
+
+    private void addConfirmationClaim(OAuth2TokenValidationRequestDTO oAuth2TokenValidationRequestDTO,
+                                      OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO) {
+
         /*
          Omit the cert thumbprint scope (added by MTLSTokenBindingAuthorizationCodeGrantHandler) from the scopes list
          and add as a separate parameter in the introspection response as specified under
@@ -52,26 +91,49 @@ public class IntrospectionResponseInterceptor extends AbstractOAuthEventIntercep
         */
         JSONObject cnf = null;
         String scopeString = oAuth2IntrospectionResponseDTO.getScope();
-        if (StringUtils.isNotEmpty(scopeString)) {
-            String[] scopeArray = scopeString.trim().split("\\s+");
-            List<String> scopeList = new ArrayList<>(Arrays.asList(scopeArray));
-            List<String> removableScopes = new ArrayList<>();
-
-            // Iterate the scope list and remove any internal scopes.
-            for (String scope : scopeList) {
-                if (scope.startsWith(CommonConstants.CERT_THUMBPRINT + CommonConstants.SEPARATOR)) {
-                    String[] certHashScope = scope.split(CommonConstants.CERT_THUMBPRINT_SEPARATOR, 2);
-                    cnf = new JSONObject();
-                    cnf.put(certHashScope[0].trim(), certHashScope[1].trim());
-
-                    removableScopes.add(scope);
+        // Internal scopes are rare, so the scope string is only rewritten if it contains one.
+        if (StringUtils.isNotEmpty(scopeString) && scopeString.contains(CERT_THUMBPRINT_SCOPE_PREFIX)) {
+            StringBuilder reducedScopes = new StringBuilder(scopeString.length());
+            int length = scopeString.length();
+            int index = 0;
+            while (index < length) {
+                while (index < length && Character.isWhitespace(scopeString.charAt(index))) {
+                    index++;
+                }
+                int start = index;
+                while (index < length && !Character.isWhitespace(scopeString.charAt(index))) {
+                    index++;
+                }
+                if (start == index) {
+                    break;
+                }
+
+                // Remove any internal scopes.
+                if (scopeString.startsWith(CERT_THUMBPRINT_SCOPE_PREFIX, start)) {
+                    int separatorIndex = scopeString.indexOf(CommonConstants.CERT_THUMBPRINT_SEPARATOR, start);
+                    if (separatorIndex > 0 && separatorIndex < index) {
+                        cnf = new JSONObject();
+                        cnf.put(scopeString.substring(start, separatorIndex),
+                                scopeString.substring(separatorIndex + 1, index));
+                    }
                     if (log.isDebugEnabled()) {
-                        log.debug("Removing the internal scope " + scope + " from introspection response");
+                        log.debug("Removing the internal scope " + scopeString.substring(start, index) +
+                                " from introspection response");
                     }
+                    continue;
                 }
+                if (reducedScopes.length() > 0) {
+                    reducedScopes.append(' ');
+                }
+                reducedScopes.append(scopeString, start, index);
             }
-            scopeList.removeAll(removableScopes);
-            oAuth2IntrospectionResponseDTO.setScope(String.join(" ", scopeList));
+            oAuth2IntrospectionResponseDTO.setScope(reducedScopes.toString());
+        }
+
+        // Tokens bound by MTLSTokenBinder keep the cert thumbprint in the token binding instead of a hidden scope.
+        if (cnf == null && oAuth2IntrospectionResponseDTO.isActive() &&
+                CommonConstants.MTLS_TOKEN_BINDING_TYPE.equals(oAuth2IntrospectionResponseDTO.getBindingType())) {
+            cnf = getCertificateBoundConfirmation(oAuth2TokenValidationRequestDTO);
         }
 
         Map<String, Object> introspectionResponseProperties = oAuth2IntrospectionResponseDTO.getProperties();
@@ -85,4 +147,30 @@ public class IntrospectionResponseInterceptor extends AbstractOAuthEventIntercep
         }
         oAuth2IntrospectionResponseDTO.setProperties(introspectionResponseProperties);
     }
+
+    /**
+     * Get the cnf value of a token bound by MTLSTokenBinder. The access token validated by MTLSTokenValidator in the
+     * same request is reused, and the token is only loaded when it was validated by another validator.
+     */
+    private JSONObject getCertificateBoundConfirmation(OAuth2TokenValidationRequestDTO
+                                                               oAuth2TokenValidationRequestDTO) {
+
+        try {
+            String tokenIdentifier = oAuth2TokenValidationRequestDTO.getAccessToken().getIdentifier();
+            AccessTokenDO accessTokenDO = MutualTLSUtil.getValidatedAccessToken(tokenIdentifier);
+            if (accessTokenDO == null) {
+                accessTokenDO = OAuth2Util.findAccessToken(tokenIdentifier, false);
+            }
+            if (accessTokenDO == null || accessTokenDO.getTokenBinding() == null ||
+                    !CommonConstants.MTLS_TOKEN_BINDING_TYPE.equals(accessTokenDO.getTokenBinding().getBindingType())) {
+                return null;
+            }
+            JSONObject cnf = new JSONObject();
+            cnf.put(CommonConstants.CERT_THUMBPRINT_SHA256, accessTokenDO.getTokenBinding().getBindingValue());
+            return cnf;
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while retrieving the certificate binding of the token.", e);
+            return null;
+        }
+    }
 }
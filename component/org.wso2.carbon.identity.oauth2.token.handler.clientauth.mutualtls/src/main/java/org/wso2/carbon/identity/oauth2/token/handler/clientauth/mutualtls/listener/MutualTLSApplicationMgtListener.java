@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.listener;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.common.model.ServiceProviderProperty;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
+import org.wso2.carbon.identity.application.mgt.listener.AbstractApplicationMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSClientIdResolver;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
+
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Application management listener which keeps the mutual TLS caches of OAuth clients consistent with the service
+ * provider configuration. Cached entries of a client are removed when its service provider is updated or deleted.
+ * When the client ID is resolved from the client certificate, the thumbprint of the certificate registered for the
+ * service provider and the subject DN configured with tls_client_auth_subject_dn are persisted as service provider
+ * properties, which {@link MutualTLSClientIdResolver} looks up.
+ */
+public class MutualTLSApplicationMgtListener extends AbstractApplicationMgtListener {
+
+    private static final Log log = LogFactory.getLog(MutualTLSApplicationMgtListener.class);
+    private static final int DEFAULT_ORDER_ID = 95;
+    private static final int MAX_PROPERTY_VALUE_LENGTH = 255;
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return DEFAULT_ORDER_ID;
+    }
+
+    @Override
+    public boolean doPreUpdateApplication(ServiceProvider serviceProvider, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        if (MutualTLSClientIdResolver.isEnabled() && serviceProvider != null) {
+            updateCertificateIdentifiers(serviceProvider);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateApplication(ServiceProvider serviceProvider, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        clearCacheEntries(serviceProvider, tenantDomain);
+        clearClientIdCacheEntries(serviceProvider);
+        return true;
+    }
+
+    @Override
+    public boolean doPreDeleteApplication(String applicationName, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        ServiceProvider serviceProvider = ApplicationManagementService.getInstance()
+                .getApplicationExcludingFileBasedSPs(applicationName, tenantDomain);
+        clearCacheEntries(serviceProvider, tenantDomain);
+        clearClientIdCacheEntries(serviceProvider);
+        return true;
+    }
+
+    private void clearCacheEntries(ServiceProvider serviceProvider, String tenantDomain) {
+
+        for (String clientId : getClientIds(serviceProvider)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Clearing mutual TLS cache entries of the client: " + clientId + " of tenant domain: "
+                        + tenantDomain);
+            }
+            MutualTLSAuthenticationResultCache.getInstance().clearCacheEntry(
+                    new MutualTLSAuthenticationResultCacheKey(clientId));
+            MutualTLSCertificateThumbprintCache.getInstance().clearCacheEntry(
+                    new MutualTLSCertificateThumbprintCacheKey(clientId, tenantDomain));
+        }
+    }
+
+    /**
+     * Persist the certificate identifiers of the service provider as service provider properties, replacing any
+     * values set by the caller, and remove the cached lookups of the previous and the new identifiers.
+     */
+    private void updateCertificateIdentifiers(ServiceProvider serviceProvider) {
+
+        String thumbprint = getCertificateThumbprint(serviceProvider);
+        String subjectDN = getSubjectDN(serviceProvider);
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                MutualTLSUtil.getPropertyValue(serviceProvider, CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY),
+                thumbprint);
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY,
+                MutualTLSUtil.getPropertyValue(serviceProvider, CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY),
+                subjectDN);
+        setProperty(serviceProvider, CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY, thumbprint);
+        setProperty(serviceProvider, CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY, subjectDN);
+    }
+
+    private void clearClientIdCacheEntries(ServiceProvider serviceProvider) {
+
+        if (!MutualTLSClientIdResolver.isEnabled() || serviceProvider == null) {
+            return;
+        }
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                MutualTLSUtil.getPropertyValue(serviceProvider, CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY));
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY,
+                MutualTLSUtil.getPropertyValue(serviceProvider, CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY));
+    }
+
+    private String getCertificateThumbprint(ServiceProvider serviceProvider) {
+
+        if (StringUtils.isBlank(serviceProvider.getCertificateContent())) {
+            return null;
+        }
+        try {
+            return new MutualTLSCertificateHolder(MutualTLSCertificateParser.parseCertificate(
+                    serviceProvider.getCertificateContent())).getSHA256ThumbprintBase64URL();
+        } catch (CertificateException e) {
+            log.error("Error while parsing the certificate of the service provider: "
+                    + serviceProvider.getApplicationName(), e);
+            return null;
+        }
+    }
+
+    private String getSubjectDN(ServiceProvider serviceProvider) {
+
+        String subjectDN = MutualTLSUtil.getPropertyValue(serviceProvider, CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN);
+        if (StringUtils.isBlank(subjectDN)) {
+            return null;
+        }
+        try {
+            subjectDN = MutualTLSClientIdResolver.getSubjectDN(new X500Principal(subjectDN));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid " + CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN + " configured for the service provider: "
+                    + serviceProvider.getApplicationName());
+            return null;
+        }
+        if (subjectDN.length() > MAX_PROPERTY_VALUE_LENGTH) {
+            log.warn(CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN + " of the service provider: "
+                    + serviceProvider.getApplicationName() + " is too long to be indexed. The client ID of the "
+                    + "service provider is only resolved from certificates it authenticated with.");
+            return null;
+        }
+        return subjectDN;
+    }
+
+    private void setProperty(ServiceProvider serviceProvider, String name, String value) {
+
+        List<ServiceProviderProperty> properties = new ArrayList<>();
+        if (serviceProvider.getSpProperties() != null) {
+            for (ServiceProviderProperty property : serviceProvider.getSpProperties()) {
+                if (!name.equals(property.getName())) {
+                    properties.add(property);
+                }
+            }
+        }
+        if (value != null) {
+            ServiceProviderProperty property = new ServiceProviderProperty();
+            property.setName(name);
+            property.setDisplayName(name);
+            property.setValue(value);
+            properties.add(property);
+        }
+        serviceProvider.setSpProperties(properties.toArray(new ServiceProviderProperty[0]));
+    }
+
+    private List<String> getClientIds(ServiceProvider serviceProvider) {
+
+        List<String> clientIds = new ArrayList<>();
+        if (serviceProvider == null || serviceProvider.getInboundAuthenticationConfig() == null) {
+            return clientIds;
+        }
+        InboundAuthenticationConfig inboundAuthenticationConfig = serviceProvider.getInboundAuthenticationConfig();
+        if (inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs() == null) {
+            return clientIds;
+        }
+        for (InboundAuthenticationRequestConfig requestConfig :
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs()) {
+            if (CommonConstants.OAUTH2_INBOUND_AUTH_TYPE.equals(requestConfig.getInboundAuthType())
+                    && StringUtils.isNotBlank(requestConfig.getInboundAuthKey())) {
+                clientIds.add(requestConfig.getInboundAuthKey());
+            }
+        }
+        return clientIds;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificatePathCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificatePathCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificatePathCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.PKIXCertPathValidatorResult;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates client certificate chains against the trust anchors of a tenant for the tls_client_auth (PKI) mode of
+ * RFC 8705.
+ * <p>
+ * Successfully validated chains are cached by the fingerprint of the chain until the earliest expiry time of the
+ * certificates in the path, so that chain building and signature verification run once per certificate chain instead
+ * of once per request. The version of the trust anchors is part of the cache key, hence a change to the trust store
+ * invalidates the cached results. The client certificate has to allow TLS client authentication when it has an
+ * extended key usage extension. Revocation is not checked here. When the client certificate is forwarded in a
+ * header the chain only contains the client certificate, so intermediate CAs have to be added to the trust store.
+ */
+public final class CertificatePathValidator {
+
+    private static final Log log = LogFactory.getLog(CertificatePathValidator.class);
+    private static final String PKIX = "PKIX";
+    private static final String SHA256 = "SHA-256";
+    private static final String CLIENT_AUTH_KEY_PURPOSE = "1.3.6.1.5.5.7.3.2";
+    private static final String ANY_EXTENDED_KEY_USAGE = "2.5.29.37.0";
+
+    private CertificatePathValidator() {
+
+    }
+
+    /**
+     * Check whether the certificate chain presented by the client is trusted by the given tenant.
+     *
+     * @param certificateHolder Holder of the client certificate chain.
+     * @param tenantDomain      Tenant domain of the OAuth client.
+     * @return True if the chain is valid.
+     * @throws IdentityOAuth2Exception If the trust anchors cannot be loaded or the chain cannot be encoded.
+     */
+    public static boolean isValid(MutualTLSCertificateHolder certificateHolder, String tenantDomain)
+            throws IdentityOAuth2Exception {
+
+        TrustAnchorStore.TrustAnchors trustAnchors = TrustAnchorStore.getInstance().getTrustAnchors(tenantDomain);
+        MutualTLSCertificatePathCacheKey cacheKey = new MutualTLSCertificatePathCacheKey(
+                getChainFingerprint(certificateHolder), tenantDomain, trustAnchors.getVersion());
+        long currentTime = System.currentTimeMillis();
+
+        MutualTLSCertificatePathCacheEntry cacheEntry =
+                MutualTLSCertificatePathCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry != null) {
+            if (!cacheEntry.isExpired(currentTime)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Validated client certificate chain found in cache.");
+                }
+                return true;
+            }
+            MutualTLSCertificatePathCache.getInstance().clearCacheEntry(cacheKey);
+        }
+
+        PKIXCertPathValidatorResult result = validate(certificateHolder.getCertificateChain(),
+                trustAnchors.getAnchors(), new Date(currentTime));
+        if (result == null) {
+            return false;
+        }
+        long validUntil = result.getTrustAnchor().getTrustedCert() != null ?
+                result.getTrustAnchor().getTrustedCert().getNotAfter().getTime() : Long.MAX_VALUE;
+        for (X509Certificate certificate : certificateHolder.getCertificateChain()) {
+            validUntil = Math.min(validUntil, certificate.getNotAfter().getTime());
+        }
+        MutualTLSCertificatePathCache.getInstance().addToCache(cacheKey,
+                new MutualTLSCertificatePathCacheEntry(validUntil));
+        return true;
+    }
+
+    /**
+     * Validate the certificate chain against the given trust anchors. Certificates at the end of the chain which are
+     * trust anchors themselves are not part of the validated path. The chain is not valid when the extended key usage
+     * of the client certificate does not allow TLS client authentication.
+     *
+     * @param certificateChain Certificate chain, starting with the client certificate.
+     * @param anchors          Trust anchors.
+     * @param date             Time at which the chain is validated.
+     * @return Validation result, or null if the chain is not valid.
+     */
+    public static PKIXCertPathValidatorResult validate(X509Certificate[] certificateChain,
+                                                       Set<TrustAnchor> anchors, Date date) {
+
+        if (anchors.isEmpty()) {
+            if (log.isDebugEnabled()) {
+                log.debug("No trust anchors available to validate the client certificate chain.");
+            }
+            return null;
+        }
+        if (!isClientAuthenticationAllowed(certificateChain[0])) {
+            if (log.isDebugEnabled()) {
+                log.debug("Extended key usage of the client certificate does not allow TLS client authentication.");
+            }
+            return null;
+        }
+        List<X509Certificate> path = getPath(certificateChain, anchors);
+        try {
+            CertPath certPath = CertificateFactory.getInstance(CommonConstants.X509).generateCertPath(path);
+            PKIXParameters parameters = new PKIXParameters(anchors);
+            parameters.setRevocationEnabled(false);
+            parameters.setDate(date);
+            return (PKIXCertPathValidatorResult) CertPathValidator.getInstance(PKIX).validate(certPath, parameters);
+        } catch (CertPathValidatorException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate chain validation failed. " + e.getMessage());
+            }
+            return null;
+        } catch (GeneralSecurityException e) {
+            log.error("Error while validating the client certificate chain.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the certification path of the certificate chain, which is the chain without the certificates at its end
+     * which are trust anchors themselves.
+     *
+     * @param certificateChain Certificate chain, starting with the client certificate.
+     * @param anchors          Trust anchors.
+     * @return Certification path, starting with the client certificate.
+     */
+    public static List<X509Certificate> getPath(X509Certificate[] certificateChain, Set<TrustAnchor> anchors) {
+
+        Set<X509Certificate> trustedCertificates = new HashSet<>();
+        for (TrustAnchor anchor : anchors) {
+            if (anchor.getTrustedCert() != null) {
+                trustedCertificates.add(anchor.getTrustedCert());
+            }
+        }
+        List<X509Certificate> path = new ArrayList<>(Arrays.asList(certificateChain));
+        while (path.size() > 1 && trustedCertificates.contains(path.get(path.size() - 1))) {
+            path.remove(path.size() - 1);
+        }
+        return path;
+    }
+
+    /**
+     * Check whether the certificate can be used for TLS client authentication. As in RFC 5280, a certificate without
+     * the extended key usage extension is not restricted to a purpose.
+     *
+     * @param certificate Client certificate.
+     * @return True if the extended key usage is absent, or contains id-kp-clientAuth or anyExtendedKeyUsage.
+     */
+    static boolean isClientAuthenticationAllowed(X509Certificate certificate) {
+
+        try {
+            List<String> extendedKeyUsage = certificate.getExtendedKeyUsage();
+            return extendedKeyUsage == null || extendedKeyUsage.contains(CLIENT_AUTH_KEY_PURPOSE)
+                    || extendedKeyUsage.contains(ANY_EXTENDED_KEY_USAGE);
+        } catch (CertificateParsingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while reading the extended key usage of the client certificate.", e);
+            }
+            return false;
+        }
+    }
+
+    private static String getChainFingerprint(MutualTLSCertificateHolder certificateHolder)
+            throws IdentityOAuth2Exception {
+
+        try {
+            X509Certificate[] certificateChain = certificateHolder.getCertificateChain();
+            if (certificateChain.length == 1) {
+                return certificateHolder.getSHA256ThumbprintBase64URL();
+            }
+            MessageDigest digest = MessageDigest.getInstance(SHA256);
+            for (X509Certificate certificate : certificateChain) {
+                digest.update(certificate.getEncoded());
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (GeneralSecurityException e) {
+            throw new IdentityOAuth2Exception("Error while generating the fingerprint of the client certificate " +
+                    "chain.", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.List;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Matches the client certificate against the tls_client_auth metadata registered for a client as defined in
+ * section 2.1.2 of RFC 8705. Exactly one of the subject DN or a subject alternative name value is expected to be
+ * registered.
+ */
+public final class CertificateSubjectMatcher {
+
+    private static final Log log = LogFactory.getLog(CertificateSubjectMatcher.class);
+    private static final int SAN_RFC822_NAME = 1;
+    private static final int SAN_DNS_NAME = 2;
+    private static final int SAN_URI = 6;
+    private static final int SAN_IP_ADDRESS = 7;
+
+    private CertificateSubjectMatcher() {
+
+    }
+
+    /**
+     * Check whether the certificate matches the registered tls_client_auth metadata value.
+     *
+     * @param certificate   Client certificate.
+     * @param metadataName  Name of the registered metadata, one of tls_client_auth_subject_dn,
+     *                      tls_client_auth_san_dns, tls_client_auth_san_uri, tls_client_auth_san_ip or
+     *                      tls_client_auth_san_email.
+     * @param expectedValue Registered metadata value.
+     * @return True if the certificate matches the registered value.
+     */
+    public static boolean matches(X509Certificate certificate, String metadataName, String expectedValue) {
+
+        if (StringUtils.isBlank(expectedValue)) {
+            return false;
+        }
+        switch (metadataName) {
+            case CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN:
+                return matchesSubjectDN(certificate, expectedValue);
+            case CommonConstants.TLS_CLIENT_AUTH_SAN_DNS:
+                return matchesSubjectAlternativeName(certificate, SAN_DNS_NAME, expectedValue);
+            case CommonConstants.TLS_CLIENT_AUTH_SAN_URI:
+                return matchesSubjectAlternativeName(certificate, SAN_URI, expectedValue);
+            case CommonConstants.TLS_CLIENT_AUTH_SAN_IP:
+                return matchesSubjectAlternativeName(certificate, SAN_IP_ADDRESS, expectedValue);
+            case CommonConstants.TLS_CLIENT_AUTH_SAN_EMAIL:
+                return matchesSubjectAlternativeName(certificate, SAN_RFC822_NAME, expectedValue);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean matchesSubjectDN(X509Certificate certificate, String expectedValue) {
+
+        try {
+            // X500Principal equality compares the canonical form, which ignores case and white space differences.
+            return certificate.getSubjectX500Principal().equals(new X500Principal(expectedValue));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid subject DN: " + expectedValue + " registered for tls_client_auth.", e);
+            return false;
+        }
+    }
+
+    private static boolean matchesSubjectAlternativeName(X509Certificate certificate, int type, String expectedValue) {
+
+        Collection<List<?>> subjectAlternativeNames;
+        try {
+            subjectAlternativeNames = certificate.getSubjectAlternativeNames();
+        } catch (CertificateParsingException e) {
+            log.error("Error while reading the subject alternative names of the client certificate.", e);
+            return false;
+        }
+        if (subjectAlternativeNames == null) {
+            return false;
+        }
+        for (List<?> subjectAlternativeName : subjectAlternativeNames) {
+            if (subjectAlternativeName.size() < 2 || !(subjectAlternativeName.get(0) instanceof Integer)
+                    || (Integer) subjectAlternativeName.get(0) != type
+                    || !(subjectAlternativeName.get(1) instanceof String)) {
+                continue;
+            }
+            String value = (String) subjectAlternativeName.get(1);
+            if (type == SAN_URI ? value.equals(expectedValue) : value.equalsIgnoreCase(expectedValue)) {
+                return true;
+            }
+            if (type == SAN_IP_ADDRESS && isSameIPAddress(value, expectedValue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare IP address literals, so that different textual forms of the same IPv6 address match. Values which are
+     * not IP address literals are never resolved.
+     */
+    private static boolean isSameIPAddress(String value, String expectedValue) {
+
+        if (!isIPAddressLiteral(expectedValue)) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(value).equals(InetAddress.getByName(expectedValue));
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean isIPAddressLiteral(String value) {
+
+        // IPv6 literals contain ':' and hex digits, IPv4 literals only decimal digits and '.'.
+        boolean ipv6 = value.indexOf(':') >= 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean digit = ipv6 ? Character.digit(c, 16) >= 0 : c >= '0' && c <= '9';
+            if (!digit && c != '.' && c != ':') {
+                return false;
+            }
+        }
+        return !value.isEmpty();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the trust anchors used to validate client certificate chains in the tls_client_auth (PKI) mode of RFC 8705.
+ * <p>
+ * The trust store of a tenant is configured with MutualTLS.PKI.TrustStore.Location, where the {tenantDomain}
+ * placeholder is replaced with the tenant domain. If it is not configured, or the trust store of the tenant does not
+ * exist, client certificates of the tenant are not trusted, unless MutualTLS.PKI.TrustStore.UseServerTrustStore is
+ * enabled to trust the CAs in the trust store of the server instead. Trust stores are loaded once and reloaded when
+ * the file in use changes, or when the trust store of the tenant is created in place of the trust store of the server.
+ */
+public final class TrustAnchorStore {
+
+    private static final Log log = LogFactory.getLog(TrustAnchorStore.class);
+    private static final String TENANT_DOMAIN_PLACEHOLDER = "{tenantDomain}";
+    private static final String SERVER_TRUST_STORE = "javax.net.ssl.trustStore";
+    private static final String SERVER_TRUST_STORE_PASSWORD = "javax.net.ssl.trustStorePassword";
+    private static final String SERVER_TRUST_STORE_TYPE = "javax.net.ssl.trustStoreType";
+    private static final long MODIFICATION_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(60);
+
+    private static final TrustAnchorStore instance = new TrustAnchorStore();
+
+    private final ConcurrentHashMap<String, TrustAnchors> trustAnchorsOfTenants = new ConcurrentHashMap<>();
+
+    private TrustAnchorStore() {
+
+    }
+
+    public static TrustAnchorStore getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the trust anchors of the given tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Trust anchors of the tenant.
+     * @throws IdentityOAuth2Exception If the trust store cannot be loaded.
+     */
+    public TrustAnchors getTrustAnchors(String tenantDomain) throws IdentityOAuth2Exception {
+
+        TrustAnchors trustAnchors = trustAnchorsOfTenants.get(tenantDomain);
+        long currentTime = System.currentTimeMillis();
+        if (trustAnchors != null && !trustAnchors.isModified(currentTime)) {
+            return trustAnchors;
+        }
+        synchronized (this) {
+            trustAnchors = trustAnchorsOfTenants.get(tenantDomain);
+            if (trustAnchors != null && !trustAnchors.isModified(currentTime)) {
+                return trustAnchors;
+            }
+            trustAnchors = loadTrustAnchors(tenantDomain, currentTime);
+            trustAnchorsOfTenants.put(tenantDomain, trustAnchors);
+            return trustAnchors;
+        }
+    }
+
+    private TrustAnchors loadTrustAnchors(String tenantDomain, long currentTime) throws IdentityOAuth2Exception {
+
+        String location = IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_LOCATION);
+        File tenantTrustStoreFile = null;
+        if (StringUtils.isNotBlank(location)) {
+            tenantTrustStoreFile = new File(location.replace(TENANT_DOMAIN_PLACEHOLDER, tenantDomain));
+            if (tenantTrustStoreFile.isFile()) {
+                return loadTrustAnchors(tenantDomain, tenantTrustStoreFile,
+                        IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_PASSWORD),
+                        IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_TYPE), null, currentTime);
+            }
+        }
+        if (!Boolean.parseBoolean(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_USE_SERVER_TRUST_STORE))) {
+            if (tenantTrustStoreFile == null) {
+                throw new IdentityOAuth2Exception("Trust store is not configured for validating client certificates " +
+                        "of tenant: " + tenantDomain);
+            }
+            throw new IdentityOAuth2Exception("Trust store: " + tenantTrustStoreFile.getPath() + " does not exist " +
+                    "for tenant: " + tenantDomain);
+        }
+
+        String serverLocation = System.getProperty(SERVER_TRUST_STORE);
+        if (StringUtils.isBlank(serverLocation)) {
+            throw new IdentityOAuth2Exception("Trust store is not configured for validating client certificates of " +
+                    "tenant: " + tenantDomain);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Using the trust store of the server to validate client certificates of tenant: "
+                    + tenantDomain);
+        }
+        return loadTrustAnchors(tenantDomain, new File(serverLocation), System.getProperty(SERVER_TRUST_STORE_PASSWORD),
+                System.getProperty(SERVER_TRUST_STORE_TYPE), tenantTrustStoreFile, currentTime);
+    }
+
+    private TrustAnchors loadTrustAnchors(String tenantDomain, File trustStoreFile, String password, String type,
+                                          File tenantTrustStoreFile, long currentTime)
+            throws IdentityOAuth2Exception {
+
+        long lastModified = trustStoreFile.lastModified();
+        try (InputStream inputStream = new FileInputStream(trustStoreFile)) {
+            KeyStore trustStore = KeyStore.getInstance(StringUtils.isNotBlank(type) ? type : KeyStore.getDefaultType());
+            trustStore.load(inputStream, password == null ? null : password.toCharArray());
+            Set<TrustAnchor> anchors = new HashSet<>();
+            Enumeration<String> aliases = trustStore.aliases();
+            while (aliases.hasMoreElements()) {
+                Certificate certificate = trustStore.getCertificate(aliases.nextElement());
+                if (certificate instanceof X509Certificate) {
+                    anchors.add(new TrustAnchor((X509Certificate) certificate, null));
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + anchors.size() + " trust anchors from: " + trustStoreFile.getPath()
+                        + " for tenant: " + tenantDomain);
+            }
+            return new TrustAnchors(anchors, trustStoreFile, lastModified, tenantTrustStoreFile, currentTime);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IdentityOAuth2Exception("Error while loading the trust store: " + trustStoreFile.getPath()
+                    + " for tenant: " + tenantDomain, e);
+        }
+    }
+
+    /**
+     * Trust anchors loaded from a trust store. The version identifies the loaded content, so that results computed
+     * with an older version of the trust store are not reused.
+     */
+    public static final class TrustAnchors {
+
+        private final Set<TrustAnchor> anchors;
+        private final File trustStoreFile;
+        private final long lastModified;
+        private final File tenantTrustStoreFile;
+        private final String version;
+        private volatile long checkedTime;
+
+        TrustAnchors(Set<TrustAnchor> anchors, File trustStoreFile, long lastModified, File tenantTrustStoreFile,
+                     long loadedTime) {
+
+            this.anchors = Collections.unmodifiableSet(anchors);
+            this.trustStoreFile = trustStoreFile;
+            this.lastModified = lastModified;
+            this.tenantTrustStoreFile = tenantTrustStoreFile;
+            this.version = trustStoreFile.getPath() + ":" + lastModified;
+            this.checkedTime = loadedTime;
+        }
+
+        public Set<TrustAnchor> getAnchors() {
+
+            return anchors;
+        }
+
+        public String getVersion() {
+
+            return version;
+        }
+
+        private boolean isModified(long currentTime) {
+
+            if (currentTime - checkedTime < MODIFICATION_CHECK_INTERVAL) {
+                return false;
+            }
+            // The trust store of the server is replaced once the trust store of the tenant is created.
+            if (trustStoreFile.lastModified() != lastModified
+                    || (tenantTrustStoreFile != null && tenantTrustStoreFile.isFile())) {
+                return true;
+            }
+            checkedTime = currentTime;
+            return false;
+        }
+    }
+}
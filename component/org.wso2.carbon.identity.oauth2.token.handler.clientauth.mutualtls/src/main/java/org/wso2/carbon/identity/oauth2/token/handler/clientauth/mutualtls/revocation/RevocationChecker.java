@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSRevocationCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSRevocationCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSRevocationCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificatePathValidator;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.TrustAnchorStore;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Revocation checker for mutual TLS client certificates. The status of a certificate is checked by the PKIX revocation
+ * checker of the JDK over the certification path validated against the trust anchors of the tenant, so that the
+ * issuer of the certificate, and the signatures of OCSP responses and CRLs, are verified against a trusted issuer.
+ * OCSP is used first, falling back to the CRL distribution points of the certificate.
+ * <p>
+ * The status is cached by the public key of the verified issuer and the serial number of the certificate, and is
+ * refreshed in the background when a cached status is used close to its expiry, so that token requests only reach the
+ * network on the first use of a certificate. When the status cannot be determined, the configured failure policy
+ * decides whether the certificate is accepted, and the unknown status is cached for a shorter period so that an
+ * unavailable responder is not asked again on every token request. The timeouts of OCSP and CRL requests are read by
+ * the JDK from the com.sun.security.ocsp.timeout and com.sun.security.crl.timeout system properties, and CRL
+ * distribution points are only followed when the com.sun.security.enableCRLDP system property is set.
+ */
+public class RevocationChecker {
+
+    private static final Log log = LogFactory.getLog(RevocationChecker.class);
+    private static final String REFRESHER_THREAD_NAME = "MutualTLSRevocationRefresher";
+    private static final String PKIX = "PKIX";
+    private static final String SHA256 = "SHA-256";
+    private static final String AUTHORITY_INFO_ACCESS_OID = "1.3.6.1.5.5.7.1.1";
+    private static final String CRL_DISTRIBUTION_POINTS_OID = "2.5.29.31";
+    private static final String ENABLE_CRLDP_PROPERTY = "com.sun.security.enableCRLDP";
+    // DER encoding of the id-ad-ocsp access method (1.3.6.1.5.5.7.48.1) in the authority information access extension.
+    private static final byte[] OCSP_ACCESS_METHOD = {0x06, 0x08, 0x2B, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01};
+
+    private static volatile RevocationChecker instance;
+
+    private final RevocationConfig config;
+    private final Executor refresher;
+    private final Set<MutualTLSRevocationCacheKey> refreshing = ConcurrentHashMap.newKeySet();
+    private final Set<String> tenantsWithoutTrustAnchors = ConcurrentHashMap.newKeySet();
+
+    RevocationChecker(RevocationConfig config, Executor refresher) {
+
+        this.config = config;
+        this.refresher = refresher;
+        if (config.isEnabled() && config.isCRLEnabled() && !Boolean.getBoolean(ENABLE_CRLDP_PROPERTY)) {
+            log.info("CRL distribution points of client certificates are not followed since the system property: "
+                    + ENABLE_CRLDP_PROPERTY + " is not set.");
+        }
+    }
+
+    /**
+     * Get the revocation checker configured from identity.xml. The background refresher is created with the first
+     * use when revocation checking is enabled.
+     *
+     * @return Revocation checker.
+     */
+    public static RevocationChecker getInstance() {
+
+        if (instance == null) {
+            synchronized (RevocationChecker.class) {
+                if (instance == null) {
+                    RevocationConfig config = RevocationConfig.load();
+                    instance = new RevocationChecker(config, config.isEnabled() ? createRefresher() : null);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stop the background refresher and discard the cached revocation information.
+     */
+    public static void shutdown() {
+
+        synchronized (RevocationChecker.class) {
+            if (instance != null) {
+                instance.stop();
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * Check whether the client certificate is accepted with respect to its revocation status.
+     *
+     * @param certificateChain Certificate chain presented by the client, starting with the client certificate.
+     * @param tenantDomain     Tenant domain whose trust anchors the issuer of the certificate is verified against.
+     * @return True if the certificate is not revoked, or its status is unknown and the soft fail policy is used.
+     */
+    public boolean isAccepted(X509Certificate[] certificateChain, String tenantDomain) {
+
+        if (!config.isEnabled()) {
+            return true;
+        }
+        X509Certificate certificate = certificateChain[0];
+        if (!hasRevocationInformation(certificate)) {
+            if (log.isDebugEnabled()) {
+                log.debug("No revocation information available for the certificate with serial number: "
+                        + certificate.getSerialNumber() + " issued by: " + certificate.getIssuerX500Principal());
+            }
+            return true;
+        }
+        if (isSelfSigned(certificate)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate with serial number: " + certificate.getSerialNumber() + " is self " +
+                        "signed, hence there is no issuer to check its revocation status with.");
+            }
+            return true;
+        }
+        Set<TrustAnchor> anchors;
+        try {
+            anchors = TrustAnchorStore.getInstance().getTrustAnchors(tenantDomain).getAnchors();
+        } catch (IdentityOAuth2Exception e) {
+            return isAcceptedWithoutTrustAnchors(certificate, tenantDomain, e);
+        }
+        if (!tenantsWithoutTrustAnchors.isEmpty()) {
+            tenantsWithoutTrustAnchors.remove(tenantDomain);
+        }
+        return isAccepted(certificateChain, anchors, System.currentTimeMillis());
+    }
+
+    /**
+     * Decide on a client certificate of a tenant whose trust anchors cannot be loaded, hence whose revocation status
+     * cannot be checked. This is a configuration error rather than a failure of a responder, so it is logged once per
+     * tenant instead of on every token request.
+     */
+    private boolean isAcceptedWithoutTrustAnchors(X509Certificate certificate, String tenantDomain,
+                                                  IdentityOAuth2Exception e) {
+
+        if (tenantsWithoutTrustAnchors.add(tenantDomain)) {
+            if (config.isHardFail()) {
+                log.error("Revocation checking of client certificates uses the " + RevocationConfig.HARD_FAIL
+                        + " policy, but the trust anchors of tenant: " + tenantDomain + " cannot be loaded. All "
+                        + "client certificates of the tenant with revocation information are rejected until a trust "
+                        + "store is configured with " + CommonConstants.PKI_TRUST_STORE_LOCATION + " or "
+                        + CommonConstants.PKI_TRUST_STORE_USE_SERVER_TRUST_STORE + " is enabled. " + e.getMessage());
+            } else {
+                log.warn("Unable to load the trust anchors of tenant: " + tenantDomain + ". Client certificates of "
+                        + "the tenant are accepted without checking their revocation status. " + e.getMessage());
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("Trust anchors of tenant: " + tenantDomain + " are not available to check the revocation "
+                    + "status of the client certificate with serial number: " + certificate.getSerialNumber());
+        }
+        return !config.isHardFail();
+    }
+
+    boolean isAccepted(X509Certificate[] certificateChain, Set<TrustAnchor> anchors, long currentTime) {
+
+        X509Certificate certificate = certificateChain[0];
+        byte[] fingerprint;
+        try {
+            fingerprint = sha256(certificate.getEncoded());
+        } catch (CertificateEncodingException e) {
+            log.warn("Error while encoding the client certificate with serial number: "
+                    + certificate.getSerialNumber() + ". " + e.getMessage());
+            return isAccepted(RevocationStatus.UNKNOWN, certificate);
+        }
+
+        // A cached status is only used for the very certificate which was verified against the issuer key when the
+        // status was cached, hence a forged issuer in the presented chain can neither find nor replace the status.
+        for (PublicKey issuerKey : getIssuerKeyCandidates(certificateChain, anchors)) {
+            MutualTLSRevocationCacheKey cacheKey = getCacheKey(issuerKey, certificate);
+            MutualTLSRevocationCacheEntry cachedStatus = MutualTLSRevocationCache.getInstance()
+                    .getValueFromCache(cacheKey);
+            if (cachedStatus == null || !cachedStatus.isValid(currentTime)) {
+                continue;
+            }
+            if (MessageDigest.isEqual(cachedStatus.getFingerprint(), fingerprint)) {
+                if (cachedStatus.isRefreshDue(currentTime)) {
+                    refresh(cacheKey, certificateChain, anchors);
+                }
+                return isAccepted(cachedStatus.getStatus(), certificate);
+            }
+        }
+        return isAccepted(check(certificateChain, anchors, fingerprint, currentTime), certificate);
+    }
+
+    private boolean isAccepted(RevocationStatus status, X509Certificate certificate) {
+
+        switch (status) {
+            case GOOD:
+                return true;
+            case REVOKED:
+                log.warn("Client certificate with serial number: " + certificate.getSerialNumber() + " issued by: "
+                        + certificate.getIssuerX500Principal() + " is revoked.");
+                return false;
+            default:
+                if (config.isHardFail()) {
+                    log.warn("Revocation status of the client certificate with serial number: "
+                            + certificate.getSerialNumber() + " issued by: " + certificate.getIssuerX500Principal()
+                            + " cannot be determined. Rejecting the certificate.");
+                    return false;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Revocation status of the client certificate with serial number: "
+                            + certificate.getSerialNumber() + " cannot be determined. Accepting the certificate.");
+                }
+                return true;
+        }
+    }
+
+    /**
+     * Check the revocation status of the client certificate over the certification path validated against the trust
+     * anchors, and cache the status by the public key of the issuer in the validated path. An unknown status is
+     * cached for the failure validity without being refreshed ahead of its expiry, provided that the path is valid so
+     * that an untrusted chain cannot cache a status for the issuer key, and unless it is the result of a background
+     * refresh of a status which is still valid.
+     */
+    private RevocationStatus check(X509Certificate[] certificateChain, Set<TrustAnchor> anchors, byte[] fingerprint,
+                                   long currentTime) {
+
+        X509Certificate certificate = certificateChain[0];
+        List<X509Certificate> path = CertificatePathValidator.getPath(certificateChain, anchors);
+        PublicKey issuerKey = getIssuerKey(path, anchors);
+        if (issuerKey == null) {
+            log.warn("Issuer: " + certificate.getIssuerX500Principal() + " of the client certificate with serial "
+                    + "number: " + certificate.getSerialNumber() + " is not trusted. Revocation status cannot be "
+                    + "determined.");
+            return RevocationStatus.UNKNOWN;
+        }
+        RevocationStatus status = getStatus(path, anchors, currentTime);
+        MutualTLSRevocationCacheKey cacheKey = getCacheKey(issuerKey, certificate);
+        MutualTLSRevocationCacheEntry cacheEntry;
+        if (status == RevocationStatus.UNKNOWN) {
+            MutualTLSRevocationCacheEntry cachedStatus = MutualTLSRevocationCache.getInstance()
+                    .getValueFromCache(cacheKey);
+            if (cachedStatus != null && cachedStatus.isValid(currentTime)
+                    && MessageDigest.isEqual(cachedStatus.getFingerprint(), fingerprint)) {
+                return cachedStatus.getStatus();
+            }
+            if (CertificatePathValidator.validate(certificateChain, anchors, new Date(currentTime)) == null) {
+                return status;
+            }
+            long expiryTime = currentTime + config.getFailureValidity();
+            cacheEntry = new MutualTLSRevocationCacheEntry(status, fingerprint, expiryTime, expiryTime);
+        } else {
+            long expiryTime = currentTime + config.getDefaultValidity();
+            cacheEntry = new MutualTLSRevocationCacheEntry(status, fingerprint, expiryTime,
+                    expiryTime - config.getRefreshInterval());
+        }
+        MutualTLSRevocationCache.getInstance().addToCache(cacheKey, cacheEntry);
+        return status;
+    }
+
+    private RevocationStatus getStatus(List<X509Certificate> path, Set<TrustAnchor> anchors, long currentTime) {
+
+        X509Certificate certificate = path.get(0);
+        try {
+            CertPathValidator validator = CertPathValidator.getInstance(PKIX);
+            PKIXRevocationChecker revocationChecker = (PKIXRevocationChecker) validator.getRevocationChecker();
+            Set<PKIXRevocationChecker.Option> options = EnumSet.of(PKIXRevocationChecker.Option.ONLY_END_ENTITY);
+            if (!config.isOCSPEnabled()) {
+                options.add(PKIXRevocationChecker.Option.PREFER_CRLS);
+                options.add(PKIXRevocationChecker.Option.NO_FALLBACK);
+            } else if (!config.isCRLEnabled()) {
+                options.add(PKIXRevocationChecker.Option.NO_FALLBACK);
+            }
+            revocationChecker.setOptions(options);
+            if (config.isOCSPEnabled() && config.getOCSPResponderURI() != null) {
+                revocationChecker.setOcspResponder(config.getOCSPResponderURI());
+            }
+
+            PKIXParameters parameters = new PKIXParameters(anchors);
+            parameters.setDate(new Date(currentTime));
+            parameters.addCertPathChecker(revocationChecker);
+            validator.validate(CertificateFactory.getInstance(CommonConstants.X509).generateCertPath(path),
+                    parameters);
+            return RevocationStatus.GOOD;
+        } catch (CertPathValidatorException e) {
+            if (e.getReason() == CertPathValidatorException.BasicReason.REVOKED) {
+                return RevocationStatus.REVOKED;
+            }
+            log.warn("Error while checking the revocation status of the client certificate with serial number: "
+                    + certificate.getSerialNumber() + " issued by: " + certificate.getIssuerX500Principal() + ". "
+                    + e.getMessage());
+            return RevocationStatus.UNKNOWN;
+        } catch (GeneralSecurityException e) {
+            log.error("Error while checking the revocation status of the client certificate with serial number: "
+                    + certificate.getSerialNumber(), e);
+            return RevocationStatus.UNKNOWN;
+        }
+    }
+
+    private void refresh(MutualTLSRevocationCacheKey cacheKey, X509Certificate[] certificateChain,
+                         Set<TrustAnchor> anchors) {
+
+        if (refresher == null || !refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    X509Certificate certificate = certificateChain[0];
+                    check(certificateChain, anchors, sha256(certificate.getEncoded()), System.currentTimeMillis());
+                } catch (CertificateEncodingException | RuntimeException e) {
+                    log.error("Error while refreshing the revocation status of a client certificate.", e);
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+        }
+    }
+
+    private boolean hasRevocationInformation(X509Certificate certificate) {
+
+        if (config.isOCSPEnabled() && (config.getOCSPResponderURI() != null
+                || contains(certificate.getExtensionValue(AUTHORITY_INFO_ACCESS_OID), OCSP_ACCESS_METHOD))) {
+            return true;
+        }
+        return config.isCRLEnabled() && certificate.getExtensionValue(CRL_DISTRIBUTION_POINTS_OID) != null;
+    }
+
+    /**
+     * Get the public key of the issuer of the client certificate in the certification path, which is the next
+     * certificate in the path or else the trust anchor, provided that it verifies the signature of the certificate.
+     */
+    private static PublicKey getIssuerKey(List<X509Certificate> path, Set<TrustAnchor> anchors) {
+
+        X509Certificate certificate = path.get(0);
+        if (path.size() > 1) {
+            PublicKey issuerKey = path.get(1).getPublicKey();
+            return isSignedBy(certificate, issuerKey) ? issuerKey : null;
+        }
+        for (TrustAnchor anchor : anchors) {
+            if (certificate.getIssuerX500Principal().equals(getName(anchor))
+                    && isSignedBy(certificate, getPublicKey(anchor))) {
+                return getPublicKey(anchor);
+            }
+        }
+        return null;
+    }
+
+    private static List<PublicKey> getIssuerKeyCandidates(X509Certificate[] certificateChain,
+                                                          Set<TrustAnchor> anchors) {
+
+        X500Principal issuerName = certificateChain[0].getIssuerX500Principal();
+        List<PublicKey> candidates = new ArrayList<>();
+        if (certificateChain.length > 1 && certificateChain[1].getSubjectX500Principal().equals(issuerName)) {
+            candidates.add(certificateChain[1].getPublicKey());
+        }
+        for (TrustAnchor anchor : anchors) {
+            if (issuerName.equals(getName(anchor))) {
+                candidates.add(getPublicKey(anchor));
+            }
+        }
+        return candidates;
+    }
+
+    private static X500Principal getName(TrustAnchor anchor) {
+
+        return anchor.getTrustedCert() != null ? anchor.getTrustedCert().getSubjectX500Principal() : anchor.getCA();
+    }
+
+    private static PublicKey getPublicKey(TrustAnchor anchor) {
+
+        return anchor.getTrustedCert() != null ? anchor.getTrustedCert().getPublicKey() : anchor.getCAPublicKey();
+    }
+
+    private static boolean isSelfSigned(X509Certificate certificate) {
+
+        return certificate.getSubjectX500Principal().equals(certificate.getIssuerX500Principal())
+                && isSignedBy(certificate, certificate.getPublicKey());
+    }
+
+    private static boolean isSignedBy(X509Certificate certificate, PublicKey publicKey) {
+
+        try {
+            certificate.verify(publicKey);
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static MutualTLSRevocationCacheKey getCacheKey(PublicKey issuerKey, X509Certificate certificate) {
+
+        return new MutualTLSRevocationCacheKey(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(issuerKey.getEncoded())),
+                certificate.getSerialNumber().toString(16));
+    }
+
+    private static byte[] sha256(byte[] data) {
+
+        try {
+            return MessageDigest.getInstance(SHA256).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Message digest algorithm: " + SHA256 + " is not available.", e);
+        }
+    }
+
+    private static boolean contains(byte[] data, byte[] pattern) {
+
+        if (data == null) {
+            return false;
+        }
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ExecutorService createRefresher() {
+
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, REFRESHER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void stop() {
+
+        if (refresher instanceof ExecutorService) {
+            ((ExecutorService) refresher).shutdownNow();
+        }
+        MutualTLSRevocationCache.getInstance().clear();
+    }
+}
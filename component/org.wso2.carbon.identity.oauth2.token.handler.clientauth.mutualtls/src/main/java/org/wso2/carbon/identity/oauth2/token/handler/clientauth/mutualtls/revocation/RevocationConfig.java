@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of the revocation checking configuration, read from the MutualTLS.Revocation section of
+ * identity.xml.
+ */
+public final class RevocationConfig {
+
+    private static final Log log = LogFactory.getLog(RevocationConfig.class);
+
+    static final String ENABLE = "MutualTLS.Revocation.Enable";
+    static final String FAILURE_POLICY = "MutualTLS.Revocation.FailurePolicy";
+    static final String OCSP_ENABLE = "MutualTLS.Revocation.OCSP.Enable";
+    static final String OCSP_RESPONDER_URL = "MutualTLS.Revocation.OCSP.ResponderURL";
+    static final String CRL_ENABLE = "MutualTLS.Revocation.CRL.Enable";
+    static final String DEFAULT_VALIDITY = "MutualTLS.Revocation.DefaultValidity";
+    static final String REFRESH_INTERVAL = "MutualTLS.Revocation.RefreshInterval";
+    static final String FAILURE_VALIDITY = "MutualTLS.Revocation.FailureValidity";
+
+    static final String SOFT_FAIL = "SoftFail";
+    static final String HARD_FAIL = "HardFail";
+
+    private final boolean enabled;
+    private final boolean hardFail;
+    private final boolean ocspEnabled;
+    private final URI ocspResponderURI;
+    private final boolean crlEnabled;
+    private final long defaultValidity;
+    private final long refreshInterval;
+    private final long failureValidity;
+
+    RevocationConfig(Function<String, String> properties) {
+
+        this.enabled = Boolean.parseBoolean(properties.apply(ENABLE));
+        String failurePolicy = properties.apply(FAILURE_POLICY);
+        if (StringUtils.isNotBlank(failurePolicy) && !SOFT_FAIL.equalsIgnoreCase(failurePolicy.trim())
+                && !HARD_FAIL.equalsIgnoreCase(failurePolicy.trim())) {
+            log.warn("Invalid value: " + failurePolicy + " configured for " + FAILURE_POLICY + ". Using " + HARD_FAIL);
+        }
+        this.hardFail = StringUtils.isBlank(failurePolicy) || !SOFT_FAIL.equalsIgnoreCase(failurePolicy.trim());
+        this.ocspEnabled = !"false".equalsIgnoreCase(StringUtils.trim(properties.apply(OCSP_ENABLE)));
+        this.ocspResponderURI = readURI(properties, OCSP_RESPONDER_URL);
+        this.crlEnabled = !"false".equalsIgnoreCase(StringUtils.trim(properties.apply(CRL_ENABLE)));
+        this.defaultValidity = TimeUnit.SECONDS.toMillis(readLong(properties, DEFAULT_VALIDITY, 3600));
+        this.refreshInterval = TimeUnit.SECONDS.toMillis(readLong(properties, REFRESH_INTERVAL, 300));
+        this.failureValidity = TimeUnit.SECONDS.toMillis(readLong(properties, FAILURE_VALIDITY, 60));
+    }
+
+    /**
+     * Read the configuration from identity.xml.
+     *
+     * @return Revocation configuration.
+     */
+    public static RevocationConfig load() {
+
+        return new RevocationConfig(IdentityUtil::getProperty);
+    }
+
+    private static URI readURI(Function<String, String> properties, String name) {
+
+        String value = StringUtils.trimToNull(properties.apply(name));
+        if (value == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(value);
+            if (uri.isAbsolute()) {
+                return uri;
+            }
+        } catch (URISyntaxException e) {
+            // Fall through to ignore the value.
+        }
+        log.warn("Invalid URL: " + value + " configured for " + name + ". The value is ignored.");
+        return null;
+    }
+
+    private static long readLong(Function<String, String> properties, String name, long defaultValue) {
+
+        String value = properties.apply(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            long parsedValue = Long.parseLong(value.trim());
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the default value.
+        }
+        log.warn("Invalid value: " + value + " configured for " + name + ". Using the default value: "
+                + defaultValue);
+        return defaultValue;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @return True if a certificate must be rejected when its revocation status cannot be determined.
+     */
+    public boolean isHardFail() {
+
+        return hardFail;
+    }
+
+    public boolean isOCSPEnabled() {
+
+        return ocspEnabled;
+    }
+
+    /**
+     * @return OCSP responder URL which overrides the responders listed in certificates, or null.
+     */
+    public URI getOCSPResponderURI() {
+
+        return ocspResponderURI;
+    }
+
+    public boolean isCRLEnabled() {
+
+        return crlEnabled;
+    }
+
+    /**
+     * @return Validity in milliseconds of a cached revocation status.
+     */
+    public long getDefaultValidity() {
+
+        return defaultValidity;
+    }
+
+    /**
+     * @return Time in milliseconds before the expiry of a cached revocation status, from which the status is refreshed
+     * in the background when it is used.
+     */
+    public long getRefreshInterval() {
+
+        return refreshInterval;
+    }
+
+    /**
+     * @return Validity in milliseconds of a cached revocation status which could not be determined.
+     */
+    public long getFailureValidity() {
+
+        return failureValidity;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.token.binder;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.token.bindings.impl.AbstractTokenBinder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+
+import java.security.cert.CertificateEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class provides the certificate based token binder implementation. The SHA-256 thumbprint of the client
+ * certificate used for mutual TLS is stored as the token binding value, instead of being added to the token as a
+ * hidden scope.
+ * <p>
+ * The certificate is the one the client presented in the TLS handshake, read from the
+ * {@code javax.servlet.request.X509Certificate} request attribute. The header configured with
+ * {@code MutualTLS.ClientCertificateHeader} is used only when the web container did not set that attribute, e.g.
+ * when TLS is terminated at a proxy. When the mutual TLS authenticator authenticated the client, the thumbprint it
+ * published is used, so the token is bound to the certificate that authenticated the client.
+ *
+ * @see <href="https://datatracker.ietf.org/doc/html/rfc8705#section-3">RFC 8705</>
+ */
+public class MTLSTokenBinder extends AbstractTokenBinder {
+
+    private static final Log log = LogFactory.getLog(MTLSTokenBinder.class);
+    private static final String OAUTH_APP_DO = "OAuthAppDO";
+
+    /**
+     * Check whether the OAuth application of the token request is configured with the certificate based token
+     * binder.
+     *
+     * @param tokReqMsgCtx Message context of token request.
+     * @return Whether the certificate binding is stored in the token binding storage.
+     */
+    public static boolean isCertificateBindingEnabled(OAuthTokenReqMessageContext tokReqMsgCtx) {
+
+        Object oAuthAppDO = tokReqMsgCtx.getProperty(OAUTH_APP_DO);
+        return oAuthAppDO instanceof OAuthAppDO && CommonConstants.MTLS_TOKEN_BINDING_TYPE.equals(
+                ((OAuthAppDO) oAuthAppDO).getTokenBindingType());
+    }
+
+    @Override
+    public String getDisplayName() {
+
+        return "Certificate Based";
+    }
+
+    @Override
+    public String getDescription() {
+
+        return "Bind tokens to the client certificate used for mutual TLS.";
+    }
+
+    @Override
+    public String getBindingType() {
+
+        return CommonConstants.MTLS_TOKEN_BINDING_TYPE;
+    }
+
+    @Override
+    public List<String> getSupportedGrantTypes() {
+
+        return new ArrayList<>(OAuthServerConfiguration.getInstance().getSupportedGrantTypes().keySet());
+    }
+
+    @Override
+    public String getOrGenerateTokenBindingValue(HttpServletRequest request) {
+
+        return null;
+    }
+
+    @Override
+    public void setTokenBindingValueForResponse(HttpServletResponse response, String bindingValue) {
+
+        // Not required.
+    }
+
+    @Override
+    public void clearTokenBindingElements(HttpServletRequest request, HttpServletResponse response) {
+
+        // Not required.
+    }
+
+    @Override
+    public boolean isValidTokenBinding(Object request, String bindingReference) {
+
+        if (!(request instanceof HttpServletRequest) || StringUtils.isBlank(bindingReference)) {
+            return false;
+        }
+        String tokenBindingValue = getTokenBindingValue((HttpServletRequest) request);
+        return tokenBindingValue != null && bindingReference.equals(DigestUtils.md5Hex(tokenBindingValue));
+    }
+
+    @Override
+    public boolean isValidTokenBinding(Object request, TokenBinding tokenBinding) {
+
+        if (!(request instanceof HttpServletRequest) || tokenBinding == null ||
+                !CommonConstants.MTLS_TOKEN_BINDING_TYPE.equals(tokenBinding.getBindingType())) {
+            return false;
+        }
+        String tokenBindingValue = getTokenBindingValue((HttpServletRequest) request);
+        if (tokenBindingValue == null || !tokenBindingValue.equals(tokenBinding.getBindingValue())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate of the request does not match the certificate bound to the token.");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isValidTokenBinding(OAuth2AccessTokenReqDTO oAuth2AccessTokenReqDTO, String bindingReference) {
+
+        if (StringUtils.isBlank(bindingReference)) {
+            return false;
+        }
+        Optional<String> tokenBindingValue = getTokenBindingValue(oAuth2AccessTokenReqDTO);
+        return tokenBindingValue.isPresent() &&
+                bindingReference.equals(DigestUtils.md5Hex(tokenBindingValue.get()));
+    }
+
+    @Override
+    public String getTokenBindingValue(HttpServletRequest request) {
+
+        Optional<MutualTLSCertificateHolder> certificateHolder =
+                MutualTLSCertificateHolder.getCertificateHolder(request);
+        if (!certificateHolder.isPresent()) {
+            return null;
+        }
+        return getThumbprint(certificateHolder.get());
+    }
+
+    @Override
+    public Optional<String> getTokenBindingValue(OAuth2AccessTokenReqDTO oAuth2AccessTokenReqDTO) {
+
+        // Only bind the token if the client was authenticated with the certificate.
+        OAuthClientAuthnContext oAuthClientAuthnContext = oAuth2AccessTokenReqDTO.getoAuthClientAuthnContext();
+        if (oAuthClientAuthnContext == null || !CommonConstants.AUTHENTICATOR_TYPE_MTLS.equals(
+                oAuthClientAuthnContext.getParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM))) {
+            return Optional.empty();
+        }
+        Object certThumbprint = oAuthClientAuthnContext.getParameter(CommonConstants.CERT_THUMBPRINT_SHA256_PARAM);
+        if (certThumbprint instanceof String) {
+            return Optional.of((String) certThumbprint);
+        }
+        return MutualTLSCertificateHolder.getCertificateHolder(oAuthClientAuthnContext).map(this::getThumbprint);
+    }
+
+    private String getThumbprint(MutualTLSCertificateHolder certificateHolder) {
+
+        try {
+            return certificateHolder.getSHA256ThumbprintBase64URL();
+        } catch (CertificateEncodingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error occurred while calculating the thumbprint of the client certificate.", e);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Computes the SHA-1 and SHA-256 fingerprints of X.509 certificates as raw digest bytes. Message digests are confined
+ * to the calling thread and reused. Fingerprints are not retained, so callers that need a fingerprint more than once
+ * keep it with the certificate, as {@link MutualTLSCertificateHolder} does for the client certificate of a request.
+ */
+public final class CertificateFingerprint {
+
+    private static final String SHA1 = "SHA-1";
+    private static final String SHA256 = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> SHA1_DIGEST = ThreadLocal.withInitial(() -> getDigest(SHA1));
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = ThreadLocal.withInitial(() -> getDigest(SHA256));
+
+    private CertificateFingerprint() {
+
+    }
+
+    /**
+     * Get the SHA-1 fingerprint of the DER encoded certificate.
+     *
+     * @param certificate X.509 certificate.
+     * @return SHA-1 fingerprint bytes.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public static byte[] sha1(X509Certificate certificate) throws CertificateEncodingException {
+
+        return digest(SHA1_DIGEST.get(), certificate);
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of the DER encoded certificate.
+     *
+     * @param certificate X.509 certificate.
+     * @return SHA-256 fingerprint bytes.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public static byte[] sha256(X509Certificate certificate) throws CertificateEncodingException {
+
+        return digest(SHA256_DIGEST.get(), certificate);
+    }
+
+    /**
+     * Compare two fingerprints in constant time.
+     *
+     * @param fingerprint      Fingerprint bytes.
+     * @param otherFingerprint Fingerprint bytes to compare with.
+     * @return Whether the fingerprints are equal.
+     */
+    public static boolean matches(byte[] fingerprint, byte[] otherFingerprint) {
+
+        return fingerprint != null && otherFingerprint != null &&
+                MessageDigest.isEqual(fingerprint, otherFingerprint);
+    }
+
+    private static byte[] digest(MessageDigest messageDigest, X509Certificate certificate)
+            throws CertificateEncodingException {
+
+        messageDigest.reset();
+        return messageDigest.digest(certificate.getEncoded());
+    }
+
+    private static MessageDigest getDigest(String algorithm) {
+
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 and SHA-256 are mandatory for every Java platform.
+            throw new IllegalStateException("Message digest algorithm " + algorithm + " is not available.", e);
+        }
+    }
+}
@@ -43,5 +43,33 @@ public class CommonConstants {
     public static final String HTTP_READ_TIMEOUT_XPATH = "JWTValidatorConfigs.JWKSEndpoint" +
             ".HTTPReadTimeout";
     public static final String KEYS = "keys";
+    public static final String CLIENT_CERTIFICATE_HOLDER = "mtlsClientCertificateHolder";
+    public static final String CERT_THUMBPRINT_SHA256_PARAM = "mtlsCertThumbprintSHA256";
+    public static final String MTLS_TOKEN_BINDING_TYPE = "certificate";
+    public static final String MTLS_TOKEN_TYPE = "mtls";
+    public static final String CERT_THUMBPRINT_SHA256 = "x5t#S256";
+    public static final String MTLS_CLIENT_CERTIFICATE = "client_certificate";
+    public static final String OAUTH2_INBOUND_AUTH_TYPE = "oauth2";
+    public static final String ENABLE_CLIENT_ID_RESOLUTION = "MutualTLS.EnableClientIdResolution";
+    public static final String CLIENT_ID_RESOLVED_FROM_CERTIFICATE = "mtlsClientIdResolvedFromCertificate";
+    public static final String MTLS_CERTIFICATE_THUMBPRINT_PROPERTY = "mtlsCertificateThumbprint";
+    public static final String MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY = "mtlsCertificateSubjectDN";
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+    public static final String CLIENT_ASSERTION = "client_assertion";
+    public static final String ENABLE_AUTHENTICATION_RESULT_CACHE = "MutualTLS.AuthenticationResultCache.Enable";
+    public static final String AUTHENTICATION_RESULT_CACHE_TTL = "MutualTLS.AuthenticationResultCache.TTL";
+    public static final long DEFAULT_AUTHENTICATION_RESULT_CACHE_TTL = 300;
+    public static final String JAVAX_SERVLET_REQUEST_SSL_SESSION_ID = "javax.servlet.request.ssl_session_id";
+    public static final String PKI_TRUST_STORE_LOCATION = "MutualTLS.PKI.TrustStore.Location";
+    public static final String PKI_TRUST_STORE_PASSWORD = "MutualTLS.PKI.TrustStore.Password";
+    public static final String PKI_TRUST_STORE_TYPE = "MutualTLS.PKI.TrustStore.Type";
+    public static final String PKI_TRUST_STORE_USE_SERVER_TRUST_STORE = "MutualTLS.PKI.TrustStore.UseServerTrustStore";
+    public static final String TLS_CLIENT_AUTH_SUBJECT_DN = "tls_client_auth_subject_dn";
+    public static final String TLS_CLIENT_AUTH_SAN_DNS = "tls_client_auth_san_dns";
+    public static final String TLS_CLIENT_AUTH_SAN_URI = "tls_client_auth_san_uri";
+    public static final String TLS_CLIENT_AUTH_SAN_IP = "tls_client_auth_san_ip";
+    public static final String TLS_CLIENT_AUTH_SAN_EMAIL = "tls_client_auth_san_email";
+    public static final String VALIDATED_ACCESS_TOKEN_DO =
+            "org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.validatedAccessTokenDO";
 
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil.JAVAX_SERVLET_REQUEST_CERTIFICATE;
+
+/**
+ * Request scoped holder of the client certificate presented for mutual TLS. The certificate is resolved and parsed
+ * once per request and its thumbprints are computed on first use and kept with the holder, so that the authenticator
+ * and the token binding grant handlers share the same instance.
+ */
+public class MutualTLSCertificateHolder {
+
+    private static final Log log = LogFactory.getLog(MutualTLSCertificateHolder.class);
+
+    private final X509Certificate certificate;
+    private final X509Certificate[] certificateChain;
+    private byte[] sha1Thumbprint;
+    private byte[] sha256Thumbprint;
+    private String sha256ThumbprintBase64URL;
+
+    public MutualTLSCertificateHolder(X509Certificate certificate) {
+
+        this.certificate = certificate;
+        this.certificateChain = new X509Certificate[]{certificate};
+    }
+
+    /**
+     * @param certificateChain Certificate chain presented by the client, starting with the client certificate.
+     */
+    public MutualTLSCertificateHolder(X509Certificate[] certificateChain) {
+
+        this.certificate = certificateChain[0];
+        this.certificateChain = certificateChain;
+    }
+
+    /**
+     * Resolve the client certificate holder of the request. The certificate is taken from the servlet request
+     * attribute set by the web container, or from the configured certificate header when TLS is terminated at a
+     * proxy. The resolved holder is stored as a request attribute.
+     *
+     * @param request HttpServletRequest which is the incoming request.
+     * @return Client certificate holder if a valid certificate is available in the request.
+     */
+    public static Optional<MutualTLSCertificateHolder> getCertificateHolder(HttpServletRequest request) {
+
+        Object holder = request.getAttribute(CommonConstants.CLIENT_CERTIFICATE_HOLDER);
+        if (holder instanceof MutualTLSCertificateHolder) {
+            return Optional.of((MutualTLSCertificateHolder) holder);
+        }
+
+        X509Certificate[] certificateChain = null;
+        Object certObject = request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE);
+        if (certObject instanceof X509Certificate[]) {
+            if (((X509Certificate[]) certObject).length > 0) {
+                certificateChain = (X509Certificate[]) certObject;
+            }
+        } else if (certObject instanceof X509Certificate) {
+            certificateChain = new X509Certificate[]{(X509Certificate) certObject};
+        }
+        if (certificateChain == null) {
+            X509Certificate certificate = getCertificateFromHeader(request);
+            if (certificate != null) {
+                certificateChain = new X509Certificate[]{certificate};
+            }
+        }
+        if (certificateChain == null) {
+            return Optional.empty();
+        }
+
+        MutualTLSCertificateHolder certificateHolder = new MutualTLSCertificateHolder(certificateChain);
+        request.setAttribute(CommonConstants.CLIENT_CERTIFICATE_HOLDER, certificateHolder);
+        return Optional.of(certificateHolder);
+    }
+
+    /**
+     * Get the client certificate holder added to the client authentication context by the mutual TLS authenticator.
+     *
+     * @param oAuthClientAuthnContext OAuth client authentication context.
+     * @return Client certificate holder if available.
+     */
+    public static Optional<MutualTLSCertificateHolder> getCertificateHolder(
+            OAuthClientAuthnContext oAuthClientAuthnContext) {
+
+        if (oAuthClientAuthnContext == null) {
+            return Optional.empty();
+        }
+        Object holder = oAuthClientAuthnContext.getParameter(CommonConstants.CLIENT_CERTIFICATE_HOLDER);
+        if (holder instanceof MutualTLSCertificateHolder) {
+            return Optional.of((MutualTLSCertificateHolder) holder);
+        }
+        return Optional.empty();
+    }
+
+    private static X509Certificate getCertificateFromHeader(HttpServletRequest request) {
+
+        String headerName = MutualTLSConfig.getInstance().getClientCertificateHeader();
+        if (StringUtils.isBlank(headerName)) {
+            return null;
+        }
+        String headerString = request.getHeader(headerName);
+        if (StringUtils.isNotBlank(headerString)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("%s header available in request as %s", headerName, headerString));
+            }
+            try {
+                return MutualTLSCertificateParser.parseCertificate(headerString);
+            } catch (CertificateException e) {
+                log.error("Unable to parse the certificate sent in header", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the client certificate.
+     *
+     * @return X.509 certificate.
+     */
+    public X509Certificate getCertificate() {
+
+        return certificate;
+    }
+
+    /**
+     * Get the certificate chain presented by the client, starting with the client certificate. When the certificate
+     * is forwarded in a header, the chain only contains the client certificate. The returned array must not be
+     * modified.
+     *
+     * @return X.509 certificate chain.
+     */
+    public X509Certificate[] getCertificateChain() {
+
+        return certificateChain;
+    }
+
+    /**
+     * Get the SHA-1 digest of the DER encoded certificate. The returned array must not be modified.
+     *
+     * @return SHA-1 thumbprint bytes.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public byte[] getSHA1Thumbprint() throws CertificateEncodingException {
+
+        if (sha1Thumbprint == null) {
+            sha1Thumbprint = CertificateFingerprint.sha1(certificate);
+        }
+        return sha1Thumbprint;
+    }
+
+    /**
+     * Get the SHA-256 digest of the DER encoded certificate. The returned array must not be modified.
+     *
+     * @return SHA-256 thumbprint bytes.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public byte[] getSHA256Thumbprint() throws CertificateEncodingException {
+
+        if (sha256Thumbprint == null) {
+            sha256Thumbprint = CertificateFingerprint.sha256(certificate);
+        }
+        return sha256Thumbprint;
+    }
+
+    /**
+     * Get the Base64URL encoded SHA-256 thumbprint as used in the x5t#S256 confirmation method (RFC 8705).
+     *
+     * @return Base64URL encoded SHA-256 thumbprint.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public String getSHA256ThumbprintBase64URL() throws CertificateEncodingException {
+
+        if (sha256ThumbprintBase64URL == null) {
+            sha256ThumbprintBase64URL = Base64.getUrlEncoder().withoutPadding().encodeToString(getSHA256Thumbprint());
+        }
+        return sha256ThumbprintBase64URL;
+    }
+}
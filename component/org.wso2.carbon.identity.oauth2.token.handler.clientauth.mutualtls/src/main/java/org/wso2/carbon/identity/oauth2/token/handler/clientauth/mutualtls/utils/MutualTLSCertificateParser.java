@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+/**
+ * Parses client certificates forwarded by a TLS terminating proxy in a request header.
+ * <p>
+ * Supported formats are plain PEM (with or without line breaks), URL-encoded PEM as sent by nginx
+ * ($ssl_client_escaped_cert) and the Cert element of the Envoy x-forwarded-client-cert header. The parser does not
+ * use regular expressions and copies the Base64 body only once before decoding.
+ */
+public final class MutualTLSCertificateParser {
+
+    private static final String BEGIN_MARKER = "-----BEGIN";
+    private static final String END_MARKER = "-----END";
+    private static final String MARKER_DELIMITER = "-----";
+    private static final String XFCC_CERT_ELEMENT = "Cert=\"";
+    private static final char XFCC_QUOTE = '"';
+    private static final char PERCENT = '%';
+
+    private static final ThreadLocal<CertificateFactory> CERTIFICATE_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return CertificateFactory.getInstance(CommonConstants.X509);
+        } catch (CertificateException e) {
+            throw new IllegalStateException("X.509 certificate factory is not available.", e);
+        }
+    });
+
+    private MutualTLSCertificateParser() {
+
+    }
+
+    /**
+     * Parse the X.509 certificate from the given header value.
+     *
+     * @param headerValue Value of the certificate header.
+     * @return Parsed X.509 certificate.
+     * @throws CertificateException If the header value does not contain a valid certificate.
+     */
+    public static X509Certificate parseCertificate(String headerValue) throws CertificateException {
+
+        if (StringUtils.isBlank(headerValue)) {
+            throw new CertificateException("Certificate content is empty.");
+        }
+
+        String content = headerValue;
+        // Envoy appends one element per hop, the last one is added by the proxy closest to this server.
+        int certElementIndex = content.lastIndexOf(XFCC_CERT_ELEMENT);
+        if (certElementIndex >= 0) {
+            int valueStart = certElementIndex + XFCC_CERT_ELEMENT.length();
+            int valueEnd = content.indexOf(XFCC_QUOTE, valueStart);
+            content = content.substring(valueStart, valueEnd < 0 ? content.length() : valueEnd);
+        }
+        if (content.indexOf(PERCENT) >= 0) {
+            content = percentDecode(content);
+        }
+        return generateCertificate(decodePem(content));
+    }
+
+    /**
+     * Generate an X.509 certificate from its DER encoding.
+     *
+     * @param encoded DER encoded certificate.
+     * @return X.509 certificate.
+     * @throws CertificateException If the content is not a valid certificate.
+     */
+    public static X509Certificate generateCertificate(byte[] encoded) throws CertificateException {
+
+        return (X509Certificate) CERTIFICATE_FACTORY.get().generateCertificate(new ByteArrayInputStream(encoded));
+    }
+
+    /**
+     * Strip the PEM markers and decode the Base64 body. White spaces inside the body are ignored so that both
+     * multi-line PEM and single line PEM (line breaks replaced with spaces) are accepted.
+     *
+     * @param content PEM content.
+     * @return DER encoded certificate.
+     * @throws CertificateException If the body is not valid Base64.
+     */
+    static byte[] decodePem(String content) throws CertificateException {
+
+        int start = 0;
+        int beginIndex = content.indexOf(BEGIN_MARKER);
+        if (beginIndex >= 0) {
+            int beginMarkerEnd = content.indexOf(MARKER_DELIMITER, beginIndex + BEGIN_MARKER.length());
+            if (beginMarkerEnd < 0) {
+                throw new CertificateException("Malformed PEM header in the certificate content.");
+            }
+            start = beginMarkerEnd + MARKER_DELIMITER.length();
+        }
+        int end = content.indexOf(END_MARKER, start);
+        if (end < 0) {
+            end = content.length();
+        }
+
+        byte[] body = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (isBase64Character(c)) {
+                body[length++] = (byte) c;
+            } else if (!Character.isWhitespace(c)) {
+                throw new CertificateException("Invalid character found in the certificate content.");
+            }
+        }
+        if (length == 0) {
+            throw new CertificateException("Certificate content is empty.");
+        }
+
+        try {
+            ByteBuffer decoded = Base64.getDecoder().decode(ByteBuffer.wrap(body, 0, length));
+            byte[] der = new byte[decoded.remaining()];
+            decoded.get(der);
+            return der;
+        } catch (IllegalArgumentException e) {
+            throw new CertificateException("Certificate content is not valid Base64.", e);
+        }
+    }
+
+    /**
+     * Decode %XX escape sequences. Unlike URLDecoder, '+' is kept as is since it is a valid Base64 character.
+     *
+     * @param content URL-encoded content.
+     * @return Decoded content.
+     * @throws CertificateException If an escape sequence is malformed.
+     */
+    static String percentDecode(String content) throws CertificateException {
+
+        int length = content.length();
+        StringBuilder decoded = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            if (c == PERCENT) {
+                if (i + 2 >= length) {
+                    throw new CertificateException("Malformed escape sequence in the certificate content.");
+                }
+                int high = Character.digit(content.charAt(i + 1), 16);
+                int low = Character.digit(content.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    throw new CertificateException("Malformed escape sequence in the certificate content.");
+                }
+                decoded.append((char) ((high << 4) | low));
+                i += 2;
+            } else {
+                decoded.append(c);
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static boolean isBase64Character(char c) {
+
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/'
+                || c == '=';
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSClientIdCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSClientIdCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSClientIdCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.dao.MutualTLSClientIdDAO;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.dao.MutualTLSClientIdDAOImpl;
+
+import java.security.cert.CertificateEncodingException;
+import java.util.List;
+import java.util.Optional;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Resolves the client ID of an OAuth client from the certificate presented for mutual TLS, so that clients can
+ * authenticate without sending the client_id parameter.
+ * <p>
+ * The index maps the SHA-256 thumbprint and the subject DN of a certificate to a client ID. The thumbprint of the
+ * certificate registered for a service provider, and the subject DN configured with tls_client_auth_subject_dn, are
+ * persisted as service provider properties when the service provider is updated, and are looked up in the database.
+ * The cache only accelerates these lookups, including lookups which found no client or more than one client, so
+ * evicting an entry never loses the index. Certificates published in a JWKS endpoint are not persisted. They are
+ * cached when the client authenticates successfully with its client ID, and the subject DN entry lets a client which
+ * rotated such a certificate be resolved before the new thumbprint is cached.
+ * <p>
+ * A resolved client ID is only a hint, the client is still authenticated against its own registered certificate,
+ * trust anchors or JWKS endpoint. Entries are never removed because an authentication failed, since anyone can
+ * present a certificate with the subject DN of another client. If a certificate identifier belongs to more than one
+ * client it is ambiguous and is never resolved, so such clients must send the client_id parameter.
+ */
+public final class MutualTLSClientIdResolver {
+
+    private static final Log log = LogFactory.getLog(MutualTLSClientIdResolver.class);
+
+    private static MutualTLSClientIdDAO clientIdDAO = new MutualTLSClientIdDAOImpl();
+
+    private MutualTLSClientIdResolver() {
+
+    }
+
+    /**
+     * Check whether resolving the client ID from the client certificate is enabled.
+     *
+     * @return True if enabled.
+     */
+    public static boolean isEnabled() {
+
+        return MutualTLSConfig.getInstance().isClientIdResolutionEnabled();
+    }
+
+    /**
+     * Resolve the client ID of the given certificate. The thumbprint entry takes precedence over the subject DN entry.
+     *
+     * @param certificateHolder Holder of the client certificate.
+     * @return Client ID if the certificate is indexed for exactly one client.
+     */
+    public static Optional<String> resolveClientId(MutualTLSCertificateHolder certificateHolder) {
+
+        try {
+            MutualTLSClientIdCacheEntry cacheEntry = getEntry(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                    certificateHolder.getSHA256ThumbprintBase64URL());
+            if (!cacheEntry.isAmbiguous() && cacheEntry.getValue() == null) {
+                cacheEntry = getEntry(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY,
+                        getSubjectDN(certificateHolder.getCertificate().getSubjectX500Principal()));
+            }
+            if (cacheEntry.isAmbiguous()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client certificate is registered for more than one client. Client ID cannot be " +
+                            "resolved from the certificate.");
+                }
+                return Optional.empty();
+            }
+            return Optional.ofNullable(cacheEntry.getValue());
+        } catch (CertificateEncodingException e) {
+            log.error("Error while generating the thumbprint of the client certificate.", e);
+            return Optional.empty();
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while resolving the client ID from the client certificate.", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Index the given certificate for the given client after the client authenticated successfully with it. If the
+     * certificate is already indexed for a different client, the entry is marked as ambiguous.
+     *
+     * @param certificateHolder Holder of the client certificate.
+     * @param clientId          Client ID of the OAuth client.
+     */
+    public static void addClientId(MutualTLSCertificateHolder certificateHolder, String clientId) {
+
+        if (StringUtils.isBlank(clientId)) {
+            return;
+        }
+        try {
+            addClientId(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                    certificateHolder.getSHA256ThumbprintBase64URL(), clientId);
+            addClientId(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY,
+                    getSubjectDN(certificateHolder.getCertificate().getSubjectX500Principal()), clientId);
+        } catch (CertificateEncodingException e) {
+            log.error("Error while generating the thumbprint of the client certificate.", e);
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while indexing the client certificate of the client: " + clientId, e);
+        }
+    }
+
+    /**
+     * Remove the cached entries of the given certificate identifiers, so that they are looked up again after the
+     * persisted identifiers of a service provider changed.
+     *
+     * @param propertyName Name of the service provider property holding the identifier.
+     * @param identifiers  Certificate identifiers. Blank identifiers are ignored.
+     */
+    public static void clearCacheEntries(String propertyName, String... identifiers) {
+
+        for (String identifier : identifiers) {
+            if (StringUtils.isNotBlank(identifier)) {
+                MutualTLSClientIdCache.getInstance().clearCacheEntry(getCacheKey(propertyName, identifier));
+            }
+        }
+    }
+
+    /**
+     * Get the subject DN in the form used as the index key, which ignores case and white space differences.
+     *
+     * @param subject Subject of the certificate.
+     * @return Canonical subject DN.
+     */
+    public static String getSubjectDN(X500Principal subject) {
+
+        return subject.getName(X500Principal.CANONICAL);
+    }
+
+    private static void addClientId(String propertyName, String identifier, String clientId)
+            throws IdentityOAuth2Exception {
+
+        MutualTLSClientIdCacheEntry cacheEntry = getEntry(propertyName, identifier);
+        if (cacheEntry.isAmbiguous() || clientId.equals(cacheEntry.getValue())) {
+            return;
+        }
+        MutualTLSClientIdCacheKey cacheKey = getCacheKey(propertyName, identifier);
+        if (cacheEntry.getValue() == null) {
+            MutualTLSClientIdCache.getInstance().addToCache(cacheKey, new MutualTLSClientIdCacheEntry(clientId));
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate identifier: " + cacheKey.getCertificateIdentifier() + " is used by " +
+                        "more than one client. Marking it as ambiguous.");
+            }
+            MutualTLSClientIdCache.getInstance().addToCache(cacheKey, MutualTLSClientIdCacheEntry.ambiguous());
+        }
+    }
+
+    /**
+     * Get the entry of the given certificate identifier from the cache, or look it up in the persisted service
+     * provider properties and cache the result.
+     */
+    private static MutualTLSClientIdCacheEntry getEntry(String propertyName, String identifier)
+            throws IdentityOAuth2Exception {
+
+        MutualTLSClientIdCacheKey cacheKey = getCacheKey(propertyName, identifier);
+        MutualTLSClientIdCacheEntry cacheEntry = MutualTLSClientIdCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry != null) {
+            return cacheEntry;
+        }
+        List<String> clientIds = clientIdDAO.getClientIds(propertyName, identifier);
+        if (clientIds.isEmpty()) {
+            cacheEntry = MutualTLSClientIdCacheEntry.notIndexed();
+        } else if (clientIds.size() == 1) {
+            cacheEntry = new MutualTLSClientIdCacheEntry(clientIds.get(0));
+        } else {
+            cacheEntry = MutualTLSClientIdCacheEntry.ambiguous();
+        }
+        MutualTLSClientIdCache.getInstance().addToCache(cacheKey, cacheEntry);
+        return cacheEntry;
+    }
+
+    private static MutualTLSClientIdCacheKey getCacheKey(String propertyName, String identifier) {
+
+        return new MutualTLSClientIdCacheKey(propertyName + ":" + identifier);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.function.Function;
+
+/**
+ * MutualTLS properties of identity.xml read while handling requests: the client certificate header, client ID
+ * resolution and the authentication result cache.
+ */
+public final class MutualTLSConfig {
+
+    private static final Log log = LogFactory.getLog(MutualTLSConfig.class);
+
+    private static volatile MutualTLSConfig instance;
+
+    private final String clientCertificateHeader;
+    private final boolean clientIdResolutionEnabled;
+    private final boolean authenticationResultCacheEnabled;
+    private final long authenticationResultCacheTTL;
+
+    MutualTLSConfig(Function<String, String> properties) {
+
+        this.clientCertificateHeader = StringUtils.isBlank(properties.apply(CommonConstants.MTLS_AUTH_HEADER)) ? null
+                : properties.apply(CommonConstants.MTLS_AUTH_HEADER);
+        this.clientIdResolutionEnabled = Boolean.parseBoolean(
+                properties.apply(CommonConstants.ENABLE_CLIENT_ID_RESOLUTION));
+        this.authenticationResultCacheEnabled = Boolean.parseBoolean(
+                properties.apply(CommonConstants.ENABLE_AUTHENTICATION_RESULT_CACHE));
+        this.authenticationResultCacheTTL = readAuthenticationResultCacheTTL(properties);
+    }
+
+    /**
+     * Get the Mutual TLS configuration. It is read from identity.xml on first use and reused until it is reloaded.
+     *
+     * @return Mutual TLS configuration.
+     */
+    public static MutualTLSConfig getInstance() {
+
+        MutualTLSConfig config = instance;
+        if (config == null) {
+            synchronized (MutualTLSConfig.class) {
+                config = instance;
+                if (config == null) {
+                    config = new MutualTLSConfig(IdentityUtil::getProperty);
+                    instance = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Read the configuration from identity.xml again and use it for subsequent calls.
+     *
+     * @return Mutual TLS configuration.
+     */
+    public static MutualTLSConfig reload() {
+
+        MutualTLSConfig config = new MutualTLSConfig(IdentityUtil::getProperty);
+        instance = config;
+        return config;
+    }
+
+    /**
+     * Discard the configuration, so that it is read again on next use.
+     */
+    public static void clear() {
+
+        instance = null;
+    }
+
+    private static long readAuthenticationResultCacheTTL(Function<String, String> properties) {
+
+        long ttl = CommonConstants.DEFAULT_AUTHENTICATION_RESULT_CACHE_TTL;
+        String configuredTTL = properties.apply(CommonConstants.AUTHENTICATION_RESULT_CACHE_TTL);
+        if (StringUtils.isNotBlank(configuredTTL)) {
+            try {
+                ttl = Long.parseLong(configuredTTL.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + configuredTTL + " configured for "
+                        + CommonConstants.AUTHENTICATION_RESULT_CACHE_TTL + ". Using the default value: " + ttl);
+            }
+        }
+        return ttl;
+    }
+
+    /**
+     * @return Name of the header carrying the client certificate forwarded by a TLS terminating proxy, or null.
+     */
+    public String getClientCertificateHeader() {
+
+        return clientCertificateHeader;
+    }
+
+    /**
+     * @return Whether resolving the client ID from the client certificate is enabled.
+     */
+    public boolean isClientIdResolutionEnabled() {
+
+        return clientIdResolutionEnabled;
+    }
+
+    /**
+     * @return Whether successful certificate authentications are cached for the TLS session.
+     */
+    public boolean isAuthenticationResultCacheEnabled() {
+
+        return authenticationResultCacheEnabled;
+    }
+
+    /**
+     * @return Time to live of cached authentication results in seconds.
+     */
+    public long getAuthenticationResultCacheTTL() {
+
+        return authenticationResultCacheTTL;
+    }
+}
@@ -29,12 +29,14 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.Charsets;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.AbstractMap;
+import java.util.Map;
 
 /**
  * Util class for OAuth 2.0 client authentication using Mutual TLS.
@@ -60,11 +62,8 @@ public class MutualTLSUtil {
     public static String getThumbPrint(X509Certificate cert) throws NoSuchAlgorithmException,
             CertificateEncodingException {
 
-        MessageDigest md = MessageDigest.getInstance("SHA-1");
-        byte[] certEncoded = cert.getEncoded();
-        md.update(certEncoded);
         return new String(new Base64(0, null, true).encode(
-                hexify(md.digest()).getBytes(Charsets.UTF_8)), Charsets.UTF_8);
+                hexify(CertificateFingerprint.sha1(cert)).getBytes(Charsets.UTF_8)), Charsets.UTF_8);
     }
 
     /**
@@ -163,5 +162,47 @@ public class MutualTLSUtil {
         }
         return null;
     }
-}
 
+    /**
+     * Publish the access token loaded while validating a certificate bound token, so that the introspection response
+     * interceptor of the same request can reuse it. The token is kept with the identifier of the presented token.
+     *
+     * @param tokenIdentifier Identifier of the presented token.
+     * @param accessTokenDO   Access token loaded for the presented token.
+     */
+    public static void setValidatedAccessToken(String tokenIdentifier, AccessTokenDO accessTokenDO) {
+
+        if (StringUtils.isBlank(tokenIdentifier) || accessTokenDO == null) {
+            clearValidatedAccessToken();
+            return;
+        }
+        IdentityUtil.threadLocalProperties.get().put(CommonConstants.VALIDATED_ACCESS_TOKEN_DO,
+                new AbstractMap.SimpleImmutableEntry<>(tokenIdentifier, accessTokenDO));
+    }
+
+    /**
+     * Get the access token published while validating the given token in the current request.
+     *
+     * @param tokenIdentifier Identifier of the presented token.
+     * @return Access token, or null if no access token was published for the token.
+     */
+    public static AccessTokenDO getValidatedAccessToken(String tokenIdentifier) {
+
+        Object validatedAccessToken = IdentityUtil.threadLocalProperties.get()
+                .get(CommonConstants.VALIDATED_ACCESS_TOKEN_DO);
+        if (validatedAccessToken instanceof Map.Entry && StringUtils.isNotBlank(tokenIdentifier) &&
+                tokenIdentifier.equals(((Map.Entry<?, ?>) validatedAccessToken).getKey()) &&
+                ((Map.Entry<?, ?>) validatedAccessToken).getValue() instanceof AccessTokenDO) {
+            return (AccessTokenDO) ((Map.Entry<?, ?>) validatedAccessToken).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Discard the access token published in the current request.
+     */
+    public static void clearValidatedAccessToken() {
+
+        IdentityUtil.threadLocalProperties.get().remove(CommonConstants.VALIDATED_ACCESS_TOKEN_DO);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.validators;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidationMessageContext;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.cert.CertificateException;
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Validates certificate bound access tokens (RFC 8705) against the client certificate presented to the resource
+ * server, so that a resource server in the same JVM does not need to introspect the token and compare the cnf value.
+ * The presented certificate is passed as a token validation context parameter, either as the Base64URL encoded
+ * SHA-256 thumbprint or as the PEM encoded certificate.
+ *
+ * @see <href="https://datatracker.ietf.org/doc/html/rfc8705#section-3">RFC 8705</>
+ */
+public class MTLSTokenValidator implements OAuth2TokenValidator {
+
+    private static final Log log = LogFactory.getLog(MTLSTokenValidator.class);
+    private static final String DOT_SEPARATOR = ".";
+    private static final String ACCESS_TOKEN_DO = "AccessTokenDO";
+    private static final String CERT_THUMBPRINT_SCOPE_PREFIX = CommonConstants.CERT_THUMBPRINT +
+            CommonConstants.SEPARATOR + CommonConstants.SHA256_DIGEST_ALGORITHM +
+            CommonConstants.CERT_THUMBPRINT_SEPARATOR;
+
+    @Override
+    public boolean validateAccessDelegation(OAuth2TokenValidationMessageContext messageContext) {
+
+        return true;
+    }
+
+    @Override
+    public boolean validateScope(OAuth2TokenValidationMessageContext messageContext) {
+
+        return true;
+    }
+
+    @Override
+    public boolean validateAccessToken(OAuth2TokenValidationMessageContext validationReqDTO)
+            throws IdentityOAuth2Exception {
+
+        // Publish the loaded token for the introspection response interceptor, which would otherwise load it again.
+        String tokenIdentifier = validationReqDTO.getRequestDTO().getAccessToken().getIdentifier();
+        AccessTokenDO accessTokenDO = (AccessTokenDO) validationReqDTO.getProperty(ACCESS_TOKEN_DO);
+        MutualTLSUtil.setValidatedAccessToken(tokenIdentifier, accessTokenDO);
+
+        String presentedThumbprint = getPresentedCertificateThumbprint(validationReqDTO);
+        if (StringUtils.isBlank(presentedThumbprint)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client certificate is not available in the token validation request.");
+            }
+            return false;
+        }
+
+        String boundThumbprint = null;
+        if (isJWT(tokenIdentifier)) {
+            try {
+                SignedJWT signedJWT = SignedJWT.parse(tokenIdentifier);
+                JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+                if (claimsSet == null) {
+                    throw new IdentityOAuth2Exception("Claim values are empty in the given Token.");
+                }
+                if (!ResidentIdPTokenVerifier.getInstance().isValid(signedJWT, claimsSet)) {
+                    return false;
+                }
+                boundThumbprint = getThumbprintFromConfirmationClaim(claimsSet);
+            } catch (ParseException e) {
+                throw new IdentityOAuth2Exception("Error while validating Token.", e);
+            }
+        }
+        if (boundThumbprint == null) {
+            boundThumbprint = getBoundThumbprint(accessTokenDO);
+        }
+
+        if (boundThumbprint == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Access token is not bound to a client certificate.");
+            }
+            return false;
+        }
+        if (!MessageDigest.isEqual(boundThumbprint.getBytes(StandardCharsets.UTF_8),
+                presentedThumbprint.getBytes(StandardCharsets.UTF_8))) {
+            if (log.isDebugEnabled()) {
+                log.debug("Thumbprint of the presented client certificate is not equal to the certificate thumbprint " +
+                        "bound to the access token.");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String getTokenType() {
+
+        return CommonConstants.MTLS_TOKEN_TYPE;
+    }
+
+    /**
+     * Get the Base64URL encoded SHA-256 thumbprint of the certificate presented to the resource server. A thumbprint
+     * passed by the resource server is used as it is, so that the certificate is only parsed when the resource server
+     * did not compute it.
+     */
+    private String getPresentedCertificateThumbprint(OAuth2TokenValidationMessageContext messageContext)
+            throws IdentityOAuth2Exception {
+
+        String thumbprint = getResourceFromMessageContext(messageContext, CommonConstants.CERT_THUMBPRINT_SHA256);
+        if (StringUtils.isNotBlank(thumbprint)) {
+            return thumbprint;
+        }
+        String certificate = getResourceFromMessageContext(messageContext, CommonConstants.MTLS_CLIENT_CERTIFICATE);
+        if (StringUtils.isBlank(certificate)) {
+            return null;
+        }
+        try {
+            return new MutualTLSCertificateHolder(MutualTLSCertificateParser.parseCertificate(certificate))
+                    .getSHA256ThumbprintBase64URL();
+        } catch (CertificateException e) {
+            throw new IdentityOAuth2Exception("Error occurred while parsing the presented client certificate.", e);
+        }
+    }
+
+    /**
+     * Get the certificate thumbprint bound to the token, either through the certificate based token binder or as a
+     * hidden scope of the token.
+     */
+    private String getBoundThumbprint(AccessTokenDO accessTokenDO) {
+
+        if (accessTokenDO == null) {
+            return null;
+        }
+        if (accessTokenDO.getTokenBinding() != null &&
+                CommonConstants.MTLS_TOKEN_BINDING_TYPE.equals(accessTokenDO.getTokenBinding().getBindingType())) {
+            return accessTokenDO.getTokenBinding().getBindingValue();
+        }
+        String[] scopes = accessTokenDO.getScope();
+        if (ArrayUtils.isNotEmpty(scopes)) {
+            for (String scope : scopes) {
+                if (scope.startsWith(CERT_THUMBPRINT_SCOPE_PREFIX)) {
+                    return scope.substring(CERT_THUMBPRINT_SCOPE_PREFIX.length());
+                }
+            }
+        }
+        return null;
+    }
+
+    private String getThumbprintFromConfirmationClaim(JWTClaimsSet claimsSet) throws ParseException {
+
+        Map<String, Object> cnf = claimsSet.getJSONObjectClaim(CommonConstants.CONFIRMATION_CLAIM_ATTRIBUTE);
+        if (cnf == null || !(cnf.get(CommonConstants.CERT_THUMBPRINT_SHA256) instanceof String)) {
+            return null;
+        }
+        return (String) cnf.get(CommonConstants.CERT_THUMBPRINT_SHA256);
+    }
+
+    /**
+     * Return true if the token identifier is JWT.
+     *
+     * @param tokenIdentifier String JWT token identifier.
+     * @return true for a JWT token.
+     */
+    private boolean isJWT(String tokenIdentifier) {
+
+        // JWT token contains 3 base64 encoded components separated by periods.
+        return StringUtils.countMatches(tokenIdentifier, DOT_SEPARATOR) == 2;
+    }
+
+    /**
+     * Extract the passed parameter value from the access token validation request message.
+     *
+     * @param messageContext Message context of the token validation request.
+     * @param param          Name of the context parameter.
+     * @return Value of the context parameter.
+     */
+    private String getResourceFromMessageContext(OAuth2TokenValidationMessageContext messageContext, String param) {
+
+        if (messageContext.getRequestDTO().getContext() != null) {
+            for (OAuth2TokenValidationRequestDTO.TokenValidationContextParam resourceParam :
+                    messageContext.getRequestDTO().getContext()) {
+                if (resourceParam != null && param.equals(resourceParam.getKey())) {
+                    return resourceParam.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
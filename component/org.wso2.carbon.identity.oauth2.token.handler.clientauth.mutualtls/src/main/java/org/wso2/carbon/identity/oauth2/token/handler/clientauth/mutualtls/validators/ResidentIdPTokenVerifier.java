@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.validators;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSIssuerCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSIssuerCacheEntry;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+
+/**
+ * Verifies self-contained access tokens issued by the resident identity provider of the tenant. The issuer, the
+ * signer certificate and a signature verifier for its RSA or EC key are resolved once per tenant and kept in the
+ * {@link MutualTLSIssuerCache} until the resident identity provider is updated. The DPoPTokenValidator of the DPoP
+ * bundle performs the same checks against its own issuer cache, since neither bundle depends on the other.
+ */
+public class ResidentIdPTokenVerifier {
+
+    private static final Log log = LogFactory.getLog(ResidentIdPTokenVerifier.class);
+    private static final String OIDC_IDP_ENTITY_ID = "IdPEntityId";
+
+    private static final ResidentIdPTokenVerifier instance = new ResidentIdPTokenVerifier();
+
+    private ResidentIdPTokenVerifier() {
+
+    }
+
+    public static ResidentIdPTokenVerifier getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Verify the issuer, the signature, the expiry time and the not before time of a token.
+     *
+     * @param signedJWT Signed token.
+     * @param claimsSet Claims of the token.
+     * @return Whether the signature is valid and the token is within its validity period.
+     * @throws IdentityOAuth2Exception If the issuer is not the resident identity provider of the tenant, or the
+     *                                 signature cannot be verified with the certificate of the identity provider.
+     */
+    public boolean isValid(SignedJWT signedJWT, JWTClaimsSet claimsSet) throws IdentityOAuth2Exception {
+
+        MutualTLSIssuerCacheEntry issuerCacheEntry = getIssuerCacheEntry(claimsSet.getIssuer());
+        return validateSignature(signedJWT, issuerCacheEntry.getVerifier()) &&
+                checkExpirationTime(claimsSet.getExpirationTime()) &&
+                checkNotBeforeTime(claimsSet.getNotBeforeTime());
+    }
+
+    private MutualTLSIssuerCacheEntry getIssuerCacheEntry(String jwtIssuer) throws IdentityOAuth2Exception {
+
+        String tenantDomain = getTenantDomain();
+        MutualTLSIssuerCacheEntry issuerCacheEntry = MutualTLSIssuerCache.getInstance().getValueFromCache(tenantDomain);
+        // An entry received from another node does not hold the verifier.
+        if (issuerCacheEntry == null || issuerCacheEntry.getVerifier() == null) {
+            issuerCacheEntry = buildIssuerCacheEntry(tenantDomain);
+            MutualTLSIssuerCache.getInstance().addToCache(tenantDomain, issuerCacheEntry);
+        }
+        if (jwtIssuer == null || !jwtIssuer.equals(issuerCacheEntry.getIssuer())) {
+            throw new IdentityOAuth2Exception("No Registered IDP found for the token with issuer name : " + jwtIssuer);
+        }
+        return issuerCacheEntry;
+    }
+
+    private MutualTLSIssuerCacheEntry buildIssuerCacheEntry(String tenantDomain) throws IdentityOAuth2Exception {
+
+        String issuer = StringUtils.EMPTY;
+        IdentityProvider residentIdentityProvider;
+        try {
+            residentIdentityProvider = IdentityProviderManager.getInstance().getResidentIdP(tenantDomain);
+        } catch (IdentityProviderManagementException e) {
+            String errorMsg =
+                    String.format("Error while getting Resident Identity Provider of '%s' tenant.", tenantDomain);
+            throw new IdentityOAuth2Exception(errorMsg, e);
+        }
+        FederatedAuthenticatorConfig oauthAuthenticatorConfig =
+                IdentityApplicationManagementUtil.getFederatedAuthenticator(
+                        residentIdentityProvider.getFederatedAuthenticatorConfigs(),
+                        IdentityApplicationConstants.Authenticator.OIDC.NAME);
+        if (oauthAuthenticatorConfig != null) {
+            Property issuerProperty = IdentityApplicationManagementUtil.getProperty(
+                    oauthAuthenticatorConfig.getProperties(), OIDC_IDP_ENTITY_ID);
+            if (issuerProperty != null) {
+                issuer = issuerProperty.getValue();
+            }
+        }
+
+        X509Certificate x509Certificate;
+        try {
+            x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
+                    .decodeCertificate(residentIdentityProvider.getCertificate());
+        } catch (CertificateException e) {
+            throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity Provider "
+                    + residentIdentityProvider.getIdentityProviderName() + " for tenant domain " + tenantDomain, e);
+        }
+        if (x509Certificate == null) {
+            throw new IdentityOAuth2Exception("Unable to locate certificate for Identity Provider: " +
+                    residentIdentityProvider.getDisplayName());
+        }
+        return new MutualTLSIssuerCacheEntry(issuer, x509Certificate, getVerifier(x509Certificate.getPublicKey()));
+    }
+
+    private JWSVerifier getVerifier(PublicKey publicKey) throws IdentityOAuth2Exception {
+
+        try {
+            if (publicKey instanceof RSAPublicKey) {
+                return new RSASSAVerifier((RSAPublicKey) publicKey);
+            } else if (publicKey instanceof ECPublicKey) {
+                return new ECDSAVerifier((ECPublicKey) publicKey);
+            }
+        } catch (JOSEException e) {
+            throw new IdentityOAuth2Exception("Error while creating the signature verifier.", e);
+        }
+        throw new IdentityOAuth2Exception("Public key is not an RSA or EC public key.");
+    }
+
+    private boolean validateSignature(SignedJWT signedJWT, JWSVerifier verifier) throws IdentityOAuth2Exception {
+
+        JWSAlgorithm algorithm = signedJWT.getHeader().getAlgorithm();
+        if (algorithm == null || !verifier.supportedJWSAlgorithms().contains(algorithm)) {
+            throw new IdentityOAuth2Exception("Could not create a signature verifier for algorithm type: " +
+                    algorithm);
+        }
+        boolean isValid;
+        try {
+            isValid = signedJWT.verify(verifier);
+        } catch (JOSEException e) {
+            throw new IdentityOAuth2Exception("Error while validating the signature of the token.", e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Signature verified: " + isValid);
+        }
+        return isValid;
+    }
+
+    private boolean checkExpirationTime(Date expirationTime) {
+
+        if (expirationTime == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Expiration time is not available in the token.");
+            }
+            return false;
+        }
+        long timeStampSkewMillis = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
+        if ((System.currentTimeMillis() + timeStampSkewMillis) > expirationTime.getTime()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Token is expired. Expiration Time(ms) : " + expirationTime.getTime() +
+                        ". Token Rejected and validation terminated.");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkNotBeforeTime(Date notBeforeTime) {
+
+        if (notBeforeTime != null) {
+            long timeStampSkewMillis = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
+            if (System.currentTimeMillis() + timeStampSkewMillis < notBeforeTime.getTime()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Token is used before Not_Before_Time. Not Before Time(ms) : " +
+                            notBeforeTime.getTime() + ". Token Rejected and validation terminated.");
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getTenantDomain() {
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        if (StringUtils.isEmpty(tenantDomain)) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        return tenantDomain;
+    }
+}
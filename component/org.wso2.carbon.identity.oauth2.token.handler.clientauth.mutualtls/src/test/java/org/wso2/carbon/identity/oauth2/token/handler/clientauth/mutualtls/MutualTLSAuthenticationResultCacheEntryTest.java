@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheEntry;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for MutualTLSAuthenticationResultCacheEntry class.
+ */
+public class MutualTLSAuthenticationResultCacheEntryTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    @Test
+    public void testAdd() {
+
+        MutualTLSAuthenticationResultCacheEntry cacheEntry = new MutualTLSAuthenticationResultCacheEntry(TENANT_DOMAIN);
+        assertFalse(cacheEntry.isAuthenticated("session1#thumbprint", 0));
+
+        MutualTLSAuthenticationResultCacheEntry newCacheEntry = cacheEntry.add("session1#thumbprint", 100, 0);
+        assertEquals(newCacheEntry.getTenantDomain(), TENANT_DOMAIN);
+        assertTrue(newCacheEntry.isAuthenticated("session1#thumbprint", 99));
+        assertFalse(newCacheEntry.isAuthenticated("session1#thumbprint", 100));
+        assertFalse(newCacheEntry.isAuthenticated("session2#thumbprint", 0));
+        // Cached entries are not modified.
+        assertFalse(cacheEntry.isAuthenticated("session1#thumbprint", 0));
+    }
+
+    @Test
+    public void testExpiredAuthenticationsAreDropped() {
+
+        MutualTLSAuthenticationResultCacheEntry cacheEntry = new MutualTLSAuthenticationResultCacheEntry(TENANT_DOMAIN)
+                .add("session1#thumbprint", 100, 0)
+                .add("session2#thumbprint", 300, 200);
+        assertFalse(cacheEntry.isAuthenticated("session1#thumbprint", 0));
+        assertTrue(cacheEntry.isAuthenticated("session2#thumbprint", 200));
+    }
+
+    @Test
+    public void testMaximumSessions() {
+
+        MutualTLSAuthenticationResultCacheEntry cacheEntry = new MutualTLSAuthenticationResultCacheEntry(TENANT_DOMAIN);
+        for (int i = 0; i <= MutualTLSAuthenticationResultCacheEntry.MAX_SESSIONS; i++) {
+            cacheEntry = cacheEntry.add("session" + i + "#thumbprint", 1000 + i, 0);
+        }
+        // The session expiring first is dropped.
+        assertFalse(cacheEntry.isAuthenticated("session0#thumbprint", 0));
+        assertTrue(cacheEntry.isAuthenticated("session1#thumbprint", 0));
+        assertTrue(cacheEntry.isAuthenticated("session" + MutualTLSAuthenticationResultCacheEntry.MAX_SESSIONS
+                + "#thumbprint", 0));
+    }
+}
@@ -29,13 +29,19 @@ import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CertificateFingerprint;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
@@ -236,6 +242,12 @@ public class MutualTLSClientAuthenticatorTest extends PowerMockTestCase {
             + "    \"x5u\" : \"https://keystore.abc.org.lk/0015800001HQQrZAAX/CzUe1ecMKykHLhQAATzFBudOj0Y.pem\",\n"
             + "    \"x5t#S256\" : \"fMSq7nleARP8LlJGKDmYII1EjhGwBpW8BZapcCZNKSo=\"\n" + "  } ]\n" + "}";
 
+    @AfterMethod
+    public void tearDown() {
+
+        MutualTLSConfig.clear();
+    }
+
     @DataProvider(name = "testAuthenticateClientWhenJWKSEndPointGiven")
     public Object[][] testAuthenticateClientWhenJWKSEndPointGiven() {
 
@@ -313,6 +325,63 @@ public class MutualTLSClientAuthenticatorTest extends PowerMockTestCase {
                 "received");
     }
 
+    @Test
+    public void testAuthenticateClientWithOverriddenCertificateComparison() throws Exception {
+
+        PowerMockito.mockStatic(OAuth2Util.class);
+        PowerMockito.mockStatic(MutualTLSUtil.class);
+        HttpServletRequest httpServletRequest = PowerMockito.mock(HttpServletRequest.class);
+        PowerMockito.when(MutualTLSUtil.isJwksUriConfigured(any())).thenReturn(false);
+        PowerMockito.when(OAuth2Util.getTenantDomainOfOauthApp(Matchers.anyString())).thenReturn("carbon.super");
+        PowerMockito.when(OAuth2Util.getX509CertOfOAuthApp(CLIENT_ID, "carbon.super"))
+                .thenReturn(getCertificate(CERTIFICATE_CONTENT));
+        PowerMockito.when(httpServletRequest.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE))
+                .thenReturn(getCertificate(CERTIFICATE_CONTENT));
+        List<X509Certificate> registeredCertificates = new ArrayList<>();
+        MutualTLSClientAuthenticator authenticator = new MutualTLSClientAuthenticator() {
+            @Override
+            protected boolean authenticate(X509Certificate registeredCert, X509Certificate requestCert) {
+
+                registeredCertificates.add(registeredCert);
+                return false;
+            }
+        };
+
+        // The presented certificate is the registered one, but the comparison is left to the subclass.
+        assertFalse(authenticator.authenticateClient(httpServletRequest, new HashMap<String, List>(),
+                buildOAuthClientAuthnContext(CLIENT_ID)));
+        assertEquals(registeredCertificates.size(), 1);
+        assertEquals(registeredCertificates.get(0), getCertificate(CERTIFICATE_CONTENT));
+    }
+
+    @Test
+    public void testAuthenticateClientWithCachedRegisteredThumbprint() throws Exception {
+
+        String clientId = "cachedthumbprintclientid";
+        PowerMockito.mockStatic(OAuth2Util.class);
+        PowerMockito.mockStatic(MutualTLSUtil.class);
+        HttpServletRequest httpServletRequest = PowerMockito.mock(HttpServletRequest.class);
+        PowerMockito.when(MutualTLSUtil.isJwksUriConfigured(any())).thenReturn(false);
+        PowerMockito.when(OAuth2Util.getTenantDomainOfOauthApp(Matchers.anyString())).thenReturn("carbon.super");
+        PowerMockito.when(OAuth2Util.getX509CertOfOAuthApp(clientId, "carbon.super"))
+                .thenReturn(getCertificate(CERTIFICATE_CONTENT));
+        PowerMockito.when(httpServletRequest.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE))
+                .thenReturn(getCertificate(CERTIFICATE_CONTENT));
+
+        assertTrue(mutualTLSClientAuthenticator.authenticateClient(httpServletRequest, new HashMap<String, List>(),
+                buildOAuthClientAuthnContext(clientId)));
+        assertTrue(mutualTLSClientAuthenticator.authenticateClient(httpServletRequest, new HashMap<String, List>(),
+                buildOAuthClientAuthnContext(clientId)));
+
+        // The registered certificate is retrieved and hashed once, and its thumbprint is reused.
+        PowerMockito.verifyStatic(Mockito.times(1));
+        OAuth2Util.getX509CertOfOAuthApp(clientId, "carbon.super");
+        MutualTLSCertificateThumbprintCacheEntry cacheEntry = MutualTLSCertificateThumbprintCache.getInstance()
+                .getValueFromCache(new MutualTLSCertificateThumbprintCacheKey(clientId, "carbon.super"));
+        assertNotNull(cacheEntry);
+        assertEquals(cacheEntry.getThumbprint(), CertificateFingerprint.sha256(getCertificate(CERTIFICATE_CONTENT)));
+    }
+
     @DataProvider(name = "testCanAuthenticateData")
     public Object[][] testCanAuthenticateData() {
 
@@ -341,6 +410,7 @@ public class MutualTLSClientAuthenticatorTest extends PowerMockTestCase {
         mockStatic(IdentityUtil.class);
         HttpServletRequest httpServletRequest = PowerMockito.mock(HttpServletRequest.class);
         when(IdentityUtil.getProperty(CommonConstants.MTLS_AUTH_HEADER)).thenReturn("x-wso2-mtls-cert");
+        MutualTLSConfig.clear();
         PowerMockito.when(httpServletRequest.getHeader("x-wso2-mtls-cert")).thenReturn(CERTIFICATE_CONTENT3);
         assertEquals(mutualTLSClientAuthenticator.canAuthenticate(httpServletRequest, bodyContent, new
                 OAuthClientAuthnContext()), canHandle, "Expected can authenticate evaluation not received");
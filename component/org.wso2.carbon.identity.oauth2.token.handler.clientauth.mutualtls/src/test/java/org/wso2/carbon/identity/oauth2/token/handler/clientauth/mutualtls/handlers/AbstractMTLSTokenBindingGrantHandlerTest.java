@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.handl
 import org.mockito.Matchers;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
@@ -32,6 +33,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.model.HttpRequestHeader;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.util.Oauth2ScopeUtils;
 import org.wso2.carbon.utils.CarbonUtils;
@@ -40,7 +42,9 @@ import java.util.ArrayList;
 
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Test class for AbstractMTLSTokenBindingGrantHandlerTest class.
@@ -96,6 +100,12 @@ public class AbstractMTLSTokenBindingGrantHandlerTest extends PowerMockTestCase
         return httpRequestHeaders.toArray(new HttpRequestHeader[0]);
     }
 
+    @AfterMethod
+    public void tearDown() {
+
+        MutualTLSConfig.clear();
+    }
+
     @Test
     public void testValidateScope() throws IdentityOAuth2Exception {
 
@@ -103,6 +113,7 @@ public class AbstractMTLSTokenBindingGrantHandlerTest extends PowerMockTestCase
         when(IdentityUtil.getProperty((CommonConstants.MTLS_AUTH_HEADER))).thenReturn("x-wso2-mutual-auth-cert");
         when(IdentityUtil.getIdentityConfigDirPath()).thenReturn(System.
                 getProperty("user.dir") + "/src/test/resources/repository/conf/identity");
+        MutualTLSConfig.clear();
         mtlsTokenBindingAuthorizationCodeGrantHandler = new MTLSTokenBindingAuthorizationCodeGrantHandler();
 
         mockStatic(Oauth2ScopeUtils.class);
@@ -116,4 +127,26 @@ public class AbstractMTLSTokenBindingGrantHandlerTest extends PowerMockTestCase
                 mtlsTokenBindingAuthorizationCodeGrantHandler.validateScope(oAuthTokenReqMessageContext);
         assertFalse(validateScope);
     }
+
+    @Test
+    public void testValidateScopeWithPublishedThumbprint() throws IdentityOAuth2Exception {
+
+        mockStatic(IdentityUtil.class);
+        OAuth2AccessTokenReqDTO oauth2AccessTokenReqDTO = new OAuth2AccessTokenReqDTO();
+        OAuthClientAuthnContext oAuthClientAuthnContext = new OAuthClientAuthnContext();
+        oAuthClientAuthnContext.addParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM,
+                CommonConstants.AUTHENTICATOR_TYPE_MTLS);
+        oAuthClientAuthnContext.addParameter(CommonConstants.CERT_THUMBPRINT_SHA256_PARAM, "dummyThumbprint");
+        oauth2AccessTokenReqDTO.setoAuthClientAuthnContext(oAuthClientAuthnContext);
+        OAuthTokenReqMessageContext oAuthTokenReqMessageContext =
+                new OAuthTokenReqMessageContext(oauth2AccessTokenReqDTO);
+        oAuthTokenReqMessageContext.setScope(new String[]{"openid"});
+
+        boolean validateScope = new AbstractMTLSTokenBindingGrantHandler()
+                .validateScope(oAuthTokenReqMessageContext, true);
+        assertTrue(validateScope);
+        assertEquals(oAuthTokenReqMessageContext.getScope(), new String[]{"openid", CommonConstants.CERT_THUMBPRINT +
+                CommonConstants.SEPARATOR + CommonConstants.SHA256_DIGEST_ALGORITHM +
+                CommonConstants.CERT_THUMBPRINT_SEPARATOR + "dummyThumbprint"});
+    }
 }
@@ -22,6 +22,7 @@ import org.mockito.Matchers;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
@@ -33,6 +34,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.model.HttpRequestHeader;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
 import org.wso2.carbon.identity.oauth2.util.Oauth2ScopeUtils;
 import org.wso2.carbon.utils.CarbonUtils;
 
@@ -95,6 +97,12 @@ public class MTLSTokenBindingRefreshGrantHandlerTest extends PowerMockTestCase {
         return httpRequestHeaders.toArray(new HttpRequestHeader[0]);
     }
 
+    @AfterMethod
+    public void tearDown() {
+
+        MutualTLSConfig.clear();
+    }
+
     @Test
     public void testValidateScope() throws IdentityOAuth2Exception {
 
@@ -103,6 +111,7 @@ public class MTLSTokenBindingRefreshGrantHandlerTest extends PowerMockTestCase {
                 thenReturn("x-wso2-mutual-auth-cert");
         PowerMockito.when(IdentityUtil.getIdentityConfigDirPath()).thenReturn(System.
                 getProperty("user.dir") + "/src/test/resources/repository/conf/identity");
+        MutualTLSConfig.clear();
         mtlsTokenBindingRefreshGrantHandler = new MTLSTokenBindingRefreshGrantHandler();
         mockStatic(Oauth2ScopeUtils.class);
         PowerMockito.when(Oauth2ScopeUtils.validateByApplicationScopeValidator
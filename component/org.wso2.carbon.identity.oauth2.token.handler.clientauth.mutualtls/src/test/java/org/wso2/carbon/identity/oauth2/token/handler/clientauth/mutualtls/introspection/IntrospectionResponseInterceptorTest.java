@@ -18,15 +18,26 @@
 
 package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.introspection;
 
+import org.json.JSONObject;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 /**
  * Test class for IntrospectionResponseInterceptorTest class.
@@ -73,4 +84,114 @@ public class IntrospectionResponseInterceptorTest {
                 oAuth2IntrospectionResponseDTO3, introspectionData);
         assertNotNull(oAuth2IntrospectionResponseDTO3.getProperties());
     }
+
+    @Test
+    public void testScopeStringWithoutInternalScope() {
+
+        OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        String scopeString = "openid  profile email";
+        oAuth2IntrospectionResponseDTO.setScope(scopeString);
+
+        introspectionResponseInterceptor.onPostTokenValidation(new OAuth2TokenValidationRequestDTO(),
+                oAuth2IntrospectionResponseDTO, new HashMap<String, Object>());
+        assertSame(oAuth2IntrospectionResponseDTO.getScope(), scopeString);
+        assertFalse(oAuth2IntrospectionResponseDTO.getProperties().containsKey("cnf"));
+    }
+
+    @Test
+    public void testScopeStringWithInternalScope() {
+
+        OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        oAuth2IntrospectionResponseDTO.setScope(" openid x5t#SHA256:bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2\t" +
+                "profile ");
+
+        introspectionResponseInterceptor.onPostTokenValidation(new OAuth2TokenValidationRequestDTO(),
+                oAuth2IntrospectionResponseDTO, new HashMap<String, Object>());
+        assertEquals(oAuth2IntrospectionResponseDTO.getScope(), "openid profile");
+        JSONObject cnf = (JSONObject) oAuth2IntrospectionResponseDTO.getProperties().get("cnf");
+        assertEquals(cnf.getString("x5t#SHA256"), "bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2");
+    }
+
+    @Test
+    public void testValidatedAccessTokenReused() {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = getValidationRequest("token-identifier");
+        MutualTLSUtil.setValidatedAccessToken("token-identifier", getBoundAccessToken());
+        OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        oAuth2IntrospectionResponseDTO.setActive(true);
+        oAuth2IntrospectionResponseDTO.setBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+
+        // The token is not loaded again, hence the cnf value is only available if the validated token is reused.
+        introspectionResponseInterceptor.onPostTokenValidation(validationRequestDTO,
+                oAuth2IntrospectionResponseDTO, new HashMap<String, Object>());
+        JSONObject cnf = (JSONObject) oAuth2IntrospectionResponseDTO.getProperties().get("cnf");
+        assertEquals(cnf.getString("x5t#S256"), "bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2");
+        assertNull(MutualTLSUtil.getValidatedAccessToken("token-identifier"));
+    }
+
+    @Test
+    public void testCertificateBoundConfirmationClaimName() {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = getValidationRequest("token-identifier");
+        MutualTLSUtil.setValidatedAccessToken("token-identifier", getBoundAccessToken());
+        OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        oAuth2IntrospectionResponseDTO.setActive(true);
+        oAuth2IntrospectionResponseDTO.setBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+
+        introspectionResponseInterceptor.onPostTokenValidation(validationRequestDTO,
+                oAuth2IntrospectionResponseDTO, new HashMap<String, Object>());
+        // The confirmation method of certificate bound tokens is x5t#S256, as defined in RFC 8705.
+        JSONObject cnf = (JSONObject) oAuth2IntrospectionResponseDTO.getProperties().get("cnf");
+        assertEquals(cnf.keySet(), Collections.singleton("x5t#S256"));
+    }
+
+    @Test
+    public void testInactiveTokenNotLoaded() {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = getValidationRequest("token-identifier");
+        MutualTLSUtil.setValidatedAccessToken("token-identifier", getBoundAccessToken());
+        OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = new OAuth2IntrospectionResponseDTO();
+        oAuth2IntrospectionResponseDTO.setActive(false);
+        oAuth2IntrospectionResponseDTO.setBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+
+        introspectionResponseInterceptor.onPostTokenValidation(validationRequestDTO,
+                oAuth2IntrospectionResponseDTO, new HashMap<String, Object>());
+        assertFalse(oAuth2IntrospectionResponseDTO.getProperties().containsKey("cnf"));
+        assertNull(MutualTLSUtil.getValidatedAccessToken("token-identifier"));
+    }
+
+    @Test
+    public void testValidatedAccessTokenCleared() {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = getValidationRequest("token-identifier");
+        MutualTLSUtil.setValidatedAccessToken("token-identifier", getBoundAccessToken());
+        assertNull(MutualTLSUtil.getValidatedAccessToken("other-token-identifier"));
+
+        introspectionResponseInterceptor.onPreTokenValidation(validationRequestDTO, new HashMap<String, Object>());
+        assertNull(MutualTLSUtil.getValidatedAccessToken("token-identifier"));
+
+        MutualTLSUtil.setValidatedAccessToken("token-identifier", getBoundAccessToken());
+        introspectionResponseInterceptor.onPostTokenValidation(validationRequestDTO,
+                new OAuth2TokenValidationResponseDTO(), new HashMap<String, Object>());
+        assertNull(MutualTLSUtil.getValidatedAccessToken("token-identifier"));
+    }
+
+    private OAuth2TokenValidationRequestDTO getValidationRequest(String tokenIdentifier) {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(tokenIdentifier);
+        validationRequestDTO.setAccessToken(accessToken);
+        return validationRequestDTO;
+    }
+
+    private AccessTokenDO getBoundAccessToken() {
+
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+        tokenBinding.setBindingValue("bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2");
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setTokenBinding(tokenBinding);
+        return accessTokenDO;
+    }
 }
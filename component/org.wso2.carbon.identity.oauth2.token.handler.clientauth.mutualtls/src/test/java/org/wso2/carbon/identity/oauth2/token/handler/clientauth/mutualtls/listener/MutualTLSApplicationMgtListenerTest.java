@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.listener;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.IObjectFactory;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.common.model.ServiceProviderProperty;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSAuthenticationResultCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSCertificateThumbprintCacheKey;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificatePathValidatorTest;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CertificateFingerprint;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSConfig;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSUtil;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.wso2.carbon.utils.multitenancy.MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+
+/**
+ * Test class for MutualTLSApplicationMgtListener class.
+ */
+@WithCarbonHome
+@WithRealmService
+public class MutualTLSApplicationMgtListenerTest {
+
+    private static final String CLIENT_ID = "someclientid";
+    private static final String OTHER_CLIENT_ID = "otherclientid";
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @Test
+    public void testDoPostUpdateApplication() throws Exception {
+
+        MutualTLSCertificateThumbprintCacheKey cacheKey =
+                new MutualTLSCertificateThumbprintCacheKey(CLIENT_ID, SUPER_TENANT_DOMAIN_NAME);
+        X509Certificate certificate =
+                MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CLIENT_CERTIFICATE);
+        MutualTLSCertificateThumbprintCache.getInstance().addToCache(cacheKey,
+                new MutualTLSCertificateThumbprintCacheEntry(certificate, CertificateFingerprint.sha256(certificate)));
+        assertNotNull(MutualTLSCertificateThumbprintCache.getInstance().getValueFromCache(cacheKey));
+        MutualTLSAuthenticationResultCacheKey resultCacheKey = new MutualTLSAuthenticationResultCacheKey(CLIENT_ID);
+        MutualTLSAuthenticationResultCacheKey otherResultCacheKey =
+                new MutualTLSAuthenticationResultCacheKey(OTHER_CLIENT_ID);
+        MutualTLSAuthenticationResultCache.getInstance().addToCache(resultCacheKey,
+                new MutualTLSAuthenticationResultCacheEntry(SUPER_TENANT_DOMAIN_NAME));
+        MutualTLSAuthenticationResultCache.getInstance().addToCache(otherResultCacheKey,
+                new MutualTLSAuthenticationResultCacheEntry(SUPER_TENANT_DOMAIN_NAME));
+
+        InboundAuthenticationRequestConfig requestConfig = new InboundAuthenticationRequestConfig();
+        requestConfig.setInboundAuthType("oauth2");
+        requestConfig.setInboundAuthKey(CLIENT_ID);
+        InboundAuthenticationConfig inboundAuthenticationConfig = new InboundAuthenticationConfig();
+        inboundAuthenticationConfig.setInboundAuthenticationRequestConfigs(
+                new InboundAuthenticationRequestConfig[]{requestConfig});
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setInboundAuthenticationConfig(inboundAuthenticationConfig);
+
+        new MutualTLSApplicationMgtListener().doPostUpdateApplication(serviceProvider, SUPER_TENANT_DOMAIN_NAME,
+                "admin");
+        assertNull(MutualTLSCertificateThumbprintCache.getInstance().getValueFromCache(cacheKey));
+        // Only the cached authentications of the updated client are removed.
+        assertNull(MutualTLSAuthenticationResultCache.getInstance().getValueFromCache(resultCacheKey));
+        assertNotNull(MutualTLSAuthenticationResultCache.getInstance().getValueFromCache(otherResultCacheKey));
+        MutualTLSAuthenticationResultCache.getInstance().clearCacheEntry(otherResultCacheKey);
+    }
+
+    @Test
+    public void testDoPreUpdateApplication() throws Exception {
+
+        Function<String, String> properties = Collections.singletonMap(CommonConstants.ENABLE_CLIENT_ID_RESOLUTION,
+                "true")::get;
+        MutualTLSConfig config = Whitebox.invokeConstructor(MutualTLSConfig.class, new Class[]{Function.class},
+                new Object[]{properties});
+        Whitebox.setInternalState(MutualTLSConfig.class, "instance", config);
+        try {
+            ServiceProvider serviceProvider = new ServiceProvider();
+            serviceProvider.setApplicationName("mtls-client");
+            serviceProvider.setCertificateContent(CertificatePathValidatorTest.CLIENT_CERTIFICATE);
+            serviceProvider.setSpProperties(new ServiceProviderProperty[]{
+                    createProperty(CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN, "cn=PKI-Client, o=wso2, c=lk"),
+                    // Values set by the caller are replaced with the identifiers of the service provider.
+                    createProperty(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY, "forged")});
+
+            new MutualTLSApplicationMgtListener().doPreUpdateApplication(serviceProvider, SUPER_TENANT_DOMAIN_NAME,
+                    "admin");
+
+            MutualTLSCertificateHolder certificateHolder = new MutualTLSCertificateHolder(
+                    MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CLIENT_CERTIFICATE));
+            assertEquals(serviceProvider.getSpProperties().length, 3);
+            assertEquals(MutualTLSUtil.getPropertyValue(serviceProvider,
+                    CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY),
+                    certificateHolder.getSHA256ThumbprintBase64URL());
+            assertEquals(MutualTLSUtil.getPropertyValue(serviceProvider,
+                    CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY), "cn=pki-client,o=wso2,c=lk");
+
+            // Identifiers of a removed certificate are removed as well.
+            serviceProvider.setCertificateContent(null);
+            new MutualTLSApplicationMgtListener().doPreUpdateApplication(serviceProvider, SUPER_TENANT_DOMAIN_NAME,
+                    "admin");
+            assertNull(MutualTLSUtil.getPropertyValue(serviceProvider,
+                    CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY));
+        } finally {
+            MutualTLSConfig.clear();
+        }
+    }
+
+    private ServiceProviderProperty createProperty(String name, String value) {
+
+        ServiceProviderProperty property = new ServiceProviderProperty();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
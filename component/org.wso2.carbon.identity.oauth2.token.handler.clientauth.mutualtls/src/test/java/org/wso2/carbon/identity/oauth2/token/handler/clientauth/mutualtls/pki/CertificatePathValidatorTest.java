@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for CertificatePathValidator and CertificateSubjectMatcher classes.
+ */
+public class CertificatePathValidatorTest {
+
+    public static final String CLIENT_CERTIFICATE =
+            "-----BEGIN CERTIFICATE-----\n" +
+            "MIIDpDCCAoygAwIBAgIJANY05+xQjhMZMA0GCSqGSIb3DQEBCwUAMDMxCzAJBgNV\n" +
+            "BAYTAkxLMQ0wCwYDVQQKEwRXU08yMRUwEwYDVQQDEwxUZXN0IFJvb3QgQ0EwIBcN\n" +
+            "MjYxMDE4MjAzMTUxWhgPMjEyNjA5MjQyMDMxNTFaMDExCzAJBgNVBAYTAkxLMQ0w\n" +
+            "CwYDVQQKEwRXU08yMRMwEQYDVQQDEwpwa2ktY2xpZW50MIIBIjANBgkqhkiG9w0B\n" +
+            "AQEFAAOCAQ8AMIIBCgKCAQEAk97OVm1f5yz2/cXbpBes63TkUYPVkYFGfVOWTTsN\n" +
+            "Zo5P7Up5K1tuvJ/9Pk+L/lRd/Z068ayShVXnu+t5y8oXX4+/tm9l9FBvM+IUiHVt\n" +
+            "aK09QKlCjB39c3wTlO6+68ReM/hBZ58LEZE+SmzEVRQyue9Igj1YVqVne8GvIhLT\n" +
+            "3va2Ug+PwSvmx0MDvoPhLZZElB+qYDcthwt27uLT+pYFlF+v8bgczCJQYen+raPo\n" +
+            "AzmV6IRwUvvifeR+GuX6C0S0q2I1Nfc7RO3v+fhdq/hbNRdPqIk/2TXTpYpPdm+k\n" +
+            "HIvon2ac1B0fnFe3jjlET6x8IKFg9sNXokYB1oXX5WZD1wIDAQABo4G6MIG3MB0G\n" +
+            "A1UdDgQWBBTzNcTuhY5D4C5H5lI++0ymoQ+8wTALBgNVHQ8EBAMCB4AwUwYDVR0R\n" +
+            "BEwwSoISY2xpZW50LmV4YW1wbGUuY29thhpodHRwczovL2NsaWVudC5leGFtcGxl\n" +
+            "LmNvbYcECgAAAYESY2xpZW50QGV4YW1wbGUuY29tMB8GA1UdIwQYMBaAFFO0WtJx\n" +
+            "9c8pVeAcTX7lU2B5mEa9MBMGA1UdJQQMMAoGCCsGAQUFBwMCMA0GCSqGSIb3DQEB\n" +
+            "CwUAA4IBAQASzdJCA+41isiQB4K7ZjS7IA6WjM8UtdEJ91aAXFgHX9JcGETimXip\n" +
+            "8+FpfLMYrmFlZNNWavi4r9SW6UCaFfbETD/DoIHz9m/qC0lZvxtaZw0dyRFkUiIC\n" +
+            "4AnFihkgdIzpLDF66UDQyuzJW0ioxudKHdbueAreUbpsXsD5AgMvuZ7IXKtK9JAi\n" +
+            "jaQcRyn01PPEjai5cINDBvxwnkaDEX+CSP30yJU9gIG4E3LUIfZr9f5PxbHLL26P\n" +
+            "BjZKEWtA3tW9GpYoDruPvAdTMtEJqlpvFhNxYdLxkLO8GQ6oQikIyHvIXH7roDuh\n" +
+            "sLkjAB5aNqii0M/gx3HszsgKePexsoi9\n" +
+            "-----END CERTIFICATE-----";
+
+    public static final String CA_CERTIFICATE =
+            "-----BEGIN CERTIFICATE-----\n" +
+            "MIIDHDCCAgSgAwIBAgIITEgB/IX1ciMwDQYJKoZIhvcNAQELBQAwMzELMAkGA1UE\n" +
+            "BhMCTEsxDTALBgNVBAoTBFdTTzIxFTATBgNVBAMTDFRlc3QgUm9vdCBDQTAgFw0y\n" +
+            "NjEwMTgyMDMxNDhaGA8yMTI2MDkyNDIwMzE0OFowMzELMAkGA1UEBhMCTEsxDTAL\n" +
+            "BgNVBAoTBFdTTzIxFTATBgNVBAMTDFRlc3QgUm9vdCBDQTCCASIwDQYJKoZIhvcN\n" +
+            "AQEBBQADggEPADCCAQoCggEBAIbMr/5T6YIjFzIW981SDteq1MQAVGdl/58SO3UI\n" +
+            "6ZjyNA4MR8fRTZnN3QQ6DIymailzNHi7uN6oa044XpNqOHqzQonfK+H6DAwaEsss\n" +
+            "BNTesiSM+oNHAg/TXTgKl0zwlWIwr6xDq2RIeXlaDktP2/YBtoNBCBVa/1/gue2b\n" +
+            "wFFDw0LN7PMCBGLIKWdcVjV+Pc8aOj0g459tsnkCQmMU+O1uP0tjrm3F7EVSWu8M\n" +
+            "FpSN+bdWiDHx7oUIpmnJjqjl42pVa18N1ti4ZAmpSRgcr6c9fDruQvxyHqW/ylJW\n" +
+            "VwzrTWemdv26kS2Pj1gvfl6Yh8NjPoszppq6X/6X2a8cwdcCAwEAAaMyMDAwHQYD\n" +
+            "VR0OBBYEFFO0WtJx9c8pVeAcTX7lU2B5mEa9MA8GA1UdEwEB/wQFMAMBAf8wDQYJ\n" +
+            "KoZIhvcNAQELBQADggEBAG6xUOv6kT6aqckcap9wB0xAHSD2HoTerEez7ZvFNWaR\n" +
+            "2Bp+eSNj72XzU52j4kVtDBgyMuJmVkCgJDX/GJnPOPANtWKa3hzrNobN9lAu3+EP\n" +
+            "yuaOJ0vQDKMhsniRtfGR4wEKJdjlozrAai52AvUSxWGHfTLVgJoBJP08x81oaLft\n" +
+            "O0kPD4JsKtI9HbyFg+ZSHtbWISjkpzY8Ee/5lEHXsN7l9o33NunMxMTO2bSZDauT\n" +
+            "UJpTeATq9P3f3tvC34cCgp//9dST0theoup7wlISNfIk4hjxRuu/gPDr2VRwQQq2\n" +
+            "SbEDpt8p5UJ2gpvAU5M4MpceVXIhEp5lwkdI++EGowY=\n" +
+            "-----END CERTIFICATE-----";
+
+    public static final String SERVER_CERTIFICATE =
+            "-----BEGIN CERTIFICATE-----\n" +
+            "MIIDWjCCAkKgAwIBAgIUSBofcpg/OwvkB1FJCkxvhEYWtsowDQYJKoZIhvcNAQEL\n" +
+            "BQAwMTELMAkGA1UEBhMCTEsxDTALBgNVBAoMBFdTTzIxEzARBgNVBAMMCnBraS1z\n" +
+            "ZXJ2ZXIwIBcNMjYxMDE4MjE1ODU5WhgPMjEyNjA5MjQyMTU4NTlaMDExCzAJBgNV\n" +
+            "BAYTAkxLMQ0wCwYDVQQKDARXU08yMRMwEQYDVQQDDApwa2ktc2VydmVyMIIBIjAN\n" +
+            "BgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEA7xopYsVYMOmPqjw4hkdvcGtV9eLv\n" +
+            "0deD8WQtIjJOP3R90Adecit+7vysgIZCFhYztpvhgKRMCktdbM+p1lqQLnL15Um4\n" +
+            "rLXI6shBD8BBg/30KpfyvemZtaTP/E2paABzCJ4oLqPDnIWxcsotNrIXHLlSewY0\n" +
+            "/C7kzkGkNpKnmhSWuya8PRpiqMGmqKhQDaIxUZKe9vkHCQHGX7guFzAuuLEwC/dz\n" +
+            "Euwoa9alb1l1wni3IyDAgHflt9qoBi5RR6iRoiXtGWRRIISezhJHPBci4CNZVBEy\n" +
+            "1rjgNJWJ43ORNVXRhQdvPp6dJH7RBgQTX54FvA4NevEbDVLwVjP7Ld+zkwIDAQAB\n" +
+            "o2gwZjAdBgNVHQ4EFgQUXX4Y4cF0J0JuAAdttexF4crNEBcwHwYDVR0jBBgwFoAU\n" +
+            "XX4Y4cF0J0JuAAdttexF4crNEBcwDwYDVR0TAQH/BAUwAwEB/zATBgNVHSUEDDAK\n" +
+            "BggrBgEFBQcDATANBgkqhkiG9w0BAQsFAAOCAQEAx119dp8tPMDykvjTmXiBj8BB\n" +
+            "WeTTqDd35MoQ7CSP0UC3i2rn6f409QTzuKVrK4Mtt/mqZKwNNrXajrsZmoQj53Ia\n" +
+            "8cv8DjBMBGyQ/oYcvJKKB9Jekpk2TjZsir+GIQaLyrkK4mcYzM8RB8MHt+7c9zU9\n" +
+            "WF/4uCPRCM5J+bPyPj6fJIeX1DWFBDRMu1HuMLhMHMmuudszSao96ZM5ULaNQ5Lm\n" +
+            "+2TwJNj4l3DiCtAXXc9nTS+0iRx58MmGHwxtMJYNWRv4PfKWigGQBhLsPtodV3hw\n" +
+            "b2A9lb62AwiyXeLH6VRgekwsAKkPwosFfZjLgxjhOssXcq1pXk9QboEKeu1FRw==\n" +
+            "-----END CERTIFICATE-----";
+
+    @Test
+    public void testValidate() throws Exception {
+
+        X509Certificate clientCertificate = MutualTLSCertificateParser.parseCertificate(CLIENT_CERTIFICATE);
+        X509Certificate caCertificate = MutualTLSCertificateParser.parseCertificate(CA_CERTIFICATE);
+        Set<TrustAnchor> anchors = Collections.singleton(new TrustAnchor(caCertificate, null));
+
+        assertNotNull(CertificatePathValidator.validate(new X509Certificate[]{clientCertificate}, anchors,
+                new Date()));
+        // Trust anchors sent by the client are not part of the validated path.
+        assertNotNull(CertificatePathValidator.validate(new X509Certificate[]{clientCertificate, caCertificate},
+                anchors, new Date()));
+        // A certificate which is not issued by a trusted CA.
+        assertNull(CertificatePathValidator.validate(new X509Certificate[]{caCertificate},
+                Collections.singleton(new TrustAnchor(clientCertificate, null)), new Date()));
+        assertNull(CertificatePathValidator.validate(new X509Certificate[]{clientCertificate},
+                Collections.<TrustAnchor>emptySet(), new Date()));
+        // Validation after the certificate has expired.
+        assertNull(CertificatePathValidator.validate(new X509Certificate[]{clientCertificate}, anchors,
+                new Date(clientCertificate.getNotAfter().getTime() + 1000)));
+    }
+
+    @Test
+    public void testExtendedKeyUsage() throws Exception {
+
+        X509Certificate clientCertificate = MutualTLSCertificateParser.parseCertificate(CLIENT_CERTIFICATE);
+        X509Certificate caCertificate = MutualTLSCertificateParser.parseCertificate(CA_CERTIFICATE);
+        X509Certificate serverCertificate = MutualTLSCertificateParser.parseCertificate(SERVER_CERTIFICATE);
+
+        assertTrue(CertificatePathValidator.isClientAuthenticationAllowed(clientCertificate));
+        // A certificate without the extended key usage extension is not restricted to a purpose.
+        assertTrue(CertificatePathValidator.isClientAuthenticationAllowed(caCertificate));
+        assertFalse(CertificatePathValidator.isClientAuthenticationAllowed(serverCertificate));
+        // A trusted certificate which is only allowed for TLS server authentication.
+        assertNull(CertificatePathValidator.validate(new X509Certificate[]{serverCertificate},
+                Collections.singleton(new TrustAnchor(serverCertificate, null)), new Date()));
+    }
+
+    @DataProvider(name = "subjectData")
+    public Object[][] subjectData() {
+
+        return new Object[][]{
+                {CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN, "CN=pki-client,O=WSO2,C=LK", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN, "cn=PKI-Client, o=wso2, c=lk", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SUBJECT_DN, "CN=other-client,O=WSO2,C=LK", false},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_DNS, "client.example.com", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_DNS, "other.example.com", false},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_URI, "https://client.example.com", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_URI, "https://client.example.com/", false},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_IP, "10.0.0.1", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_IP, "10.0.0.2", false},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_EMAIL, "client@example.com", true},
+                {CommonConstants.TLS_CLIENT_AUTH_SAN_EMAIL, "client.example.com", false},
+        };
+    }
+
+    @Test(dataProvider = "subjectData")
+    public void testMatches(String metadataName, String expectedValue, boolean matches) throws Exception {
+
+        X509Certificate clientCertificate = MutualTLSCertificateParser.parseCertificate(CLIENT_CERTIFICATE);
+        assertEquals(CertificateSubjectMatcher.matches(clientCertificate, metadataName, expectedValue), matches);
+    }
+}
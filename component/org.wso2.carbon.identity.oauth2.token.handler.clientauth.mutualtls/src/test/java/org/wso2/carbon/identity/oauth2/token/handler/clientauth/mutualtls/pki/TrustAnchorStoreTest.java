@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.UUID;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for TrustAnchorStore class.
+ */
+@PrepareForTest(IdentityUtil.class)
+public class TrustAnchorStoreTest extends PowerMockTestCase {
+
+    private static final String PASSWORD = "password";
+    private static final String SERVER_TRUST_STORE = "javax.net.ssl.trustStore";
+    private static final String SERVER_TRUST_STORE_PASSWORD = "javax.net.ssl.trustStorePassword";
+    private static final String SERVER_TRUST_STORE_TYPE = "javax.net.ssl.trustStoreType";
+
+    private File trustStoreDirectory;
+    private X509Certificate caCertificate;
+    private X509Certificate serverCertificate;
+    private String serverTrustStore;
+    private String serverTrustStorePassword;
+    private String serverTrustStoreType;
+
+    @BeforeClass
+    public void setUpTrustStores() throws Exception {
+
+        trustStoreDirectory = Files.createTempDirectory("mtls-trust-stores").toFile();
+        caCertificate = MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CA_CERTIFICATE);
+        serverCertificate =
+                MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.SERVER_CERTIFICATE);
+
+        serverTrustStore = System.getProperty(SERVER_TRUST_STORE);
+        serverTrustStorePassword = System.getProperty(SERVER_TRUST_STORE_PASSWORD);
+        serverTrustStoreType = System.getProperty(SERVER_TRUST_STORE_TYPE);
+        System.setProperty(SERVER_TRUST_STORE, createTrustStore("server.p12", serverCertificate).getPath());
+        System.setProperty(SERVER_TRUST_STORE_PASSWORD, PASSWORD);
+        System.setProperty(SERVER_TRUST_STORE_TYPE, "PKCS12");
+    }
+
+    @AfterClass
+    public void tearDownTrustStores() {
+
+        restoreProperty(SERVER_TRUST_STORE, serverTrustStore);
+        restoreProperty(SERVER_TRUST_STORE_PASSWORD, serverTrustStorePassword);
+        restoreProperty(SERVER_TRUST_STORE_TYPE, serverTrustStoreType);
+        File[] files = trustStoreDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        trustStoreDirectory.delete();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_LOCATION))
+                .thenReturn(new File(trustStoreDirectory, "{tenantDomain}.p12").getPath());
+        when(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_PASSWORD)).thenReturn(PASSWORD);
+        when(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_TYPE)).thenReturn("PKCS12");
+    }
+
+    @Test
+    public void testTrustStoreOfTenant() throws Exception {
+
+        String tenantDomain = createTenantDomain();
+        createTrustStore(tenantDomain + ".p12", caCertificate);
+
+        TrustAnchorStore.TrustAnchors trustAnchors = TrustAnchorStore.getInstance().getTrustAnchors(tenantDomain);
+        assertEquals(trustAnchors.getAnchors().size(), 1);
+        assertEquals(trustAnchors.getAnchors().iterator().next().getTrustedCert(), caCertificate);
+        assertTrue(trustAnchors.getVersion().contains(tenantDomain));
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
+    public void testMissingTrustStoreOfTenant() throws Exception {
+
+        TrustAnchorStore.getInstance().getTrustAnchors(createTenantDomain());
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
+    public void testTrustStoreNotConfigured() throws Exception {
+
+        when(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_LOCATION)).thenReturn(null);
+        TrustAnchorStore.getInstance().getTrustAnchors(createTenantDomain());
+    }
+
+    @Test
+    public void testTrustStoreOfServer() throws Exception {
+
+        when(IdentityUtil.getProperty(CommonConstants.PKI_TRUST_STORE_USE_SERVER_TRUST_STORE)).thenReturn("true");
+
+        TrustAnchorStore.TrustAnchors trustAnchors =
+                TrustAnchorStore.getInstance().getTrustAnchors(createTenantDomain());
+        assertEquals(trustAnchors.getAnchors().size(), 1);
+        TrustAnchor trustAnchor = trustAnchors.getAnchors().iterator().next();
+        assertEquals(trustAnchor.getTrustedCert(), serverCertificate);
+    }
+
+    private String createTenantDomain() {
+
+        return UUID.randomUUID().toString() + ".com";
+    }
+
+    private File createTrustStore(String name, X509Certificate certificate) throws Exception {
+
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("ca", certificate);
+        File trustStoreFile = new File(trustStoreDirectory, name);
+        try (OutputStream outputStream = new FileOutputStream(trustStoreFile)) {
+            trustStore.store(outputStream, PASSWORD.toCharArray());
+        }
+        return trustStoreFile;
+    }
+
+    private void restoreProperty(String name, String value) {
+
+        if (value == null) {
+            System.clearProperty(name);
+        } else {
+            System.setProperty(name, value);
+        }
+    }
+}
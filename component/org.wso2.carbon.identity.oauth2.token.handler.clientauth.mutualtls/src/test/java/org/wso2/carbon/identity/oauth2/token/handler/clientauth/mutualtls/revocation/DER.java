@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Minimal DER encoder and decoder used to build the responses of the local OCSP responder stub. Only definite length
+ * encodings and single byte tags are supported, as required by DER.
+ */
+final class DER {
+
+    static final int BOOLEAN = 0x01;
+    static final int INTEGER = 0x02;
+    static final int BIT_STRING = 0x03;
+    static final int OCTET_STRING = 0x04;
+    static final int NULL = 0x05;
+    static final int OBJECT_IDENTIFIER = 0x06;
+    static final int ENUMERATED = 0x0A;
+    static final int GENERALIZED_TIME = 0x18;
+    static final int SEQUENCE = 0x30;
+
+    private static final int CONTEXT_SPECIFIC = 0x80;
+    private static final int CONSTRUCTED = 0x20;
+    private static final int TAG_NUMBER_MASK = 0x1F;
+
+    private DER() {
+
+    }
+
+    /**
+     * A decoded DER element. The element refers to the buffer it was decoded from, without copying.
+     */
+    static final class Element {
+
+        private final byte[] buffer;
+        private final int tag;
+        private final int start;
+        private final int valueStart;
+        private final int end;
+
+        private Element(byte[] buffer, int tag, int start, int valueStart, int end) {
+
+            this.buffer = buffer;
+            this.tag = tag;
+            this.start = start;
+            this.valueStart = valueStart;
+            this.end = end;
+        }
+
+        int getTag() {
+
+            return tag;
+        }
+
+        /**
+         * @param tagNumber Context specific tag number.
+         * @return True if this is a context specific element with the given tag number.
+         */
+        boolean isContextSpecific(int tagNumber) {
+
+            return (tag & CONTEXT_SPECIFIC) != 0 && (tag & TAG_NUMBER_MASK) == tagNumber;
+        }
+
+        byte[] getValue() {
+
+            return Arrays.copyOfRange(buffer, valueStart, end);
+        }
+
+        byte[] getEncoded() {
+
+            return Arrays.copyOfRange(buffer, start, end);
+        }
+
+        /**
+         * @return Reader over the content of this constructed element.
+         */
+        Reader getContent() {
+
+            return new Reader(buffer, valueStart, end);
+        }
+
+        BigInteger getInteger() throws IOException {
+
+            expectTag(INTEGER);
+            return new BigInteger(getValue());
+        }
+
+        int getEnumerated() throws IOException {
+
+            expectTag(ENUMERATED);
+            return new BigInteger(getValue()).intValue();
+        }
+
+        String getObjectIdentifier() throws IOException {
+
+            expectTag(OBJECT_IDENTIFIER);
+            StringBuilder oid = new StringBuilder();
+            long component = 0;
+            boolean first = true;
+            for (int i = valueStart; i < end; i++) {
+                component = (component << 7) | (buffer[i] & 0x7F);
+                if ((buffer[i] & 0x80) == 0) {
+                    if (first) {
+                        long firstArc = Math.min(component / 40, 2);
+                        oid.append(firstArc).append('.').append(component - firstArc * 40);
+                        first = false;
+                    } else {
+                        oid.append('.').append(component);
+                    }
+                    component = 0;
+                }
+            }
+            return oid.toString();
+        }
+
+        /**
+         * @return Content of a BIT STRING without the unused bits octet.
+         */
+        byte[] getBitString() throws IOException {
+
+            expectTag(BIT_STRING);
+            if (end - valueStart < 1) {
+                throw new IOException("Invalid DER bit string.");
+            }
+            return Arrays.copyOfRange(buffer, valueStart + 1, end);
+        }
+
+        /**
+         * @return Value of a GeneralizedTime in the form YYYYMMDDHHMMSS[.fff]Z.
+         */
+        Date getGeneralizedTime() throws IOException {
+
+            expectTag(GENERALIZED_TIME);
+            String time = new String(buffer, valueStart, end - valueStart, StandardCharsets.US_ASCII);
+            if (time.length() < 15 || time.charAt(time.length() - 1) != 'Z') {
+                throw new IOException("Unsupported GeneralizedTime: " + time);
+            }
+            try {
+                Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+                calendar.clear();
+                calendar.set(Integer.parseInt(time.substring(0, 4)), Integer.parseInt(time.substring(4, 6)) - 1,
+                        Integer.parseInt(time.substring(6, 8)), Integer.parseInt(time.substring(8, 10)),
+                        Integer.parseInt(time.substring(10, 12)), Integer.parseInt(time.substring(12, 14)));
+                if (time.charAt(14) == '.') {
+                    String fraction = (time.substring(15, time.length() - 1) + "000").substring(0, 3);
+                    calendar.set(Calendar.MILLISECOND, Integer.parseInt(fraction));
+                }
+                return calendar.getTime();
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid GeneralizedTime: " + time, e);
+            }
+        }
+
+        private void expectTag(int expectedTag) throws IOException {
+
+            if (tag != expectedTag) {
+                throw new IOException("Unexpected DER tag: " + tag + ", expected: " + expectedTag);
+            }
+        }
+    }
+
+    /**
+     * Sequential reader of DER elements.
+     */
+    static final class Reader {
+
+        private final byte[] buffer;
+        private final int end;
+        private int position;
+
+        Reader(byte[] buffer) {
+
+            this(buffer, 0, buffer.length);
+        }
+
+        private Reader(byte[] buffer, int start, int end) {
+
+            this.buffer = buffer;
+            this.position = start;
+            this.end = end;
+        }
+
+        boolean hasNext() {
+
+            return position < end;
+        }
+
+        /**
+         * @return Tag of the next element without consuming it, or -1 if there are no more elements.
+         */
+        int peekTag() {
+
+            return hasNext() ? buffer[position] & 0xFF : -1;
+        }
+
+        Element next() throws IOException {
+
+            int start = position;
+            if (end - position < 2) {
+                throw new IOException("Truncated DER element.");
+            }
+            int tag = buffer[position++] & 0xFF;
+            if ((tag & TAG_NUMBER_MASK) == TAG_NUMBER_MASK) {
+                throw new IOException("Multi-byte DER tags are not supported.");
+            }
+            int length = buffer[position++] & 0xFF;
+            if (length == 0x80) {
+                throw new IOException("Indefinite length encoding is not allowed in DER.");
+            }
+            if (length > 0x80) {
+                int lengthOctets = length & 0x7F;
+                if (lengthOctets > 4 || end - position < lengthOctets) {
+                    throw new IOException("Invalid DER length.");
+                }
+                length = 0;
+                for (int i = 0; i < lengthOctets; i++) {
+                    length = (length << 8) | (buffer[position++] & 0xFF);
+                }
+                if (length < 0) {
+                    throw new IOException("Invalid DER length.");
+                }
+            }
+            if (end - position < length) {
+                throw new IOException("Truncated DER element.");
+            }
+            int valueStart = position;
+            position += length;
+            return new Element(buffer, tag, start, valueStart, position);
+        }
+
+        Element next(int expectedTag) throws IOException {
+
+            Element element = next();
+            if (element.getTag() != expectedTag) {
+                throw new IOException("Unexpected DER tag: " + element.getTag() + ", expected: " + expectedTag);
+            }
+            return element;
+        }
+    }
+
+    static Element decode(byte[] encoded) throws IOException {
+
+        return new Reader(encoded).next();
+    }
+
+    static byte[] encode(int tag, byte[]... contents) {
+
+        int length = 0;
+        for (byte[] content : contents) {
+            length += content.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int lengthOctets = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | lengthOctets);
+            for (int i = lengthOctets - 1; i >= 0; i--) {
+                out.write(length >>> (8 * i));
+            }
+        }
+        for (byte[] content : contents) {
+            out.write(content, 0, content.length);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] sequence(byte[]... contents) {
+
+        return encode(SEQUENCE, contents);
+    }
+
+    static byte[] contextSpecific(int tagNumber, boolean constructed, byte[]... contents) {
+
+        return encode(CONTEXT_SPECIFIC | (constructed ? CONSTRUCTED : 0) | tagNumber, contents);
+    }
+
+    static byte[] integer(BigInteger value) {
+
+        return encode(INTEGER, value.toByteArray());
+    }
+
+    static byte[] octetString(byte[] value) {
+
+        return encode(OCTET_STRING, value);
+    }
+
+    static byte[] nullValue() {
+
+        return encode(NULL);
+    }
+
+    static byte[] objectIdentifier(String oid) {
+
+        String[] arcs = oid.split("\\.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBase128(out, Long.parseLong(arcs[0]) * 40 + Long.parseLong(arcs[1]));
+        for (int i = 2; i < arcs.length; i++) {
+            writeBase128(out, Long.parseLong(arcs[i]));
+        }
+        return encode(OBJECT_IDENTIFIER, out.toByteArray());
+    }
+
+    private static void writeBase128(ByteArrayOutputStream out, long value) {
+
+        int groups = Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+        for (int i = groups - 1; i > 0; i--) {
+            out.write((int) ((value >>> (7 * i)) & 0x7F) | 0x80);
+        }
+        out.write((int) (value & 0x7F));
+    }
+}
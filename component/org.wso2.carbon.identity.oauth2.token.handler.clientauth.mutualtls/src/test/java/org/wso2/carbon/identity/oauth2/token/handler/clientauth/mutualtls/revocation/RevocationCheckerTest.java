@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSRevocationCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificatePathValidatorTest;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for the revocation checker, run against a local OCSP responder stub.
+ */
+@WithCarbonHome
+@WithRealmService
+public class RevocationCheckerTest {
+
+    private static final String CA_PRIVATE_KEY =
+            "MIIEvQIBADANBgkqhkiG9w0BAQEFAASCBKcwggSjAgEAAoIBAQCGzK/+U+mCIxcyFvfNUg7XqtTEAFRnZf+fEjt1COmY8jQODEfH" +
+            "0U2Zzd0EOgyMpmopczR4u7jeqGtOOF6Tajh6s0KJ3yvh+gwMGhLLLATU3rIkjPqDRwIP0104CpdM8JViMK+sQ6tkSHl5Wg5LT9v2" +
+            "AbaDQQgVWv9f4Lntm8BRQ8NCzezzAgRiyClnXFY1fj3PGjo9IOOfbbJ5AkJjFPjtbj9LY65txexFUlrvDBaUjfm3Vogx8e6FCKZp" +
+            "yY6o5eNqVWtfDdbYuGQJqUkYHK+nPXw67kL8ch6lv8pSVlcM601npnb9upEtj49YL35emIfDYz6LM6aaul/+l9mvHMHXAgMBAAEC" +
+            "ggEAJMRkxo51tQjENWXdXjPhF4MheHqMiw1fnTA4ZnIxYQXDHAfOdlqI+4gSnioFLUHg2ABz0fCF+rleV135seS5lgIaBogILKFq" +
+            "ssxTzvXpNXSui1impbLzBYUFupjs7s/6NueHqwlkELzR4T8mgfU8zktmUEOnJEgHOswNeplOafuXye9N/MDmwjwhTANdY3Vxqwek" +
+            "Fram4Wk+6OIYVHCxk8lpTtWWlU/+nw7zyXsAmdTUOEeBJLvkHm5A3ND/I5w3PVChJ37c2kuInnVtR1q5mZxFm5mI1U1Ww5RqEk18" +
+            "lcI3x2i7M+TmJZr31sh4yoTLriVhZmcmCT1f+aqPOr9UGQKBgQC7MUlPFE07bPGES9MbD6TptB/UcANS4h4LUn9vIwnfFKCP059v" +
+            "h2nzxmqXdfJ4wDs9pJKHtIJTboOAgtintmmomrHOyX89HqiX1KgPNVgvCO2Ij3tfKSv98MCr70OBqE923ZzOVYOTkg84N7hq+oDy" +
+            "0y0FBXTKOaz8s5tc5bUebwKBgQC4WUCBe/3AccFBc246zKw4y4ps0EbshDmHdKIvjOBuMxIVHeNCdckmX4iUVA+j/WtJqo27h5UD" +
+            "3W/0nUu+HZ9/ftj1d6k/Vfb66n9oUYro+QZuMKnMdmQNFolGHkfNa3FcT/x9Ige3LOHTeZFTWZYSVhXZzVgVx8e0YSBgyMRHGQKB" +
+            "gACCJ8LROUx6BUXottASAM6psJRxIXEuMAqz1KjGnZY/hhgd6QbyhTUmSs/SgDAXxZFrSwKXWOtFF5JXyKLb+fl9QhJftbrCxI51" +
+            "A2fXK0AldA+05A7kG7x61OsioTpO7LhT7cMZtFvIP8ZVUGjp+UOvkyW6WBDciz28dyWPcih9AoGBAK9DU3uHSUmEHOq/9oV6fyYE" +
+            "BRfMsBE+6H7qmSNB+UFr1n4zCxPtbY7I9s2mWbRcQ3sm5lbq4PZquXzDavZVrYUGMPi2ijcH4KbO+NBR7hHuZ3mtVFFqIVb8HQiH" +
+            "01XuFzlfZjoFd3Zj+lMW2d53ZqEKLP4EJwGWDTxltuWtGkZJAoGAZisjCG7qumsPXPeyEnGjfZp+6GkRKkhbeW172A9cbhjA8eAA" +
+            "4bOmubLrAz8WbGsLu6PLHrVw6jy5WC210DX+UCyTIdlmT9iD3pqsUvkUtw5GUOWkdvSuNjaatA9W8aB87GIU1atq6rbYnJDbRLWo" +
+            "i+8eB76q28MGF82IipwZOQA=";
+    private static final String SHA256_WITH_RSA_OID = "1.2.840.113549.1.1.11";
+    private static final String BASIC_RESPONSE_OID = "1.3.6.1.5.5.7.48.1.1";
+
+    private HttpServer server;
+    private String baseURL;
+    private final AtomicInteger ocspRequests = new AtomicInteger();
+    private volatile RevocationStatus responderStatus;
+    private volatile long responderNextUpdate;
+    private volatile PrivateKey responderKey;
+
+    private X509Certificate clientCertificate;
+    private X509Certificate caCertificate;
+    private Set<TrustAnchor> anchors;
+    private PrivateKey caPrivateKey;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeClass
+    public void startServer() throws Exception {
+
+        clientCertificate = MutualTLSCertificateParser.parseCertificate(
+                CertificatePathValidatorTest.CLIENT_CERTIFICATE);
+        caCertificate = MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CA_CERTIFICATE);
+        anchors = Collections.singleton(new TrustAnchor(caCertificate, null));
+        caPrivateKey = KeyFactory.getInstance("RSA").generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(CA_PRIVATE_KEY)));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ocsp", this::handleOCSPRequest);
+        server.start();
+        baseURL = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public void stopServer() {
+
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        ocspRequests.set(0);
+        responderStatus = RevocationStatus.GOOD;
+        responderNextUpdate = TimeUnit.HOURS.toMillis(1);
+        responderKey = caPrivateKey;
+        MutualTLSRevocationCache.getInstance().clear();
+    }
+
+    @Test
+    public void testGoodStatusIsCached() {
+
+        RevocationChecker revocationChecker = createRevocationChecker(null);
+        long currentTime = System.currentTimeMillis();
+
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime));
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate, caCertificate}, anchors,
+                currentTime));
+        assertEquals(ocspRequests.get(), 1);
+    }
+
+    @Test
+    public void testRevokedStatus() {
+
+        responderStatus = RevocationStatus.REVOKED;
+        RevocationChecker revocationChecker = createRevocationChecker(null);
+        long currentTime = System.currentTimeMillis();
+
+        assertFalse(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime));
+        assertFalse(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime));
+        assertEquals(ocspRequests.get(), 1);
+    }
+
+    @DataProvider(name = "failurePolicyData")
+    public Object[][] failurePolicyData() {
+
+        return new Object[][]{
+                {RevocationConfig.HARD_FAIL, false},
+                {RevocationConfig.SOFT_FAIL, true},
+        };
+    }
+
+    @Test(dataProvider = "failurePolicyData")
+    public void testUnknownStatus(String failurePolicy, boolean accepted) {
+
+        responderStatus = RevocationStatus.UNKNOWN;
+        RevocationChecker revocationChecker = createRevocationChecker(failurePolicy);
+        long currentTime = System.currentTimeMillis();
+
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime),
+                accepted);
+        // The unknown status is cached for the failure validity only.
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.SECONDS.toMillis(30)), accepted);
+        assertEquals(ocspRequests.get(), 1);
+        responderStatus = RevocationStatus.GOOD;
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.SECONDS.toMillis(60)));
+        assertEquals(ocspRequests.get(), 2);
+    }
+
+    @Test(dataProvider = "failurePolicyData")
+    public void testUntrustedResponse(String failurePolicy, boolean accepted) throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        responderKey = keyPairGenerator.generateKeyPair().getPrivate();
+        RevocationChecker revocationChecker = createRevocationChecker(failurePolicy);
+
+        long currentTime = System.currentTimeMillis();
+
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime),
+                accepted);
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime),
+                accepted);
+        assertEquals(ocspRequests.get(), 1);
+    }
+
+    @Test(dataProvider = "failurePolicyData")
+    public void testUntrustedIssuer(String failurePolicy, boolean accepted) {
+
+        RevocationChecker revocationChecker = createRevocationChecker(failurePolicy);
+
+        // The issuer presented in the chain is not a trust anchor, hence its responder is not asked.
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate, caCertificate},
+                Collections.<TrustAnchor>emptySet(), System.currentTimeMillis()), accepted);
+        assertEquals(ocspRequests.get(), 0);
+        // No status is cached for the issuer presented in the chain.
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate, caCertificate}, anchors,
+                System.currentTimeMillis()));
+        assertEquals(ocspRequests.get(), 1);
+    }
+
+    @Test(dataProvider = "failurePolicyData")
+    public void testUnavailableResponder(String failurePolicy, boolean accepted) {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RevocationConfig.ENABLE, "true");
+        properties.put(RevocationConfig.FAILURE_POLICY, failurePolicy);
+        properties.put(RevocationConfig.OCSP_RESPONDER_URL, baseURL + "/unavailable");
+        RevocationChecker revocationChecker = new RevocationChecker(new RevocationConfig(properties::get), null);
+
+        assertEquals(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                System.currentTimeMillis()), accepted);
+    }
+
+    @Test
+    public void testCertificateWithoutRevocationInformation() {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RevocationConfig.ENABLE, "true");
+        RevocationChecker revocationChecker = new RevocationChecker(new RevocationConfig(properties::get), null);
+
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, null));
+        assertEquals(ocspRequests.get(), 0);
+    }
+
+    @Test
+    public void testRevocationCheckDisabled() {
+
+        responderStatus = RevocationStatus.REVOKED;
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RevocationConfig.OCSP_RESPONDER_URL, baseURL + "/ocsp");
+        RevocationChecker revocationChecker = new RevocationChecker(new RevocationConfig(properties::get), null);
+
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate, caCertificate}, null));
+        assertEquals(ocspRequests.get(), 0);
+    }
+
+    @Test
+    public void testRefresh() {
+
+        RevocationChecker revocationChecker = new RevocationChecker(createConfig(null), Runnable::run);
+        long currentTime = System.currentTimeMillis();
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime));
+
+        // The cached status is used until it is refreshed in the background close to its expiry.
+        responderStatus = RevocationStatus.REVOKED;
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.MINUTES.toMillis(30)));
+        assertEquals(ocspRequests.get(), 1);
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.MINUTES.toMillis(58)));
+        assertEquals(ocspRequests.get(), 2);
+        assertFalse(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.MINUTES.toMillis(30)));
+        assertEquals(ocspRequests.get(), 2);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsStatus() {
+
+        RevocationChecker revocationChecker = new RevocationChecker(createConfig(null), Runnable::run);
+        long currentTime = System.currentTimeMillis();
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors, currentTime));
+
+        // A refresh which cannot determine the status does not replace the status which is still valid.
+        responderStatus = RevocationStatus.UNKNOWN;
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.MINUTES.toMillis(58)));
+        assertEquals(ocspRequests.get(), 2);
+        assertTrue(revocationChecker.isAccepted(new X509Certificate[]{clientCertificate}, anchors,
+                currentTime + TimeUnit.MINUTES.toMillis(59)));
+    }
+
+    private RevocationChecker createRevocationChecker(String failurePolicy) {
+
+        return new RevocationChecker(createConfig(failurePolicy), null);
+    }
+
+    private RevocationConfig createConfig(String failurePolicy) {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RevocationConfig.ENABLE, "true");
+        properties.put(RevocationConfig.OCSP_RESPONDER_URL, baseURL + "/ocsp");
+        properties.put(RevocationConfig.CRL_ENABLE, "false");
+        if (failurePolicy != null) {
+            properties.put(RevocationConfig.FAILURE_POLICY, failurePolicy);
+        }
+        return new RevocationConfig(properties::get);
+    }
+
+    private void handleOCSPRequest(HttpExchange exchange) throws IOException {
+
+        ocspRequests.incrementAndGet();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            if ("GET".equals(exchange.getRequestMethod())) {
+                // Small requests are sent with GET, as the URL encoded base64 value of the request appended to the URL.
+                String encodedRequest = exchange.getRequestURI().getRawPath().substring("/ocsp/".length());
+                request.write(Base64.getDecoder().decode(URLDecoder.decode(encodedRequest, "UTF-8")));
+            } else {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    request.write(buffer, 0, read);
+                }
+            }
+            // OCSPRequest -> TBSRequest -> requestList -> Request -> CertID
+            DER.Element certId = DER.decode(request.toByteArray()).getContent().next().getContent().next()
+                    .getContent().next().getContent().next();
+            respond(exchange, "application/ocsp-response", createOCSPResponse(certId.getEncoded()));
+        } catch (Exception e) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        }
+    }
+
+    private byte[] createOCSPResponse(byte[] certId) throws Exception {
+
+        long currentTime = System.currentTimeMillis();
+        byte[] certStatus;
+        if (responderStatus == RevocationStatus.GOOD) {
+            certStatus = DER.contextSpecific(0, false);
+        } else if (responderStatus == RevocationStatus.REVOKED) {
+            certStatus = DER.contextSpecific(1, true, generalizedTime(currentTime - 1000));
+        } else {
+            certStatus = DER.contextSpecific(2, false);
+        }
+        byte[] singleResponse = DER.sequence(certId, certStatus, generalizedTime(currentTime),
+                DER.contextSpecific(0, true, generalizedTime(currentTime + responderNextUpdate)));
+        byte[] responseData = DER.sequence(
+                DER.contextSpecific(1, true, caCertificate.getSubjectX500Principal().getEncoded()),
+                generalizedTime(currentTime), DER.sequence(singleResponse));
+
+        byte[] basicResponse = DER.sequence(responseData, algorithmIdentifier(), sign(responseData, responderKey));
+        return DER.sequence(DER.encode(DER.ENUMERATED, new byte[]{0}), DER.contextSpecific(0, true,
+                DER.sequence(DER.objectIdentifier(BASIC_RESPONSE_OID), DER.octetString(basicResponse))));
+    }
+
+    private static byte[] algorithmIdentifier() {
+
+        return DER.sequence(DER.objectIdentifier(SHA256_WITH_RSA_OID), DER.nullValue());
+    }
+
+    private static byte[] sign(byte[] data, PrivateKey privateKey) throws Exception {
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(data);
+        byte[] signatureBytes = signature.sign();
+        byte[] bitString = new byte[signatureBytes.length + 1];
+        System.arraycopy(signatureBytes, 0, bitString, 1, signatureBytes.length);
+        return DER.encode(DER.BIT_STRING, bitString);
+    }
+
+    private static byte[] generalizedTime(long time) {
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return DER.encode(DER.GENERALIZED_TIME, format.format(new Date(time)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
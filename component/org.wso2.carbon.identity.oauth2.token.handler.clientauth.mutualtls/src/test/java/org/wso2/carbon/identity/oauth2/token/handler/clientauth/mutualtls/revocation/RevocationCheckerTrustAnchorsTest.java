@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.pki.CertificatePathValidatorTest;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParser;
+
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test class for the revocation checker of a tenant without a trust store. The trust store of the tenant is not
+ * configured in the identity.xml used by the tests.
+ */
+@WithCarbonHome
+@PrepareForTest(LogFactory.class)
+public class RevocationCheckerTrustAnchorsTest {
+
+    private static final String TENANT_DOMAIN = "notruststore.com";
+
+    private final Log log = mock(Log.class);
+    private X509Certificate[] certificateChain;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeClass
+    public void init() throws Exception {
+
+        mockStatic(LogFactory.class);
+        when(LogFactory.getLog(Matchers.any(Class.class))).thenReturn(mock(Log.class));
+        when(LogFactory.getLog(Matchers.anyString())).thenReturn(mock(Log.class));
+        when(LogFactory.getLog(RevocationChecker.class)).thenReturn(log);
+        certificateChain = new X509Certificate[]{
+                MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CLIENT_CERTIFICATE),
+                MutualTLSCertificateParser.parseCertificate(CertificatePathValidatorTest.CA_CERTIFICATE)};
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        Mockito.reset(log);
+    }
+
+    @DataProvider(name = "failurePolicyData")
+    public Object[][] failurePolicyData() {
+
+        return new Object[][]{
+                {RevocationConfig.HARD_FAIL, false},
+                {RevocationConfig.SOFT_FAIL, true},
+        };
+    }
+
+    @Test(dataProvider = "failurePolicyData")
+    public void testTenantWithoutTrustStore(String failurePolicy, boolean accepted) {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RevocationConfig.ENABLE, "true");
+        properties.put(RevocationConfig.FAILURE_POLICY, failurePolicy);
+        // The responder is never asked, since the issuer of the certificate cannot be verified.
+        properties.put(RevocationConfig.OCSP_RESPONDER_URL, "http://127.0.0.1:1/ocsp");
+        RevocationChecker revocationChecker = new RevocationChecker(new RevocationConfig(properties::get), null);
+
+        assertEquals(revocationChecker.isAccepted(certificateChain, TENANT_DOMAIN), accepted);
+        assertEquals(revocationChecker.isAccepted(certificateChain, TENANT_DOMAIN), accepted);
+
+        // The configuration error is reported once rather than on every token request.
+        if (RevocationConfig.HARD_FAIL.equals(failurePolicy)) {
+            Mockito.verify(log, Mockito.times(1)).error(Matchers.contains(TENANT_DOMAIN));
+            Mockito.verify(log, Mockito.never()).warn(Matchers.any());
+        } else {
+            Mockito.verify(log, Mockito.times(1)).warn(Matchers.contains(TENANT_DOMAIN));
+            Mockito.verify(log, Mockito.never()).error(Matchers.any());
+        }
+    }
+}
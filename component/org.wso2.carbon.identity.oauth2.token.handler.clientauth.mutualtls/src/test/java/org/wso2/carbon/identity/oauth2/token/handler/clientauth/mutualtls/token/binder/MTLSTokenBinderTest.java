@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.token.binder;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+
+import java.util.Optional;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for MTLSTokenBinder class.
+ */
+public class MTLSTokenBinderTest {
+
+    private static final String THUMBPRINT = "bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2";
+
+    private final MTLSTokenBinder mtlsTokenBinder = new MTLSTokenBinder();
+
+    private static OAuth2AccessTokenReqDTO getTokenReqDTO(String authenticatorType) {
+
+        OAuth2AccessTokenReqDTO oAuth2AccessTokenReqDTO = new OAuth2AccessTokenReqDTO();
+        OAuthClientAuthnContext oAuthClientAuthnContext = new OAuthClientAuthnContext();
+        oAuthClientAuthnContext.addParameter(CommonConstants.AUTHENTICATOR_TYPE_PARAM, authenticatorType);
+        oAuthClientAuthnContext.addParameter(CommonConstants.CERT_THUMBPRINT_SHA256_PARAM, THUMBPRINT);
+        oAuth2AccessTokenReqDTO.setoAuthClientAuthnContext(oAuthClientAuthnContext);
+        return oAuth2AccessTokenReqDTO;
+    }
+
+    @Test
+    public void testGetTokenBindingValue() {
+
+        assertEquals(mtlsTokenBinder.getTokenBindingValue(getTokenReqDTO(CommonConstants.AUTHENTICATOR_TYPE_MTLS)),
+                Optional.of(THUMBPRINT));
+        assertFalse(mtlsTokenBinder.getTokenBindingValue(getTokenReqDTO("basic")).isPresent());
+    }
+
+    @Test
+    public void testIsValidTokenBindingForRefreshRequest() {
+
+        OAuth2AccessTokenReqDTO oAuth2AccessTokenReqDTO = getTokenReqDTO(CommonConstants.AUTHENTICATOR_TYPE_MTLS);
+        assertTrue(mtlsTokenBinder.isValidTokenBinding(oAuth2AccessTokenReqDTO, DigestUtils.md5Hex(THUMBPRINT)));
+        assertFalse(mtlsTokenBinder.isValidTokenBinding(oAuth2AccessTokenReqDTO, DigestUtils.md5Hex("other")));
+        assertFalse(mtlsTokenBinder.isValidTokenBinding(oAuth2AccessTokenReqDTO, (String) null));
+    }
+
+    @Test
+    public void testIsCertificateBindingEnabled() {
+
+        OAuthTokenReqMessageContext tokReqMsgCtx =
+                new OAuthTokenReqMessageContext(getTokenReqDTO(CommonConstants.AUTHENTICATOR_TYPE_MTLS));
+        assertFalse(MTLSTokenBinder.isCertificateBindingEnabled(tokReqMsgCtx));
+
+        OAuthAppDO oAuthAppDO = new OAuthAppDO();
+        oAuthAppDO.setTokenBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+        tokReqMsgCtx.addProperty("OAuthAppDO", oAuthAppDO);
+        assertTrue(MTLSTokenBinder.isCertificateBindingEnabled(tokReqMsgCtx));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for CertificateFingerprint class.
+ */
+public class CertificateFingerprintTest {
+
+    @Test
+    public void testFingerprints() throws Exception {
+
+        X509Certificate certificate =
+                MutualTLSCertificateParser.parseCertificate(MutualTLSCertificateParserTest.PEM_CERTIFICATE);
+
+        assertEquals(CertificateFingerprint.sha1(certificate),
+                MessageDigest.getInstance("SHA-1").digest(certificate.getEncoded()));
+        assertEquals(CertificateFingerprint.sha256(certificate),
+                MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+
+        // Fingerprints are computed once per certificate holder.
+        MutualTLSCertificateHolder certificateHolder = new MutualTLSCertificateHolder(certificate);
+        assertSame(certificateHolder.getSHA256Thumbprint(), certificateHolder.getSHA256Thumbprint());
+        assertSame(certificateHolder.getSHA1Thumbprint(), certificateHolder.getSHA1Thumbprint());
+        assertEquals(certificateHolder.getSHA256Thumbprint(), CertificateFingerprint.sha256(certificate));
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+
+        X509Certificate certificate =
+                MutualTLSCertificateParser.parseCertificate(MutualTLSCertificateParserTest.PEM_CERTIFICATE);
+        X509Certificate sameCertificate =
+                MutualTLSCertificateParser.parseCertificate(MutualTLSCertificateParserTest.PEM_CERTIFICATE);
+
+        assertTrue(CertificateFingerprint.matches(CertificateFingerprint.sha256(certificate),
+                CertificateFingerprint.sha256(sameCertificate)));
+        assertFalse(CertificateFingerprint.matches(CertificateFingerprint.sha256(certificate),
+                CertificateFingerprint.sha1(certificate)));
+        assertFalse(CertificateFingerprint.matches(CertificateFingerprint.sha256(certificate), null));
+    }
+
+    @Test
+    public void testThumbPrintAdapter() throws Exception {
+
+        X509Certificate certificate =
+                MutualTLSCertificateParser.parseCertificate(MutualTLSCertificateParserTest.PEM_CERTIFICATE);
+        String hexThumbprint = MutualTLSUtil.hexify(
+                MessageDigest.getInstance("SHA-1").digest(certificate.getEncoded()));
+
+        assertEquals(MutualTLSUtil.getThumbPrint(certificate), Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(hexThumbprint.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import com.nimbusds.jose.util.X509CertUtils;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.net.URLEncoder;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test class for MutualTLSCertificateParser and MutualTLSCertificateHolder classes.
+ */
+public class MutualTLSCertificateParserTest {
+
+    private static final String CERTIFICATE_BODY =
+            "MIIDCjCCAfKgAwIBAgIJAKT9tsJt8I/oMA0GCSqGSIb3DQEBCwUAMDIxCzAJBgNV\n" +
+            "BAYTAkxLMQ0wCwYDVQQKEwRXU08yMRQwEgYDVQQDEwttdGxzLWNsaWVudDAgFw0y\n" +
+            "NjEwMTgyMDI0NTBaGA8yMTI2MDkyNDIwMjQ1MFowMjELMAkGA1UEBhMCTEsxDTAL\n" +
+            "BgNVBAoTBFdTTzIxFDASBgNVBAMTC210bHMtY2xpZW50MIIBIjANBgkqhkiG9w0B\n" +
+            "AQEFAAOCAQ8AMIIBCgKCAQEA1ZT3fBk1REhHD7mllmSAa9DQsV+yOUksv0cIjd6f\n" +
+            "4CO9vpwMspJlub+2faW0xEQJX7OHmmIjTGSvnSfdFixoEikiwsWrubldQQnmggwO\n" +
+            "LEuMinwVxxu50C4Qz7ozKEw4vEHo0I5/LAMLUldciayrIdFaPqQWY8/8ENH4m6P/\n" +
+            "8eVaTz7sodvLiKkPvA9x9DdSso+GezGXX3+pF+aqB8kmoR7UIPOjim3huudXICqX\n" +
+            "IEOr198ibY72R37TCQvZChtmaKnUJO40+gLo85HzDE5exDDH+VztR0JaVRyGnL3i\n" +
+            "Ual3BGFErMAaNDcOKyEFdXDi7l7uYJiUr6IheRdwL9T9jwIDAQABoyEwHzAdBgNV\n" +
+            "HQ4EFgQUtOzB44Z0TDEQp9jy9M++kodHJo0wDQYJKoZIhvcNAQELBQADggEBADzl\n" +
+            "t+4wrZdxJfdTLcAnvkYFN5O06hFOzsFzWMBXxbbX+O/QPqqhJ168hyM8tDSG8ZDt\n" +
+            "7rZULWtFiAF+tUXLWgI+EwY1aJ2UqKt/6/YMVbrw3FCXsDNLbWogRQHZgLNvesLx\n" +
+            "LIj7g8WO5cJB5CjFnL6HoPrd2JLdydlNWW871kl9KoAPhLr77P8Xk9ZDlKKb9kPF\n" +
+            "tZF33UKX1LJtaHJJpuyLWKG2j4BXta0ga7GBb/479c42NreP198wG+FJ/3VqmKD/\n" +
+            "BMxYOBsWQoIIfN10hdEIFM7uRsQOn6VVfsDH6b56wULcEDYTdrgWisaqDLBLnS2s\n" +
+            "v5DMQ9EF/ArL6pDSbSo=";
+
+    static final String PEM_CERTIFICATE = "-----BEGIN CERTIFICATE-----\n" + CERTIFICATE_BODY +
+            "\n-----END CERTIFICATE-----\n";
+
+    @DataProvider(name = "certificateHeaderData")
+    public Object[][] certificateHeaderData() throws Exception {
+
+        String urlEncodedPem = URLEncoder.encode(PEM_CERTIFICATE, "UTF-8").replace("+", "%20");
+        return new Object[][]{
+                // Base64 body only.
+                {CERTIFICATE_BODY},
+                // Multi-line PEM.
+                {PEM_CERTIFICATE},
+                // Single line PEM without separators.
+                {PEM_CERTIFICATE.replace("\n", "")},
+                // Single line PEM with line breaks replaced by spaces.
+                {PEM_CERTIFICATE.replace("\n", " ")},
+                // URL-encoded PEM.
+                {urlEncodedPem},
+                // Envoy x-forwarded-client-cert header.
+                {"By=spiffe://cluster.local/ns/default/sa/is;Hash=468ed33be74eee6556d90c0149c1309e9ba61d6425303443c0" +
+                        "748a02dd8de688;Cert=\"" + urlEncodedPem + "\";Subject=\"CN=mtls-client,O=WSO2,C=LK\""},
+        };
+    }
+
+    @Test(dataProvider = "certificateHeaderData")
+    public void testParseCertificate(String headerValue) throws Exception {
+
+        X509Certificate expected = MutualTLSCertificateParser.generateCertificate(
+                Base64.getMimeDecoder().decode(CERTIFICATE_BODY));
+        X509Certificate certificate = MutualTLSCertificateParser.parseCertificate(headerValue);
+        assertEquals(certificate, expected);
+
+        MutualTLSCertificateHolder certificateHolder = new MutualTLSCertificateHolder(certificate);
+        assertEquals(certificateHolder.getSHA256ThumbprintBase64URL(),
+                X509CertUtils.computeSHA256Thumbprint(expected).toString());
+        assertEquals(certificateHolder.getSHA1Thumbprint().length, 20);
+    }
+
+    @DataProvider(name = "invalidCertificateHeaderData")
+    public Object[][] invalidCertificateHeaderData() {
+
+        return new Object[][]{
+                {""},
+                {"-----BEGIN CERTIFICATE-----#$%-----END CERTIFICATE-----"},
+                {"-----BEGIN CERTIFICATE-----%2-----END CERTIFICATE-----"},
+                {"-----BEGIN CERTIFICATE-----\n-----END CERTIFICATE-----"},
+        };
+    }
+
+    @Test(dataProvider = "invalidCertificateHeaderData", expectedExceptions = CertificateException.class)
+    public void testParseInvalidCertificate(String headerValue) throws Exception {
+
+        MutualTLSCertificateParser.parseCertificate(headerValue);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.dao.MutualTLSClientIdDAO;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateParserTest.PEM_CERTIFICATE;
+
+/**
+ * Test class for MutualTLSClientIdResolver class.
+ */
+@WithCarbonHome
+@WithRealmService
+public class MutualTLSClientIdResolverTest {
+
+    private static final String CLIENT_ID = "someclientid";
+    private static final String OTHER_CLIENT_ID = "otherclientid";
+
+    private MutualTLSClientIdDAO clientIdDAO;
+    private MutualTLSClientIdDAO defaultClientIdDAO;
+    private MutualTLSCertificateHolder certificateHolder;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        certificateHolder =
+                new MutualTLSCertificateHolder(MutualTLSCertificateParser.parseCertificate(PEM_CERTIFICATE));
+        clientIdDAO = mock(MutualTLSClientIdDAO.class);
+        when(clientIdDAO.getClientIds(anyString(), anyString())).thenReturn(Collections.<String>emptyList());
+        defaultClientIdDAO = Whitebox.getInternalState(MutualTLSClientIdResolver.class, "clientIdDAO");
+        Whitebox.setInternalState(MutualTLSClientIdResolver.class, "clientIdDAO", clientIdDAO);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        clearCacheEntries();
+        Whitebox.setInternalState(MutualTLSClientIdResolver.class, "clientIdDAO", defaultClientIdDAO);
+    }
+
+    @Test
+    public void testResolveClientIdFromPersistedIndex() throws Exception {
+
+        when(clientIdDAO.getClientIds(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                certificateHolder.getSHA256ThumbprintBase64URL())).thenReturn(Collections.singletonList(CLIENT_ID));
+
+        assertEquals(MutualTLSClientIdResolver.resolveClientId(certificateHolder), Optional.of(CLIENT_ID));
+        // The cached lookup is used until it is evicted, after which the persisted index is looked up again.
+        assertEquals(MutualTLSClientIdResolver.resolveClientId(certificateHolder), Optional.of(CLIENT_ID));
+        verify(clientIdDAO, times(1)).getClientIds(eq(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY),
+                anyString());
+        clearCacheEntries();
+        assertEquals(MutualTLSClientIdResolver.resolveClientId(certificateHolder), Optional.of(CLIENT_ID));
+        verify(clientIdDAO, times(2)).getClientIds(eq(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY),
+                anyString());
+    }
+
+    @Test
+    public void testResolveClientIdBySubjectDN() throws Exception {
+
+        when(clientIdDAO.getClientIds(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY, getSubjectDN()))
+                .thenReturn(Collections.singletonList(CLIENT_ID));
+
+        assertEquals(MutualTLSClientIdResolver.resolveClientId(certificateHolder), Optional.of(CLIENT_ID));
+    }
+
+    @Test
+    public void testResolveClientIdOfSharedCertificate() throws Exception {
+
+        when(clientIdDAO.getClientIds(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                certificateHolder.getSHA256ThumbprintBase64URL())).thenReturn(Arrays.asList(CLIENT_ID,
+                OTHER_CLIENT_ID));
+        when(clientIdDAO.getClientIds(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY, getSubjectDN()))
+                .thenReturn(Collections.singletonList(CLIENT_ID));
+
+        // An ambiguous thumbprint is not resolved by the subject DN either.
+        assertFalse(MutualTLSClientIdResolver.resolveClientId(certificateHolder).isPresent());
+        // The certificate stays ambiguous after the cached lookup is evicted.
+        clearCacheEntries();
+        assertFalse(MutualTLSClientIdResolver.resolveClientId(certificateHolder).isPresent());
+    }
+
+    @Test
+    public void testAddClientId() throws Exception {
+
+        assertFalse(MutualTLSClientIdResolver.resolveClientId(certificateHolder).isPresent());
+
+        MutualTLSClientIdResolver.addClientId(certificateHolder, CLIENT_ID);
+        assertEquals(MutualTLSClientIdResolver.resolveClientId(certificateHolder), Optional.of(CLIENT_ID));
+
+        MutualTLSClientIdResolver.addClientId(certificateHolder, OTHER_CLIENT_ID);
+        assertFalse(MutualTLSClientIdResolver.resolveClientId(certificateHolder).isPresent());
+    }
+
+    @Test
+    public void testAddClientIdOfPersistedCertificate() throws Exception {
+
+        when(clientIdDAO.getClientIds(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                certificateHolder.getSHA256ThumbprintBase64URL())).thenReturn(Collections.singletonList(CLIENT_ID));
+
+        // A certificate indexed for another client, which is not cached yet, is merged with the persisted index.
+        MutualTLSClientIdResolver.addClientId(certificateHolder, OTHER_CLIENT_ID);
+        assertFalse(MutualTLSClientIdResolver.resolveClientId(certificateHolder).isPresent());
+    }
+
+    private String getSubjectDN() {
+
+        return MutualTLSClientIdResolver.getSubjectDN(certificateHolder.getCertificate().getSubjectX500Principal());
+    }
+
+    private void clearCacheEntries() throws Exception {
+
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_THUMBPRINT_PROPERTY,
+                certificateHolder.getSHA256ThumbprintBase64URL());
+        MutualTLSClientIdResolver.clearCacheEntries(CommonConstants.MTLS_CERTIFICATE_SUBJECT_DN_PROPERTY,
+                getSubjectDN());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for MutualTLSConfig class.
+ */
+public class MutualTLSConfigTest {
+
+    @Test
+    public void testDefaults() {
+
+        MutualTLSConfig config = new MutualTLSConfig(new HashMap<String, String>()::get);
+
+        assertNull(config.getClientCertificateHeader());
+        assertFalse(config.isClientIdResolutionEnabled());
+        assertFalse(config.isAuthenticationResultCacheEnabled());
+        assertEquals(config.getAuthenticationResultCacheTTL(), CommonConstants.DEFAULT_AUTHENTICATION_RESULT_CACHE_TTL);
+    }
+
+    @Test
+    public void testConfiguredValues() {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(CommonConstants.MTLS_AUTH_HEADER, "x-wso2-mtls-cert");
+        properties.put(CommonConstants.ENABLE_CLIENT_ID_RESOLUTION, "true");
+        properties.put(CommonConstants.ENABLE_AUTHENTICATION_RESULT_CACHE, "true");
+        properties.put(CommonConstants.AUTHENTICATION_RESULT_CACHE_TTL, " 60 ");
+        MutualTLSConfig config = new MutualTLSConfig(properties::get);
+
+        assertEquals(config.getClientCertificateHeader(), "x-wso2-mtls-cert");
+        assertTrue(config.isClientIdResolutionEnabled());
+        assertTrue(config.isAuthenticationResultCacheEnabled());
+        assertEquals(config.getAuthenticationResultCacheTTL(), 60);
+    }
+
+    @Test
+    public void testInvalidValues() {
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(CommonConstants.MTLS_AUTH_HEADER, " ");
+        properties.put(CommonConstants.AUTHENTICATION_RESULT_CACHE_TTL, "five minutes");
+        MutualTLSConfig config = new MutualTLSConfig(properties::get);
+
+        assertNull(config.getClientCertificateHeader());
+        assertEquals(config.getAuthenticationResultCacheTTL(), CommonConstants.DEFAULT_AUTHENTICATION_RESULT_CACHE_TTL);
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.validators;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.cache.MutualTLSIssuerCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.listener.MutualTLSIdentityProviderMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidationMessageContext;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.doReturn;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.utils.multitenancy.MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+
+/**
+ * Test class for MTLSTokenValidator class.
+ */
+@WithCarbonHome
+@PrepareForTest({IdentityProviderManager.class, IdentityApplicationManagementUtil.class,
+        OAuthServerConfiguration.class})
+public class MTLSTokenValidatorTest extends PowerMockTestCase {
+
+    private static final String THUMBPRINT = "bwcK0esc3ACC3DB2Y5_lESsXE8o9ltc05O89jdN-dg2";
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+
+    private final MTLSTokenValidator mtlsTokenValidator = new MTLSTokenValidator();
+    private KeyPair rsaKeyPair;
+    private KeyPair otherRSAKeyPair;
+    private KeyPair ecKeyPair;
+    private IdentityProviderManager identityProviderManager;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator rsaKeyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaKeyPairGenerator.initialize(2048);
+        rsaKeyPair = rsaKeyPairGenerator.generateKeyPair();
+        otherRSAKeyPair = rsaKeyPairGenerator.generateKeyPair();
+        KeyPairGenerator ecKeyPairGenerator = KeyPairGenerator.getInstance("EC");
+        ecKeyPairGenerator.initialize(256);
+        ecKeyPair = ecKeyPairGenerator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        MutualTLSIssuerCache.getInstance().clearCacheEntry(SUPER_TENANT_DOMAIN_NAME);
+
+        mockStatic(OAuthServerConfiguration.class);
+        OAuthServerConfiguration oAuthServerConfiguration = mock(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(oAuthServerConfiguration);
+        when(oAuthServerConfiguration.getTimeStampSkewInSeconds()).thenReturn(300L);
+
+        mockStatic(IdentityProviderManager.class);
+        identityProviderManager = mock(IdentityProviderManager.class);
+        when(IdentityProviderManager.getInstance()).thenReturn(identityProviderManager);
+        IdentityProvider residentIdentityProvider = getResidentIdentityProvider();
+        when(identityProviderManager.getResidentIdP(anyString())).thenReturn(residentIdentityProvider);
+    }
+
+    private static AccessTokenDO getBoundAccessTokenDO() {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        TokenBinding tokenBinding = new TokenBinding();
+        tokenBinding.setBindingType(CommonConstants.MTLS_TOKEN_BINDING_TYPE);
+        tokenBinding.setBindingValue(THUMBPRINT);
+        accessTokenDO.setTokenBinding(tokenBinding);
+        accessTokenDO.setScope(new String[]{"openid"});
+        return accessTokenDO;
+    }
+
+    private static AccessTokenDO getScopeBoundAccessTokenDO() {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setScope(new String[]{"openid", "x5t#SHA256:" + THUMBPRINT});
+        return accessTokenDO;
+    }
+
+    @DataProvider(name = "validateAccessTokenData")
+    public Object[][] validateAccessTokenData() {
+
+        return new Object[][]{
+                {getBoundAccessTokenDO(), THUMBPRINT, true},
+                {getBoundAccessTokenDO(), "otherThumbprint", false},
+                {getBoundAccessTokenDO(), null, false},
+                {getScopeBoundAccessTokenDO(), THUMBPRINT, true},
+                {getScopeBoundAccessTokenDO(), "otherThumbprint", false},
+                {new AccessTokenDO(), THUMBPRINT, false},
+        };
+    }
+
+    @Test(dataProvider = "validateAccessTokenData")
+    public void testValidateAccessToken(AccessTokenDO accessTokenDO, String presentedThumbprint, boolean expected)
+            throws IdentityOAuth2Exception {
+
+        OAuth2TokenValidationRequestDTO requestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = requestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier("c2a2a5f5-4f8a-3b3d-9f3a-7c4e1d2b6a90");
+        accessToken.setTokenType(CommonConstants.MTLS_TOKEN_TYPE);
+        requestDTO.setAccessToken(accessToken);
+        if (presentedThumbprint != null) {
+            OAuth2TokenValidationRequestDTO.TokenValidationContextParam contextParam =
+                    requestDTO.new TokenValidationContextParam();
+            contextParam.setKey(CommonConstants.CERT_THUMBPRINT_SHA256);
+            contextParam.setValue(presentedThumbprint);
+            requestDTO.setContext(new OAuth2TokenValidationRequestDTO.TokenValidationContextParam[]{contextParam});
+        }
+        OAuth2TokenValidationMessageContext messageContext =
+                new OAuth2TokenValidationMessageContext(requestDTO, new OAuth2TokenValidationResponseDTO());
+        messageContext.addProperty("AccessTokenDO", accessTokenDO);
+
+        assertEquals(mtlsTokenValidator.validateAccessToken(messageContext), expected);
+    }
+
+    @DataProvider(name = "signerKeyData")
+    public Object[][] signerKeyData() {
+
+        return new Object[][]{
+                {JWSAlgorithm.RS256},
+                {JWSAlgorithm.ES256},
+        };
+    }
+
+    @Test(dataProvider = "signerKeyData")
+    public void testValidateJWTAccessToken(JWSAlgorithm algorithm) throws Exception {
+
+        KeyPair keyPair = JWSAlgorithm.ES256.equals(algorithm) ? ecKeyPair : rsaKeyPair;
+        setSignerCertificate(keyPair);
+
+        // The token is bound through its cnf claim, hence the stored token does not hold a binding.
+        assertTrue(mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(keyPair, algorithm, ISSUER, THUMBPRINT, TimeUnit.HOURS.toMillis(1)), THUMBPRINT,
+                new AccessTokenDO())));
+        assertFalse(mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(keyPair, algorithm, ISSUER, THUMBPRINT, TimeUnit.HOURS.toMillis(1)), "otherThumbprint",
+                new AccessTokenDO())));
+    }
+
+    @Test
+    public void testValidateJWTAccessTokenSignedByOtherKey() throws Exception {
+
+        setSignerCertificate(rsaKeyPair);
+        assertFalse(mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(otherRSAKeyPair, JWSAlgorithm.RS256, ISSUER, THUMBPRINT, TimeUnit.HOURS.toMillis(1)),
+                THUMBPRINT, getBoundAccessTokenDO())));
+    }
+
+    @Test
+    public void testValidateExpiredJWTAccessToken() throws Exception {
+
+        setSignerCertificate(rsaKeyPair);
+        assertFalse(mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(rsaKeyPair, JWSAlgorithm.RS256, ISSUER, THUMBPRINT, -TimeUnit.HOURS.toMillis(1)),
+                THUMBPRINT, getBoundAccessTokenDO())));
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
+    public void testValidateJWTAccessTokenOfOtherIssuer() throws Exception {
+
+        setSignerCertificate(rsaKeyPair);
+        mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(rsaKeyPair, JWSAlgorithm.RS256, "https://other.example.com", THUMBPRINT,
+                        TimeUnit.HOURS.toMillis(1)), THUMBPRINT, getBoundAccessTokenDO()));
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
+    public void testValidateJWTAccessTokenWithUnsupportedAlgorithm() throws Exception {
+
+        // A token signed with an EC key cannot be verified with the RSA certificate of the issuer.
+        setSignerCertificate(rsaKeyPair);
+        mtlsTokenValidator.validateAccessToken(getMessageContext(
+                createToken(ecKeyPair, JWSAlgorithm.ES256, ISSUER, THUMBPRINT, TimeUnit.HOURS.toMillis(1)),
+                THUMBPRINT, getBoundAccessTokenDO()));
+    }
+
+    @Test
+    public void testIssuerCachedUntilResidentIdPUpdate() throws Exception {
+
+        setSignerCertificate(rsaKeyPair);
+        String token = createToken(rsaKeyPair, JWSAlgorithm.RS256, ISSUER, THUMBPRINT, TimeUnit.HOURS.toMillis(1));
+        assertTrue(mtlsTokenValidator.validateAccessToken(getMessageContext(token, THUMBPRINT,
+                getBoundAccessTokenDO())));
+        assertTrue(mtlsTokenValidator.validateAccessToken(getMessageContext(token, THUMBPRINT,
+                getBoundAccessTokenDO())));
+        verify(identityProviderManager, times(1)).getResidentIdP(SUPER_TENANT_DOMAIN_NAME);
+
+        new MutualTLSIdentityProviderMgtListener().doPostUpdateResidentIdP(getResidentIdentityProvider(),
+                SUPER_TENANT_DOMAIN_NAME);
+        assertTrue(mtlsTokenValidator.validateAccessToken(getMessageContext(token, THUMBPRINT,
+                getBoundAccessTokenDO())));
+        verify(identityProviderManager, times(2)).getResidentIdP(SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    private void setSignerCertificate(KeyPair keyPair) throws Exception {
+
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getPublicKey()).thenReturn(keyPair.getPublic());
+        spy(IdentityApplicationManagementUtil.class);
+        doReturn(certificate).when(IdentityApplicationManagementUtil.class, "decodeCertificate", anyString());
+    }
+
+    private IdentityProvider getResidentIdentityProvider() {
+
+        Property issuerProperty = new Property();
+        issuerProperty.setName("IdPEntityId");
+        issuerProperty.setValue(ISSUER);
+        FederatedAuthenticatorConfig oidcAuthenticatorConfig = new FederatedAuthenticatorConfig();
+        oidcAuthenticatorConfig.setName(IdentityApplicationConstants.Authenticator.OIDC.NAME);
+        oidcAuthenticatorConfig.setProperties(new Property[]{issuerProperty});
+        IdentityProvider residentIdentityProvider = mock(IdentityProvider.class);
+        when(residentIdentityProvider.getFederatedAuthenticatorConfigs())
+                .thenReturn(new FederatedAuthenticatorConfig[]{oidcAuthenticatorConfig});
+        when(residentIdentityProvider.getCertificate()).thenReturn("certificate");
+        return residentIdentityProvider;
+    }
+
+    private OAuth2TokenValidationMessageContext getMessageContext(String token, String presentedThumbprint,
+                                                                  AccessTokenDO accessTokenDO) {
+
+        OAuth2TokenValidationRequestDTO requestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = requestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(token);
+        accessToken.setTokenType(CommonConstants.MTLS_TOKEN_TYPE);
+        requestDTO.setAccessToken(accessToken);
+        OAuth2TokenValidationRequestDTO.TokenValidationContextParam contextParam =
+                requestDTO.new TokenValidationContextParam();
+        contextParam.setKey(CommonConstants.CERT_THUMBPRINT_SHA256);
+        contextParam.setValue(presentedThumbprint);
+        requestDTO.setContext(new OAuth2TokenValidationRequestDTO.TokenValidationContextParam[]{contextParam});
+        OAuth2TokenValidationMessageContext messageContext =
+                new OAuth2TokenValidationMessageContext(requestDTO, new OAuth2TokenValidationResponseDTO());
+        messageContext.addProperty("AccessTokenDO", accessTokenDO);
+        return messageContext;
+    }
+
+    private String createToken(KeyPair keyPair, JWSAlgorithm algorithm, String issuer, String thumbprint,
+                               long validityPeriod) throws Exception {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("admin")
+                .audience("client")
+                .jwtID(UUID.randomUUID().toString())
+                .expirationTime(new Date(System.currentTimeMillis() + validityPeriod))
+                .claim(CommonConstants.CONFIRMATION_CLAIM_ATTRIBUTE,
+                        Collections.singletonMap(CommonConstants.CERT_THUMBPRINT_SHA256, thumbprint))
+                .build();
+        JWSSigner signer = JWSAlgorithm.ES256.equals(algorithm) ?
+                new ECDSASigner((ECPrivateKey) keyPair.getPrivate()) : new RSASSASigner(keyPair.getPrivate());
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(algorithm), claimsSet);
+        signedJWT.sign(signer);
+        return signedJWT.serialize();
+    }
+}
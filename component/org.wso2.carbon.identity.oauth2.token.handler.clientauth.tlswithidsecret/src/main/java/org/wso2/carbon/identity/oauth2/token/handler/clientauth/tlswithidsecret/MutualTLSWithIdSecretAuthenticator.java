@@ -20,19 +20,25 @@ package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
-import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.client.authentication.BasicAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthnException;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.revocation.RevocationChecker;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CertificateFingerprint;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CommonConstants;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.MutualTLSCertificateHolder;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache.CertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache.CertificateThumbprintCacheEntry;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache.CertificateThumbprintCacheKey;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util.MutualTLSUtil;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util.MutualTLSWithIdSecretConfig;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import javax.servlet.http.HttpServletRequest;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
@@ -48,14 +54,28 @@ import static org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithid
  */
 public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthenticator {
 
-    public static final String MANDATE_MUTUAL_SSL = "MandateMutualSSL";
+    public static final String MANDATE_MUTUAL_SSL = MutualTLSWithIdSecretConfig.MANDATE_MUTUAL_SSL;
     private static Log log = LogFactory.getLog(MutualTLSWithIdSecretAuthenticator.class);
 
+    private final boolean certificateComparisonOverridden = isCertificateComparisonOverridden(getClass());
+
     public boolean authenticateClient(HttpServletRequest request, Map<String, List> bodyParams,
                                       OAuthClientAuthnContext oAuthClientAuthnContext)
             throws OAuthClientAuthnException {
 
-        boolean isMutualSSLMandated ;
+        if (getConfig().isCertificateFirst()) {
+            // Reject requests without a matching client certificate before the client secret is verified, so that
+            // unauthenticated requests do not cost a secret hash computation.
+            if (StringUtils.isEmpty(oAuthClientAuthnContext.getClientId())) {
+                oAuthClientAuthnContext.setClientId(this.getClientId(request, bodyParams, oAuthClientAuthnContext));
+            }
+            if (StringUtils.isEmpty(oAuthClientAuthnContext.getClientId()) ||
+                    !authenticateClientCertificate(request, oAuthClientAuthnContext)) {
+                return false;
+            }
+            return super.authenticateClient(request, bodyParams, oAuthClientAuthnContext);
+        }
+
         if (!super.authenticateClient(request, bodyParams, oAuthClientAuthnContext)) {
             return false;
         }
@@ -63,31 +83,39 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
         if (StringUtils.isEmpty(oAuthClientAuthnContext.getClientId())) {
             oAuthClientAuthnContext.setClientId(this.getClientId(request, bodyParams, oAuthClientAuthnContext));
         }
+        return authenticateClientCertificate(request, oAuthClientAuthnContext);
+    }
+
+    /**
+     * Validate the certificate presented at TLS hand shake against the certificate registered for the client.
+     *
+     * @param request                 HttpServletRequest which is the incoming request.
+     * @param oAuthClientAuthnContext Client authentication context holding the client ID.
+     * @return Whether the client certificate was successfully validated or not.
+     * @throws OAuthClientAuthnException If an error occurs while validating the certificate.
+     */
+    private boolean authenticateClientCertificate(HttpServletRequest request,
+                                                  OAuthClientAuthnContext oAuthClientAuthnContext)
+            throws OAuthClientAuthnException {
 
         try {
 
             String tenantDomain = OAuth2Util.getTenantDomainOfOauthApp(oAuthClientAuthnContext.getClientId());
-            X509Certificate registeredCert = null;
+            CertificateThumbprintCacheEntry registeredCert;
             try {
-                registeredCert = (X509Certificate) OAuth2Util
-                        .getX509CertOfOAuthApp(oAuthClientAuthnContext.getClientId(), tenantDomain);
+                registeredCert = getRegisteredCertificate(oAuthClientAuthnContext.getClientId(), tenantDomain);
             } catch (IdentityOAuth2Exception e) {
                 if (e.getCause() instanceof CertificateException) {
                     throw e;
                 } else {
-                    isMutualSSLMandated = Boolean.parseBoolean(getMandateMutualSSLProperty());
-                    //MandateMutualSSL is enabled if the configuration is not available in identity.xml
-                    if (getMandateMutualSSLProperty() == null) {
-                        isMutualSSLMandated = true;
-                    }
-                    if (isMutualSSLMandated) {
+                    if (getConfig().isMutualSSLMandated()) {
                         log.error("Mutual SSL is mandated from the property. Client certificate is not configured for" +
                                 " the app with client id: " + oAuthClientAuthnContext.getClientId() + ". Therefore " +
                                 "authentication failed.");
                         return false;
                     } else {
-                        // This means certificate is not configured in service provider. In that case basic authentication
-                        // would be performed
+                        // This means certificate is not configured in service provider. In that case basic
+                        // authentication would be performed
                         if (log.isDebugEnabled()) {
                             log.debug("Error while retrieving configured certificate.", e);
                             log.debug("Client certificate is not configured for the app with client id: " +
@@ -103,20 +131,27 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
                         "certificate.");
             }
 
-            X509Certificate requestCert;
+            X509Certificate[] requestCertChain;
             Object certObject = request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE);
             if (certObject instanceof X509Certificate[]) {
-                X509Certificate[] cert = (X509Certificate[]) certObject;
-                requestCert = cert[0];
+                requestCertChain = (X509Certificate[]) certObject;
             } else if (certObject instanceof X509Certificate) {
-                requestCert = (X509Certificate) certObject;
+                requestCertChain = new X509Certificate[]{(X509Certificate) certObject};
             } else {
                 log.error("Could not find client certificate in required format in the request for client: " +
                         oAuthClientAuthnContext.getClientId());
                 return false;
             }
 
-            return authenticate(registeredCert, requestCert);
+            if (!authenticate(registeredCert, getCertificateHolder(request, requestCertChain))) {
+                return false;
+            }
+            if (!RevocationChecker.getInstance().isAccepted(requestCertChain, tenantDomain)) {
+                log.error("Client certificate of the client: " + oAuthClientAuthnContext.getClientId() + " is " +
+                        "rejected by the revocation check.");
+                return false;
+            }
+            return true;
 
         } catch (IdentityOAuth2Exception e) {
             throw new OAuthClientAuthnException(OAuth2ErrorCodes.SERVER_ERROR, "Error occurred while retrieving " +
@@ -131,11 +166,101 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
 
     }
 
-    private String getMandateMutualSSLProperty() {
+    /**
+     * Get the certificate registered for the client. The SHA-1 thumbprint of the registered certificate is indexed
+     * by client ID so that the registered certificate is retrieved, decoded and hashed only once.
+     *
+     * @param clientId     Client ID of the OAuth client.
+     * @param tenantDomain Tenant domain of the OAuth client.
+     * @return Cache entry holding the registered certificate and its thumbprint.
+     * @throws IdentityOAuth2Exception If the registered certificate cannot be retrieved.
+     */
+    private CertificateThumbprintCacheEntry getRegisteredCertificate(String clientId, String tenantDomain)
+            throws IdentityOAuth2Exception {
+
+        CertificateThumbprintCacheKey cacheKey = new CertificateThumbprintCacheKey(clientId, tenantDomain);
+        CertificateThumbprintCacheEntry cacheEntry =
+                CertificateThumbprintCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry != null && cacheEntry.getThumbprint() != null) {
+            return cacheEntry;
+        }
+
+        X509Certificate registeredCert = (X509Certificate) OAuth2Util.getX509CertOfOAuthApp(clientId, tenantDomain);
+        if (registeredCert == null) {
+            throw new IdentityOAuth2Exception("Public certificate is not configured for the client: " + clientId);
+        }
+        try {
+            cacheEntry = new CertificateThumbprintCacheEntry(registeredCert,
+                    MutualTLSUtil.getThumbPrintBytes(registeredCert));
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            throw new IdentityOAuth2Exception("Error occurred while generating the thumbprint of the public " +
+                    "certificate of the client: " + clientId, e);
+        }
+        CertificateThumbprintCache.getInstance().addToCache(cacheKey, cacheEntry);
+        return cacheEntry;
+    }
+
+    /**
+     * Get the holder of the certificate presented at TLS hand shake. The holder published in the request by the
+     * mutual TLS authenticator is reused if it holds the same certificate, so that its thumbprints are computed once
+     * per request.
+     *
+     * @param request          HttpServletRequest which is the incoming request.
+     * @param requestCertChain Certificate chain presented at TLS hand shake.
+     * @return Certificate holder.
+     */
+    private MutualTLSCertificateHolder getCertificateHolder(HttpServletRequest request,
+                                                            X509Certificate[] requestCertChain) {
 
-        return IdentityUtil.readEventListenerProperty
-                (AbstractIdentityHandler.class.getName(), this.getClass().getName()).getProperties().
-                getProperty(MANDATE_MUTUAL_SSL);
+        Object holder = request.getAttribute(CommonConstants.CLIENT_CERTIFICATE_HOLDER);
+        if (holder instanceof MutualTLSCertificateHolder &&
+                ((MutualTLSCertificateHolder) holder).getCertificate() == requestCertChain[0]) {
+            return (MutualTLSCertificateHolder) holder;
+        }
+        MutualTLSCertificateHolder certificateHolder = new MutualTLSCertificateHolder(requestCertChain);
+        request.setAttribute(CommonConstants.CLIENT_CERTIFICATE_HOLDER, certificateHolder);
+        return certificateHolder;
+    }
+
+    /**
+     * Authenticate the client by comparing the thumbprint of the registered certificate against the thumbprint of
+     * the certificate presented at TLS hand shake. Subclasses overriding
+     * {@link #authenticate(X509Certificate, X509Certificate)} are handed the registered certificate instead.
+     *
+     * @param registeredCert    Cache entry holding the registered certificate and its thumbprint.
+     * @param certificateHolder Holder of the certificate presented to server during TLS hand shake.
+     * @return Whether the client was successfully authenticated or not.
+     * @throws OAuthClientAuthnException If the thumbprint of the presented certificate cannot be generated.
+     */
+    private boolean authenticate(CertificateThumbprintCacheEntry registeredCert,
+                                 MutualTLSCertificateHolder certificateHolder) throws OAuthClientAuthnException {
+
+        if (certificateComparisonOverridden) {
+            return authenticate(registeredCert.getCertificate(), certificateHolder.getCertificate());
+        }
+        try {
+            if (MessageDigest.isEqual(registeredCert.getThumbprint(), certificateHolder.getSHA1Thumbprint())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client certificate thumbprint matched with the registered certificate thumbprint.");
+                }
+                return true;
+            }
+            log.error("Client certificate thumbprint did not match with the registered certificate thumbprint.");
+            return false;
+        } catch (CertificateEncodingException e) {
+            throw new OAuthClientAuthnException(OAuth2ErrorCodes.INVALID_GRANT, "Error occurred while " +
+                    "generating certificate thumbprint. Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the settings of the event listener entry registered for the runtime class of this authenticator.
+     *
+     * @return Configuration snapshot.
+     */
+    private MutualTLSWithIdSecretConfig getConfig() {
+
+        return MutualTLSWithIdSecretConfig.getInstance(getClass());
     }
 
     public boolean canAuthenticate(HttpServletRequest request, Map<String, List> bodyParams,
@@ -171,9 +296,7 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
     @Override
     public boolean isEnabled() {
 
-        IdentityEventListenerConfig identityEventListenerConfig =
-                IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(), this.getClass().getName());
-        return identityEventListenerConfig == null ? false : Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+        return getConfig().isEnabled();
     }
 
     /**
@@ -189,9 +312,8 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
 
         boolean trustedCert = false;
         try {
-            String publicKeyOfRegisteredCert = MutualTLSUtil.getThumbPrint(registeredCert);
-            String publicKeyOfRequestCert = MutualTLSUtil.getThumbPrint(requestCert);
-            if (StringUtils.equals(publicKeyOfRegisteredCert, publicKeyOfRequestCert)) {
+            if (CertificateFingerprint.matches(MutualTLSUtil.getThumbPrintBytes(registeredCert),
+                    MutualTLSUtil.getThumbPrintBytes(requestCert))) {
                 if (log.isDebugEnabled()) {
                     log.debug("Client certificate thumbprint matched with the registered certificate thumbprint.");
                 }
@@ -220,4 +342,24 @@ public class MutualTLSWithIdSecretAuthenticator extends BasicAuthClientAuthentic
         Object certObject = request.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE);
         return (certObject instanceof X509Certificate[] || certObject instanceof X509Certificate);
     }
+
+    /**
+     * Check whether the authenticator class overrides {@link #authenticate(X509Certificate, X509Certificate)}.
+     *
+     * @param authenticatorClass Runtime class of the authenticator.
+     * @return Whether the certificate comparison is overridden.
+     */
+    private static boolean isCertificateComparisonOverridden(Class<?> authenticatorClass) {
+
+        for (Class<?> clazz = authenticatorClass; clazz != MutualTLSWithIdSecretAuthenticator.class;
+             clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("authenticate", X509Certificate.class, X509Certificate.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared by this class. Check the super class.
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Index of the SHA-1 thumbprints of the certificates registered for OAuth clients, used by the mutual TLS with client
+ * ID and secret authenticator. Entries are removed when the service provider of the client is updated or deleted.
+ */
+public class CertificateThumbprintCache extends AuthenticationBaseCache<CertificateThumbprintCacheKey,
+        CertificateThumbprintCacheEntry> {
+
+    private static final String CERTIFICATE_THUMBPRINT_CACHE_NAME = "MutualTLSWithIdSecretCertificateThumbprintCache";
+
+    private static volatile CertificateThumbprintCache instance = new CertificateThumbprintCache();
+
+    private CertificateThumbprintCache() {
+
+        super(CERTIFICATE_THUMBPRINT_CACHE_NAME);
+    }
+
+    /**
+     * Returns CertificateThumbprintCache instance.
+     *
+     * @return Instance of CertificateThumbprintCache.
+     */
+    public static CertificateThumbprintCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+}
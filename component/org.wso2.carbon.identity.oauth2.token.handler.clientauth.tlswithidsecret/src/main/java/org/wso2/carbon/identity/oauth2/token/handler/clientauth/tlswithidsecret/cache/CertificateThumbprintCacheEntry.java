@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache;
+
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Cache entry which holds the SHA-1 thumbprint of the certificate registered for an OAuth client, together with the
+ * decoded certificate.
+ */
+public class CertificateThumbprintCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 6046207374719236433L;
+    private final X509Certificate certificate;
+    private final byte[] thumbprint;
+
+    public CertificateThumbprintCacheEntry(X509Certificate certificate, byte[] thumbprint) {
+
+        this.certificate = certificate;
+        this.thumbprint = thumbprint;
+    }
+
+    public X509Certificate getCertificate() {
+
+        return certificate;
+    }
+
+    /**
+     * @return SHA-1 thumbprint bytes of the registered certificate. The returned array must not be modified.
+     */
+    public byte[] getThumbprint() {
+
+        return thumbprint;
+    }
+}
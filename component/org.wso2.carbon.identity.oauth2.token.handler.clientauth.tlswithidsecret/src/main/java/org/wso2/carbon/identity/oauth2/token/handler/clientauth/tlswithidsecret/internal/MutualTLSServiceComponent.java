@@ -24,8 +24,12 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.MutualTLSWithIdSecretAuthenticator;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.listener.MutualTLSWithIdSecretApplicationMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util.MutualTLSWithIdSecretConfig;
 
 /**
  * TLS Mutual Auth with basic osgi Component.
@@ -49,6 +53,9 @@ public class MutualTLSServiceComponent {
                     new MutualTLSWithIdSecretAuthenticator();
             bundleContext.registerService(OAuthClientAuthenticator.class.getName(), mutualTLSWithIdSecretAuthenticator,
                     null);
+            bundleContext.registerService(ApplicationMgtListener.class.getName(),
+                    new MutualTLSWithIdSecretApplicationMgtListener(), null);
+            MutualTLSWithIdSecretConfig.reload();
             if (log.isDebugEnabled()) {
                 log.debug("Mutual TLS with basic auth bundle is activated");
             }
@@ -57,4 +64,13 @@ public class MutualTLSServiceComponent {
             log.error("Error occurred while registering MutualTLSWithIdSecretAuthenticator.", e);
         }
     }
+
+    @Deactivate
+    protected void deactivate(ComponentContext context) {
+
+        MutualTLSWithIdSecretConfig.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Mutual TLS with basic auth bundle is deactivated");
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.listener;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
+import org.wso2.carbon.identity.application.mgt.listener.AbstractApplicationMgtListener;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache.CertificateThumbprintCache;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.cache.CertificateThumbprintCacheKey;
+
+/**
+ * Application management listener which removes the cached registered certificate thumbprints of the OAuth clients
+ * of a service provider when it is updated or deleted.
+ */
+public class MutualTLSWithIdSecretApplicationMgtListener extends AbstractApplicationMgtListener {
+
+    private static final Log log = LogFactory.getLog(MutualTLSWithIdSecretApplicationMgtListener.class);
+    private static final String OAUTH2_INBOUND_AUTH_TYPE = "oauth2";
+    private static final int DEFAULT_ORDER_ID = 96;
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return DEFAULT_ORDER_ID;
+    }
+
+    @Override
+    public boolean doPostUpdateApplication(ServiceProvider serviceProvider, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        clearCacheEntries(serviceProvider, tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPreDeleteApplication(String applicationName, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        ServiceProvider serviceProvider = ApplicationManagementService.getInstance()
+                .getApplicationExcludingFileBasedSPs(applicationName, tenantDomain);
+        clearCacheEntries(serviceProvider, tenantDomain);
+        return true;
+    }
+
+    private void clearCacheEntries(ServiceProvider serviceProvider, String tenantDomain) {
+
+        if (serviceProvider == null || serviceProvider.getInboundAuthenticationConfig() == null) {
+            return;
+        }
+        InboundAuthenticationConfig inboundAuthenticationConfig = serviceProvider.getInboundAuthenticationConfig();
+        if (inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs() == null) {
+            return;
+        }
+        for (InboundAuthenticationRequestConfig requestConfig :
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs()) {
+            if (OAUTH2_INBOUND_AUTH_TYPE.equals(requestConfig.getInboundAuthType())
+                    && StringUtils.isNotBlank(requestConfig.getInboundAuthKey())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Clearing registered certificate thumbprint of the client: "
+                            + requestConfig.getInboundAuthKey() + " of tenant domain: " + tenantDomain);
+                }
+                CertificateThumbprintCache.getInstance().clearCacheEntry(
+                        new CertificateThumbprintCacheKey(requestConfig.getInboundAuthKey(), tenantDomain));
+            }
+        }
+    }
+}
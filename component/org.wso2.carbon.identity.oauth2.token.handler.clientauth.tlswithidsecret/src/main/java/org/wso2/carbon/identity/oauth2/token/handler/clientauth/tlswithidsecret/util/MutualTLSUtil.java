@@ -18,7 +18,8 @@
 
 package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util;
 
-import java.security.MessageDigest;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.mutualtls.utils.CertificateFingerprint;
+
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -44,10 +45,22 @@ public class MutualTLSUtil {
     public static String getThumbPrint(X509Certificate cert) throws NoSuchAlgorithmException,
             CertificateEncodingException {
 
-        MessageDigest md = MessageDigest.getInstance("SHA-1");
-        byte[] certEncoded = cert.getEncoded();
-        md.update(certEncoded);
-        return hexify(md.digest());
+        return hexify(getThumbPrintBytes(cert));
+    }
+
+    /**
+     * Helper method to retrieve the raw SHA-1 thumbprint of a X509 certificate. The returned array must not be
+     * modified.
+     *
+     * @param cert X509 certificate
+     * @return Thumbprint bytes of the X509 certificate
+     * @throws NoSuchAlgorithmException
+     * @throws CertificateEncodingException
+     */
+    public static byte[] getThumbPrintBytes(X509Certificate cert) throws NoSuchAlgorithmException,
+            CertificateEncodingException {
+
+        return CertificateFingerprint.sha1(cert);
     }
 
     /**
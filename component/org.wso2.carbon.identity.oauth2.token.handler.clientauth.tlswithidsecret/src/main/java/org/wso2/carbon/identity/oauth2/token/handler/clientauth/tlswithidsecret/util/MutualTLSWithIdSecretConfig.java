@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util;
+
+import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.MutualTLSWithIdSecretAuthenticator;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event listener settings of MutualTLSWithIdSecretAuthenticator: whether it is enabled, whether a registered client
+ * certificate is mandatory, and whether the certificate is verified before the client secret. A subclass registered
+ * under its own name in identity.xml gets the settings of its own entry.
+ */
+public final class MutualTLSWithIdSecretConfig {
+
+    public static final String MANDATE_MUTUAL_SSL = "MandateMutualSSL";
+    public static final String VERIFY_CERTIFICATE_FIRST = "VerifyCertificateFirst";
+
+    private static final Map<String, MutualTLSWithIdSecretConfig> instances = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final boolean mutualSSLMandated;
+    private final boolean certificateFirst;
+
+    private MutualTLSWithIdSecretConfig(boolean enabled, boolean mutualSSLMandated, boolean certificateFirst) {
+
+        this.enabled = enabled;
+        this.mutualSSLMandated = mutualSSLMandated;
+        this.certificateFirst = certificateFirst;
+    }
+
+    /**
+     * Get the settings of the given authenticator class. They are read from identity.xml on first use and reused
+     * until the configuration is reloaded.
+     *
+     * @param authenticatorClass Runtime class of the authenticator.
+     * @return Configuration snapshot.
+     */
+    public static MutualTLSWithIdSecretConfig getInstance(Class<?> authenticatorClass) {
+
+        return instances.computeIfAbsent(authenticatorClass.getName(), authenticatorName ->
+                from(IdentityUtil.readEventListenerProperty(AbstractIdentityHandler.class.getName(),
+                        authenticatorName)));
+    }
+
+    /**
+     * Discard the cached settings and read the settings of MutualTLSWithIdSecretAuthenticator from identity.xml.
+     *
+     * @return Configuration snapshot of MutualTLSWithIdSecretAuthenticator.
+     */
+    public static MutualTLSWithIdSecretConfig reload() {
+
+        instances.clear();
+        return getInstance(MutualTLSWithIdSecretAuthenticator.class);
+    }
+
+    /**
+     * Discard the cached settings.
+     */
+    public static void clear() {
+
+        instances.clear();
+    }
+
+    /**
+     * Build the configuration snapshot from the event listener configuration of the authenticator.
+     *
+     * @param identityEventListenerConfig Event listener configuration, or null if not configured.
+     * @return Configuration snapshot.
+     */
+    public static MutualTLSWithIdSecretConfig from(IdentityEventListenerConfig identityEventListenerConfig) {
+
+        Properties properties = identityEventListenerConfig == null ? null
+                : identityEventListenerConfig.getProperties();
+        String mandateMutualSSL = properties == null ? null : properties.getProperty(MANDATE_MUTUAL_SSL);
+        String certificateFirst = properties == null ? null : properties.getProperty(VERIFY_CERTIFICATE_FIRST);
+        // MandateMutualSSL is enabled if the configuration is not available in identity.xml.
+        boolean enabled = identityEventListenerConfig != null &&
+                Boolean.parseBoolean(identityEventListenerConfig.getEnable());
+        return new MutualTLSWithIdSecretConfig(enabled,
+                mandateMutualSSL == null || Boolean.parseBoolean(mandateMutualSSL),
+                Boolean.parseBoolean(certificateFirst));
+    }
+
+    /**
+     * @return Whether the authenticator is enabled.
+     */
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @return Whether a client certificate must be registered for every client.
+     */
+    public boolean isMutualSSLMandated() {
+
+        return mutualSSLMandated;
+    }
+
+    /**
+     * @return Whether the client certificate is verified before the client secret.
+     */
+    public boolean isCertificateFirst() {
+
+        return certificateFirst;
+    }
+}
@@ -39,6 +39,7 @@ import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.client.authentication.BasicAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthnException;
 import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util.MutualTLSUtil;
+import org.wso2.carbon.identity.oauth2.token.handler.clientauth.tlswithidsecret.util.MutualTLSWithIdSecretConfig;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.net.URL;
@@ -50,6 +51,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -85,6 +87,27 @@ public class MutualTLSWithIdSecretAuthenticatorTest extends PowerMockTestCase {
                     "TY75aViCAD6QDmBxe/opQYExBdgNOCQ6HdP5WWBT6EEggBe/mqOM/dchj57rpPtw\n" +
                     "IOQjy9UCaY7tq4SmhAJyab0mxjcFoRBpzOJIDh+N8ozSDK+MepyFSwtW5zVacOiG\n" +
                     "OQUrBTGXQFZOGKje8sbS";
+    private static String OTHER_CERTIFICATE_CONTENT =
+            "MIIDpDCCAoygAwIBAgIJANY05+xQjhMZMA0GCSqGSIb3DQEBCwUAMDMxCzAJBgNV\n" +
+                    "BAYTAkxLMQ0wCwYDVQQKEwRXU08yMRUwEwYDVQQDEwxUZXN0IFJvb3QgQ0EwIBcN\n" +
+                    "MjYxMDE4MjAzMTUxWhgPMjEyNjA5MjQyMDMxNTFaMDExCzAJBgNVBAYTAkxLMQ0w\n" +
+                    "CwYDVQQKEwRXU08yMRMwEQYDVQQDEwpwa2ktY2xpZW50MIIBIjANBgkqhkiG9w0B\n" +
+                    "AQEFAAOCAQ8AMIIBCgKCAQEAk97OVm1f5yz2/cXbpBes63TkUYPVkYFGfVOWTTsN\n" +
+                    "Zo5P7Up5K1tuvJ/9Pk+L/lRd/Z068ayShVXnu+t5y8oXX4+/tm9l9FBvM+IUiHVt\n" +
+                    "aK09QKlCjB39c3wTlO6+68ReM/hBZ58LEZE+SmzEVRQyue9Igj1YVqVne8GvIhLT\n" +
+                    "3va2Ug+PwSvmx0MDvoPhLZZElB+qYDcthwt27uLT+pYFlF+v8bgczCJQYen+raPo\n" +
+                    "AzmV6IRwUvvifeR+GuX6C0S0q2I1Nfc7RO3v+fhdq/hbNRdPqIk/2TXTpYpPdm+k\n" +
+                    "HIvon2ac1B0fnFe3jjlET6x8IKFg9sNXokYB1oXX5WZD1wIDAQABo4G6MIG3MB0G\n" +
+                    "A1UdDgQWBBTzNcTuhY5D4C5H5lI++0ymoQ+8wTALBgNVHQ8EBAMCB4AwUwYDVR0R\n" +
+                    "BEwwSoISY2xpZW50LmV4YW1wbGUuY29thhpodHRwczovL2NsaWVudC5leGFtcGxl\n" +
+                    "LmNvbYcECgAAAYESY2xpZW50QGV4YW1wbGUuY29tMB8GA1UdIwQYMBaAFFO0WtJx\n" +
+                    "9c8pVeAcTX7lU2B5mEa9MBMGA1UdJQQMMAoGCCsGAQUFBwMCMA0GCSqGSIb3DQEB\n" +
+                    "CwUAA4IBAQASzdJCA+41isiQB4K7ZjS7IA6WjM8UtdEJ91aAXFgHX9JcGETimXip\n" +
+                    "8+FpfLMYrmFlZNNWavi4r9SW6UCaFfbETD/DoIHz9m/qC0lZvxtaZw0dyRFkUiIC\n" +
+                    "4AnFihkgdIzpLDF66UDQyuzJW0ioxudKHdbueAreUbpsXsD5AgMvuZ7IXKtK9JAi\n" +
+                    "jaQcRyn01PPEjai5cINDBvxwnkaDEX+CSP30yJU9gIG4E3LUIfZr9f5PxbHLL26P\n" +
+                    "BjZKEWtA3tW9GpYoDruPvAdTMtEJqlpvFhNxYdLxkLO8GQ6oQikIyHvIXH7roDuh\n" +
+                    "sLkjAB5aNqii0M/gx3HszsgKePexsoi9";
 
     private MutualTLSWithIdSecretAuthenticator mutualTLSWithIdSecretAuthenticator =
             new MutualTLSWithIdSecretAuthenticator();
@@ -107,8 +130,112 @@ public class MutualTLSWithIdSecretAuthenticatorTest extends PowerMockTestCase {
         return bodyContent;
     }
 
-    public void testAuthenticateClient() {
+    @AfterMethod
+    public void tearDown() {
 
+        MutualTLSWithIdSecretConfig.clear();
+    }
+
+    @DataProvider(name = "testAuthenticateClientData")
+    public Object[][] testAuthenticateClientData() {
+
+        return new Object[][]{
+
+                // Certificate verified first, then the client secret.
+                {"certfirstclientid", true, true, true},
+                {"certfirstclientid", true, false, false},
+                // Client secret verified first, then the certificate.
+                {"secretfirstclientid", false, true, true},
+                {"secretfirstclientid", false, false, false},
+        };
+    }
+
+    @Test(dataProvider = "testAuthenticateClientData")
+    public void testAuthenticateClient(String clientId, boolean certificateFirst, boolean validSecret,
+                                       boolean authenticationResult) throws Exception {
+
+        X509Certificate certificate = getCertificate(CERTIFICATE_CONTENT);
+        mockConfig(certificateFirst, null);
+        HttpServletRequest httpServletRequest = mockRequest(certificate);
+        PowerMockito.mockStatic(OAuth2Util.class);
+        PowerMockito.when(OAuth2Util.getTenantDomainOfOauthApp(clientId)).thenReturn(SUPER_TENANT_DOMAIN_NAME);
+        PowerMockito.when(OAuth2Util.getX509CertOfOAuthApp(clientId, SUPER_TENANT_DOMAIN_NAME))
+                .thenReturn(certificate);
+        PowerMockito.when(OAuth2Util.authenticateClient(clientId, CLIENT_SECRET)).thenReturn(validSecret);
+
+        assertEquals(mutualTLSWithIdSecretAuthenticator.authenticateClient(httpServletRequest,
+                new HashMap<String, List>(getBodyContentWithClientCredentials(clientId, CLIENT_SECRET)),
+                new OAuthClientAuthnContext()),
+                authenticationResult, "Expected client authentication result was not received");
+    }
+
+    @DataProvider(name = "testAuthenticateClientWithoutRegisteredCertificateData")
+    public Object[][] testAuthenticateClientWithoutRegisteredCertificateData() {
+
+        return new Object[][]{
+
+                // The client secret alone decides when a registered certificate is not mandated.
+                {true, "false", true, true},
+                {true, "false", false, false},
+                {false, "false", true, true},
+                {false, "false", false, false},
+                // A registered certificate is mandated by default.
+                {true, null, true, false},
+                {false, null, true, false},
+        };
+    }
+
+    @Test(dataProvider = "testAuthenticateClientWithoutRegisteredCertificateData")
+    public void testAuthenticateClientWithoutRegisteredCertificate(boolean certificateFirst, String mandateMutualSSL,
+                                                                   boolean validSecret, boolean authenticationResult)
+            throws Exception {
+
+        String clientId = "nocertificateclientid";
+        X509Certificate certificate = getCertificate(CERTIFICATE_CONTENT);
+        mockConfig(certificateFirst, mandateMutualSSL);
+        HttpServletRequest httpServletRequest = mockRequest(certificate);
+        PowerMockito.mockStatic(OAuth2Util.class);
+        PowerMockito.when(OAuth2Util.getTenantDomainOfOauthApp(clientId)).thenReturn(SUPER_TENANT_DOMAIN_NAME);
+        PowerMockito.when(OAuth2Util.getX509CertOfOAuthApp(clientId, SUPER_TENANT_DOMAIN_NAME)).thenReturn(null);
+        PowerMockito.when(OAuth2Util.authenticateClient(clientId, CLIENT_SECRET)).thenReturn(validSecret);
+
+        assertEquals(mutualTLSWithIdSecretAuthenticator.authenticateClient(httpServletRequest,
+                new HashMap<String, List>(getBodyContentWithClientCredentials(clientId, CLIENT_SECRET)),
+                new OAuthClientAuthnContext()),
+                authenticationResult, "Expected client authentication result was not received");
+    }
+
+    @DataProvider(name = "testAuthenticateClientWithCertificateMismatchData")
+    public Object[][] testAuthenticateClientWithCertificateMismatchData() {
+
+        return new Object[][]{
+
+                // The client secret is not verified once the certificate is rejected.
+                {"certfirstmismatchclientid", true, 0},
+                {"secretfirstmismatchclientid", false, 1},
+        };
+    }
+
+    @Test(dataProvider = "testAuthenticateClientWithCertificateMismatchData")
+    public void testAuthenticateClientWithCertificateMismatch(String clientId, boolean certificateFirst,
+                                                              int secretVerifications) throws Exception {
+
+        X509Certificate registeredCertificate = getCertificate(CERTIFICATE_CONTENT);
+        X509Certificate presentedCertificate = getCertificate(OTHER_CERTIFICATE_CONTENT);
+        mockConfig(certificateFirst, null);
+        HttpServletRequest httpServletRequest = mockRequest(presentedCertificate);
+        PowerMockito.mockStatic(OAuth2Util.class);
+        PowerMockito.when(OAuth2Util.getTenantDomainOfOauthApp(clientId)).thenReturn(SUPER_TENANT_DOMAIN_NAME);
+        PowerMockito.when(OAuth2Util.getX509CertOfOAuthApp(clientId, SUPER_TENANT_DOMAIN_NAME))
+                .thenReturn(registeredCertificate);
+        PowerMockito.when(OAuth2Util.authenticateClient(clientId, CLIENT_SECRET)).thenReturn(true);
+
+        assertFalse(mutualTLSWithIdSecretAuthenticator.authenticateClient(httpServletRequest,
+                new HashMap<String, List>(getBodyContentWithClientCredentials(clientId, CLIENT_SECRET)),
+                new OAuthClientAuthnContext()),
+                "Client with a certificate other than the registered one was authenticated.");
+        PowerMockito.verifyStatic(Mockito.times(secretVerifications));
+        OAuth2Util.authenticateClient(clientId, CLIENT_SECRET);
     }
 
     @DataProvider(name = "testCanAuthenticateData")
@@ -151,6 +278,7 @@ public class MutualTLSWithIdSecretAuthenticatorTest extends PowerMockTestCase {
                 AbstractIdentityHandler.class.getName(), MutualTLSWithIdSecretAuthenticator.class.getName()))
                 .thenReturn(identityEventListenerConfig);
         PowerMockito.when(identityEventListenerConfig.getEnable()).thenReturn(isEnabled);
+        MutualTLSWithIdSecretConfig.clear();
         assertEquals(mutualTLSWithIdSecretAuthenticator.isEnabled(), Boolean.parseBoolean(isEnabled));
     }
 
@@ -181,6 +309,31 @@ public class MutualTLSWithIdSecretAuthenticatorTest extends PowerMockTestCase {
         return null;
     }
 
+    private void mockConfig(boolean certificateFirst, String mandateMutualSSL) {
+
+        Properties properties = new Properties();
+        properties.setProperty(MutualTLSWithIdSecretConfig.VERIFY_CERTIFICATE_FIRST, String.valueOf(certificateFirst));
+        if (mandateMutualSSL != null) {
+            properties.setProperty(MutualTLSWithIdSecretConfig.MANDATE_MUTUAL_SSL, mandateMutualSSL);
+        }
+        IdentityEventListenerConfig identityEventListenerConfig = PowerMockito.mock(IdentityEventListenerConfig.class);
+        PowerMockito.when(identityEventListenerConfig.getEnable()).thenReturn("true");
+        PowerMockito.when(identityEventListenerConfig.getProperties()).thenReturn(properties);
+        PowerMockito.mockStatic(IdentityUtil.class);
+        PowerMockito.when(IdentityUtil.readEventListenerProperty(
+                AbstractIdentityHandler.class.getName(), MutualTLSWithIdSecretAuthenticator.class.getName()))
+                .thenReturn(identityEventListenerConfig);
+        MutualTLSWithIdSecretConfig.clear();
+    }
+
+    private HttpServletRequest mockRequest(X509Certificate certificate) {
+
+        HttpServletRequest httpServletRequest = PowerMockito.mock(HttpServletRequest.class);
+        PowerMockito.when(httpServletRequest.getAttribute(JAVAX_SERVLET_REQUEST_CERTIFICATE))
+                .thenReturn(new X509Certificate[]{certificate});
+        return httpServletRequest;
+    }
+
     private OAuthClientAuthnContext buildOAuthClientAuthnContext(String clientId) {
 
         OAuthClientAuthnContext oAuthClientAuthnContext = new OAuthClientAuthnContext();
@@ -19,13 +19,9 @@
 
 package org.wso2.carbon.identity.oauth2.validators.xacml;
 
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.om.impl.builder.StAXOMBuilder;
-import org.apache.axiom.om.xpath.AXIOMXPath;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.jaxen.JaxenException;
 import org.wso2.balana.utils.Constants.PolicyConstants;
 import org.wso2.balana.utils.exception.PolicyBuilderException;
 import org.wso2.balana.utils.policy.PolicyBuilder;
@@ -51,12 +47,20 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeValidator;
+import org.wso2.carbon.identity.oauth2.validators.xacml.cache.XACMLDecisionCache;
+import org.wso2.carbon.identity.oauth2.validators.xacml.codec.XACMLDecisionExtractor;
+import org.wso2.carbon.identity.oauth2.validators.xacml.codec.XACMLRequestTemplate;
 import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
 import org.wso2.carbon.identity.oauth2.validators.xacml.internal.OAuthScopeValidatorDataHolder;
+import org.wso2.carbon.identity.oauth2.validators.xacml.pdp.InProcessXACMLEvaluator;
+import org.wso2.carbon.identity.oauth2.validators.xacml.util.XACMLScopeValidatorConfig;
 
-import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.xml.stream.XMLStreamException;
@@ -68,6 +72,8 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
 
     private static final String SCOPE_VALIDATOR_NAME = "XACML Scope Validator";
     private static final Log log = LogFactory.getLog(XACMLScopeValidator.class);
+    private static final String CACHE_KEY_DIGEST_ALGORITHM = "SHA-256";
+    private static final String ATTRIBUTE_SEPARATOR = "\u0000";
 
     @Override
     public boolean validateScope(AccessTokenDO accessTokenDO, String resource) throws IdentityOAuth2Exception {
@@ -118,8 +124,15 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
         if (StringUtils.isNotEmpty(consumerKey)) {
             try {
                 OAuthAppDO oAuthAppDO = getOAuthAppDO(consumerKey);
-                String request = createRequest(scopes, authenticatedUser, oAuthAppDO, action, resource, token);
-                isValid = isRequestPermit(request, oAuthAppDO, authenticatedUser.toFullQualifiedUsername());
+                List<RowDTO> rowDTOs = createRowDTOs(scopes, authenticatedUser, oAuthAppDO, action, resource, token);
+                XACMLScopeValidatorConfig config = XACMLScopeValidatorConfig.getInstance();
+                if (config.isDecisionCacheEnabled()) {
+                    isValid = XACMLDecisionCache.getInstance().getDecision(getCacheKey(rowDTOs),
+                            config.getDecisionCacheTimeToLive(),
+                            () -> isRequestPermit(rowDTOs, oAuthAppDO, authenticatedUser));
+                } else {
+                    isValid = isRequestPermit(rowDTOs, oAuthAppDO, authenticatedUser);
+                }
 
             } catch (InvalidOAuthClientException e) {
                 throw new IdentityOAuth2Exception(String.format("Error occurred when retrieving corresponding app for this specific" +
@@ -133,15 +146,15 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
     }
 
     /**
-     * Creates XACML Request string with the parameters retrieved from the request.
+     * Creates the attributes of the XACML request with the parameters retrieved from the request.
      *
      * @param scopes            Set of scopes.
      * @param authenticatedUser Authenticated user.
      * @param oAuthAppDO        OAuth application.
-     * @return XACML Request string.
+     * @return Attributes of the XACML request.
      */
-    private String createRequest(String[] scopes, AuthenticatedUser authenticatedUser, OAuthAppDO oAuthAppDO,
-                                 String action, String resource, String token) throws IdentityOAuth2Exception {
+    private List<RowDTO> createRowDTOs(String[] scopes, AuthenticatedUser authenticatedUser, OAuthAppDO oAuthAppDO,
+                                       String action, String resource, String token) {
 
         List<RowDTO> rowDTOs = new ArrayList<>();
         RowDTO actionDTO = createRowDTO(action, XACMLScopeValidatorConstants.AUTH_ACTION_ID,
@@ -176,17 +189,32 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
 
         createRowDTOForUserType(authenticatedUser, rowDTOs);
         createRowDTOsForUserAttributes(authenticatedUser, action, rowDTOs, token);
+        return rowDTOs;
+    }
+
+    /**
+     * Creates XACML Request string with the given attributes.
+     *
+     * @param rowDTOs           Attributes of the XACML request.
+     * @param authenticatedUser Authenticated user.
+     * @return XACML Request string.
+     */
+    private String createRequest(List<RowDTO> rowDTOs, AuthenticatedUser authenticatedUser)
+            throws IdentityOAuth2Exception {
 
-        RequestDTO requestDTO = new RequestDTO();
-        requestDTO.setRowDTOs(rowDTOs);
+        // Fall back to the policy builder for attributes that cannot be filled into a request template.
+        String request = XACMLRequestTemplate.createRequest(rowDTOs);
+        if (request == null) {
+            RequestDTO requestDTO = new RequestDTO();
+            requestDTO.setRowDTOs(rowDTOs);
 
-        RequestElementDTO requestElementDTO = PolicyCreatorUtil.createRequestElementDTO(requestDTO);
-        String request = null;
-        try {
-            request = PolicyBuilder.getInstance().buildRequest(requestElementDTO);
-        } catch (PolicyBuilderException e) {
-            throw new IdentityOAuth2Exception(String.format("Exception occurred when building  XACML request of user " +
-                    "%s.", authenticatedUser.toFullQualifiedUsername()), e);
+            RequestElementDTO requestElementDTO = PolicyCreatorUtil.createRequestElementDTO(requestDTO);
+            try {
+                request = PolicyBuilder.getInstance().buildRequest(requestElementDTO);
+            } catch (PolicyBuilderException e) {
+                throw new IdentityOAuth2Exception(String.format("Exception occurred when building  XACML request of " +
+                        "user %s.", authenticatedUser.toFullQualifiedUsername()), e);
+            }
         }
 
         if (log.isDebugEnabled()) {
@@ -195,6 +223,61 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
         return request;
     }
 
+    /**
+     * Builds a canonical hash of the attributes of a XACML request. The attributes are sorted, so that requests with
+     * the same attributes in a different order, e.g. the same scopes in a different order, share a cache entry.
+     *
+     * @param rowDTOs Attributes of the XACML request.
+     * @return Cache key of the XACML decision.
+     */
+    private String getCacheKey(List<RowDTO> rowDTOs) throws IdentityOAuth2Exception {
+
+        List<String> attributes = new ArrayList<>(rowDTOs.size());
+        for (RowDTO rowDTO : rowDTOs) {
+            attributes.add(rowDTO.getCategory() + ATTRIBUTE_SEPARATOR + rowDTO.getAttributeId() + ATTRIBUTE_SEPARATOR
+                    + rowDTO.getAttributeDataType() + ATTRIBUTE_SEPARATOR
+                    + StringUtils.defaultString(rowDTO.getAttributeValue()));
+        }
+        Collections.sort(attributes);
+        try {
+            MessageDigest digest = MessageDigest.getInstance(CACHE_KEY_DIGEST_ALGORITHM);
+            for (String attribute : attributes) {
+                digest.update(attribute.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IdentityOAuth2Exception("Error occurred while building the XACML decision cache key.", e);
+        }
+    }
+
+    /**
+     * Validates the XACML request with the given attributes using XACML engine. If in-process evaluation is enabled,
+     * the attributes are passed to the PDP as typed objects. Otherwise, or if the request cannot be evaluated
+     * in-process, the XACML request is built and evaluated through the entitlement service.
+     *
+     * @param rowDTOs           Attributes of the XACML request.
+     * @param oAuthAppDO        Application.
+     * @param authenticatedUser Authenticated user.
+     * @return Returns true if the XACML response is permit or NotApplicable. Else returns false.
+     * @throws IdentityOAuth2Exception Exception
+     */
+    private boolean isRequestPermit(List<RowDTO> rowDTOs, OAuthAppDO oAuthAppDO, AuthenticatedUser authenticatedUser)
+            throws IdentityOAuth2Exception {
+
+        if (XACMLScopeValidatorConfig.getInstance().isInProcessEvaluationEnabled()) {
+            String decision = InProcessXACMLEvaluator.getInstance().evaluate(rowDTOs);
+            if (decision != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("XACML scope validation decision : " + decision);
+                }
+                return isDecisionPermit(decision, oAuthAppDO);
+            }
+        }
+        String request = createRequest(rowDTOs, authenticatedUser);
+        return isRequestPermit(request, oAuthAppDO, authenticatedUser.toFullQualifiedUsername());
+    }
+
     /**
      * Validates the XACML request using XACML engine with the parameters authApp and authzUser, and returns whether
      * to permit or not.
@@ -207,7 +290,7 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
     private boolean isRequestPermit(String request, OAuthAppDO oAuthAppDO, String authzUser)
             throws IdentityOAuth2Exception {
 
-        boolean permit = false;
+        boolean permit;
         try {
             String responseString = OAuthScopeValidatorDataHolder.getInstance().getEntitlementService()
                     .getDecision(request);
@@ -215,15 +298,8 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
                 log.debug("XACML scope validation response :\n" + responseString);
             }
             String response = extractDecisionFromXACMLResponse(responseString);
-            if (isResponseNotApplicable(response)) {
-                log.warn(String.format("No applicable rule for service provider '%s@%s'. Add a validating policy "
-                                + "(or unset Scope Validation using XACMLScopeValidator) to fix this warning.",
-                        oAuthAppDO.getApplicationName(), OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO)));
-                permit = true;
-            } else if (isResponsePermit(response)) {
-                permit = true;
-            }
-        } catch (XMLStreamException | JaxenException e) {
+            permit = isDecisionPermit(response, oAuthAppDO);
+        } catch (XMLStreamException e) {
             throw new IdentityOAuth2Exception(String.format("Exception occurred when reading XACML response of " +
                     "user %s.", authzUser), e);
         } catch (EntitlementException e) {
@@ -233,6 +309,24 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
         return permit;
     }
 
+    /**
+     * Decides whether the decision of the XACML response permits the request.
+     *
+     * @param decision   Decision of the XACML response.
+     * @param oAuthAppDO Application.
+     * @return Returns true if the decision is permit or NotApplicable. Else returns false.
+     */
+    private boolean isDecisionPermit(String decision, OAuthAppDO oAuthAppDO) {
+
+        if (isResponseNotApplicable(decision)) {
+            log.warn(String.format("No applicable rule for service provider '%s@%s'. Add a validating policy "
+                            + "(or unset Scope Validation using XACMLScopeValidator) to fix this warning.",
+                    oAuthAppDO.getApplicationName(), OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO)));
+            return true;
+        }
+        return isResponsePermit(decision);
+    }
+
     private OAuthAppDO getOAuthAppDO(String consumerKey) throws IdentityOAuth2Exception, InvalidOAuthClientException {
 
         return OAuth2Util.getAppInformationByClientId(consumerKey);
@@ -261,17 +355,11 @@ public class XACMLScopeValidator extends OAuth2ScopeValidator {
      *
      * @param xacmlResponse xacml response to be extracted
      * @return extracted decision
-     * @throws XMLStreamException exception when converting string response to XML
-     * @throws JaxenException     exception
+     * @throws XMLStreamException exception when reading the response
      */
-    private String extractDecisionFromXACMLResponse(String xacmlResponse) throws XMLStreamException, JaxenException {
-
-        AXIOMXPath axiomxPath = new AXIOMXPath(XACMLScopeValidatorConstants.DECISION_XPATH);
-        axiomxPath.addNamespace(XACMLScopeValidatorConstants.XACML_NS_PREFIX, EntitlementPolicyConstants
-                .REQ_RES_CONTEXT_XACML3);
-        OMElement rootElement = new StAXOMBuilder(new ByteArrayInputStream(xacmlResponse.getBytes(StandardCharsets
-                .UTF_8))).getDocumentElement();
-        return axiomxPath.stringValueOf(rootElement);
+    private String extractDecisionFromXACMLResponse(String xacmlResponse) throws XMLStreamException {
+
+        return XACMLDecisionExtractor.extractDecision(xacmlResponse);
     }
 
     /**
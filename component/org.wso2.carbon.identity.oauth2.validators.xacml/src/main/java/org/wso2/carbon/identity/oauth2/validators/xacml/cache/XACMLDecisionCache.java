@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.utils.CarbonUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of XACML scope validation decisions. Entries are keyed by a canonical hash of the attributes of the XACML
+ * request and expire after the configured time to live. The capacity is set by the
+ * {@code <Cache name="XACMLDecisionCache"/>} entry of the IdentityApplicationManagementCacheManager under
+ * {@code <CacheConfig>} in identity.xml. Concurrent evaluations of the same request on a node are coalesced, so that
+ * only one of them reaches the PDP.
+ * <p>
+ * Every entry records the policy version it was evaluated against. The version is advanced when the policies change,
+ * which invalidates the whole cache. The version is held per node, so a policy change only invalidates the decisions
+ * cached on the node where it was made.
+ * <p>
+ * The key only covers the attributes of the request. Attributes the PDP resolves through PIPs, such as the roles of
+ * the user, are not part of it, so a decision cached before a role change is served until it expires.
+ */
+public class XACMLDecisionCache extends AuthenticationBaseCache<String, XACMLDecisionCacheEntry> {
+
+    private static final Log log = LogFactory.getLog(XACMLDecisionCache.class);
+    private static final String XACML_DECISION_CACHE_NAME = "XACMLDecisionCache";
+
+    private static volatile XACMLDecisionCache instance = new XACMLDecisionCache();
+
+    private final Map<String, FutureTask<Boolean>> pendingEvaluations = new ConcurrentHashMap<>();
+    private final AtomicLong policyVersion = new AtomicLong();
+
+    private XACMLDecisionCache() {
+
+        super(XACML_DECISION_CACHE_NAME);
+    }
+
+    /**
+     * Returns XACMLDecisionCache instance
+     *
+     * @return instance of XACMLDecisionCache
+     */
+    public static XACMLDecisionCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        return instance;
+    }
+
+    /**
+     * Get the cached decision for the request, or evaluate and cache it. If the same request is already being
+     * evaluated by another thread, wait for that evaluation instead of starting a new one.
+     *
+     * @param cacheKey   Canonical hash of the XACML request attributes.
+     * @param timeToLive Time to live of the decision in milliseconds.
+     * @param evaluator  Evaluates the request against the PDP.
+     * @return True if the request is permitted.
+     * @throws IdentityOAuth2Exception If the evaluation fails. Failures are not cached.
+     */
+    public boolean getDecision(String cacheKey, long timeToLive, DecisionEvaluator evaluator)
+            throws IdentityOAuth2Exception {
+
+        long version = policyVersion.get();
+        XACMLDecisionCacheEntry decision = getValueFromCache(cacheKey);
+        if (decision != null) {
+            if (decision.getPolicyVersion() == version && !decision.isExpired(System.currentTimeMillis())) {
+                return decision.isPermit();
+            }
+            clearCacheEntry(cacheKey);
+        }
+
+        // Evaluations are coalesced per policy version, so that requests received after a policy change do not wait
+        // for an evaluation against the previous policies.
+        String evaluationKey = version + ":" + cacheKey;
+        FutureTask<Boolean> evaluation = new FutureTask<>(evaluator::evaluate);
+        FutureTask<Boolean> pendingEvaluation = pendingEvaluations.putIfAbsent(evaluationKey, evaluation);
+        if (pendingEvaluation != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for an ongoing evaluation of the same XACML request.");
+            }
+            return waitForDecision(pendingEvaluation);
+        }
+        try {
+            evaluation.run();
+            boolean permit = waitForDecision(evaluation);
+            addDecision(cacheKey, new XACMLDecisionCacheEntry(permit, version,
+                    System.currentTimeMillis() + timeToLive));
+            return permit;
+        } finally {
+            pendingEvaluations.remove(evaluationKey, evaluation);
+        }
+    }
+
+    /**
+     * Invalidate all cached decisions by advancing the policy version. Evaluations that are in progress are not
+     * cached once they complete.
+     */
+    public void invalidate() {
+
+        policyVersion.incrementAndGet();
+        clear();
+        if (log.isDebugEnabled()) {
+            log.debug("XACML decision cache is invalidated. Current policy version: " + policyVersion.get());
+        }
+    }
+
+    /**
+     * @return Version of the policies the cached decisions were evaluated against.
+     */
+    public long getPolicyVersion() {
+
+        return policyVersion.get();
+    }
+
+    private void addDecision(String cacheKey, XACMLDecisionCacheEntry decision) {
+
+        if (decision.getPolicyVersion() != policyVersion.get()) {
+            return;
+        }
+        addToCache(cacheKey, decision);
+        // The policies may have changed while the entry was being added.
+        if (decision.getPolicyVersion() != policyVersion.get()) {
+            clearCacheEntry(cacheKey);
+        }
+    }
+
+    private static boolean waitForDecision(FutureTask<Boolean> evaluation) throws IdentityOAuth2Exception {
+
+        try {
+            return evaluation.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IdentityOAuth2Exception) {
+                throw (IdentityOAuth2Exception) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IdentityOAuth2Exception("Error occurred while evaluating the XACML request.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityOAuth2Exception("Interrupted while waiting for the XACML decision.", e);
+        }
+    }
+
+    /**
+     * Evaluates a XACML request against the PDP.
+     */
+    @FunctionalInterface
+    public interface DecisionEvaluator {
+
+        /**
+         * @return True if the request is permitted.
+         * @throws IdentityOAuth2Exception If the evaluation fails.
+         */
+        boolean evaluate() throws IdentityOAuth2Exception;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.cache;
+
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+/**
+ * Decision of a XACML request with the policy version it was evaluated against and the time until which it can be
+ * reused.
+ */
+public class XACMLDecisionCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -4915460473165592826L;
+    private final boolean permit;
+    private final long policyVersion;
+    private final long expiryTime;
+
+    public XACMLDecisionCacheEntry(boolean permit, long policyVersion, long expiryTime) {
+
+        this.permit = permit;
+        this.policyVersion = policyVersion;
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * @return True if the request is permitted.
+     */
+    public boolean isPermit() {
+
+        return permit;
+    }
+
+    public long getPolicyVersion() {
+
+        return policyVersion;
+    }
+
+    public boolean isExpired(long currentTime) {
+
+        return currentTime > expiryTime;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.cache;
+
+import org.wso2.carbon.identity.entitlement.EntitlementConstants;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.PAPStatusDataHandler;
+import org.wso2.carbon.identity.entitlement.dto.StatusHolder;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Invalidates the XACML decision cache when policies are added, updated, published, ordered, enabled or deleted.
+ * Register it in entitlement.properties as an additional PAP status data handler, e.g.
+ * {@code PAP.Status.Data.Handler.2=org.wso2.carbon.identity.oauth2.validators.xacml.cache.XACMLPolicyChangeHandler}.
+ * The handler runs on the node where the policy is changed, hence decisions cached on other nodes of a cluster are
+ * only dropped when they expire.
+ */
+public class XACMLPolicyChangeHandler implements PAPStatusDataHandler {
+
+    @Override
+    public void init(Properties properties) {
+
+    }
+
+    @Override
+    public void handle(String about, String key, List<StatusHolder> statusHolders) throws EntitlementException {
+
+        if (EntitlementConstants.Status.ABOUT_POLICY.equals(about)) {
+            XACMLDecisionCache.getInstance().invalidate();
+        }
+    }
+
+    @Override
+    public void handle(String about, StatusHolder statusHolder) throws EntitlementException {
+
+        if (EntitlementConstants.Status.ABOUT_POLICY.equals(about)) {
+            XACMLDecisionCache.getInstance().invalidate();
+        }
+    }
+
+    @Override
+    public StatusHolder[] getStatusData(String about, String key, String type, String searchString)
+            throws EntitlementException {
+
+        return new StatusHolder[0];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.codec;
+
+import org.wso2.carbon.identity.entitlement.common.EntitlementPolicyConstants;
+
+import java.io.StringReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Extracts the decision from a XACML 3.0 response with a streaming reader. Reading stops at the first Decision element
+ * of a Result, so the rest of the response, e.g. obligations and advice, is not parsed.
+ */
+public class XACMLDecisionExtractor {
+
+    private static final String RESULT = "Result";
+    private static final String DECISION = "Decision";
+    private static final XMLInputFactory xmlInputFactory = createXMLInputFactory();
+
+    private XACMLDecisionExtractor() {
+
+    }
+
+    /**
+     * Extract the decision from the XACML response.
+     *
+     * @param xacmlResponse XACML response.
+     * @return Decision of the first result, or an empty string if the response has no decision.
+     * @throws XMLStreamException If the response is not well-formed.
+     */
+    public static String extractDecision(String xacmlResponse) throws XMLStreamException {
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(xacmlResponse));
+        try {
+            int depth = 0;
+            int resultDepth = -1;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (isXACMLElement(reader, RESULT)) {
+                        resultDepth = depth;
+                    } else if (depth == resultDepth + 1 && isXACMLElement(reader, DECISION)) {
+                        return reader.getElementText();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == resultDepth) {
+                        resultDepth = -1;
+                    }
+                    depth--;
+                }
+            }
+            return "";
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isXACMLElement(XMLStreamReader reader, String localName) {
+
+        return localName.equals(reader.getLocalName())
+                && EntitlementPolicyConstants.REQ_RES_CONTEXT_XACML3.equals(reader.getNamespaceURI());
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
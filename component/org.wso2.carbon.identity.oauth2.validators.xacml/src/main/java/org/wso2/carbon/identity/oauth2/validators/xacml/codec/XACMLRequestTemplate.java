@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.codec;
+
+import org.wso2.carbon.identity.entitlement.common.EntitlementPolicyConstants;
+import org.wso2.carbon.identity.entitlement.common.dto.RowDTO;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled XACML 3.0 request of a scope validation action. The request header and the action attribute are
+ * rendered once per action, and the markup of each attribute is rendered once per attribute id, so that building a
+ * request only escapes the attribute values and fills them in.
+ */
+public class XACMLRequestTemplate {
+
+    private static final int MAX_CACHED_TEMPLATES = 16;
+    private static final int MAX_CACHED_ATTRIBUTES = 1000;
+    private static final String ATTRIBUTES_END = "</Attributes>";
+    private static final String ATTRIBUTE_END = "</AttributeValue></Attribute>";
+    private static final String REQUEST_END = "</Request>";
+
+    private static final Map<String, XACMLRequestTemplate> templates = new ConcurrentHashMap<>();
+    private static final Map<String, String> attributeStartTags = new ConcurrentHashMap<>();
+
+    private final String action;
+    private final String requestStart;
+
+    private XACMLRequestTemplate(String action) {
+
+        this.action = action;
+        this.requestStart = "<Request xmlns=\"" + EntitlementPolicyConstants.REQ_RES_CONTEXT_XACML3
+                + "\" CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">"
+                + getAttributesStartTag(XACMLScopeValidatorConstants.ACTION_CATEGORY)
+                + getAttributeStartTag(XACMLScopeValidatorConstants.AUTH_ACTION_ID) + escape(action) + ATTRIBUTE_END
+                + ATTRIBUTES_END;
+    }
+
+    /**
+     * Build the XACML request with the given attributes, using the template of the action in the attributes.
+     *
+     * @param rowDTOs Attributes of the XACML request.
+     * @return XACML request, or null if the attributes cannot be filled into a template. The request should then be
+     * built with the policy builder.
+     */
+    public static String createRequest(List<RowDTO> rowDTOs) {
+
+        String action = null;
+        for (RowDTO rowDTO : rowDTOs) {
+            if (XACMLScopeValidatorConstants.ACTION_CATEGORY.equals(rowDTO.getCategory())
+                    && XACMLScopeValidatorConstants.AUTH_ACTION_ID.equals(rowDTO.getAttributeId())) {
+                action = rowDTO.getAttributeValue();
+                break;
+            }
+        }
+        if (action == null) {
+            return null;
+        }
+        return getInstance(action).buildRequest(rowDTOs);
+    }
+
+    /**
+     * Get the template of the given action.
+     *
+     * @param action Scope validation action.
+     * @return Request template.
+     */
+    public static XACMLRequestTemplate getInstance(String action) {
+
+        XACMLRequestTemplate template = templates.get(action);
+        if (template == null) {
+            template = new XACMLRequestTemplate(action);
+            if (templates.size() < MAX_CACHED_TEMPLATES) {
+                templates.put(action, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Build the XACML request with the given attributes.
+     *
+     * @param rowDTOs Attributes of the XACML request, including the action of this template.
+     * @return XACML request, or null if the attributes cannot be filled into the template. The request should then be
+     * built with the policy builder.
+     */
+    public String buildRequest(List<RowDTO> rowDTOs) {
+
+        Map<String, List<RowDTO>> rowDTOsByCategory = new LinkedHashMap<>();
+        for (RowDTO rowDTO : rowDTOs) {
+            if (!EntitlementPolicyConstants.STRING_DATA_TYPE.equals(rowDTO.getAttributeDataType())
+                    || rowDTO.getCategory() == null || rowDTO.getAttributeId() == null) {
+                return null;
+            }
+            if (XACMLScopeValidatorConstants.ACTION_CATEGORY.equals(rowDTO.getCategory())) {
+                if (XACMLScopeValidatorConstants.AUTH_ACTION_ID.equals(rowDTO.getAttributeId())
+                        && action.equals(rowDTO.getAttributeValue())) {
+                    continue;
+                }
+                return null;
+            }
+            if (rowDTO.getAttributeValue() == null) {
+                continue;
+            }
+            rowDTOsByCategory.computeIfAbsent(rowDTO.getCategory(), category -> new ArrayList<>()).add(rowDTO);
+        }
+
+        StringBuilder request = new StringBuilder(requestStart.length() + rowDTOs.size() * 192);
+        request.append(requestStart);
+        for (Map.Entry<String, List<RowDTO>> entry : rowDTOsByCategory.entrySet()) {
+            request.append(getAttributesStartTag(entry.getKey()));
+            for (RowDTO rowDTO : entry.getValue()) {
+                request.append(getAttributeStartTag(rowDTO.getAttributeId()));
+                appendEscaped(request, rowDTO.getAttributeValue());
+                request.append(ATTRIBUTE_END);
+            }
+            request.append(ATTRIBUTES_END);
+        }
+        return request.append(REQUEST_END).toString();
+    }
+
+    private static String getAttributesStartTag(String category) {
+
+        return "<Attributes Category=\"" + escape(category) + "\">";
+    }
+
+    private static String getAttributeStartTag(String attributeId) {
+
+        String startTag = attributeStartTags.get(attributeId);
+        if (startTag == null) {
+            startTag = "<Attribute AttributeId=\"" + escape(attributeId) + "\" IncludeInResult=\"false\">"
+                    + "<AttributeValue DataType=\"" + EntitlementPolicyConstants.STRING_DATA_TYPE + "\">";
+            // Attribute ids of user claims are not known in advance, so the number of cached start tags is bounded.
+            if (attributeStartTags.size() < MAX_CACHED_ATTRIBUTES) {
+                attributeStartTags.put(attributeId, startTag);
+            }
+        }
+        return startTag;
+    }
+
+    private static String escape(String value) {
+
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        appendEscaped(escaped, value);
+        return escaped.toString();
+    }
+
+    private static void appendEscaped(StringBuilder builder, String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                case '\'':
+                    builder.append("&apos;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+}
@@ -30,6 +30,8 @@ public class XACMLScopeValidatorConstants {
     public static final String ACTION_SCOPE_VALIDATE = "scope_validation";
     public static final String RULE_EFFECT_PERMIT = "Permit";
     public static final String RULE_EFFECT_NOT_APPLICABLE = "NotApplicable";
+    public static final String RULE_EFFECT_DENY = "Deny";
+    public static final String RULE_EFFECT_INDETERMINATE = "Indeterminate";
 
     public static final String ACTION_CATEGORY = "http://wso2.org/identity/identity-action";
     public static final String SP_CATEGORY = "http://wso2.org/identity/sp";
@@ -44,4 +46,14 @@ public class XACMLScopeValidatorConstants {
     public static final String USER_TENANT_DOMAIN_ID = USER_CATEGORY + "/user-tenant-domain";
     public static final String SCOPE_ID = SCOPE_CATEGORY + "/scope-name";
     public static final String USER_TYPE_ID = USER_CATEGORY + "/user-type";
+
+    // Cached decisions are keyed by the request attributes only. Attributes resolved by PIPs, such as the roles of the
+    // user, are not part of the key, so a role change takes effect when the decision expires. Policy changes only
+    // invalidate the decisions cached on the node where the policy was changed.
+    public static final String DECISION_CACHE_ENABLE = "OAuth.XACMLScopeValidator.DecisionCache.Enable";
+    public static final String DECISION_CACHE_TIME_TO_LIVE = "OAuth.XACMLScopeValidator.DecisionCache.TimeToLive";
+    // Time to live of cached decisions in seconds.
+    public static final long DEFAULT_DECISION_CACHE_TIME_TO_LIVE = 300;
+    public static final long MAX_DECISION_CACHE_TIME_TO_LIVE = 3600;
+    public static final String IN_PROCESS_EVALUATION_ENABLE = "OAuth.XACMLScopeValidator.InProcessEvaluation.Enable";
 }
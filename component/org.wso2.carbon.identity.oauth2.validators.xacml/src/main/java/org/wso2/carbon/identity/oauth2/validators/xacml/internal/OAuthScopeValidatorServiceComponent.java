@@ -24,10 +24,13 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.entitlement.EntitlementService;
+import org.wso2.carbon.identity.oauth2.validators.xacml.cache.XACMLDecisionCache;
+import org.wso2.carbon.identity.oauth2.validators.xacml.util.XACMLScopeValidatorConfig;
 
 /**
  * Service component for the XACML based scope validator component.
@@ -44,11 +47,22 @@ public class OAuthScopeValidatorServiceComponent {
     @Activate
     protected void activate(ComponentContext ctxt) {
 
+        XACMLScopeValidatorConfig.reload();
         if (log.isDebugEnabled()) {
             log.debug("Application XACML based scope validator bundle is activated.");
         }
     }
 
+    @Deactivate
+    protected void deactivate(ComponentContext ctxt) {
+
+        XACMLScopeValidatorConfig.clear();
+        XACMLDecisionCache.getInstance().invalidate();
+        if (log.isDebugEnabled()) {
+            log.debug("Application XACML based scope validator bundle is deactivated.");
+        }
+    }
+
     @Reference(
             name = "identity.entitlement.service",
             service = EntitlementService.class,
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.pdp;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.XACMLConstants;
+import org.wso2.balana.attr.StringAttribute;
+import org.wso2.balana.ctx.AbstractResult;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.ResponseCtx;
+import org.wso2.balana.ctx.xacml3.RequestCtx;
+import org.wso2.balana.xacml3.Attributes;
+import org.wso2.carbon.identity.entitlement.common.EntitlementPolicyConstants;
+import org.wso2.carbon.identity.entitlement.common.dto.RowDTO;
+import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates XACML requests with the PDP of the current tenant, passing the attributes as typed objects instead of
+ * serializing the request to XML and parsing the XML response.
+ */
+public class InProcessXACMLEvaluator {
+
+    private static final Log log = LogFactory.getLog(InProcessXACMLEvaluator.class);
+    private static final InProcessXACMLEvaluator instance = new InProcessXACMLEvaluator();
+
+    private InProcessXACMLEvaluator() {
+
+    }
+
+    public static InProcessXACMLEvaluator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Evaluate the request built from the given attributes.
+     *
+     * @param rowDTOs Attributes of the XACML request.
+     * @return Decision of the XACML response, or null if the request cannot be evaluated in-process. The request
+     * should then be evaluated through the entitlement service.
+     */
+    public String evaluate(List<RowDTO> rowDTOs) {
+
+        RequestCtx requestCtx = createRequestCtx(rowDTOs);
+        if (requestCtx == null) {
+            return null;
+        }
+        try {
+            EntitlementEngine entitlementEngine = EntitlementEngine.getInstance();
+            if (entitlementEngine == null) {
+                return null;
+            }
+            return getDecision(entitlementEngine.evaluateByContext(requestCtx));
+        } catch (RuntimeException e) {
+            log.warn("Error occurred while evaluating the XACML request in-process. Evaluating it through the "
+                    + "entitlement service.");
+            if (log.isDebugEnabled()) {
+                log.debug("Error occurred while evaluating the XACML request in-process.", e);
+            }
+            return null;
+        }
+    }
+
+    private RequestCtx createRequestCtx(List<RowDTO> rowDTOs) {
+
+        Map<String, Set<Attribute>> attributesByCategory = new LinkedHashMap<>();
+        for (RowDTO rowDTO : rowDTOs) {
+            if (!EntitlementPolicyConstants.STRING_DATA_TYPE.equals(rowDTO.getAttributeDataType())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Attribute data type: " + rowDTO.getAttributeDataType() + " of attribute: "
+                            + rowDTO.getAttributeId() + " is not supported for in-process evaluation.");
+                }
+                return null;
+            }
+            if (rowDTO.getAttributeValue() == null) {
+                continue;
+            }
+            Attribute attribute = new Attribute(URI.create(rowDTO.getAttributeId()), null, null,
+                    new StringAttribute(rowDTO.getAttributeValue()), false, XACMLConstants.XACML_VERSION_3_0);
+            attributesByCategory.computeIfAbsent(rowDTO.getCategory(), category -> new HashSet<>()).add(attribute);
+        }
+
+        Set<Attributes> attributesSet = new HashSet<>();
+        for (Map.Entry<String, Set<Attribute>> entry : attributesByCategory.entrySet()) {
+            attributesSet.add(new Attributes(URI.create(entry.getKey()), null, entry.getValue(), null));
+        }
+        return new RequestCtx(attributesSet, null);
+    }
+
+    private String getDecision(ResponseCtx responseCtx) {
+
+        Iterator<AbstractResult> results = responseCtx.getResults().iterator();
+        if (!results.hasNext()) {
+            return XACMLScopeValidatorConstants.RULE_EFFECT_INDETERMINATE;
+        }
+        switch (results.next().getDecision()) {
+            case AbstractResult.DECISION_PERMIT:
+                return XACMLScopeValidatorConstants.RULE_EFFECT_PERMIT;
+            case AbstractResult.DECISION_DENY:
+                return XACMLScopeValidatorConstants.RULE_EFFECT_DENY;
+            case AbstractResult.DECISION_NOT_APPLICABLE:
+                return XACMLScopeValidatorConstants.RULE_EFFECT_NOT_APPLICABLE;
+            default:
+                return XACMLScopeValidatorConstants.RULE_EFFECT_INDETERMINATE;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Settings of the XACML scope validator in identity.xml: the decision cache and the in-process PDP evaluation.
+ */
+public final class XACMLScopeValidatorConfig {
+
+    private static final Log log = LogFactory.getLog(XACMLScopeValidatorConfig.class);
+
+    private static volatile XACMLScopeValidatorConfig instance;
+
+    private final boolean decisionCacheEnabled;
+    private final long decisionCacheTimeToLive;
+    private final boolean inProcessEvaluationEnabled;
+
+    XACMLScopeValidatorConfig(Function<String, String> properties) {
+
+        this.decisionCacheEnabled = Boolean.parseBoolean(
+                properties.apply(XACMLScopeValidatorConstants.DECISION_CACHE_ENABLE));
+        this.decisionCacheTimeToLive = TimeUnit.SECONDS.toMillis(readDecisionCacheTimeToLive(properties));
+        this.inProcessEvaluationEnabled = Boolean.parseBoolean(
+                properties.apply(XACMLScopeValidatorConstants.IN_PROCESS_EVALUATION_ENABLE));
+    }
+
+    /**
+     * Get the validator settings. They are read from identity.xml on first use and reused until they are reloaded.
+     *
+     * @return Configuration snapshot.
+     */
+    public static XACMLScopeValidatorConfig getInstance() {
+
+        XACMLScopeValidatorConfig config = instance;
+        if (config == null) {
+            synchronized (XACMLScopeValidatorConfig.class) {
+                config = instance;
+                if (config == null) {
+                    config = new XACMLScopeValidatorConfig(IdentityUtil::getProperty);
+                    instance = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Read the settings from identity.xml again and use them for subsequent calls.
+     *
+     * @return Configuration snapshot.
+     */
+    public static XACMLScopeValidatorConfig reload() {
+
+        XACMLScopeValidatorConfig config = new XACMLScopeValidatorConfig(IdentityUtil::getProperty);
+        instance = config;
+        return config;
+    }
+
+    /**
+     * Discard the settings, so that they are read again on next use.
+     */
+    public static void clear() {
+
+        instance = null;
+    }
+
+    private static long readDecisionCacheTimeToLive(Function<String, String> properties) {
+
+        long timeToLive = XACMLScopeValidatorConstants.DEFAULT_DECISION_CACHE_TIME_TO_LIVE;
+        String configuredTimeToLive = properties.apply(XACMLScopeValidatorConstants.DECISION_CACHE_TIME_TO_LIVE);
+        if (StringUtils.isNotBlank(configuredTimeToLive)) {
+            try {
+                timeToLive = Long.parseLong(configuredTimeToLive.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + configuredTimeToLive + " configured for "
+                        + XACMLScopeValidatorConstants.DECISION_CACHE_TIME_TO_LIVE + ". Using the default value: "
+                        + timeToLive);
+            }
+        }
+        if (timeToLive > XACMLScopeValidatorConstants.MAX_DECISION_CACHE_TIME_TO_LIVE) {
+            log.warn("Value configured for " + XACMLScopeValidatorConstants.DECISION_CACHE_TIME_TO_LIVE
+                    + " exceeds the maximum. Using the maximum value: "
+                    + XACMLScopeValidatorConstants.MAX_DECISION_CACHE_TIME_TO_LIVE);
+            timeToLive = XACMLScopeValidatorConstants.MAX_DECISION_CACHE_TIME_TO_LIVE;
+        }
+        return Math.max(timeToLive, 0);
+    }
+
+    /**
+     * Whether XACML decisions are cached. Decisions are not cached when the time to live is not positive. A cached
+     * decision is served until it expires even if the roles or other PIP-resolved attributes of the user change, and
+     * a policy change on another node does not invalidate it, hence the time to live bounds how long both stay stale.
+     *
+     * @return Whether XACML decisions are cached.
+     */
+    public boolean isDecisionCacheEnabled() {
+
+        return decisionCacheEnabled && decisionCacheTimeToLive > 0;
+    }
+
+    /**
+     * @return Time to live of cached XACML decisions in milliseconds.
+     */
+    public long getDecisionCacheTimeToLive() {
+
+        return decisionCacheTimeToLive;
+    }
+
+    /**
+     * @return Whether XACML requests are evaluated by the in-process PDP without serializing them to XML.
+     */
+    public boolean isInProcessEvaluationEnabled() {
+
+        return inProcessEvaluationEnabled;
+    }
+}
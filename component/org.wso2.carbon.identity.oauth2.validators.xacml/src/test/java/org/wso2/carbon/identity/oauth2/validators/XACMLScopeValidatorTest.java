@@ -38,6 +38,7 @@ import org.wso2.carbon.identity.common.testng.WithCarbonHome;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.EntitlementService;
 import org.wso2.carbon.identity.entitlement.common.dto.RequestDTO;
+import org.wso2.carbon.identity.entitlement.common.dto.RowDTO;
 import org.wso2.carbon.identity.entitlement.common.util.PolicyCreatorUtil;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
@@ -55,6 +56,8 @@ import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeVali
 import org.wso2.carbon.identity.oauth2.validators.xacml.internal.OAuthScopeValidatorDataHolder;
 import org.wso2.carbon.identity.testutil.IdentityBaseTest;
 
+import java.util.List;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.powermock.api.mockito.PowerMockito.mock;
@@ -158,8 +161,9 @@ public class XACMLScopeValidatorTest {
         when(PolicyBuilder.getInstance()).thenReturn(policyBuilder);
         when(policyBuilder.buildRequest(any(RequestElementDTO.class))).thenReturn(POLICY);
         mockAuthorizationGrantCache();
-        String request = WhiteboxImpl.invokeMethod(xacmlScopeValidator,
-                "createRequest", scopes, authenticatedUser, authApp, action, resource, token);
+        List<RowDTO> rowDTOs = WhiteboxImpl.invokeMethod(xacmlScopeValidator,
+                "createRowDTOs", scopes, authenticatedUser, authApp, action, resource, token);
+        String request = WhiteboxImpl.invokeMethod(xacmlScopeValidator, "createRequest", rowDTOs, authenticatedUser);
         assertTrue(!request.isEmpty());
     }
 
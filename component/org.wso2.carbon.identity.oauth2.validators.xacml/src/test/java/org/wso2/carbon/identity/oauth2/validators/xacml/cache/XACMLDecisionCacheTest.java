@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.cache;
+
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for XACMLDecisionCache class.
+ */
+@WithCarbonHome
+public class XACMLDecisionCacheTest {
+
+    private static final String CACHE_KEY = "cache-key";
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+
+    private XACMLDecisionCache decisionCache;
+    private AtomicInteger evaluations;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        decisionCache = XACMLDecisionCache.getInstance();
+        decisionCache.invalidate();
+        evaluations = new AtomicInteger();
+    }
+
+    @Test
+    public void testDecisionIsCached() throws Exception {
+
+        assertTrue(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::permit));
+        assertTrue(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::permit));
+        assertFalse(decisionCache.getDecision("other-cache-key", TIME_TO_LIVE, this::deny));
+        assertFalse(decisionCache.getDecision("other-cache-key", TIME_TO_LIVE, this::deny));
+        assertEquals(evaluations.get(), 2);
+    }
+
+    @Test
+    public void testExpiredDecisionIsEvaluated() throws Exception {
+
+        assertTrue(decisionCache.getDecision(CACHE_KEY, -1, this::permit));
+        assertFalse(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::deny));
+        assertEquals(evaluations.get(), 2);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        long policyVersion = decisionCache.getPolicyVersion();
+        assertTrue(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::permit));
+        decisionCache.invalidate();
+        assertEquals(decisionCache.getPolicyVersion(), policyVersion + 1);
+        assertFalse(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::deny));
+        assertEquals(evaluations.get(), 2);
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+
+        try {
+            decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, () -> {
+                evaluations.incrementAndGet();
+                throw new IdentityOAuth2Exception("error");
+            });
+            fail("Evaluation failure is not propagated.");
+        } catch (IdentityOAuth2Exception e) {
+            assertEquals(e.getMessage(), "error");
+        }
+        assertTrue(decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE, this::permit));
+        assertEquals(evaluations.get(), 2);
+    }
+
+    @Test
+    public void testConcurrentEvaluationsAreCoalesced() throws Exception {
+
+        CountDownLatch evaluationStarted = new CountDownLatch(1);
+        CountDownLatch releaseEvaluation = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> leader = executorService.submit(() -> decisionCache.getDecision(CACHE_KEY, TIME_TO_LIVE,
+                    () -> {
+                        evaluations.incrementAndGet();
+                        evaluationStarted.countDown();
+                        try {
+                            releaseEvaluation.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return true;
+                    }));
+            assertTrue(evaluationStarted.await(10, TimeUnit.SECONDS));
+
+            // The follower either waits for the ongoing evaluation or reads its cached decision.
+            Future<Boolean> follower = executorService.submit(() -> decisionCache.getDecision(CACHE_KEY,
+                    TIME_TO_LIVE, this::deny));
+            releaseEvaluation.countDown();
+            assertTrue(leader.get(10, TimeUnit.SECONDS));
+            assertTrue(follower.get(10, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(evaluations.get(), 1);
+    }
+
+    private boolean permit() {
+
+        evaluations.incrementAndGet();
+        return true;
+    }
+
+    private boolean deny() {
+
+        evaluations.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.codec;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.builder.StAXOMBuilder;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for XACMLDecisionExtractor class, with a benchmark against the AXIOM XPath based extraction it replaces.
+ * The benchmark is in the "benchmark" group, which testng.xml excludes. Run it with
+ * {@code mvn test -Dtest=XACMLDecisionExtractorTest -Dgroups=benchmark}.
+ */
+public class XACMLDecisionExtractorTest {
+
+    private static final Log log = LogFactory.getLog(XACMLDecisionExtractorTest.class);
+    private static final String XACML3_NS = "urn:oasis:names:tc:xacml:3.0:core:schema:wd-17";
+    private static final int BENCHMARK_ITERATIONS = 2000;
+
+    private static final String PERMIT_RESPONSE = "<Response xmlns=\"" + XACML3_NS + "\">"
+            + "<Result><Decision>Permit</Decision>"
+            + "<Status><StatusCode Value=\"urn:oasis:names:tc:xacml:1.0:status:ok\"/></Status>"
+            + "</Result></Response>";
+    private static final String PREFIXED_DENY_RESPONSE = "<ns:Response xmlns:ns=\"" + XACML3_NS + "\">"
+            + "<ns:Result><ns:Decision>Deny</ns:Decision>"
+            + "<ns:Status><ns:StatusCode Value=\"urn:oasis:names:tc:xacml:1.0:status:ok\"/></ns:Status>"
+            + "<ns:Obligations><ns:Obligation ObligationId=\"fail_to_permit\">"
+            + "<ns:AttributeAssignment AttributeId=\"urn:oasis:names:tc:xacml:2.0:example:attribute:text\" "
+            + "DataType=\"http://www.w3.org/2001/XMLSchema#string\">Scope is not permitted</ns:AttributeAssignment>"
+            + "</ns:Obligation></ns:Obligations>"
+            + "</ns:Result></ns:Response>";
+    private static final String NOT_APPLICABLE_RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<Response xmlns=\"" + XACML3_NS + "\">\n"
+            + "  <Result>\n"
+            + "    <Decision>NotApplicable</Decision>\n"
+            + "    <Status>\n"
+            + "      <StatusCode Value=\"urn:oasis:names:tc:xacml:1.0:status:ok\"/>\n"
+            + "    </Status>\n"
+            + "  </Result>\n"
+            + "</Response>";
+    private static final String MULTIPLE_RESULTS_RESPONSE = "<Response xmlns=\"" + XACML3_NS + "\">"
+            + "<Result><Decision>Indeterminate</Decision><Status><StatusCode "
+            + "Value=\"urn:oasis:names:tc:xacml:1.0:status:processing-error\"/></Status></Result>"
+            + "<Result><Decision>Permit</Decision></Result></Response>";
+    private static final String FOREIGN_DECISION_RESPONSE = "<Response xmlns=\"" + XACML3_NS + "\">"
+            + "<Decision>Permit</Decision>"
+            + "<Result><Status><Decision xmlns=\"urn:example\">Permit</Decision></Status></Result>"
+            + "</Response>";
+
+    @DataProvider(name = "responseProvider")
+    public Object[][] responseProvider() {
+
+        return new Object[][]{
+                {PERMIT_RESPONSE, "Permit"},
+                {PREFIXED_DENY_RESPONSE, "Deny"},
+                {NOT_APPLICABLE_RESPONSE, "NotApplicable"},
+                {MULTIPLE_RESULTS_RESPONSE, "Indeterminate"},
+                {FOREIGN_DECISION_RESPONSE, ""}
+        };
+    }
+
+    @Test(dataProvider = "responseProvider")
+    public void testExtractDecision(String response, String expectedDecision) throws Exception {
+
+        assertEquals(XACMLDecisionExtractor.extractDecision(response), expectedDecision);
+        assertEquals(XACMLDecisionExtractor.extractDecision(response), extractDecisionWithXPath(response));
+    }
+
+    @Test(expectedExceptions = XMLStreamException.class)
+    public void testExtractDecisionFromMalformedResponse() throws Exception {
+
+        XACMLDecisionExtractor.extractDecision("<Response xmlns=\"" + XACML3_NS + "\"><Result>");
+    }
+
+    @Test(groups = "benchmark")
+    public void testBenchmarkAgainstXPath() throws Exception {
+
+        String[] responses = new String[]{PERMIT_RESPONSE, PREFIXED_DENY_RESPONSE, NOT_APPLICABLE_RESPONSE,
+                MULTIPLE_RESULTS_RESPONSE};
+        // Warm up both implementations before measuring.
+        runStreamingExtraction(responses);
+        runXPathExtraction(responses);
+
+        long streamingTime = runStreamingExtraction(responses);
+        long xpathTime = runXPathExtraction(responses);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Extracted decisions of %d responses. Streaming reader: %d ms, AXIOM XPath: %d ms.",
+                    BENCHMARK_ITERATIONS * responses.length, TimeUnit.NANOSECONDS.toMillis(streamingTime),
+                    TimeUnit.NANOSECONDS.toMillis(xpathTime)));
+        }
+    }
+
+    private long runStreamingExtraction(String[] responses) throws Exception {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (String response : responses) {
+                XACMLDecisionExtractor.extractDecision(response);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runXPathExtraction(String[] responses) throws Exception {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (String response : responses) {
+                extractDecisionWithXPath(response);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private String extractDecisionWithXPath(String response) throws Exception {
+
+        AXIOMXPath axiomxPath = new AXIOMXPath(XACMLScopeValidatorConstants.DECISION_XPATH);
+        axiomxPath.addNamespace(XACMLScopeValidatorConstants.XACML_NS_PREFIX, XACML3_NS);
+        OMElement rootElement = new StAXOMBuilder(new ByteArrayInputStream(response.getBytes(StandardCharsets
+                .UTF_8))).getDocumentElement();
+        return axiomxPath.stringValueOf(rootElement);
+    }
+}
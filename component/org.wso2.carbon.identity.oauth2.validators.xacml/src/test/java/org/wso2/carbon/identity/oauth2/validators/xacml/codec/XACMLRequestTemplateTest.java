@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.codec;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.entitlement.common.EntitlementPolicyConstants;
+import org.wso2.carbon.identity.entitlement.common.dto.RowDTO;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for XACMLRequestTemplate class.
+ */
+public class XACMLRequestTemplateTest {
+
+    private static final String STRING_DATA_TYPE = EntitlementPolicyConstants.STRING_DATA_TYPE;
+
+    @Test
+    public void testCreateRequest() {
+
+        List<RowDTO> rowDTOs = new ArrayList<>();
+        rowDTOs.add(createRowDTO(XACMLScopeValidatorConstants.ACTION_VALIDATE,
+                XACMLScopeValidatorConstants.AUTH_ACTION_ID, XACMLScopeValidatorConstants.ACTION_CATEGORY));
+        rowDTOs.add(createRowDTO("admin<&>\"'", XACMLScopeValidatorConstants.USERNAME_ID,
+                XACMLScopeValidatorConstants.USER_CATEGORY));
+        rowDTOs.add(createRowDTO(null, EntitlementPolicyConstants.RESOURCE_ID,
+                "urn:oasis:names:tc:xacml:3.0:attribute-category:resource"));
+        rowDTOs.add(createRowDTO("scope1", XACMLScopeValidatorConstants.SCOPE_ID,
+                XACMLScopeValidatorConstants.SCOPE_CATEGORY));
+        rowDTOs.add(createRowDTO("LOCAL", XACMLScopeValidatorConstants.USER_TYPE_ID,
+                XACMLScopeValidatorConstants.USER_CATEGORY));
+        rowDTOs.add(createRowDTO("scope2", XACMLScopeValidatorConstants.SCOPE_ID,
+                XACMLScopeValidatorConstants.SCOPE_CATEGORY));
+
+        String expectedRequest = "<Request xmlns=\"" + EntitlementPolicyConstants.REQ_RES_CONTEXT_XACML3
+                + "\" CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">"
+                + "<Attributes Category=\"" + XACMLScopeValidatorConstants.ACTION_CATEGORY + "\">"
+                + attribute(XACMLScopeValidatorConstants.AUTH_ACTION_ID, XACMLScopeValidatorConstants.ACTION_VALIDATE)
+                + "</Attributes>"
+                + "<Attributes Category=\"" + XACMLScopeValidatorConstants.USER_CATEGORY + "\">"
+                + attribute(XACMLScopeValidatorConstants.USERNAME_ID, "admin&lt;&amp;&gt;&quot;&apos;")
+                + attribute(XACMLScopeValidatorConstants.USER_TYPE_ID, "LOCAL")
+                + "</Attributes>"
+                + "<Attributes Category=\"" + XACMLScopeValidatorConstants.SCOPE_CATEGORY + "\">"
+                + attribute(XACMLScopeValidatorConstants.SCOPE_ID, "scope1")
+                + attribute(XACMLScopeValidatorConstants.SCOPE_ID, "scope2")
+                + "</Attributes>"
+                + "</Request>";
+        assertEquals(XACMLRequestTemplate.createRequest(rowDTOs), expectedRequest);
+    }
+
+    @Test
+    public void testCreateRequestWithUnsupportedAttributes() {
+
+        List<RowDTO> rowDTOs = new ArrayList<>();
+        assertNull(XACMLRequestTemplate.createRequest(rowDTOs));
+
+        rowDTOs.add(createRowDTO(XACMLScopeValidatorConstants.ACTION_SCOPE_VALIDATE,
+                XACMLScopeValidatorConstants.AUTH_ACTION_ID, XACMLScopeValidatorConstants.ACTION_CATEGORY));
+        rowDTOs.add(createRowDTO(XACMLScopeValidatorConstants.ACTION_VALIDATE,
+                XACMLScopeValidatorConstants.AUTH_ACTION_ID, XACMLScopeValidatorConstants.ACTION_CATEGORY));
+        assertNull(XACMLRequestTemplate.createRequest(rowDTOs));
+
+        rowDTOs.remove(1);
+        RowDTO rowDTO = createRowDTO("1", XACMLScopeValidatorConstants.SCOPE_ID,
+                XACMLScopeValidatorConstants.SCOPE_CATEGORY);
+        rowDTO.setAttributeDataType("http://www.w3.org/2001/XMLSchema#integer");
+        rowDTOs.add(rowDTO);
+        assertNull(XACMLRequestTemplate.createRequest(rowDTOs));
+    }
+
+    private String attribute(String attributeId, String value) {
+
+        return "<Attribute AttributeId=\"" + attributeId + "\" IncludeInResult=\"false\">"
+                + "<AttributeValue DataType=\"" + STRING_DATA_TYPE + "\">" + value + "</AttributeValue></Attribute>";
+    }
+
+    private RowDTO createRowDTO(String value, String attributeId, String category) {
+
+        RowDTO rowDTO = new RowDTO();
+        rowDTO.setAttributeValue(value);
+        rowDTO.setAttributeDataType(STRING_DATA_TYPE);
+        rowDTO.setAttributeId(attributeId);
+        rowDTO.setCategory(category);
+        return rowDTO;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.xacml.pdp;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.IObjectFactory;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.balana.ctx.AbstractResult;
+import org.wso2.balana.ctx.ResponseCtx;
+import org.wso2.balana.ctx.xacml3.RequestCtx;
+import org.wso2.carbon.identity.entitlement.common.EntitlementPolicyConstants;
+import org.wso2.carbon.identity.entitlement.common.dto.RowDTO;
+import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
+import org.wso2.carbon.identity.oauth2.validators.xacml.constants.XACMLScopeValidatorConstants;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for InProcessXACMLEvaluator class.
+ */
+@PrepareForTest({EntitlementEngine.class})
+public class InProcessXACMLEvaluatorTest {
+
+    private static final String SCOPE = "scope1";
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new PowerMockObjectFactory();
+    }
+
+    @DataProvider(name = "decisionProvider")
+    public Object[][] decisionProvider() {
+
+        return new Object[][]{
+                {AbstractResult.DECISION_PERMIT, XACMLScopeValidatorConstants.RULE_EFFECT_PERMIT},
+                {AbstractResult.DECISION_DENY, XACMLScopeValidatorConstants.RULE_EFFECT_DENY},
+                {AbstractResult.DECISION_NOT_APPLICABLE, XACMLScopeValidatorConstants.RULE_EFFECT_NOT_APPLICABLE},
+                {AbstractResult.DECISION_INDETERMINATE, XACMLScopeValidatorConstants.RULE_EFFECT_INDETERMINATE}
+        };
+    }
+
+    @Test(dataProvider = "decisionProvider")
+    public void testEvaluate(int decision, String expectedDecision) {
+
+        AbstractResult result = mock(AbstractResult.class);
+        when(result.getDecision()).thenReturn(decision);
+        ResponseCtx responseCtx = new ResponseCtx(result);
+        EntitlementEngine entitlementEngine = mockEntitlementEngine();
+        when(entitlementEngine.evaluateByContext(any(RequestCtx.class))).thenReturn(responseCtx);
+
+        assertEquals(InProcessXACMLEvaluator.getInstance().evaluate(createRowDTOs(
+                EntitlementPolicyConstants.STRING_DATA_TYPE)), expectedDecision);
+    }
+
+    @Test
+    public void testEvaluateWithUnsupportedDataType() {
+
+        mockEntitlementEngine();
+        assertNull(InProcessXACMLEvaluator.getInstance().evaluate(createRowDTOs(
+                "http://www.w3.org/2001/XMLSchema#integer")));
+    }
+
+    @Test
+    public void testEvaluateWithEngineError() {
+
+        EntitlementEngine entitlementEngine = mockEntitlementEngine();
+        when(entitlementEngine.evaluateByContext(any(RequestCtx.class))).thenThrow(new IllegalStateException());
+
+        assertNull(InProcessXACMLEvaluator.getInstance().evaluate(createRowDTOs(
+                EntitlementPolicyConstants.STRING_DATA_TYPE)));
+    }
+
+    private EntitlementEngine mockEntitlementEngine() {
+
+        EntitlementEngine entitlementEngine = mock(EntitlementEngine.class);
+        mockStatic(EntitlementEngine.class);
+        when(EntitlementEngine.getInstance()).thenReturn(entitlementEngine);
+        return entitlementEngine;
+    }
+
+    private List<RowDTO> createRowDTOs(String dataType) {
+
+        RowDTO rowDTO = new RowDTO();
+        rowDTO.setAttributeValue(SCOPE);
+        rowDTO.setAttributeDataType(dataType);
+        rowDTO.setAttributeId(XACMLScopeValidatorConstants.SCOPE_ID);
+        rowDTO.setCategory(XACMLScopeValidatorConstants.SCOPE_CATEGORY);
+        return Collections.singletonList(rowDTO);
+    }
+}